@@ -0,0 +1,78 @@
+#!/bin/sh
+#
+# Compiles TARDIS together with the bench source folder and runs the
+# benchmarks. Usage:
+#
+#   bench/run-benchmarks.sh run <results.csv> [<regexp>]
+#   bench/run-benchmarks.sh compare <baseline.csv> <results.csv> [<tolerance percent>]
+#   bench/run-benchmarks.sh end-to-end run <results directory> [<TARDIS options>]
+#   bench/run-benchmarks.sh end-to-end compare <baseline directory> <results directory>
+#
+# The first two forms run tardis.Benchmarks (the JMH microbenchmarks),
+# the last two tardis.EndToEndBenchmarks. Environment:
+#
+#   TARDIS_CLASSPATH  the classpath of the dependencies of TARDIS that
+#                     are not in lib, i.e., JBSE, the SUSHI library and
+#                     EvoSuite (required).
+#   JMH_LIB           the directory with the JMH jars (default: bench/lib).
+#                     The missing jars are downloaded from Maven Central.
+#   JAVA_HOME         the JDK used to compile and run (default: the JDK
+#                     in the PATH).
+#   TARDIS_OPTIONS    the TARDIS options needed to create JBSE states
+#                     in the microbenchmarks, e.g., the path of the JBSE
+#                     library (see tardis.Benchmarks).
+#   JAVA_OPTS         further options of the JVM that runs the benchmarks.
+
+set -e
+
+JMH_VERSION=1.37
+JOPT_SIMPLE_VERSION=5.0.4
+COMMONS_MATH3_VERSION=3.6.1
+MAVEN_CENTRAL=https://repo1.maven.org/maven2
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JMH_LIB=${JMH_LIB:-$ROOT/bench/lib}
+BUILD=$ROOT/bench/build
+if [ -n "$JAVA_HOME" ]; then
+	JAVA=$JAVA_HOME/bin/java
+	JAVAC=$JAVA_HOME/bin/javac
+else
+	JAVA=java
+	JAVAC=javac
+fi
+
+if [ -z "$TARDIS_CLASSPATH" ]; then
+	echo "Please set TARDIS_CLASSPATH to the classpath of JBSE, of the SUSHI library and of EvoSuite." >&2
+	exit 1
+fi
+
+#downloads the missing JMH jars
+fetch() {
+	if [ ! -f "$JMH_LIB/$2-$3.jar" ]; then
+		echo "Downloading $1:$2:$3 to $JMH_LIB"
+		mkdir -p "$JMH_LIB"
+		curl -fsSL -o "$JMH_LIB/$2-$3.jar" "$MAVEN_CENTRAL/$(echo "$1" | tr . /)/$2/$3/$2-$3.jar"
+	fi
+}
+fetch org.openjdk.jmh jmh-core $JMH_VERSION
+fetch org.openjdk.jmh jmh-generator-annprocess $JMH_VERSION
+fetch net.sf.jopt-simple jopt-simple $JOPT_SIMPLE_VERSION
+fetch org.apache.commons commons-math3 $COMMONS_MATH3_VERSION
+JMH_CLASSPATH=$JMH_LIB/jmh-core-$JMH_VERSION.jar:$JMH_LIB/jopt-simple-$JOPT_SIMPLE_VERSION.jar:$JMH_LIB/commons-math3-$COMMONS_MATH3_VERSION.jar
+JMH_PROCESSOR_PATH=$JMH_CLASSPATH:$JMH_LIB/jmh-generator-annprocess-$JMH_VERSION.jar
+
+#compiles TARDIS and the benchmarks; the JMH annotation processor
+#generates the benchmark harnesses and the benchmark list
+CLASSPATH=$ROOT/lib/args4j-2.32.jar:$ROOT/lib/javaparser-core-3.4.0.jar:$TARDIS_CLASSPATH:$JMH_CLASSPATH
+rm -rf "$BUILD"
+mkdir -p "$BUILD/classes"
+find "$ROOT/src" "$ROOT/bench/tardis" -name '*.java' > "$BUILD/sources.txt"
+"$JAVAC" -g -encoding UTF-8 -cp "$CLASSPATH" -processorpath "$JMH_PROCESSOR_PATH" -d "$BUILD/classes" @"$BUILD/sources.txt"
+
+if [ "$1" = "end-to-end" ]; then
+	shift
+	MAIN=tardis.EndToEndBenchmarks
+else
+	MAIN=tardis.Benchmarks
+fi
+exec "$JAVA" $JAVA_OPTS -Dtardis.options="$TARDIS_OPTIONS" -Dtardis.samples="$ROOT/bench/samples" -cp "$BUILD/classes:$CLASSPATH" $MAIN "$@"
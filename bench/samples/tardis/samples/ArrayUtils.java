@@ -0,0 +1,51 @@
+package tardis.samples;
+
+/**
+ * Benchmark target: algorithms on arrays, with
+ * loops and branches on array lengths and contents.
+ */
+public class ArrayUtils {
+	public static int binarySearch(int[] a, int key) {
+		if (a == null) {
+			throw new IllegalArgumentException();
+		}
+		int low = 0;
+		int high = a.length - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (a[mid] < key) {
+				low = mid + 1;
+			} else if (a[mid] > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	public static boolean isSorted(int[] a) {
+		if (a == null) {
+			return false;
+		}
+		for (int i = 1; i < a.length; ++i) {
+			if (a[i - 1] > a[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static int countRuns(int[] a) {
+		if (a == null || a.length == 0) {
+			return 0;
+		}
+		int runs = 1;
+		for (int i = 1; i < a.length; ++i) {
+			if (a[i] != a[i - 1]) {
+				++runs;
+			}
+		}
+		return runs;
+	}
+}
@@ -0,0 +1,72 @@
+package tardis.samples;
+
+/**
+ * Benchmark target: a sorted linked list, with
+ * branches on the shape of heap data structures.
+ */
+public class SortedIntList {
+	private static final class Node {
+		int value;
+		Node next;
+	}
+
+	private Node head;
+	private int size;
+
+	public boolean add(int value) {
+		final Node node = new Node();
+		node.value = value;
+		if (this.head == null || this.head.value > value) {
+			node.next = this.head;
+			this.head = node;
+			++this.size;
+			return true;
+		}
+		Node current = this.head;
+		while (current.next != null && current.next.value <= value) {
+			current = current.next;
+		}
+		if (current.value == value) {
+			return false;
+		}
+		node.next = current.next;
+		current.next = node;
+		++this.size;
+		return true;
+	}
+
+	public boolean remove(int value) {
+		if (this.head == null) {
+			return false;
+		}
+		if (this.head.value == value) {
+			this.head = this.head.next;
+			--this.size;
+			return true;
+		}
+		for (Node current = this.head; current.next != null; current = current.next) {
+			if (current.next.value == value) {
+				current.next = current.next.next;
+				--this.size;
+				return true;
+			}
+			if (current.next.value > value) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	public boolean repOk() {
+		int count = 0;
+		for (Node current = this.head; current != null; current = current.next) {
+			if (current.next != null && current.value >= current.next.value) {
+				return false;
+			}
+			if (++count > this.size) {
+				return false;
+			}
+		}
+		return count == this.size;
+	}
+}
@@ -0,0 +1,35 @@
+package tardis.samples;
+
+/**
+ * Benchmark target: classification of triangles, with
+ * arithmetic branches on primitive inputs.
+ */
+public class Triangle {
+	public static final int INVALID = 0;
+	public static final int SCALENE = 1;
+	public static final int ISOSCELES = 2;
+	public static final int EQUILATERAL = 3;
+	public static final int RIGHT = 4;
+
+	public static int classify(int a, int b, int c) {
+		if (a <= 0 || b <= 0 || c <= 0) {
+			return INVALID;
+		}
+		if (a > 10_000 || b > 10_000 || c > 10_000) {
+			return INVALID;
+		}
+		if (a + b <= c || a + c <= b || b + c <= a) {
+			return INVALID;
+		}
+		if (a == b && b == c) {
+			return EQUILATERAL;
+		}
+		if (a == b || b == c || a == c) {
+			return ISOSCELES;
+		}
+		if (a * a + b * b == c * c || a * a + c * c == b * b || b * b + c * c == a * a) {
+			return RIGHT;
+		}
+		return SCALENE;
+	}
+}
@@ -0,0 +1,188 @@
+package tardis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH microbenchmarks of the hot paths of TARDIS, and
+ * compares their results with a baseline. The benchmarks are in the
+ * {@code bench} source folder, and need the JMH core and annotation
+ * processor jars (JMH 1.37) to be compiled and run. The script
+ * {@code bench/run-benchmarks.sh} downloads them, compiles TARDIS
+ * together with the benchmarks, and runs this class. Usage:
+ *
+ * <pre>
+ * java tardis.Benchmarks run &lt;results.csv&gt; [&lt;regexp&gt;]
+ * java tardis.Benchmarks compare &lt;baseline.csv&gt; &lt;results.csv&gt; [&lt;tolerance percent&gt;]
+ * </pre>
+ *
+ * The first form runs the benchmarks whose names match the regular
+ * expression (default: all), always with the same settings, and saves
+ * the results as a CSV file, to be kept as a baseline. The second form
+ * prints, for every benchmark, how much the results changed with respect
+ * to the baseline, and exits with status 1 if some benchmark got worse
+ * by more than both the tolerance (default: 10%) and the error margins.
+ * The TARDIS options needed to create JBSE states, e.g., the path of
+ * the JBSE library, go in the {@code tardis.options} system property.
+ */
+public final class Benchmarks {
+	private static final String BENCHMARKS = "tardis\\.implementation\\..*Benchmark";
+	private static final double DEFAULT_TOLERANCE_PERCENT = 10.0;
+
+	public static void main(String[] args) throws IOException, RunnerException {
+		if (args.length >= 2 && "run".equals(args[0])) {
+			run(args[1], (args.length >= 3 ? args[2] : BENCHMARKS));
+		} else if (args.length >= 3 && "compare".equals(args[0])) {
+			final double tolerancePercent = (args.length >= 4 ? Double.parseDouble(args[3]) : DEFAULT_TOLERANCE_PERCENT);
+			final boolean regression = compare(Paths.get(args[1]), Paths.get(args[2]), tolerancePercent);
+			System.exit(regression ? 1 : 0);
+		} else {
+			System.err.println("Usage: java " + Benchmarks.class.getName() + " run <results.csv> [<regexp>]");
+			System.err.println("       java " + Benchmarks.class.getName() + " compare <baseline.csv> <results.csv> [<tolerance percent>]");
+			System.exit(1);
+		}
+	}
+
+	private static void run(String resultsFile, String regexp) throws RunnerException {
+		final String tardisOptions = System.getProperty("tardis.options", "");
+		new Runner(new OptionsBuilder()
+				.include(regexp)
+				.forks(1)
+				.warmupIterations(5)
+				.warmupTime(TimeValue.seconds(1))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(1))
+				.jvmArgsAppend("-Dtardis.options=" + tardisOptions)
+				.resultFormat(ResultFormatType.CSV)
+				.result(resultsFile)
+				.build()).run();
+	}
+
+	/**
+	 * Compares the results of two runs.
+	 *
+	 * @param baselinePath the {@link Path} of the CSV file of the baseline.
+	 * @param resultsPath the {@link Path} of the CSV file of the results
+	 *        to compare with the baseline.
+	 * @param tolerancePercent a {@code double}, the change that is
+	 *        not considered a regression.
+	 * @return {@code true} iff some benchmark got worse.
+	 * @throws IOException if reading the files fails.
+	 */
+	private static boolean compare(Path baselinePath, Path resultsPath, double tolerancePercent) throws IOException {
+		final Map<String, Result> baseline = read(baselinePath);
+		final Map<String, Result> results = read(resultsPath);
+		boolean regression = false;
+		for (Map.Entry<String, Result> entry : results.entrySet()) {
+			final Result result = entry.getValue();
+			final Result base = baseline.get(entry.getKey());
+			if (base == null) {
+				System.out.println(String.format("%-70s %14.3f %s (new)", entry.getKey(), result.score, result.unit));
+				continue;
+			}
+			//in throughput mode higher is better, otherwise lower is better
+			final double change = (result.score - base.score) / base.score * 100.0;
+			final double worsening = (result.higherIsBetter() ? -change : change);
+			final boolean beyondErrors = Math.abs(result.score - base.score) > result.error + base.error;
+			final boolean worse = (worsening > tolerancePercent && beyondErrors);
+			final boolean better = (worsening < -tolerancePercent && beyondErrors);
+			regression = regression || worse;
+			System.out.println(String.format("%-70s %14.3f -> %14.3f %s %+7.1f%%%s", entry.getKey(), base.score, result.score, result.unit, change,
+					(worse ? "  WORSE" : better ? "  better" : "")));
+		}
+		for (String benchmark : baseline.keySet()) {
+			if (!results.containsKey(benchmark)) {
+				System.out.println(String.format("%-70s (missing)", benchmark));
+			}
+		}
+		return regression;
+	}
+
+	private static final class Result {
+		final String mode;
+		final double score;
+		final double error;
+		final String unit;
+
+		Result(String mode, double score, double error, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+		}
+
+		boolean higherIsBetter() {
+			return "thrpt".equals(this.mode);
+		}
+	}
+
+	/**
+	 * Reads a CSV file of results produced by JMH, whose columns are
+	 * the benchmark, the mode, the threads, the samples, the score,
+	 * the score error, the unit, and the parameters.
+	 *
+	 * @param path the {@link Path} of the file.
+	 * @return a {@link Map} from the benchmarks with their parameters
+	 *         to their {@link Result}s.
+	 * @throws IOException if reading the file fails.
+	 */
+	private static Map<String, Result> read(Path path) throws IOException {
+		final LinkedHashMap<String, Result> retVal = new LinkedHashMap<>();
+		try (final BufferedReader r = Files.newBufferedReader(path)) {
+			final List<String> header = fields(r.readLine());
+			for (String line = r.readLine(); line != null; line = r.readLine()) {
+				final List<String> fields = fields(line);
+				if (fields.size() < 7) {
+					continue;
+				}
+				final StringBuilder key = new StringBuilder(fields.get(0));
+				for (int i = 7; i < fields.size() && i < header.size(); ++i) {
+					key.append(" ").append(header.get(i).replace("Param: ", "")).append("=").append(fields.get(i));
+				}
+				final double error = (fields.get(5).isEmpty() || "NaN".equals(fields.get(5)) ? 0.0 : Double.parseDouble(fields.get(5)));
+				retVal.put(key.toString(), new Result(fields.get(1), Double.parseDouble(fields.get(4)), error, fields.get(6)));
+			}
+		}
+		return retVal;
+	}
+
+	private static List<String> fields(String line) {
+		final ArrayList<String> retVal = new ArrayList<>();
+		if (line == null) {
+			return retVal;
+		}
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); ++i) {
+			final char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					++i;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				retVal.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		retVal.add(field.toString());
+		return retVal;
+	}
+}
@@ -0,0 +1,257 @@
+package tardis;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Runs TARDIS on a fixed set of sample target classes with fixed
+ * seeds and budgets, recording for each of them the timeline of the
+ * run (see the {@code -timeline_file} option), and compares the
+ * timelines of two runs. Usage:
+ *
+ * <pre>
+ * java tardis.EndToEndBenchmarks run &lt;results directory&gt; [&lt;TARDIS options&gt;]
+ * java tardis.EndToEndBenchmarks compare &lt;baseline directory&gt; &lt;results directory&gt;
+ * </pre>
+ *
+ * The first form compiles the sample target classes in
+ * {@code bench/samples} (or in the directory set by the
+ * {@code tardis.samples} system property), runs TARDIS on each of
+ * them in a fresh JVM with the classpath of this JVM, and saves in the
+ * results directory the timelines, the logs, the generated tests, and
+ * a {@code summary.csv} with the coverage per wall clock and per CPU
+ * minute. The TARDIS options, e.g., the paths of Z3, of EvoSuite and
+ * of the JBSE and SUSHI libraries, are passed to all the runs, and
+ * override the fixed ones. The second form prints, for every sample,
+ * the coverage of the two runs at the quarters of the budget, at
+ * the end, and averaged over the run, so it also tells which run
+ * covers faster.
+ */
+public final class EndToEndBenchmarks {
+	private static final String[] SAMPLES = { "tardis/samples/Triangle", "tardis/samples/ArrayUtils", "tardis/samples/SortedIntList" };
+	private static final long BUDGET_MINUTES = 10;
+	private static final String[] FIXED_OPTIONS = {
+		"-global_time_budget_duration", Long.toString(BUDGET_MINUTES),
+		"-global_time_budget_unit", "MINUTES",
+		"-evosuite_time_budget_duration", "60",
+		"-evosuite_time_budget_unit", "SECONDS",
+		"-evosuite_seed", "42",
+		"-max_depth", "50",
+		"-num_threads", "2",
+		"-timeline_interval_seconds", "5"
+	};
+	private static final String SUMMARY_HEADER = "target,elapsed_seconds,cpu_seconds,covered_branches,branches_per_minute,branches_per_cpu_minute,mean_covered_branches,tests_generated,tests_failed";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length >= 2 && "run".equals(args[0])) {
+			run(Paths.get(args[1]).toAbsolutePath(), Arrays.asList(args).subList(2, args.length));
+		} else if (args.length == 3 && "compare".equals(args[0])) {
+			compare(Paths.get(args[1]), Paths.get(args[2]));
+		} else {
+			System.err.println("Usage: java " + EndToEndBenchmarks.class.getName() + " run <results directory> [<TARDIS options>]");
+			System.err.println("       java " + EndToEndBenchmarks.class.getName() + " compare <baseline directory> <results directory>");
+			System.exit(1);
+		}
+	}
+
+	private static void run(Path resultsPath, List<String> tardisOptions) throws IOException, InterruptedException {
+		Files.createDirectories(resultsPath);
+		final Path classesPath = compileSamples(resultsPath);
+		final Path tmpPath = Files.createDirectories(resultsPath.resolve("tmp"));
+		try (final BufferedWriter summary = Files.newBufferedWriter(resultsPath.resolve("summary.csv"), StandardCharsets.UTF_8)) {
+			summary.write(SUMMARY_HEADER);
+			summary.newLine();
+			for (String sample : SAMPLES) {
+				final String name = sample.substring(sample.lastIndexOf('/') + 1);
+				final Path outPath = Files.createDirectories(resultsPath.resolve("out").resolve(name));
+				final Path timelinePath = resultsPath.resolve(name + ".csv");
+				final Path logPath = resultsPath.resolve(name + ".log");
+				final ArrayList<String> commandLine = new ArrayList<>();
+				commandLine.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+				commandLine.add("-cp");
+				commandLine.add(System.getProperty("java.class.path"));
+				commandLine.add(Main.class.getName());
+				commandLine.addAll(Arrays.asList(FIXED_OPTIONS));
+				commandLine.addAll(tardisOptions);
+				commandLine.addAll(Arrays.asList("-target_class", sample, "-classes", classesPath.toString(), "-tmp_base", tmpPath.toString(), "-tmp_name", name,
+						"-out", outPath.toString(), "-timeline_file", timelinePath.toString()));
+				System.out.println("[MAIN    ] Running TARDIS on " + sample + ", log in " + logPath.toString());
+				final int exitValue = new ProcessBuilder(commandLine).redirectErrorStream(true).redirectOutput(logPath.toFile()).start().waitFor();
+				if (exitValue != 0 || !Files.exists(timelinePath)) {
+					System.out.println("[MAIN    ] Run on " + sample + " failed with exit value " + exitValue + ", see the log");
+					continue;
+				}
+				final RecordedTimeline timeline = RecordedTimeline.read(timelinePath);
+				final Sample last = timeline.last();
+				final String line = String.format(Locale.ROOT, "%s,%.1f,%.1f,%d,%.2f,%.2f,%.1f,%d,%d", sample, last.elapsedSeconds, last.cpuSeconds, last.coveredBranches,
+						perMinute(last.coveredBranches, last.elapsedSeconds), perMinute(last.coveredBranches, last.cpuSeconds), timeline.meanCoverage(),
+						last.testsGenerated, last.testsFailed);
+				summary.write(line);
+				summary.newLine();
+				summary.flush();
+				System.out.println("[MAIN    ] " + sample + ": " + last.coveredBranches + " branches covered in " + Math.round(last.elapsedSeconds) + " s, " + Math.round(last.cpuSeconds) + " CPU s");
+			}
+		}
+	}
+
+	private static Path compileSamples(Path resultsPath) throws IOException {
+		final Path samplesPath = Paths.get(System.getProperty("tardis.samples", Paths.get("bench", "samples").toString()));
+		final Path classesPath = Files.createDirectories(resultsPath.resolve("classes"));
+		final List<String> sources;
+		try (final Stream<Path> walk = Files.walk(samplesPath)) {
+			sources = walk.filter(p -> p.toString().endsWith(".java")).map(Path::toString).collect(Collectors.toList());
+		}
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			System.out.println("[MAIN    ] Failed to find a system Java compiler. Did you install a JDK?");
+			System.exit(1);
+		}
+		final ArrayList<String> javacParameters = new ArrayList<>(Arrays.asList("-g", "-d", classesPath.toString()));
+		javacParameters.addAll(sources);
+		final Path javacLogFilePath = resultsPath.resolve("javac-log-samples.txt");
+		try (final OutputStream w = Files.newOutputStream(javacLogFilePath)) {
+			if (compiler.run(null, w, w, javacParameters.toArray(new String[0])) != 0) {
+				System.out.println("[MAIN    ] Failed to compile the samples in " + samplesPath.toString() + ", see " + javacLogFilePath.toString());
+				System.exit(1);
+			}
+		}
+		return classesPath;
+	}
+
+	private static void compare(Path baselinePath, Path resultsPath) throws IOException {
+		System.out.println(String.format(Locale.ROOT, "%-28s %-9s %8s %8s %8s %8s %8s %8s %10s %10s", "target", "run", "25%", "50%", "75%", "end", "mean", "tests", "br/min", "br/cpumin"));
+		for (String sample : SAMPLES) {
+			final String name = sample.substring(sample.lastIndexOf('/') + 1);
+			final RecordedTimeline baseline = readIfExists(baselinePath.resolve(name + ".csv"));
+			final RecordedTimeline results = readIfExists(resultsPath.resolve(name + ".csv"));
+			if (baseline == null || results == null) {
+				System.out.println(String.format("%-28s (missing timeline)", sample));
+				continue;
+			}
+			//compares at the same fractions of the shorter run
+			final double duration = Math.min(baseline.last().elapsedSeconds, results.last().elapsedSeconds);
+			printRow(sample, "baseline", baseline, duration);
+			printRow("", "results", results, duration);
+			final double meanChange = (baseline.meanCoverage() == 0 ? 0.0 : (results.meanCoverage() - baseline.meanCoverage()) / baseline.meanCoverage() * 100.0);
+			System.out.println(String.format(Locale.ROOT, "%-28s %-9s %+7d  %+7d  %+7d  %+7d  %+7.1f%%", "", "change",
+					results.coveredAt(duration * 0.25) - baseline.coveredAt(duration * 0.25),
+					results.coveredAt(duration * 0.50) - baseline.coveredAt(duration * 0.50),
+					results.coveredAt(duration * 0.75) - baseline.coveredAt(duration * 0.75),
+					results.last().coveredBranches - baseline.last().coveredBranches, meanChange));
+		}
+	}
+
+	private static void printRow(String sample, String run, RecordedTimeline timeline, double duration) {
+		final Sample last = timeline.last();
+		System.out.println(String.format(Locale.ROOT, "%-28s %-9s %8d %8d %8d %8d %8.1f %8d %10.2f %10.2f", sample, run,
+				timeline.coveredAt(duration * 0.25), timeline.coveredAt(duration * 0.50), timeline.coveredAt(duration * 0.75), last.coveredBranches,
+				timeline.meanCoverage(), last.testsGenerated, perMinute(last.coveredBranches, last.elapsedSeconds), perMinute(last.coveredBranches, last.cpuSeconds)));
+	}
+
+	private static double perMinute(int branches, double seconds) {
+		return (seconds <= 0 ? 0.0 : branches * 60.0 / seconds);
+	}
+
+	private static RecordedTimeline readIfExists(Path timelinePath) throws IOException {
+		return (Files.exists(timelinePath) ? RecordedTimeline.read(timelinePath) : null);
+	}
+
+	private static final class Sample {
+		final double elapsedSeconds;
+		final double cpuSeconds;
+		final int coveredBranches;
+		final int testsGenerated;
+		final int testsFailed;
+
+		Sample(String line) {
+			final String[] fields = line.split(",");
+			this.elapsedSeconds = Double.parseDouble(fields[0]);
+			this.cpuSeconds = Double.parseDouble(fields[1]);
+			this.coveredBranches = Integer.parseInt(fields[2]);
+			this.testsGenerated = Integer.parseInt(fields[5]);
+			this.testsFailed = Integer.parseInt(fields[6]);
+		}
+	}
+
+	/**
+	 * A timeline written by {@link tardis.implementation.Timeline}.
+	 */
+	private static final class RecordedTimeline {
+		private final List<Sample> samples;
+
+		private RecordedTimeline(List<Sample> samples) {
+			this.samples = samples;
+		}
+
+		static RecordedTimeline read(Path timelinePath) throws IOException {
+			final ArrayList<Sample> samples = new ArrayList<>();
+			try (final BufferedReader r = Files.newBufferedReader(timelinePath, StandardCharsets.UTF_8)) {
+				r.readLine(); //skips the header
+				for (String line = r.readLine(); line != null; line = r.readLine()) {
+					if (!line.isEmpty()) {
+						samples.add(new Sample(line));
+					}
+				}
+			}
+			if (samples.isEmpty()) {
+				throw new IOException("RecordedTimeline " + timelinePath.toString() + " is empty");
+			}
+			return new RecordedTimeline(samples);
+		}
+
+		Sample last() {
+			return this.samples.get(this.samples.size() - 1);
+		}
+
+		/**
+		 * Returns the coverage at some time.
+		 *
+		 * @param seconds a {@code double}, the elapsed time.
+		 * @return an {@code int}, the number of branches covered
+		 *         at the last sample taken before {@code seconds}.
+		 */
+		int coveredAt(double seconds) {
+			int retVal = 0;
+			for (Sample sample : this.samples) {
+				if (sample.elapsedSeconds > seconds) {
+					break;
+				}
+				retVal = sample.coveredBranches;
+			}
+			return retVal;
+		}
+
+		/**
+		 * Returns the coverage averaged over the run, i.e., the area
+		 * below the coverage curve divided by the duration of the run.
+		 * Between two runs that reach the same coverage, the one that
+		 * reaches it earlier has the greater mean coverage.
+		 *
+		 * @return a {@code double}.
+		 */
+		double meanCoverage() {
+			double area = 0.0;
+			for (int i = 1; i < this.samples.size(); ++i) {
+				final Sample previous = this.samples.get(i - 1);
+				area += previous.coveredBranches * (this.samples.get(i).elapsedSeconds - previous.elapsedSeconds);
+			}
+			final double duration = last().elapsedSeconds;
+			return (duration <= 0 ? last().coveredBranches : area / duration);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package tardis.implementation;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks a {@link QueueInputOutputBuffer} of path conditions, as
+ * the performers use it: a producer adds a batch of items, and the
+ * consumer either polls them one at a time or drains them in bulk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BufferBenchmark {
+	/** The number of items added before they are consumed. */
+	@Param({"1", "64"})
+	public int batch;
+
+	private QueueInputOutputBuffer<JBSEResult> buffer;
+	private JBSEResult item;
+	private ArrayList<JBSEResult> drained;
+
+	@Setup
+	public void setup() {
+		this.buffer = new QueueInputOutputBuffer<>();
+		this.item = new JBSEResult(Synthetic.TARGET_CLASS, Synthetic.TARGET_METHOD_DESCRIPTOR, Synthetic.TARGET_METHOD_NAME, true, "branch", 10, "wrapper", "pc");
+		this.drained = new ArrayList<>(this.batch);
+	}
+
+	@Benchmark
+	public JBSEResult addPoll() throws InterruptedException {
+		JBSEResult retVal = null;
+		for (int i = 0; i < this.batch; ++i) {
+			this.buffer.add(this.item);
+		}
+		for (int i = 0; i < this.batch; ++i) {
+			retVal = this.buffer.poll(0, TimeUnit.NANOSECONDS);
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	public int addDrain() {
+		for (int i = 0; i < this.batch; ++i) {
+			this.buffer.add(this.item);
+		}
+		this.drained.clear();
+		return this.buffer.drainTo(this.drained, this.batch);
+	}
+}
@@ -0,0 +1,60 @@
+package tardis.implementation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link Util#bytecodeJump(byte)} and {@link Util#bytecodeBranch(byte)},
+ * that {@link RunnerPath} invokes at every step of a run. The bytecodes
+ * are a random sequence where every opcode appears, so the branch
+ * predictor cannot learn it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BytecodeBenchmark {
+	private static final int BYTECODES = 4096;
+
+	private byte[] bytecodes;
+
+	@Setup
+	public void setup() {
+		final Synthetic synthetic = new Synthetic(42);
+		this.bytecodes = new byte[BYTECODES];
+		for (int i = 0; i < BYTECODES; ++i) {
+			this.bytecodes[i] = (byte) synthetic.random().nextInt(256);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTECODES)
+	public int bytecodeJump() {
+		int retVal = 0;
+		for (byte bytecode : this.bytecodes) {
+			if (Util.bytecodeJump(bytecode)) {
+				++retVal;
+			}
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTECODES)
+	public int bytecodeBranch() {
+		int retVal = 0;
+		for (byte bytecode : this.bytecodes) {
+			if (Util.bytecodeBranch(bytecode)) {
+				++retVal;
+			}
+		}
+		return retVal;
+	}
+}
@@ -0,0 +1,97 @@
+package tardis.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link CoverageSet#addAll(java.util.Collection)}, invoked
+ * with the coverage of every run test case, and {@link CoverageSet#covers(String)},
+ * invoked by the scorers. The set is in the state of a long run: half of
+ * its branches are covered, and a test case covers branches that are
+ * mostly covered already.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoverageSetBenchmark {
+	private static final int QUERIES = 1024;
+
+	/** The number of known branches. */
+	@Param({"1000", "100000"})
+	public int branches;
+
+	/** The number of branches covered by a test case. */
+	@Param({"256"})
+	public int testCoverage;
+
+	private CoverageSet coverageSet;
+	private List<String> coverage;
+	private String[] queries;
+	private int[] queryIds;
+
+	@Setup
+	public void setup() {
+		final Synthetic synthetic = new Synthetic(42);
+		final List<String> all = synthetic.branches(this.branches);
+		this.coverageSet = new CoverageSet();
+		final ArrayList<String> covered = new ArrayList<>();
+		for (String branch : all) {
+			this.coverageSet.register(branch);
+			if (synthetic.random().nextBoolean()) {
+				covered.add(branch);
+			}
+		}
+		this.coverageSet.addAll(covered);
+		this.coverage = new ArrayList<>();
+		for (int i = 0; i < this.testCoverage; ++i) {
+			this.coverage.add(all.get(synthetic.random().nextInt(all.size())));
+		}
+		this.coverageSet.addAll(this.coverage);
+		this.queries = new String[QUERIES];
+		this.queryIds = new int[QUERIES];
+		for (int i = 0; i < QUERIES; ++i) {
+			this.queries[i] = all.get(synthetic.random().nextInt(all.size()));
+			this.queryIds[i] = this.coverageSet.id(this.queries[i]);
+		}
+	}
+
+	@Benchmark
+	public int[] addAll() {
+		return this.coverageSet.addAll(this.coverage);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int coversBranch() {
+		int retVal = 0;
+		for (String query : this.queries) {
+			if (this.coverageSet.covers(query)) {
+				++retVal;
+			}
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int coversId() {
+		int retVal = 0;
+		for (int id : this.queryIds) {
+			if (this.coverageSet.covers(id)) {
+				++retVal;
+			}
+		}
+		return retVal;
+	}
+}
@@ -0,0 +1,43 @@
+package tardis.implementation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the construction of the {@link JBSEResult}s that
+ * {@link PerformerJBSE} emits for the states on the frontiers,
+ * and of the detached ones that come from a {@link JBSEWorker}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JBSEResultBenchmark {
+	private jbse.mem.State initialState;
+	private jbse.mem.State preState;
+	private jbse.mem.State finalState;
+
+	@Setup
+	public void setup() throws Exception {
+		final Synthetic synthetic = new Synthetic(42);
+		this.initialState = synthetic.state();
+		this.preState = synthetic.state();
+		this.finalState = synthetic.state();
+	}
+
+	@Benchmark
+	public JBSEResult construct() {
+		return new JBSEResult(Synthetic.TARGET_CLASS, Synthetic.TARGET_METHOD_DESCRIPTOR, Synthetic.TARGET_METHOD_NAME, this.initialState, this.preState, this.finalState, true, "branch", 10);
+	}
+
+	@Benchmark
+	public JBSEResult constructDetached() {
+		return new JBSEResult(Synthetic.TARGET_CLASS, Synthetic.TARGET_METHOD_DESCRIPTOR, Synthetic.TARGET_METHOD_NAME, true, "branch", 10, "wrapper", "pc");
+	}
+}
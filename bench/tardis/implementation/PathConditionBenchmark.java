@@ -0,0 +1,76 @@
+package tardis.implementation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jbse.mem.Clause;
+
+/**
+ * Benchmarks the work that {@link PerformerJBSE} does on every path
+ * condition of a frontier: checking whether it was already explored
+ * (the {@link PathConditionTrie} query behind {@code PerformerJBSE.alreadyExplored}),
+ * and shortening it for printing with {@link Util#shorten(Collection)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathConditionBenchmark {
+	/** The number of clauses of the path conditions. */
+	@Param({"16", "128", "1024"})
+	public int length;
+
+	/** The number of explored path conditions in the trie. */
+	@Param({"1000"})
+	public int explored;
+
+	private PathConditionTrie exploredPaths;
+	private List<Clause> hit;
+	private List<Clause> miss;
+	private List<Clause> withClassInitialization;
+
+	@Setup
+	public void setup() throws Exception {
+		final Synthetic synthetic = new Synthetic(42);
+		this.exploredPaths = new PathConditionTrie(new ClauseInterner());
+		final ArrayList<List<Clause>> pcs = new ArrayList<>();
+		for (int i = 0; i < this.explored; ++i) {
+			final List<Clause> pc = synthetic.pathCondition(this.length);
+			this.exploredPaths.add(Synthetic.TARGET_METHOD, pc);
+			pcs.add(pc);
+		}
+
+		//a frontier state of an explored test case, and
+		//one whose last clause no test case has taken
+		final List<Clause> explored = pcs.get(synthetic.random().nextInt(pcs.size()));
+		this.hit = new ArrayList<>(explored.subList(0, this.length - 1));
+		this.miss = new ArrayList<>(this.hit);
+		this.miss.add(synthetic.assumption(this.length - 1, 2));
+		this.withClassInitialization = synthetic.pathConditionWithClassInitialization(synthetic.state(), this.length);
+	}
+
+	@Benchmark
+	public boolean alreadyExploredHit() {
+		return this.exploredPaths.containsPrefix(Synthetic.TARGET_METHOD, this.hit);
+	}
+
+	@Benchmark
+	public boolean alreadyExploredMiss() {
+		return this.exploredPaths.containsPrefix(Synthetic.TARGET_METHOD, this.miss);
+	}
+
+	@Benchmark
+	public Collection<Clause> shorten() {
+		return Util.shorten(this.withClassInitialization);
+	}
+}
@@ -0,0 +1,167 @@
+package tardis.implementation;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_BOOT;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.kohsuke.args4j.CmdLineParser;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.common.Type;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.ClauseAssumeClassInitialized;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.SymbolFactory;
+
+/**
+ * Synthetic data for the benchmarks: path conditions and
+ * states of realistic sizes, built without running JBSE.
+ * The states need the same classpath of TARDIS: the TARDIS
+ * options are taken from the {@code tardis.options} system
+ * property, e.g., {@code -Dtardis.options="-jbse_lib ../jbse/build/classes"}.
+ */
+final class Synthetic {
+	static final String TARGET_CLASS = "tardis/bench/Target";
+	static final String TARGET_METHOD_DESCRIPTOR = "(I[I)I";
+	static final String TARGET_METHOD_NAME = "target";
+	static final String TARGET_METHOD = TARGET_CLASS + ":" + TARGET_METHOD_DESCRIPTOR + ":" + TARGET_METHOD_NAME;
+
+	//the classes whose initialization is assumed in the
+	//path conditions, that usually start with many of them
+	private static final String[] INITIALIZED_CLASSES = {
+		"java/lang/Object", "java/lang/String", "java/lang/System", "java/lang/Class",
+		"java/lang/Integer", "java/lang/Long", "java/lang/Character", "java/lang/Math",
+		"java/lang/StringBuilder", "java/lang/Thread", "java/lang/ThreadGroup", "java/lang/Throwable",
+		"java/util/ArrayList", "java/util/HashMap", "java/util/Arrays", "java/util/Collections",
+		"java/util/Objects", "java/util/LinkedList", "java/util/HashSet", "java/util/TreeMap"
+	};
+
+	private final CalculatorRewriting calc;
+	private final Random random;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seed a {@code long}, the seed of the random choices,
+	 *        so every run of a benchmark sees the same data.
+	 */
+	Synthetic(long seed) {
+		this.calc = new CalculatorRewriting();
+		this.calc.addRewriter(new RewriterOperationOnSimplex());
+		this.random = new Random(seed);
+	}
+
+	static Options options() throws Exception {
+		final Options o = new Options();
+		final String options = System.getProperty("tardis.options", "").trim();
+		if (!options.isEmpty()) {
+			new CmdLineParser(o).parseArgument(options.split("\\s+"));
+		}
+		return o;
+	}
+
+	/**
+	 * Returns an empty state, as the one TARDIS creates
+	 * for the target methods without an initial test case.
+	 *
+	 * @return a {@link State}.
+	 * @throws Exception if the state cannot be created,
+	 *         e.g., because the classpath is wrong.
+	 */
+	State state() throws Exception {
+		return new State(true, HistoryPoint.startingPreInitial(true), 1_000, 100_000, options().getClasspath(), ClassFileFactoryJavassist.class, new HashMap<>(), this.calc, new SymbolFactory(this.calc));
+	}
+
+	/**
+	 * Returns the clause {@code X<index> > <bound>}.
+	 *
+	 * @param index an {@code int}.
+	 * @param bound an {@code int}.
+	 * @return a {@link Clause}.
+	 * @throws Exception if the clause cannot be created.
+	 */
+	Clause assumption(int index, int bound) throws Exception {
+		return new ClauseAssume(this.calc.push(this.calc.valTerm(Type.INT, "X" + index)).gt(this.calc.valInt(bound)).pop());
+	}
+
+	/**
+	 * Returns a random path condition, that is a path in the
+	 * binary tree whose nodes at depth {@code k} are the clauses
+	 * {@code X<k> > 0} and {@code X<k> > 1}. So the path
+	 * conditions returned by two invocations share a prefix,
+	 * as the ones of the test cases of a target method do.
+	 *
+	 * @param length an {@code int}, the number of clauses.
+	 * @return a {@link List}{@code <}{@link Clause}{@code >}.
+	 * @throws Exception if a clause cannot be created.
+	 */
+	List<Clause> pathCondition(int length) throws Exception {
+		final ArrayList<Clause> retVal = new ArrayList<>(length);
+		for (int k = 0; k < length; ++k) {
+			//the first choices are biased, so the paths share prefixes
+			final int bound = (this.random.nextInt(k + 2) == 0 ? 1 : 0);
+			retVal.add(assumption(k, bound));
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns a path condition where the assumptions on the
+	 * initialization of classes alternate with the assumptions
+	 * on the symbolic values, as JBSE produces.
+	 *
+	 * @param state the {@link State} whose class hierarchy loads
+	 *        the initialized classes.
+	 * @param length an {@code int}, the number of clauses.
+	 * @return a {@link List}{@code <}{@link Clause}{@code >}.
+	 * @throws Exception if a clause cannot be created.
+	 */
+	List<Clause> pathConditionWithClassInitialization(State state, int length) throws Exception {
+		final ClassFile[] classFiles = new ClassFile[INITIALIZED_CLASSES.length];
+		for (int i = 0; i < classFiles.length; ++i) {
+			classFiles[i] = state.getClassHierarchy().loadCreateClass(CLASSLOADER_BOOT, INITIALIZED_CLASSES[i], true);
+		}
+		final List<Clause> assumptions = pathCondition(length / 2);
+		final ArrayList<Clause> retVal = new ArrayList<>(length);
+		for (int k = 0; k < length; ++k) {
+			if (k % 2 == 0) {
+				retVal.add(new ClauseAssumeClassInitialized(classFiles[(k / 2) % classFiles.length], null));
+			} else {
+				retVal.add(assumptions.get(k / 2));
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns random branches of a target class,
+	 * in the format used by {@link CoverageSet}.
+	 *
+	 * @param number an {@code int}, the number of branches.
+	 * @return a {@link List}{@code <}{@link String}{@code >}
+	 *         of distinct branches.
+	 */
+	List<String> branches(int number) {
+		final ArrayList<String> retVal = new ArrayList<>(number);
+		for (int i = 0; i < number; ++i) {
+			//about 50 branches for each method, 20 methods for each class
+			final int method = i / 50;
+			final int fromPC = (i % 50) * 7;
+			final int toPC = fromPC + 3 + this.random.nextInt(200);
+			retVal.add(TARGET_CLASS + (method / 20) + ":(I)I:method" + method + ":" + fromPC + ":" + toPC);
+		}
+		return retVal;
+	}
+
+	Random random() {
+		return this.random;
+	}
+}
@@ -18,8 +18,14 @@ import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,18 +57,47 @@ import jbse.rewr.CalculatorRewriting;
 import jbse.rewr.RewriterOperationOnSimplex;
 import jbse.val.HistoryPoint;
 import jbse.val.SymbolFactory;
+import tardis.framework.InFlightCounter;
+import tardis.framework.InputOutputBuffer;
 import tardis.framework.TerminationManager;
+import tardis.implementation.BoundedInputOutputBuffer;
+import tardis.implementation.Checkpointer;
+import tardis.implementation.ClauseInterner;
+import tardis.implementation.Codec;
 import tardis.implementation.CoverageSet;
 import tardis.implementation.EvosuiteResult;
+import tardis.implementation.EvosuiteWorkerPool;
+import tardis.implementation.FairInputOutputBuffer;
 import tardis.implementation.JBSEResult;
+import tardis.implementation.JBSEResultCodec;
+import tardis.implementation.JBSEWorkerPool;
 import tardis.implementation.Options;
+import tardis.implementation.PathConditionRegistry;
+import tardis.implementation.PathConditionTrie;
 import tardis.implementation.PerformerEvosuite;
 import tardis.implementation.PerformerJBSE;
+import tardis.implementation.PriorityInputOutputBuffer;
 import tardis.implementation.QueueInputOutputBuffer;
+import tardis.implementation.SatCache;
+import tardis.implementation.SnapshotStatistics;
+import tardis.implementation.SpillingInputOutputBuffer;
+import tardis.implementation.Scorer;
+import tardis.implementation.ScorerEvosuite;
+import tardis.implementation.ScorerJBSE;
+import tardis.implementation.ShardClient;
+import tardis.implementation.ShardCoordinator;
 import tardis.implementation.TestCase;
+import tardis.implementation.Timeline;
+import tardis.implementation.Z3Pool;
 
 public final class Main {
+	//the distance between the numbers of the tests generated 
+	//by two consecutive shards, if there are few shards
+	private static final int SHARD_TEST_COUNT_STRIDE = 10_000_000;
+	
 	private final Options o;
+	private final List<SpillingInputOutputBuffer<?>> spillingBuffers = Collections.synchronizedList(new ArrayList<>());
+	private volatile InFlightCounter inFlight = null;
 	
 	public Main(Options o) {
 		this.o = o;
@@ -77,27 +112,86 @@ public final class Main {
 			createDirectory(o.getTmpBinTestsDirectoryPath());
 		}
 		
+		//in a sharded run, this process may be the coordinator 
+		//that launches the shards, and that has nothing else to do
+		if (this.o.getShards() > 1 && this.o.getCoordinatorAddress() == null) {
+			new ShardCoordinator(this.o).run();
+			return;
+		}
+		
 		//creates the coverage data structure
 		final CoverageSet coverageSet = new CoverageSet();
 		
+		//connects to the coordinator if this process is a shard
+		final ShardClient shardClient = (this.o.getCoordinatorAddress() == null ? null : new ShardClient(this.o.getCoordinatorAddress(), this.o.getShardIndex(), this.o.getShards(), coverageSet));
+		if (shardClient != null) {
+			shardClient.start();
+		}
+		
+		//creates the pool of Z3 processes and the cache of
+		//satisfiability results shared by the JBSE threads
+		final ClauseInterner clauseInterner = new ClauseInterner();
+		final SatCache satCache = new SatCache(this.o, clauseInterner);
+		final Z3Pool z3Pool = new Z3Pool(this.o, satCache);
+		
+		//creates the trie of the explored path conditions and 
+		//the registry of the emitted path conditions
+		final PathConditionTrie exploredPaths = new PathConditionTrie(clauseInterner);
+		final PathConditionRegistry emittedPaths = new PathConditionRegistry(clauseInterner);
+		
+		//creates the statistics of the states held by the path conditions
+		final SnapshotStatistics snapshotStatistics = new SnapshotStatistics();
+		
+		//creates the pool of long-lived EvoSuite JVMs
+		final EvosuiteWorkerPool evosuiteWorkerPool = (this.o.getUseEvosuiteDaemon() ? new EvosuiteWorkerPool(this.o) : null);
+		
+		//creates the pool of JBSE JVMs
+		final JBSEWorkerPool jbseWorkerPool = (this.o.getJBSEWorkers() > 0 ? new JBSEWorkerPool(this.o) : null);
+		
 		//creates the communication queues between the performers
-		final QueueInputOutputBuffer<JBSEResult> pathConditionBuffer = new QueueInputOutputBuffer<>();
-		final QueueInputOutputBuffer<EvosuiteResult> testCaseBuffer = new QueueInputOutputBuffer<>();
+		final InputOutputBuffer<JBSEResult> pathConditionBuffer = 
+				makeBuffer(new ScorerJBSE(coverageSet), r -> r.getTargetClassName() + ":" + r.getTargetMethodDescriptor() + ":" + r.getTargetMethodName(), this.o.getPathConditionBufferCapacity(), 
+						new JBSEResultCodec(), this.o.getSpillPathConditionsThreshold());
+		final InputOutputBuffer<EvosuiteResult> testCaseBuffer = 
+				makeBuffer(new ScorerEvosuite(coverageSet), r -> r.getTargetClassName() + ":" + r.getTargetMethodDescriptor() + ":" + r.getTargetMethodName(), this.o.getTestCaseBufferCapacity(), null, 0);
 		
 		//creates and wires together the components of the architecture
-		final PerformerJBSE performerJBSE = new PerformerJBSE(this.o, testCaseBuffer, pathConditionBuffer, coverageSet);
-		final PerformerEvosuite performerEvosuite = new PerformerEvosuite(this.o, pathConditionBuffer, testCaseBuffer);
+		final PerformerJBSE performerJBSE = new PerformerJBSE(this.o, testCaseBuffer, pathConditionBuffer, coverageSet, z3Pool, exploredPaths, emittedPaths, snapshotStatistics, clauseInterner, jbseWorkerPool, shardClient);
+		final PerformerEvosuite performerEvosuite = new PerformerEvosuite(this.o, pathConditionBuffer, testCaseBuffer, emittedPaths, evosuiteWorkerPool);
 		final TerminationManager terminationManager = new TerminationManager(this.o.getGlobalTimeBudgetDuration(), this.o.getGlobalTimeBudgetUnit(), performerJBSE, performerEvosuite);
+		this.inFlight = terminationManager.getInFlightCounter();
+		final Checkpointer checkpointer = new Checkpointer(this.o.getTmpDirectoryPath().resolve("checkpoint.bin"), performerJBSE, performerEvosuite, pathConditionBuffer, testCaseBuffer, 
+				coverageSet, exploredPaths, emittedPaths, clauseInterner);
+		final Timeline timeline = (this.o.getTimelineFile() == null ? null : new Timeline(this.o.getTimelineFile(), coverageSet, pathConditionBuffer, testCaseBuffer, performerEvosuite));
+		
+		//every shard numbers its tests differently, so the
+		//output directories of the shards can be merged; the
+		//stride shrinks with many shards, so the numbers fit an int
+		if (shardClient != null) {
+			final int stride = Math.min(SHARD_TEST_COUNT_STRIDE, Integer.MAX_VALUE / Math.max(1, this.o.getShards()));
+			performerEvosuite.setTestCount(this.o.getShardIndex() * stride);
+			shardClient.setHandOffReceiver(performerJBSE::receiveHandOff);
+		}
 		
-		//seeds the initial test cases
-		if (this.o.getTargetMethod() == null || this.o.getInitialTestCase() == null) {
+		//resumes from the last checkpoint, or seeds the initial test cases
+		if (this.o.getResume() && resume(checkpointer)) {
+			//the performers restart from the items pending in the checkpoint;
+			//the shards split the path conditions if the target is a method
+			if (shardClient != null) {
+				shardClient.setSplitPaths(this.o.getTargetMethod() != null);
+			}
+		} else if (this.o.getTargetMethod() == null || this.o.getInitialTestCase() == null) {
 			//the target is a whole class, or is a single method but
 			//there is no initial test case: EvoSuite should start
-			final ArrayList<JBSEResult> seed = seedForEvosuite();
+			final ArrayList<JBSEResult> seed = seedForEvosuite(shardClient);
 			performerEvosuite.seed(seed);
 		} else {
 			//the target is a single method and there is one
-			//initial test case: JBSE should start
+			//initial test case: JBSE should start; all the shards 
+			//start from it, and split its path conditions
+			if (shardClient != null) {
+				shardClient.setSplitPaths(true);
+			}
 			final ArrayList<EvosuiteResult> seed = seedForJBSE();
 			performerJBSE.seed(seed);
 		}
@@ -108,19 +202,200 @@ public final class Main {
 		performerJBSE.start();
 		performerEvosuite.start();
 		terminationManager.start();
+		checkpointer.start(this.o.getCheckpointIntervalMinutes(), TimeUnit.MINUTES);
+		if (timeline != null) {
+			startTimeline(timeline);
+		}
 		
 		//waits end and prints a final message
 		terminationManager.waitTermination();
+		checkpointer.close();
+		if (timeline != null) {
+			timeline.close();
+		}
+		z3Pool.close();
+		if (jbseWorkerPool != null) {
+			jbseWorkerPool.close();
+			System.out.println("[MAIN    ] JBSE workers: " + jbseWorkerPool.getJobs() + " jobs, " + jbseWorkerPool.getTimeouts() + " timeouts, " + jbseWorkerPool.getRestarts() + " restarts");
+		}
+		if (evosuiteWorkerPool != null) {
+			evosuiteWorkerPool.close();
+			System.out.println("[MAIN    ] EvoSuite workers: " + evosuiteWorkerPool.getJobs() + " jobs, " + evosuiteWorkerPool.getTimeouts() + " timeouts, " + evosuiteWorkerPool.getRestarts() + " restarts");
+		}
+		System.out.println("[MAIN    ] Z3 pool: " + z3Pool.getHits() + " hits, " + z3Pool.getWaits() + " waits, " + z3Pool.getRestarts() + " restarts");
+		System.out.println("[MAIN    ] Z3 queries: " + z3Pool.getQueries() + ", asserted clauses: " + z3Pool.getAssertedClauses() + 
+				(z3Pool.getQueries() == 0 ? "" : String.format(" (%.2f per query)", ((double) z3Pool.getAssertedClauses()) / z3Pool.getQueries())));
+		System.out.println("[MAIN    ] Satisfiability cache: " + satCache.getHits() + " hits, " + satCache.getMisses() + " misses, " + satCache.size() + " entries");
+		System.out.println("[MAIN    ] EvoSuite jobs: " + performerEvosuite.getEvosuiteJobs() + (evosuiteWorkerPool == null ? " in fresh JVMs" : " in long-lived JVMs") + 
+				(performerEvosuite.getEvosuiteJobs() == 0 ? "" : String.format(", %.1f ms per job", TimeUnit.NANOSECONDS.toMillis(performerEvosuite.getEvosuiteJobNanos()) / (double) performerEvosuite.getEvosuiteJobs())));
+		System.out.println("[MAIN    ] Tests: " + performerEvosuite.getVerifiedTests() + " generated, " + performerEvosuite.getFailedTests() + " failed");
+		System.out.println("[MAIN    ] Test verification: " + performerEvosuite.getVerifiedTests() + " tests" + 
+				(performerEvosuite.getVerifiedTests() == 0 ? "" : String.format(", %.1f ms per test", TimeUnit.NANOSECONDS.toMillis(performerEvosuite.getVerificationNanos()) / (double) performerEvosuite.getVerifiedTests())));
+		System.out.println("[MAIN    ] Path conditions: " + emittedPaths.size() + " emitted, " + emittedPaths.getDuplicates() + " duplicates suppressed");
+		if (jbseWorkerPool == null) {
+			System.out.println("[MAIN    ] Path condition snapshots: " + snapshotStatistics.getDistinctInitialStates() + " initial states, " + 
+					snapshotStatistics.getDistinctPreStates() + " pre-states, " + snapshotStatistics.getResults() + " final states" + 
+					String.format(" (%.2f states per path condition), peak heap %d MB", snapshotStatistics.getStatesPerResult(), snapshotStatistics.getPeakHeapBytes() >> 20));
+		} else {
+			//the path conditions from the JBSE workers carry 
+			//their EvoSuite wrappers, not states
+			System.out.println("[MAIN    ] Path condition snapshots: none, the path conditions come from JBSE workers and hold no states");
+		}
+		printFairnessStatistics("Path conditions", pathConditionBuffer);
+		printFairnessStatistics("Test cases", testCaseBuffer);
+		printBackpressureStatistics("Path conditions", pathConditionBuffer);
+		printBackpressureStatistics("Test cases", testCaseBuffer);
+		closeSpillingBuffers();
+		if (shardClient != null) {
+			System.out.println("[MAIN    ] Shard " + this.o.getShardIndex() + ": " + shardClient.getReceivedBranches() + " branches covered by other shards, " + 
+					shardClient.getReceivedPaths() + " path fingerprints received, " + shardClient.getSuppressed() + " path conditions left to other shards, " + 
+					shardClient.getHandOffsSent() + " handed off to other shards, " + shardClient.getHandOffsReceived() + " received from other shards");
+			shardClient.close(this.o.getOutDirectory());
+		}
 		System.out.println("[MAIN    ] Ending at " + dtf.format(LocalDateTime.now()));
 	}
 	
-	private ArrayList<JBSEResult> seedForEvosuite() {
+	/**
+	 * Restores the last checkpoint of the run.
+	 * 
+	 * @param checkpointer a {@link Checkpointer}.
+	 * @return {@code true} iff there was a checkpoint to
+	 *         restore, {@code false} if the run must start
+	 *         from scratch.
+	 */
+	private boolean resume(Checkpointer checkpointer) {
+		try {
+			if (checkpointer.restore()) {
+				return true;
+			}
+			System.out.println("[MAIN    ] No checkpoint found in " + this.o.getTmpDirectoryPath().toString() + ", starting from scratch");
+			return false;
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Error: Cannot restore the checkpoint in " + this.o.getTmpDirectoryPath().toString() + ": " + e);
+			System.exit(1);
+		}
+		return false; //to keep the compiler happy
+	}
+	
+	/**
+	 * Starts sampling the timeline of the run.
+	 * 
+	 * @param timeline a {@link Timeline}.
+	 */
+	private void startTimeline(Timeline timeline) {
+		try {
+			timeline.start(this.o.getTimelineIntervalSeconds(), TimeUnit.SECONDS);
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Error: Cannot create timeline file " + this.o.getTimelineFile().toString() + ": " + e);
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Creates a communication buffer between the performers, 
+	 * according to the scheduling options.
+	 * 
+	 * @param scorer the {@link Scorer} of the items, used if 
+	 *        priority scheduling is active.
+	 * @param targetMethod a {@link Function} returning the signature
+	 *        of the target method of an item, used if fair scheduling
+	 *        is active.
+	 * @param capacity an {@code int}, the number of items upon which
+	 *        the producer stops starting jobs, or {@code 0} for an 
+	 *        unbounded buffer.
+	 * @param codec the {@link Codec} of the items, used if they
+	 *        are spilled to disk.
+	 * @param spillThreshold an {@code int}, the number of items (for 
+	 *        each target method, if fair scheduling is active) kept in
+	 *        memory before the others are spilled to disk, or {@code 0} 
+	 *        for never spilling. Ignored if priority scheduling is active.
+	 * @return an {@link InputOutputBuffer}.
+	 */
+	private <E> InputOutputBuffer<E> makeBuffer(Scorer<E> scorer, Function<E, String> targetMethod, int capacity, Codec<E> codec, int spillThreshold) {
+		final Supplier<InputOutputBuffer<E>> factory;
+		if (this.o.getUsePriorityScheduling()) {
+			factory = () -> new PriorityInputOutputBuffer<>(scorer);
+		} else if (codec != null && spillThreshold > 0) {
+			factory = () -> {
+				//an item lost on disk will never be processed
+				final SpillingInputOutputBuffer<E> buffer = new SpillingInputOutputBuffer<>(codec, this.o.getTmpDirectoryPath(), spillThreshold, this::lostItem);
+				this.spillingBuffers.add(buffer);
+				return buffer;
+			};
+		} else {
+			factory = QueueInputOutputBuffer::new;
+		}
+		final InputOutputBuffer<E> retVal;
+		if (this.o.getFairSchedulingQuantum() > 0) {
+			retVal = new FairInputOutputBuffer<>(targetMethod, factory, this.o.getFairSchedulingQuantum());
+		} else {
+			retVal = factory.get();
+		}
+		if (capacity > 0) {
+			final int lowWatermark = (int) (((long) capacity) * this.o.getBufferLowWatermarkPercent() / 100);
+			return new BoundedInputOutputBuffer<>(retVal, capacity, lowWatermark, this.o.getBufferMaxWaitSeconds(), TimeUnit.SECONDS);
+		} else {
+			return retVal;
+		}
+	}
+	
+	private void lostItem() {
+		final InFlightCounter inFlight = this.inFlight;
+		if (inFlight != null) {
+			inFlight.lost(1);
+		}
+	}
+	
+	/**
+	 * Prints the statistics of the buffers that spill to
+	 * disk, and deletes their files.
+	 */
+	private void closeSpillingBuffers() {
+		if (this.spillingBuffers.isEmpty()) {
+			return;
+		}
+		long totalSpilled = 0;
+		int maxSpilled = 0;
+		synchronized (this.spillingBuffers) {
+			for (SpillingInputOutputBuffer<?> buffer : this.spillingBuffers) {
+				totalSpilled += buffer.getTotalSpilled();
+				maxSpilled = Math.max(maxSpilled, buffer.getMaxSpilled());
+				buffer.close();
+			}
+		}
+		System.out.println("[MAIN    ] Path conditions spilled to disk: " + totalSpilled + ", at most " + maxSpilled + " on disk at the same time");
+	}
+	
+	private static void printBackpressureStatistics(String description, InputOutputBuffer<?> buffer) {
+		if (buffer instanceof BoundedInputOutputBuffer) {
+			final BoundedInputOutputBuffer<?> boundedBuffer = (BoundedInputOutputBuffer<?>) buffer;
+			System.out.println("[MAIN    ] " + description + " backpressure: " + boundedBuffer.getWaits() + " waits, " + 
+					TimeUnit.NANOSECONDS.toSeconds(boundedBuffer.getWaitNanos()) + " s waited, " + boundedBuffer.getOverflows() + " overflows");
+		}
+	}
+	
+	private static void printFairnessStatistics(String description, InputOutputBuffer<?> wrappedBuffer) {
+		final InputOutputBuffer<?> buffer = (wrappedBuffer instanceof BoundedInputOutputBuffer ? 
+				((BoundedInputOutputBuffer<?>) wrappedBuffer).getDelegate() : wrappedBuffer);
+		if (buffer instanceof FairInputOutputBuffer) {
+			final FairInputOutputBuffer<?> fairBuffer = (FairInputOutputBuffer<?>) buffer;
+			final Map<String, Integer> served = fairBuffer.getServed();
+			final Map<String, Integer> maxQueueDepths = fairBuffer.getMaxQueueDepths();
+			final Map<String, Integer> queueDepths = fairBuffer.getQueueDepths();
+			for (String targetMethod : served.keySet()) {
+				System.out.println("[MAIN    ] " + description + " for " + targetMethod + ": " + served.get(targetMethod) + " processed, " + 
+						queueDepths.get(targetMethod) + " waiting, " + maxQueueDepths.get(targetMethod) + " waiting at most");
+			}
+		}
+	}
+	
+	private ArrayList<JBSEResult> seedForEvosuite(ShardClient shardClient) {
 		//this is the "no initial test case" situation
 		try {
 			final CalculatorRewriting calc = new CalculatorRewriting();
 			calc.addRewriter(new RewriterOperationOnSimplex());
 			final ArrayList<JBSEResult> retVal = new ArrayList<>();
-			final List<List<String>> targetMethods;
+			List<List<String>> targetMethods;
 			if (this.o.getTargetMethod() == null) {
 				//this.o indicates a target class
 				targetMethods = getVisibleTargetMethods(this.o);
@@ -128,11 +403,27 @@ public final class Main {
 				//this.o indicates a single target method
 				targetMethods = getUniqueTargetMethod(this.o);
 			}
+			if (shardClient != null && targetMethods.size() >= this.o.getShards()) {
+				//this is a shard, and there are enough target methods
+				//for all the shards: it takes its share of them
+				final ArrayList<List<String>> shardTargetMethods = new ArrayList<>();
+				for (int i = this.o.getShardIndex(); i < targetMethods.size(); i += this.o.getShards()) {
+					shardTargetMethods.add(targetMethods.get(i));
+				}
+				targetMethods = shardTargetMethods;
+				System.out.println("[MAIN    ] Shard " + this.o.getShardIndex() + " of " + this.o.getShards() + ": " + targetMethods.size() + " target methods");
+			} else if (shardClient != null) {
+				//this is a shard, and there are fewer target methods
+				//than shards: all the shards take all the target 
+				//methods, and split their path conditions by owner
+				shardClient.setSplitPaths(true);
+				System.out.println("[MAIN    ] Shard " + this.o.getShardIndex() + " of " + this.o.getShards() + ": " + targetMethods.size() + " target methods shared with the other shards, path conditions split among the shards");
+			}
 			for (List<String> targetMethod : targetMethods) {
 				final State s = new State(true, HistoryPoint.startingPreInitial(true), 1_000, 100_000, this.o.getClasspath(), ClassFileFactoryJavassist.class, new HashMap<>(), calc, new SymbolFactory(calc));
 				final ClassFile cf = s.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, targetMethod.get(0), true);
 				s.pushFrameSymbolic(cf, new Signature(targetMethod.get(0), targetMethod.get(1), targetMethod.get(2)));
-				retVal.add(new JBSEResult(targetMethod.get(0), targetMethod.get(1), targetMethod.get(2), s, s, s, false, -1));
+				retVal.add(new JBSEResult(targetMethod.get(0), targetMethod.get(1), targetMethod.get(2), s, s, s, false, null, -1));
 			}
 			return retVal;
 		} catch (ClassNotFoundException | WrongClassNameException | BadClassFileVersionException | ClassFileNotFoundException | IncompatibleClassFileException | 
@@ -195,8 +486,9 @@ public final class Main {
 		//is ill-formed
 		final Options o = new Options();
 		final CmdLineParser parser = new CmdLineParser(o, ParserProperties.defaults().withUsageWidth(200));
+		final String[] processedArgs = processArgs(args);
 		try {
-			parser.parseArgument(processArgs(args));
+			parser.parseArgument(processedArgs);
 		} catch (CmdLineException e) {
 			System.err.println("Error: " + e.getMessage());
 			printUsage(parser);
@@ -210,6 +502,7 @@ public final class Main {
 		}
 
 		//runs
+		o.setCommandLine(Arrays.asList(processedArgs));
 		final Main m = new Main(o);
 		m.start();
 	}
@@ -0,0 +1,47 @@
+package tardis.framework;
+
+/**
+ * Decides how a {@link Performer} groups its input items 
+ * in batches, each processed by a single job.
+ */
+public interface BatchingPolicy {
+	/**
+	 * Returns the maximum size of the next batch.
+	 * 
+	 * @param available an {@code int}, the number of input items
+	 *        that are available now (accumulated and in the input 
+	 *        buffer).
+	 * @return a positive {@code int}.
+	 */
+	int batchSize(int available);
+	
+	/**
+	 * Returns how long the performer should wait for a further
+	 * input item before it flushes the accumulated items as a 
+	 * batch.
+	 * 
+	 * @param pending an {@code int}, the number of accumulated 
+	 *        items.
+	 * @param batchSize an {@code int}, the size of the batch 
+	 *        being accumulated.
+	 * @return a {@code long}, the timeout in nanoseconds.
+	 */
+	long flushTimeoutNanos(int pending, int batchSize);
+	
+	/**
+	 * Invoked when the performer receives input items.
+	 * 
+	 * @param count an {@code int}, the number of received items.
+	 */
+	default void itemsReceived(int count) { }
+	
+	/**
+	 * Invoked when a job ends.
+	 * 
+	 * @param batchSize an {@code int}, the number of items 
+	 *        processed by the job.
+	 * @param durationNanos a {@code long}, the duration of the 
+	 *        job in nanoseconds.
+	 */
+	default void jobCompleted(int batchSize, long durationNanos) { }
+}
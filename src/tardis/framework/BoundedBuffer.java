@@ -0,0 +1,34 @@
+package tardis.framework;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A buffer that has a capacity beyond which it is full. A
+ * {@link Performer} whose {@link OutputBuffer} is a bounded buffer
+ * holds back the dispatch of new jobs while the buffer is full, so
+ * its consumers can catch up. The backpressure is applied before
+ * a job is started: the jobs that are running never wait when they
+ * add their output items, and the buffer may exceed its capacity by
+ * the items they emit.
+ */
+public interface BoundedBuffer {
+	/**
+	 * Checks whether the buffer is full.
+	 *
+	 * @return {@code true} iff the buffer is full.
+	 */
+	boolean isFull();
+
+	/**
+	 * Waits until the buffer is not full. The wait is
+	 * bounded by a maximum time that depends on the buffer,
+	 * and is given up as soon as some condition holds.
+	 *
+	 * @param giveUp a {@link BooleanSupplier}, periodically
+	 *        checked during the wait. If it returns {@code true}
+	 *        the wait is given up.
+	 * @throws InterruptedException if the thread is
+	 *         interrupted while waiting.
+	 */
+	void awaitNotFull(BooleanSupplier giveUp) throws InterruptedException;
+}
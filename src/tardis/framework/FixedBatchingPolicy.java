@@ -0,0 +1,27 @@
+package tardis.framework;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link BatchingPolicy} with fixed batch size and 
+ * fixed flush timeout.
+ */
+public final class FixedBatchingPolicy implements BatchingPolicy {
+	private final int batchSize;
+	private final long flushTimeoutNanos;
+	
+	public FixedBatchingPolicy(int batchSize, long timeoutDuration, TimeUnit timeoutUnit) {
+		this.batchSize = Math.max(1, batchSize);
+		this.flushTimeoutNanos = timeoutUnit.toNanos(timeoutDuration);
+	}
+
+	@Override
+	public int batchSize(int available) {
+		return this.batchSize;
+	}
+
+	@Override
+	public long flushTimeoutNanos(int pending, int batchSize) {
+		return this.flushTimeoutNanos;
+	}
+}
@@ -0,0 +1,91 @@
+package tardis.framework;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the items that are in flight in a pipeline of 
+ * {@link Performer}s, i.e., that were emitted (or seeded)
+ * and whose processing is not yet finished. The pipeline
+ * is quiescent when the count drops to zero.
+ */
+public final class InFlightCounter {
+	private final AtomicLong count = new AtomicLong(0);
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition conditionZero = this.lock.newCondition();
+	
+	/**
+	 * Records that some items entered the pipeline.
+	 * 
+	 * @param n a {@code long}, the number of items.
+	 */
+	void increment(long n) {
+		this.count.addAndGet(n);
+	}
+	
+	/**
+	 * Records that some items left the pipeline.
+	 * 
+	 * @param n a {@code long}, the number of items.
+	 */
+	void decrement(long n) {
+		if (this.count.addAndGet(-n) == 0) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				this.conditionZero.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Records that some items in flight were lost, and 
+	 * so will never be processed (e.g., because a buffer 
+	 * could not read them back from disk).
+	 * 
+	 * @param n a {@code long}, the number of items.
+	 */
+	public void lost(long n) {
+		decrement(n);
+	}
+	
+	/**
+	 * Returns the number of items in flight.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long get() {
+		return this.count.get();
+	}
+	
+	/**
+	 * Waits until no item is in flight, up to a timeout.
+	 * 
+	 * @param timeout a {@code long}, the timeout duration.
+	 * @param unit a {@link TimeUnit}, the timeout unit.
+	 * @return {@code true} iff no item is in flight, 
+	 *         {@code false} upon timeout.
+	 * @throws InterruptedException if the thread is interrupted 
+	 *         while waiting.
+	 */
+	boolean awaitZero(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			while (this.count.get() != 0) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = this.conditionZero.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -1,8 +1,44 @@
 package tardis.framework;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 public interface InputBuffer<E> {
 	E poll(long timeout, TimeUnit unit) throws InterruptedException;
 	boolean isEmpty();
+	
+	/**
+	 * Returns the number of items in the buffer. The
+	 * {@link BatchingPolicy batching policies} rely on it
+	 * to size the batches, so it must be exact.
+	 * 
+	 * @return an {@code int}.
+	 */
+	int size();
+	
+	/**
+	 * Removes from the buffer, without waiting, at most a given 
+	 * number of items and adds them to a collection.
+	 * 
+	 * @param c a {@link Collection}{@code <? super E>}.
+	 * @param maxItems an {@code int}, the maximum number of 
+	 *        items to remove.
+	 * @return an {@code int}, the number of removed items.
+	 */
+	default int drainTo(Collection<? super E> c, int maxItems) {
+		int retVal = 0;
+		try {
+			while (retVal < maxItems) {
+				final E item = poll(0, TimeUnit.NANOSECONDS);
+				if (item == null) {
+					break;
+				}
+				c.add(item);
+				++retVal;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return retVal;
+	}
 }
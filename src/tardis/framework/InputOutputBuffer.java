@@ -0,0 +1,21 @@
+package tardis.framework;
+
+import java.util.List;
+
+/**
+ * A buffer that is the {@link OutputBuffer} of a {@link Performer}
+ * and the {@link InputBuffer} of another one.
+ *
+ * @param <E> the type of the items in the buffer.
+ */
+public interface InputOutputBuffer<E> extends InputBuffer<E>, OutputBuffer<E> {
+	/**
+	 * Returns the items in the buffer without removing them.
+	 * The returned list is a copy, and if other threads add 
+	 * or remove items while the copy is made it might not 
+	 * reflect the content of the buffer at any single instant.
+	 * 
+	 * @return a {@link List}{@code <E>}.
+	 */
+	List<E> snapshot();
+}
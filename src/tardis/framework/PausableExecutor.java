@@ -0,0 +1,44 @@
+package tardis.framework;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} that runs the jobs of a {@link Performer}
+ * and that can be paused and resumed.
+ */
+public interface PausableExecutor extends Executor {
+	/**
+	 * Pauses this executor. The jobs that are already running
+	 * go on, the others wait until the executor is 
+	 * {@link #resume() resume}d.
+	 */
+	void pause();
+
+	/**
+	 * Resumes this executor from a {@link #pause()}.
+	 */
+	void resume();
+
+	/**
+	 * Checks if this executor is idle.
+	 * 
+	 * @return {@code true} iff this executor is not 
+	 *         handling any job and no job is pending.
+	 */
+	boolean isIdle();
+
+	/**
+	 * Shuts down this executor, letting the submitted 
+	 * jobs complete.
+	 */
+	void shutdown();
+
+	/**
+	 * Shuts down this executor, interrupting the running jobs.
+	 * 
+	 * @return a {@link List}{@code <}{@link Runnable}{@code >}, 
+	 *         the jobs that never started.
+	 */
+	List<Runnable> shutdownNow();
+}
@@ -7,7 +7,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class PausableFixedThreadPoolExecutor extends ThreadPoolExecutor {
+public class PausableFixedThreadPoolExecutor extends ThreadPoolExecutor implements PausableExecutor {
 	private final AtomicInteger activeThreads = new AtomicInteger(0);
 	private final ReentrantLock lockPause = new ReentrantLock();
 	private final Condition conditionNotPaused = this.lockPause.newCondition();
@@ -53,14 +53,16 @@ public class PausableFixedThreadPoolExecutor extends ThreadPoolExecutor {
 	/**
 	 * Pauses this thread pool.
 	 */
-	final void pause() {
+	@Override
+	public final void pause() {
 		this.paused = true;
 	}
 
 	/**
 	 * Resumes this thread pool from a {@link #pause()}.
 	 */
-	final void resume() {
+	@Override
+	public final void resume() {
 		this.paused = false;
 		final ReentrantLock lock = this.lockPause;
 		lock.lock();
@@ -79,7 +81,8 @@ public class PausableFixedThreadPoolExecutor extends ThreadPoolExecutor {
 	 *         is not handling any job and no pending 
 	 *         jobs are in the input queue.
 	 */
-	final boolean isIdle() {
+	@Override
+	public final boolean isIdle() {
 		return this.activeThreads.get() == 0;
 	}
 }
@@ -0,0 +1,114 @@
+package tardis.framework;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableExecutor} backed by a {@link ForkJoinPool}, 
+ * so idle threads steal work from the busy ones. This pays off 
+ * when the jobs have very different costs, and when a job splits 
+ * its work in subtasks: a job running in this executor can 
+ * {@link ForkJoinTask#fork() fork} or {@link ForkJoinTask#invokeAll(java.util.Collection) invoke}
+ * {@link ForkJoinTask}s, that the other threads of the pool 
+ * can steal.
+ */
+public final class PausableForkJoinExecutor implements PausableExecutor {
+	private final ForkJoinPool pool;
+	private final AtomicInteger activeJobs = new AtomicInteger(0);
+	private final ReentrantLock lockPause = new ReentrantLock();
+	private final Condition conditionNotPaused = this.lockPause.newCondition();
+	private volatile boolean paused = false;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parallelism an {@code int}, the number of threads.
+	 */
+	public PausableForkJoinExecutor(int parallelism) {
+		this.pool = new ForkJoinPool(Math.max(1, parallelism));
+	}
+
+	@Override
+	public void execute(Runnable r) {
+		this.activeJobs.incrementAndGet();
+		try {
+			this.pool.execute(() -> {
+				try {
+					waitIfPaused();
+					r.run();
+				} catch (InterruptedException e) {
+					//the executor was shut down: 
+					//the job is dropped
+				} finally {
+					this.activeJobs.decrementAndGet();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.activeJobs.decrementAndGet();
+			throw e;
+		}
+	}
+	
+	private void waitIfPaused() throws InterruptedException {
+		//does not use ForkJoinPool.managedBlock: the pool 
+		//would add threads to compensate for the paused ones
+		final ReentrantLock lock = this.lockPause;
+		lock.lockInterruptibly();
+		try {
+			while (this.paused) {
+				this.conditionNotPaused.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void pause() {
+		this.paused = true;
+	}
+
+	@Override
+	public void resume() {
+		this.paused = false;
+		final ReentrantLock lock = this.lockPause;
+		lock.lock();
+		try {
+			this.conditionNotPaused.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if this executor is idle. The subtasks 
+	 * forked by a job are not counted separately, since
+	 * the job joins them before it ends.
+	 * 
+	 * @return {@code true} iff this executor is not 
+	 *         handling any job and no job is pending.
+	 */
+	@Override
+	public boolean isIdle() {
+		return this.activeJobs.get() == 0;
+	}
+
+	@Override
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		this.pool.shutdownNow();
+		//the jobs in the pool are cancelled, and
+		//cannot be returned as Runnables
+		return Collections.emptyList();
+	}
+}
@@ -0,0 +1,117 @@
+package tardis.framework;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableExecutor} that runs every job in a fresh 
+ * thread created by {@link VirtualThreads#factory()}, so a 
+ * job that blocks does not hold a pooled platform thread. 
+ * The number of jobs running at the same time is bounded by
+ * a maximum parallelism.
+ */
+public final class PausableVirtualThreadExecutor implements PausableExecutor {
+	private final ThreadFactory threadFactory = VirtualThreads.factory();
+	private final Semaphore permits;
+	private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger activeJobs = new AtomicInteger(0);
+	private final ReentrantLock lockPause = new ReentrantLock();
+	private final Condition conditionNotPaused = this.lockPause.newCondition();
+	private volatile boolean paused = false;
+	private volatile boolean shutdown = false;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxParallelism an {@code int}, the maximum number
+	 *        of jobs running at the same time.
+	 */
+	public PausableVirtualThreadExecutor(int maxParallelism) {
+		this.permits = new Semaphore(Math.max(1, maxParallelism));
+	}
+
+	@Override
+	public void execute(Runnable r) {
+		if (this.shutdown) {
+			throw new RejectedExecutionException("Executor is shut down");
+		}
+		this.activeJobs.incrementAndGet();
+		final Thread thread = this.threadFactory.newThread(() -> {
+			try {
+				waitIfPaused();
+				this.permits.acquire();
+				try {
+					r.run();
+				} finally {
+					this.permits.release();
+				}
+			} catch (InterruptedException e) {
+				//the executor was shut down: 
+				//the job is dropped
+			} finally {
+				this.threads.remove(Thread.currentThread());
+				this.activeJobs.decrementAndGet();
+			}
+		});
+		this.threads.add(thread);
+		thread.start();
+	}
+	
+	private void waitIfPaused() throws InterruptedException {
+		final ReentrantLock lock = this.lockPause;
+		lock.lockInterruptibly();
+		try {
+			while (this.paused) {
+				this.conditionNotPaused.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void pause() {
+		this.paused = true;
+	}
+
+	@Override
+	public void resume() {
+		this.paused = false;
+		final ReentrantLock lock = this.lockPause;
+		lock.lock();
+		try {
+			this.conditionNotPaused.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isIdle() {
+		return this.activeJobs.get() == 0;
+	}
+
+	@Override
+	public void shutdown() {
+		this.shutdown = true;
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		this.shutdown = true;
+		for (Thread thread : this.threads) {
+			thread.interrupt();
+		}
+		//the jobs that did not start yet are interrupted 
+		//while waiting, and dropped
+		return Collections.emptyList();
+	}
+}
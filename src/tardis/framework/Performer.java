@@ -2,41 +2,70 @@ package tardis.framework;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 public abstract class Performer<I,O> {
 	private final InputBuffer<I> in;
 	private final OutputBuffer<O> out;
-	private final PausableFixedThreadPoolExecutor threadPool;
-	private final int numInputs;
-	private final long timeoutDuration;
-	private final TimeUnit timeoutUnit;
+	private final OutputBuffer<O> outCounting;
+	private final PausableExecutor threadPool;
+	private final BatchingPolicy batchingPolicy;
 	private final Thread mainThread;
 	private final ReentrantLock lockPause;
 	private final Condition conditionNotPaused;
 	private final Condition conditionPaused;
 	private volatile boolean paused;
+	private volatile boolean mainThreadPaused;
 	private ArrayList<I> seed;	
+	private ArrayList<I> restored;
 	private ArrayList<I> items;
+	private volatile InFlightCounter inFlight;
+	private final ThreadLocal<JobTracker> currentJob = new ThreadLocal<>();
+	private final Set<JobTracker> unfinishedJobs = ConcurrentHashMap.newKeySet();
 
 	public Performer(InputBuffer<I> in, OutputBuffer<O> out, int numOfThreads, int numInputs, long timeoutDuration, TimeUnit timeoutUnit) {
+		this(in, out, numOfThreads, new FixedBatchingPolicy(numInputs, timeoutDuration, timeoutUnit));
+	}
+
+	public Performer(InputBuffer<I> in, OutputBuffer<O> out, int numOfThreads, BatchingPolicy batchingPolicy) {
+		this(in, out, new PausableFixedThreadPoolExecutor(numOfThreads), batchingPolicy);
+	}
+
+	public Performer(InputBuffer<I> in, OutputBuffer<O> out, PausableExecutor threadPool, BatchingPolicy batchingPolicy) {
 		this.in = in;
 		this.out = out;
-		this.threadPool = new PausableFixedThreadPoolExecutor(numOfThreads);
-		this.numInputs = numInputs;
-		this.timeoutDuration = timeoutDuration;
-		this.timeoutUnit = timeoutUnit;
+		this.outCounting = item -> {
+			final InFlightCounter inFlight = this.inFlight;
+			if (inFlight == null) {
+				return this.out.add(item);
+			}
+			//counts the item before it becomes visible downstream
+			inFlight.increment(1);
+			final boolean retVal = this.out.add(item);
+			if (!retVal) {
+				inFlight.decrement(1);
+			}
+			return retVal;
+		};
+		this.threadPool = threadPool;
+		this.batchingPolicy = batchingPolicy;
 		this.mainThread = new Thread(() -> {
 			submitSeedIfPresent();
+			submitRestoredIfPresent();
 			while (true) {
 				try {
 					waitIfPaused();
+					waitOutputNotFull();
 					waitInputAndSubmitJob();
 				} catch (InterruptedException e) {
 					if (this.paused) {
-						//interrupted by pause(): goes on to waitIfPaused()
+						//interrupted by pauseDispatch(): goes on to waitIfPaused()
 						continue; //pleonastic
 					} else {
 						//interrupted by stop(): exit from the loop 
@@ -50,14 +79,36 @@ public abstract class Performer<I,O> {
 		this.conditionNotPaused = this.lockPause.newCondition();
 		this.conditionPaused = this.lockPause.newCondition();
 		this.paused = false;
+		this.mainThreadPaused = false;
 		this.seed = null;
-		this.items = null;
+		this.restored = null;
+		this.items = new ArrayList<>();
+		this.inFlight = null;
 	}
 	
 	protected abstract Runnable makeJob(List<I> items);
 
 	protected final OutputBuffer<O> getOutputBuffer() {
-		return this.out;
+		return this.outCounting;
+	}
+	
+	/**
+	 * Sets the counter of the items in flight. From then on
+	 * the items emitted to the output buffer and the seed and
+	 * restored items are counted as in flight until the job 
+	 * processing them is finished. Should be invoked before 
+	 * {@link #start()}.
+	 * 
+	 * @param inFlight an {@link InFlightCounter}.
+	 */
+	final void setInFlightCounter(InFlightCounter inFlight) {
+		this.inFlight = inFlight;
+		if (this.seed != null) {
+			inFlight.increment(this.seed.size());
+		}
+		if (this.restored != null) {
+			inFlight.increment(this.restored.size());
+		}
 	}
 	
 	/**
@@ -70,6 +121,27 @@ public abstract class Performer<I,O> {
 	 */
 	public final void seed(List<I> seed) {
 		this.seed = new ArrayList<>(seed);
+		if (this.inFlight != null) {
+			this.inFlight.increment(this.seed.size());
+		}
+	}
+	
+	/**
+	 * Restores the input items that a previous run of the 
+	 * performer had not finished processing when it was 
+	 * interrupted (see {@link #getInProgress()}). They are 
+	 * batched as the {@link BatchingPolicy} prescribes and 
+	 * executed immediately as the performer is started. 
+	 * Should be invoked before {@link #start()}.
+	 * 
+	 * @param pending a {@link List}{@code <I>} containing
+	 *        the items to restore.
+	 */
+	public final void restore(List<I> pending) {
+		this.restored = new ArrayList<>(pending);
+		if (this.inFlight != null) {
+			this.inFlight.increment(this.restored.size());
+		}
 	}
 	
 	/**
@@ -86,33 +158,77 @@ public abstract class Performer<I,O> {
 		this.paused = false;
 		this.mainThread.interrupt();
 		this.threadPool.shutdownNow();
+		onStop();
 	}
 	
 	/**
-	 * Pauses the performer so it can reliably be queried whether 
-	 * it {@link #isIdle()}.
+	 * Invoked when the performer is stopped, after its
+	 * thread pool is shut down. Subclasses whose jobs 
+	 * {@link #keepInFlight() keep work in flight} after 
+	 * they return should stop that work here.
 	 */
-	final void pause() {
+	protected void onStop() {
+		//default: nothing to do
+	}
+	
+	/**
+	 * Invoked by a job to signal that it started some work
+	 * that goes on after the job returns, e.g., on another 
+	 * thread. The items of the job are considered in flight,
+	 * and the job is considered not finished, until the returned 
+	 * {@link Runnable} is run. This way a job can wait for 
+	 * an external process without holding a thread of the pool.
+	 * 
+	 * @return a {@link Runnable} that must be run exactly once
+	 *         when the work is over (further runs have no effect).
+	 * @throws IllegalStateException if the current thread is 
+	 *         not running a job of this performer.
+	 */
+	protected final Runnable keepInFlight() {
+		final JobTracker tracker = this.currentJob.get();
+		if (tracker == null) {
+			throw new IllegalStateException("keepInFlight() must be invoked by a job of the performer");
+		}
+		tracker.pending.incrementAndGet();
+		final AtomicBoolean released = new AtomicBoolean(false);
+		return () -> {
+			if (released.compareAndSet(false, true)) {
+				tracker.release();
+			}
+		};
+	}
+	
+	/**
+	 * Pauses the dispatch of the input items: upon return the
+	 * performer does not take items from its input buffer and
+	 * does not submit jobs until {@link #resumeDispatch()} is 
+	 * invoked, but the jobs already submitted keep running.
+	 * Returns immediately if the performer is stopped. Should 
+	 * be invoked after {@link #start()}, and by at most one 
+	 * thread at a time.
+	 */
+	public final void pauseDispatch() {
 		this.paused = true;
 		final ReentrantLock lock = this.lockPause;
 		lock.lock();
 		try {
 			this.mainThread.interrupt(); //if mainThread is waiting, interrupt it so it will go in pause state and signal conditionPaused; guarded by lockPause so the next await() will not lose the signal from mainThread
-			this.conditionPaused.await(); //waits until mainThread pauses 
+			while (!this.mainThreadPaused && this.mainThread.getState() != Thread.State.TERMINATED) {
+				this.conditionPaused.await(100, TimeUnit.MILLISECONDS); //waits until mainThread pauses, or exits if the performer was stopped
+			}
 		} catch (InterruptedException e) {
 			//this should never happen
 			e.printStackTrace(); //TODO handle
 		} finally {
 			lock.unlock();
 		}
-		this.threadPool.pause();
 	}
-
+	
 	/**
-	 * Resumes the performer after a {@link #pause()}.
+	 * Resumes the dispatch of the input items after a 
+	 * {@link #pauseDispatch()}.
 	 */
-	final void resume() {
-		this.threadPool.resume();
+	public final void resumeDispatch() {
 		this.paused = false;
 		final ReentrantLock lock = this.lockPause;
 		lock.lock();
@@ -124,16 +240,28 @@ public abstract class Performer<I,O> {
 	}
 	
 	/**
-	 * Checks whether this performer is idle. 
-	 * This method gives a reliable answer only when the
-	 * performed is {@link #pause() pause}d.
+	 * Returns the input items that this performer took from its
+	 * input buffer and did not finish processing, i.e., the items
+	 * waiting to be batched and the items of the jobs that are 
+	 * submitted and not finished (see {@link #keepInFlight()}), 
+	 * together with the seed and restored items whose jobs are not
+	 * finished. Gives a reliable answer only when the dispatch is 
+	 * {@link #pauseDispatch() paused}. Note that an unfinished job
+	 * might have already emitted some of its output items.
 	 * 
-	 * @return {@code true} iff the performer is idle, i.e., 
-	 * iff all the threads are waiting and the input queue is
-	 * empty.
+	 * @return a {@link List}{@code <I>}.
 	 */
-	final boolean isIdle() {
-		return this.in.isEmpty() && this.items.isEmpty() && this.threadPool.isIdle();
+	public final List<I> getInProgress() {
+		final ArrayList<I> retVal = new ArrayList<>(this.items);
+		final ArrayList<I> restored = this.restored;
+		if (restored != null) {
+			//not yet submitted
+			retVal.addAll(restored);
+		}
+		for (JobTracker tracker : this.unfinishedJobs) {
+			retVal.addAll(tracker.items);
+		}
+		return retVal;
 	}
 	
 	private void submitSeedIfPresent() {
@@ -141,13 +269,58 @@ public abstract class Performer<I,O> {
 			return;
 		}
 		final Runnable job = makeJob(this.seed);
-		this.threadPool.execute(job);
+		this.threadPool.execute(trackedJob(job, this.seed, false));
+	}
+	
+	private void submitRestoredIfPresent() {
+		if (this.restored == null) {
+			return;
+		}
+		int start = 0;
+		while (start < this.restored.size()) {
+			final int batchSize = Math.max(1, this.batchingPolicy.batchSize(this.restored.size() - start));
+			final List<I> batch = new ArrayList<>(this.restored.subList(start, Math.min(this.restored.size(), start + batchSize)));
+			final Runnable job = makeJob(batch);
+			this.threadPool.execute(trackedJob(job, batch, true));
+			start += batch.size();
+		}
+		this.restored = null;
+	}
+	
+	/**
+	 * Wraps a job so, when it finishes, the items it processed
+	 * are no more counted as in flight. Since a job emits its 
+	 * output items before finishing, the count drops to zero 
+	 * only when all the performers sharing the counter are 
+	 * quiescent. A job finishes when it returns and all the
+	 * work it {@link #keepInFlight() keeps in flight} is over.
+	 * 
+	 * @param job a {@link Runnable}, the job.
+	 * @param items a {@link List}{@code <I>}, the items 
+	 *        processed by {@code job}.
+	 * @param timed a {@code boolean}, whether the duration of
+	 *        the job must be reported to the {@link BatchingPolicy}.
+	 * @return a {@link Runnable}.
+	 */
+	private Runnable trackedJob(Runnable job, List<I> items, boolean timed) {
+		final JobTracker tracker = new JobTracker(items, timed);
+		this.unfinishedJobs.add(tracker);
+		return () -> {
+			tracker.start = System.nanoTime();
+			this.currentJob.set(tracker);
+			try {
+				job.run();
+			} finally {
+				this.currentJob.remove();
+				tracker.release();
+			}
+		};
 	}
 	
 	/**
 	 * To be invoked by the main thread. Detects whether
-	 * this performer is {@link #pause() paused}, and in 
-	 * the positive case waits until it is {@link #resume() resumed}.
+	 * the dispatch is {@link #pauseDispatch() paused}, and in 
+	 * the positive case waits until it is {@link #resumeDispatch() resumed}.
 	 *
 	 * @throws InterruptedException if the main thread is
 	 *         interrupted while waiting to be resumed.
@@ -156,37 +329,91 @@ public abstract class Performer<I,O> {
 		final ReentrantLock lock = this.lockPause;
 		lock.lock();
 		try {
-			this.conditionPaused.signalAll();
 			while (this.paused) {
+				this.mainThreadPaused = true;
+				this.conditionPaused.signalAll();
 				this.conditionNotPaused.await();
 			}
 		} finally {
+			this.mainThreadPaused = false;
 			lock.unlock();
 		}
 	}
 	
+	/**
+	 * To be invoked by the main thread. If the output buffer
+	 * is a full {@link BoundedBuffer}, waits until it is not
+	 * full, so no new job is started. Does not wait if the 
+	 * input buffer is a full {@link BoundedBuffer} too, since
+	 * the consumer of the output buffer might be waiting for 
+	 * this performer.
+	 * 
+	 * @throws InterruptedException if the main thread is
+	 *         interrupted while waiting.
+	 */
+	private void waitOutputNotFull() throws InterruptedException {
+		if (!(this.out instanceof BoundedBuffer)) {
+			return;
+		}
+		final BoundedBuffer in = (this.in instanceof BoundedBuffer ? (BoundedBuffer) this.in : null);
+		((BoundedBuffer) this.out).awaitNotFull(() -> in != null && in.isFull());
+	}
+	
 	/**
 	 * To be invoked by the main thread. Waits for an input
 	 * item in the input queue up to a timeout, accumulates 
-	 * the read input items, and when they are enough (or
-	 * upon timeout) creates a job for processing them and 
-	 * submits the job to the thread pool.
+	 * the read input items together with all the ones already
+	 * in the input queue, and when they are enough (or upon 
+	 * timeout) creates a job for processing them and submits
+	 * the job to the thread pool. Batch sizes and timeouts
+	 * are decided by the {@link BatchingPolicy}.
 	 * 
 	 * @throws InterruptedException if the main thread is
 	 *         interrupted while waiting for an input.
 	 */
 	private void waitInputAndSubmitJob() throws InterruptedException {
-		if (this.items == null) {
-			this.items = new ArrayList<>();
-		}
-		final I item = this.in.poll(this.timeoutDuration, this.timeoutUnit);
+		final int batchSize = Math.max(1, this.batchingPolicy.batchSize(this.items.size() + this.in.size()));
+		final long timeoutNanos = this.batchingPolicy.flushTimeoutNanos(this.items.size(), batchSize);
+		final I item = this.in.poll(timeoutNanos, TimeUnit.NANOSECONDS);
 		if (item != null) {
 			this.items.add(item);
+			final int drained = (this.items.size() < batchSize ? this.in.drainTo(this.items, batchSize - this.items.size()) : 0);
+			this.batchingPolicy.itemsReceived(1 + drained);
+		}
+		if ((item == null && this.items.size() > 0) || this.items.size() >= batchSize) {
+			final List<I> batch = this.items;
+			final Runnable job = makeJob(batch);
+			this.threadPool.execute(trackedJob(job, batch, true));
+			this.items = new ArrayList<>();
 		}
-		if ((item == null && this.items.size() > 0) || this.items.size() == this.numInputs) {
-			final Runnable job = makeJob(this.items);
-			this.threadPool.execute(job);
-			this.items = null;
+	}
+	
+	/**
+	 * Tracks when a job finishes.
+	 */
+	private final class JobTracker {
+		private final List<I> items;
+		private final boolean timed;
+		private volatile long start;
+		private final AtomicInteger pending = new AtomicInteger(1); //the job itself
+		
+		JobTracker(List<I> items, boolean timed) {
+			this.items = items;
+			this.timed = timed;
+		}
+		
+		void release() {
+			if (this.pending.decrementAndGet() > 0) {
+				return;
+			}
+			Performer.this.unfinishedJobs.remove(this);
+			if (this.timed) {
+				Performer.this.batchingPolicy.jobCompleted(this.items.size(), System.nanoTime() - this.start);
+			}
+			final InFlightCounter inFlight = Performer.this.inFlight;
+			if (inFlight != null) {
+				inFlight.decrement(this.items.size());
+			}
 		}
 	}
 }
@@ -3,79 +3,55 @@ package tardis.framework;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Stops a pipeline of {@link Performer}s either upon timeout or 
+ * as soon as the pipeline becomes quiescent, i.e., when no item 
+ * is in flight. The items in flight are counted by an 
+ * {@link InFlightCounter} shared by all the performers, that
+ * is updated when items are seeded or emitted and when their
+ * processing is finished.
+ */
 public final class TerminationManager {
 	private final long duration;
 	private final TimeUnit timeUnit;
 	private final Performer<?,?>[] performers;
-	private final Thread timeoutDetector;
+	private final InFlightCounter inFlight;
 	private final Thread terminationDetector;
-	private volatile boolean timedOut;
 		
 	public TerminationManager(long duration, TimeUnit timeUnit, Performer<?,?>...performers) {
 		this.duration = duration;
 		this.timeUnit = timeUnit;
 		this.performers = performers.clone();
-		this.timedOut = false;
-		this.timeoutDetector = new Thread(() -> {
+		this.inFlight = new InFlightCounter();
+		Arrays.stream(this.performers).forEach(p -> p.setInFlightCounter(this.inFlight));
+		this.terminationDetector = new Thread(() -> {
+			//waits for quiescence or timeout
 			try {
-				this.timeUnit.sleep(this.duration);
-				this.timedOut = true;
+				this.inFlight.awaitZero(this.duration, this.timeUnit);
 			} catch (InterruptedException e) {
-				//just terminates
+				//this should never happen,
+				//in the case we fall through
 			}
-		});
-		this.terminationDetector = new Thread(() -> {
-				while (true) {
-					try {
-						TimeUnit.SECONDS.sleep(1);
-					} catch (InterruptedException e) {
-						//this should never happen,
-						//in the case we fall through
-					}
-					
-					//exits upon timeout
-					if (this.timedOut) {
-						break;
-					}
-					
-					//exits upon termination
-					//double check
-					final boolean allIdleUnsafe = allIdle();
-					if (allIdleUnsafe) {
-						//synchronizes and repeats the check
-						pauseAll();
-						final boolean allIdleSafe = allIdle();
-						resumeAll();
-						if (allIdleSafe) {
-							this.timeoutDetector.interrupt();
-							break;
-						}
-					}
-				}
 			
-				//quits
-				stopAll();
+			//quits
+			stopAll();
 		});
 	}
 	
-	private void pauseAll() {
-		Arrays.stream(this.performers).forEach(Performer::pause);
-	}
-	
-	private void resumeAll() {
-		Arrays.stream(this.performers).forEach(Performer::resume);
-	}
-	
 	private void stopAll() {
 		Arrays.stream(this.performers).forEach(Performer::stop);
 	}
 	
-	private boolean allIdle() {
-		return Arrays.stream(this.performers).map(Performer::isIdle).reduce(Boolean.TRUE, (a, b) -> a && b);
+	/**
+	 * Returns the counter of the items in flight.
+	 * 
+	 * @return an {@link InFlightCounter}.
+	 */
+	public InFlightCounter getInFlightCounter() {
+		return this.inFlight;
 	}
 	
 	public void start() {
-		this.timeoutDetector.start();
 		this.terminationDetector.start();
 	}
 
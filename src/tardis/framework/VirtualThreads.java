@@ -0,0 +1,56 @@
+package tardis.framework;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates lightweight threads. When the JVM supports virtual 
+ * threads (Java 21 or later) the threads are virtual, otherwise 
+ * they are daemon platform threads. Virtual threads are looked
+ * up reflectively, so the code also runs on older JVMs.
+ */
+public final class VirtualThreads {
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = lookupVirtualThreadFactory();
+	private static final ThreadFactory PLATFORM_THREAD_FACTORY = r -> {
+		final Thread retVal = new Thread(r);
+		retVal.setDaemon(true);
+		return retVal;
+	};
+	
+	private static ThreadFactory lookupVirtualThreadFactory() {
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			//virtual threads are not supported
+			return null;
+		}
+	}
+	
+	/**
+	 * Checks whether the JVM supports virtual threads.
+	 * 
+	 * @return {@code true} iff the threads created by 
+	 *         {@link #factory()} are virtual.
+	 */
+	public static boolean available() {
+		return VIRTUAL_THREAD_FACTORY != null;
+	}
+	
+	/**
+	 * Returns a factory of lightweight threads.
+	 * 
+	 * @return a {@link ThreadFactory} creating virtual threads
+	 *         if {@link #available()}, daemon platform threads 
+	 *         otherwise.
+	 */
+	public static ThreadFactory factory() {
+		return (VIRTUAL_THREAD_FACTORY == null ? PLATFORM_THREAD_FACTORY : VIRTUAL_THREAD_FACTORY);
+	}
+	
+	/**
+	 * Do not instantiate!
+	 */
+	private VirtualThreads() {
+		//nothing to do
+	}
+}
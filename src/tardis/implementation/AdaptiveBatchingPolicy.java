@@ -0,0 +1,87 @@
+package tardis.implementation;
+
+import java.util.concurrent.TimeUnit;
+
+import tardis.framework.BatchingPolicy;
+
+/**
+ * A {@link BatchingPolicy} that adapts the batch size and 
+ * the flush timeout to the current traffic. It keeps moving 
+ * averages of the time between the arrival of two input items
+ * and of the duration of a job, and targets the number of 
+ * items that arrive while all the threads are busy with a job:
+ * under bursts it drains the input queue in batches up to the 
+ * maximum size, and under low traffic it flushes the accumulated
+ * items as soon as waiting for a full batch is not worth.
+ */
+public final class AdaptiveBatchingPolicy implements BatchingPolicy {
+	private static final double SMOOTHING = 0.2;
+	private static final double SLACK = 1.5;
+	
+	private final int maxBatchSize;
+	private final long maxFlushTimeoutNanos;
+	private final int numOfThreads;
+	private long lastArrivalNanos = -1;
+	private double interArrivalNanos = -1;
+	private double jobNanos = -1;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxBatchSize an {@code int}, the maximum size of a batch.
+	 * @param maxFlushTimeoutDuration a {@code long}, the duration of 
+	 *        the maximum flush timeout.
+	 * @param maxFlushTimeoutUnit a {@link TimeUnit}, the unit of the 
+	 *        maximum flush timeout.
+	 * @param numOfThreads an {@code int}, the number of threads
+	 *        processing the batches.
+	 */
+	public AdaptiveBatchingPolicy(int maxBatchSize, long maxFlushTimeoutDuration, TimeUnit maxFlushTimeoutUnit, int numOfThreads) {
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxFlushTimeoutNanos = maxFlushTimeoutUnit.toNanos(maxFlushTimeoutDuration);
+		this.numOfThreads = Math.max(1, numOfThreads);
+	}
+
+	@Override
+	public synchronized int batchSize(int available) {
+		return Math.min(this.maxBatchSize, Math.max(targetBatchSize(), available));
+	}
+	
+	private int targetBatchSize() {
+		if (this.interArrivalNanos <= 0 || this.jobNanos <= 0) {
+			//no estimate yet
+			return this.maxBatchSize;
+		}
+		final double arrivalsPerJob = this.jobNanos / this.interArrivalNanos;
+		final int retVal = (int) Math.ceil(arrivalsPerJob / this.numOfThreads);
+		return Math.max(1, Math.min(this.maxBatchSize, retVal));
+	}
+
+	@Override
+	public synchronized long flushTimeoutNanos(int pending, int batchSize) {
+		if (pending == 0 || this.interArrivalNanos <= 0) {
+			return this.maxFlushTimeoutNanos;
+		}
+		final double expectedWaitNanos = (batchSize - pending) * this.interArrivalNanos;
+		if (expectedWaitNanos > this.maxFlushTimeoutNanos) {
+			//the batch will not be filled in time: flushes now
+			return 0;
+		}
+		return Math.min(this.maxFlushTimeoutNanos, (long) (SLACK * expectedWaitNanos));
+	}
+
+	@Override
+	public synchronized void itemsReceived(int count) {
+		final long now = System.nanoTime();
+		if (this.lastArrivalNanos >= 0 && count > 0) {
+			final double sample = ((double) (now - this.lastArrivalNanos)) / count;
+			this.interArrivalNanos = (this.interArrivalNanos < 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * this.interArrivalNanos);
+		}
+		this.lastArrivalNanos = now;
+	}
+
+	@Override
+	public synchronized void jobCompleted(int batchSize, long durationNanos) {
+		this.jobNanos = (this.jobNanos < 0 ? durationNanos : SMOOTHING * durationNanos + (1 - SMOOTHING) * this.jobNanos);
+	}
+}
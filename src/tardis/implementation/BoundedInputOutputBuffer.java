@@ -0,0 +1,201 @@
+package tardis.implementation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import tardis.framework.BoundedBuffer;
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * An {@link InputOutputBuffer} that applies backpressure to 
+ * its producer. It wraps another buffer, and when the number
+ * of items in it reaches a high watermark it is {@link #isFull() full}
+ * until the consumers bring it down to a low watermark: meanwhile 
+ * the producer performer does not start new jobs (see {@link BoundedBuffer}).
+ * Items are always added without waiting. Since the performers feed
+ * each other in a cycle, the producer does not wait more than a 
+ * maximum time, and does not wait at all when its own input buffer
+ * is full: this way two full buffers cannot deadlock their 
+ * performers, and the backpressure slows down the producer without
+ * ever losing items.
+ */
+public final class BoundedInputOutputBuffer<E> implements InputOutputBuffer<E>, BoundedBuffer {
+	private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	
+	private final InputOutputBuffer<E> delegate;
+	private final int highWatermark;
+	private final int lowWatermark;
+	private final long maxWaitNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition conditionNotFull = this.lock.newCondition();
+	private volatile boolean full = false;
+	private final AtomicLong waits = new AtomicLong(0);
+	private final AtomicLong waitNanos = new AtomicLong(0);
+	private final AtomicLong overflows = new AtomicLong(0);
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param delegate the wrapped {@link InputOutputBuffer}.
+	 * @param highWatermark an {@code int}, the number of items
+	 *        upon which the buffer becomes full.
+	 * @param lowWatermark an {@code int}, the number of items
+	 *        upon which the buffer stops being full.
+	 * @param maxWaitDuration a {@code long}, the duration of the 
+	 *        maximum time the producer waits.
+	 * @param maxWaitUnit a {@link TimeUnit}, the unit of the 
+	 *        maximum time the producer waits.
+	 */
+	public BoundedInputOutputBuffer(InputOutputBuffer<E> delegate, int highWatermark, int lowWatermark, long maxWaitDuration, TimeUnit maxWaitUnit) {
+		this.delegate = delegate;
+		this.highWatermark = Math.max(1, highWatermark);
+		this.lowWatermark = Math.max(0, Math.min(this.highWatermark - 1, lowWatermark));
+		this.maxWaitNanos = maxWaitUnit.toNanos(maxWaitDuration);
+	}
+	
+	/**
+	 * Returns the wrapped buffer.
+	 * 
+	 * @return an {@link InputOutputBuffer}{@code <E>}.
+	 */
+	public InputOutputBuffer<E> getDelegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public boolean add(E e) {
+		final boolean retVal = this.delegate.add(e);
+		if (!this.full && this.delegate.size() >= this.highWatermark) {
+			this.full = true;
+		}
+		return retVal;
+	}
+	
+	@Override
+	public boolean isFull() {
+		return this.full;
+	}
+	
+	@Override
+	public void awaitNotFull(BooleanSupplier giveUp) throws InterruptedException {
+		if (!this.full) {
+			return;
+		}
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		final long start = System.nanoTime();
+		try {
+			//rechecks the size, the consumers might have 
+			//emptied the buffer before full was set
+			if (clearIfNotFull() || giveUp.getAsBoolean()) {
+				return;
+			}
+			this.waits.incrementAndGet();
+			final long deadline = start + this.maxWaitNanos;
+			do {
+				final long nanos = deadline - System.nanoTime();
+				if (nanos <= 0 || giveUp.getAsBoolean()) {
+					this.overflows.incrementAndGet();
+					break;
+				}
+				this.conditionNotFull.awaitNanos(Math.min(nanos, RECHECK_NANOS));
+			} while (!clearIfNotFull());
+		} finally {
+			this.waitNanos.addAndGet(System.nanoTime() - start);
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Must be invoked with the lock held. Clears the
+	 * full flag if the number of items is not above
+	 * the low watermark.
+	 * 
+	 * @return {@code true} iff the buffer is not full.
+	 */
+	private boolean clearIfNotFull() {
+		if (this.full && this.delegate.size() <= this.lowWatermark) {
+			this.full = false;
+			this.conditionNotFull.signalAll();
+		}
+		return !this.full;
+	}
+	
+	private void signalIfNotFull() {
+		if (this.full && this.delegate.size() <= this.lowWatermark) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				clearIfNotFull();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		final E retVal = this.delegate.poll(timeout, unit);
+		signalIfNotFull();
+		return retVal;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.delegate.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return this.delegate.size();
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxItems) {
+		final int retVal = this.delegate.drainTo(c, maxItems);
+		signalIfNotFull();
+		return retVal;
+	}
+
+	@Override
+	public List<E> snapshot() {
+		return this.delegate.snapshot();
+	}
+	
+	/**
+	 * Returns the number of times the producer held
+	 * back its jobs because the buffer was full.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getWaits() {
+		return this.waits.get();
+	}
+	
+	/**
+	 * Returns the total time the producer held back 
+	 * its jobs.
+	 * 
+	 * @return a {@code long}, the time in nanoseconds.
+	 */
+	public long getWaitNanos() {
+		return this.waitNanos.get();
+	}
+	
+	/**
+	 * Returns the number of times the producer stopped
+	 * waiting while the buffer was still full, because it 
+	 * waited the maximum time or its own input buffer 
+	 * became full.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getOverflows() {
+		return this.overflows.get();
+	}
+}
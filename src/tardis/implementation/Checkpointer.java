@@ -0,0 +1,229 @@
+package tardis.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * Periodically saves the state of a run to a checkpoint file in the
+ * temporary directory, so an interrupted run can be resumed. The
+ * checkpoint contains the {@link CoverageSet}, the path conditions
+ * and the test cases that wait in the buffers or whose processing is
+ * in progress, the explored and emitted path conditions with the
+ * {@link ClauseInterner interned} clauses, and the number of the
+ * next generated test.
+ * The performers stop dispatching new jobs only while the pending
+ * items are copied and the explored and the emitted path conditions
+ * are snapshot: the running jobs go on, except that they cannot emit 
+ * path conditions meanwhile, and everything is encoded and written 
+ * after the dispatch is resumed. The file is replaced atomically, so the last complete 
+ * checkpoint always survives a crash. Since the items are copied while
+ * jobs run, a resumed run might process again some items: the restored
+ * {@link PathConditionRegistry} suppresses most of the duplicates.
+ */
+public final class Checkpointer {
+	private static final int MAGIC = 0x5441524B; //"TARK"
+	private static final int VERSION = 1;
+
+	private final Path checkpointPath;
+	private final PerformerJBSE performerJBSE;
+	private final PerformerEvosuite performerEvosuite;
+	private final InputOutputBuffer<JBSEResult> pathConditionBuffer;
+	private final InputOutputBuffer<EvosuiteResult> testCaseBuffer;
+	private final CoverageSet coverageSet;
+	private final PathConditionTrie exploredPaths;
+	private final PathConditionRegistry emittedPaths;
+	private final ClauseInterner clauseInterner;
+	private final JBSEResultCodec pathConditionCodec = new JBSEResultCodec();
+	private final EvosuiteResultCodec testCaseCodec = new EvosuiteResultCodec();
+	private ScheduledExecutorService scheduler = null;
+	private int checkpoints = 0;
+
+	public Checkpointer(Path checkpointPath, PerformerJBSE performerJBSE, PerformerEvosuite performerEvosuite, InputOutputBuffer<JBSEResult> pathConditionBuffer, InputOutputBuffer<EvosuiteResult> testCaseBuffer, 
+			CoverageSet coverageSet, PathConditionTrie exploredPaths, PathConditionRegistry emittedPaths, ClauseInterner clauseInterner) {
+		this.checkpointPath = checkpointPath;
+		this.performerJBSE = performerJBSE;
+		this.performerEvosuite = performerEvosuite;
+		this.pathConditionBuffer = pathConditionBuffer;
+		this.testCaseBuffer = testCaseBuffer;
+		this.coverageSet = coverageSet;
+		this.exploredPaths = exploredPaths;
+		this.emittedPaths = emittedPaths;
+		this.clauseInterner = clauseInterner;
+	}
+
+	/**
+	 * Restores the last checkpoint, if present. The shared data
+	 * structures are filled, and the pending items are
+	 * {@link tardis.framework.Performer#restore(List) restore}d
+	 * in the performers. Should be invoked before the performers
+	 * are started and before any clause is interned.
+	 *
+	 * @return {@code true} iff a checkpoint was present.
+	 * @throws IOException if reading the checkpoint fails, or
+	 *         the checkpoint is ill-formed.
+	 */
+	public boolean restore() throws IOException {
+		if (!Files.exists(this.checkpointPath)) {
+			return false;
+		}
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.checkpointPath)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("File " + this.checkpointPath.toString() + " is not a checkpoint of this version of TARDIS");
+			}
+			final int numPathConditions = in.readInt();
+			final ArrayList<JBSEResult> pathConditions = new ArrayList<>(numPathConditions);
+			for (int i = 0; i < numPathConditions; ++i) {
+				pathConditions.add(this.pathConditionCodec.decode(in));
+			}
+			final int numTestCases = in.readInt();
+			final ArrayList<EvosuiteResult> testCases = new ArrayList<>(numTestCases);
+			for (int i = 0; i < numTestCases; ++i) {
+				testCases.add(this.testCaseCodec.decode(in));
+			}
+			this.coverageSet.readFrom(in);
+			this.exploredPaths.readFrom(in);
+			this.emittedPaths.readFrom(in);
+			this.clauseInterner.readFrom(in);
+			final int testCount = in.readInt();
+
+			this.performerEvosuite.restore(pathConditions);
+			this.performerJBSE.restore(testCases);
+			this.performerEvosuite.setTestCount(testCount);
+			System.out.println("[MAIN    ] Resuming from checkpoint " + this.checkpointPath.toString() + ": " + pathConditions.size() + " path conditions, " +
+					testCases.size() + " test cases, " + this.coverageSet.size() + " covered branches, next test " + testCount);
+		}
+		return true;
+	}
+
+	/**
+	 * Starts writing a checkpoint periodically. Should be
+	 * invoked after the performers are started.
+	 *
+	 * @param intervalDuration a {@code long}, the duration of the
+	 *        interval between two checkpoints. If it is not positive
+	 *        no checkpoint is written.
+	 * @param intervalUnit a {@link TimeUnit}, the unit of the interval
+	 *        between two checkpoints.
+	 */
+	public void start(long intervalDuration, TimeUnit intervalUnit) {
+		if (intervalDuration <= 0) {
+			return;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r);
+			t.setDaemon(true);
+			return t;
+		});
+		this.scheduler.scheduleWithFixedDelay(this::checkpoint, intervalDuration, intervalDuration, intervalUnit);
+	}
+
+	/**
+	 * Stops writing checkpoints, waiting for the completion
+	 * of the checkpoint being written, if any.
+	 */
+	public void close() {
+		if (this.scheduler == null) {
+			return;
+		}
+		this.scheduler.shutdown();
+		try {
+			this.scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public int getCheckpoints() {
+		return this.checkpoints;
+	}
+
+	/**
+	 * Writes a checkpoint.
+	 */
+	void checkpoint() {
+		//copies the pending items while the dispatch is paused;
+		//the items in progress are copied before the buffers, so
+		//an item that a running job emits is either in the buffer
+		//copy or produced by an item in the in progress copy. The
+		//explored and emitted path conditions are snapshot at the
+		//same time, with the emission of path conditions blocked, 
+		//so a registered path condition is either in the buffer copy 
+		//or produced by an item in the in progress copy, and will be 
+		//emitted again by the resumed run. The snapshots are cheap,
+		//and are encoded after the dispatch is resumed
+		final long start = System.nanoTime();
+		final List<JBSEResult> pathConditions;
+		final List<EvosuiteResult> testCases;
+		final PathConditionTrie.Snapshot explored;
+		final PathConditionRegistry.Snapshot emitted;
+		this.performerJBSE.pauseDispatch();
+		this.performerEvosuite.pauseDispatch();
+		this.performerJBSE.blockEmission();
+		try {
+			pathConditions = this.performerEvosuite.getInProgress();
+			testCases = this.performerJBSE.getInProgress();
+			pathConditions.addAll(this.pathConditionBuffer.snapshot());
+			testCases.addAll(this.testCaseBuffer.snapshot());
+			explored = this.exploredPaths.snapshot();
+			emitted = this.emittedPaths.snapshot();
+		} catch (RuntimeException e) {
+			//an exception must not escape, or the
+			//later checkpoints would be cancelled
+			System.out.println("[MAIN    ] Unexpected error while copying the state for checkpoint " + this.checkpointPath.toString() + ", the previous checkpoint is kept: " + e);
+			return;
+		} finally {
+			this.performerJBSE.unblockEmission();
+			this.performerEvosuite.resumeDispatch();
+			this.performerJBSE.resumeDispatch();
+		}
+		final long paused = System.nanoTime() - start;
+
+		//writes everything; the interner is written after the trie
+		//and the registry are snapshot, so it contains all the clause
+		//identifiers they refer to
+		final Path checkpointPathTmp = this.checkpointPath.resolveSibling(this.checkpointPath.getFileName().toString() + ".tmp");
+		try {
+			try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(checkpointPathTmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(pathConditions.size());
+				for (JBSEResult pathCondition : pathConditions) {
+					this.pathConditionCodec.encode(pathCondition, out);
+				}
+				out.writeInt(testCases.size());
+				for (EvosuiteResult testCase : testCases) {
+					this.testCaseCodec.encode(testCase, out);
+				}
+				this.coverageSet.writeTo(out);
+				explored.writeTo(out);
+				emitted.writeTo(out);
+				this.clauseInterner.writeTo(out);
+				out.writeInt(this.performerEvosuite.getTestCount());
+			}
+			Files.move(checkpointPathTmp, this.checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			++this.checkpoints;
+			System.out.println("[MAIN    ] Checkpoint written: " + pathConditions.size() + " path conditions, " + testCases.size() + " test cases, dispatch paused for " +
+					TimeUnit.NANOSECONDS.toMillis(paused) + " ms, written in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		} catch (IOException | RuntimeException e) {
+			System.out.println("[MAIN    ] Unexpected error while writing checkpoint " + this.checkpointPath.toString() + ", the previous checkpoint is kept: " + e);
+			try {
+				Files.deleteIfExists(checkpointPathTmp);
+			} catch (IOException e2) {
+				//nothing to do
+			}
+		}
+	}
+}
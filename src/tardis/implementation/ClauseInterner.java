@@ -0,0 +1,206 @@
+package tardis.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jbse.mem.Clause;
+
+/**
+ * Interns path condition clauses to stable, dense {@code int}
+ * identifiers, so that path conditions can be compared as
+ * arrays of {@code int}s. Two clauses get the same identifier
+ * iff they have the same text representation, so clauses that
+ * come from another JVM can be interned by their text. It is
+ * shared by all the threads. Only the texts are kept for all
+ * the run: the identifiers of the recently interned {@link Clause}s
+ * are cached, so the text of a clause is not rendered again while 
+ * the clause is in use, but the clauses are not retained beyond 
+ * the cache size. The identifiers can be saved and restored, so 
+ * they stay stable across the runs that resume from a checkpoint.
+ */
+public final class ClauseInterner {
+	private static final int NUM_SEGMENTS = 16;
+	private static final int DEFAULT_CACHE_SIZE = 65_536;
+	
+	private final Segment[] clauseIds;
+	private final ConcurrentHashMap<String, Integer> textIds = new ConcurrentHashMap<>();
+	private final AtomicInteger nextId = new AtomicInteger(0);
+	private volatile Map<String, Integer> restoredIds = null;
+	
+	public ClauseInterner() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param cacheSize an {@code int}, the maximum number of
+	 *        {@link Clause}s whose identifiers are cached.
+	 */
+	public ClauseInterner(int cacheSize) {
+		this.clauseIds = new Segment[NUM_SEGMENTS];
+		final int segmentSize = Math.max(1, cacheSize / NUM_SEGMENTS);
+		for (int i = 0; i < NUM_SEGMENTS; ++i) {
+			this.clauseIds[i] = new Segment(segmentSize);
+		}
+	}
+
+	/**
+	 * Returns the identifier of a clause.
+	 *
+	 * @param c a {@link Clause}.
+	 * @return an {@code int}, the identifier of {@code c}.
+	 */
+	public int id(Clause c) {
+		final Segment segment = this.clauseIds[(c.hashCode() & 0x7fffffff) % NUM_SEGMENTS];
+		final Integer id = segment.get(c);
+		if (id != null) {
+			return id.intValue();
+		}
+		final int retVal = textId(c.toString());
+		segment.put(c, Integer.valueOf(retVal));
+		return retVal;
+	}
+
+	/**
+	 * Returns the identifier of a clause, given its text
+	 * representation.
+	 *
+	 * @param text a {@link String}, the text representation 
+	 *        ({@link Object#toString()}) of a clause.
+	 * @return an {@code int}, the identifier of the clause.
+	 */
+	public int textId(String text) {
+		final Integer id = this.textIds.get(text);
+		if (id != null) {
+			return id.intValue();
+		}
+		return this.textIds.computeIfAbsent(text, this::newId).intValue();
+	}
+
+	/**
+	 * Returns the identifiers of all the clauses in a path condition,
+	 * given their text representations.
+	 *
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the
+	 *        text representations of the clauses.
+	 * @return an {@code int[]} containing the identifiers of the
+	 *         clauses in {@code pc}, in the same order.
+	 */
+	public int[] textIds(List<String> pc) {
+		final int[] retVal = new int[pc.size()];
+		int i = 0;
+		for (String text : pc) {
+			retVal[i++] = textId(text);
+		}
+		return retVal;
+	}
+
+	private Integer newId(String text) {
+		final Map<String, Integer> restoredIds = this.restoredIds;
+		final Integer restoredId = (restoredIds == null ? null : restoredIds.remove(text));
+		return (restoredId == null ? this.nextId.getAndIncrement() : restoredId);
+	}
+
+	/**
+	 * Returns the identifiers of all the clauses in a path condition.
+	 *
+	 * @param pc a {@link Collection}{@code <}{@link Clause}{@code >}.
+	 * @return an {@code int[]} containing the identifiers of the
+	 *         clauses in {@code pc}, in the same order.
+	 */
+	public int[] ids(Collection<Clause> pc) {
+		final int[] retVal = new int[pc.size()];
+		int i = 0;
+		for (Clause c : pc) {
+			retVal[i++] = id(c);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the number of interned clauses.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int size() {
+		return this.nextId.get();
+	}
+
+	/**
+	 * Writes the text representations of the interned clauses
+	 * and their identifiers, including the ones restored and not 
+	 * yet met in this run.
+	 *
+	 * @param out a {@link DataOutput}.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		final HashMap<String, Integer> textIds = new HashMap<>();
+		final Map<String, Integer> restoredIds = this.restoredIds;
+		if (restoredIds != null) {
+			textIds.putAll(restoredIds);
+		}
+		textIds.putAll(this.textIds);
+		out.writeInt(this.nextId.get());
+		out.writeInt(textIds.size());
+		for (Map.Entry<String, Integer> entry : textIds.entrySet()) {
+			Codec.writeString(entry.getKey(), out);
+			out.writeInt(entry.getValue().intValue());
+		}
+	}
+
+	/**
+	 * Restores the identifiers written by {@link #writeTo(DataOutput)}.
+	 * Should be invoked before any clause is interned.
+	 *
+	 * @param in a {@link DataInput}.
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		final int nextId = in.readInt();
+		final int size = in.readInt();
+		final ConcurrentHashMap<String, Integer> restoredIds = new ConcurrentHashMap<>(size * 2);
+		for (int i = 0; i < size; ++i) {
+			final String text = Codec.readString(in);
+			restoredIds.put(text, Integer.valueOf(in.readInt()));
+		}
+		this.restoredIds = restoredIds;
+		this.nextId.set(nextId);
+	}
+
+	/**
+	 * A segment of the cache of the identifiers of the
+	 * clauses, evicting its least recently used entries.
+	 */
+	private static final class Segment {
+		private final LinkedHashMap<Clause, Integer> map;
+
+		Segment(int capacity) {
+			this.map = new LinkedHashMap<Clause, Integer>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Clause, Integer> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		synchronized Integer get(Clause c) {
+			return this.map.get(c);
+		}
+
+		synchronized void put(Clause c, Integer id) {
+			this.map.put(c, id);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package tardis.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes items to, and decodes them from, a compact binary form.
+ *
+ * @param <E> the type of the items.
+ */
+public interface Codec<E> {
+	/**
+	 * Encodes an item.
+	 * 
+	 * @param item the item to encode.
+	 * @param out the {@link DataOutput} where the item is written.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	void encode(E item, DataOutput out) throws IOException;
+	
+	/**
+	 * Decodes an item.
+	 * 
+	 * @param in the {@link DataInput} from where the item is read.
+	 * @return the decoded item. 
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	E decode(DataInput in) throws IOException;
+	
+	/**
+	 * Writes a string that can be longer than the 64 KB 
+	 * supported by {@link DataOutput#writeUTF(String)}.
+	 * 
+	 * @param s a {@link String}, possibly {@code null}.
+	 * @param out a {@link DataOutput}.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	static void writeString(String s, DataOutput out) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(String, DataOutput)}.
+	 * 
+	 * @param in a {@link DataInput}.
+	 * @return a {@link String}, possibly {@code null}.
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	static String readString(DataInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
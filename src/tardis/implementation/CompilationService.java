@@ -0,0 +1,215 @@
+package tardis.implementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * Compiles Java sources held in memory, shared by all the threads.
+ * Every thread keeps a {@link StandardJavaFileManager} for each
+ * classpath, so the classpath jars are opened and indexed once per
+ * thread, and the threads compile in parallel (a file manager must
+ * not be used by two compilation tasks at the same time). All the
+ * sources of a request are compiled in a single compilation task.
+ * The compiled classes are collected in memory and then written to
+ * the output directory.
+ */
+public final class CompilationService {
+	private final JavaCompiler compiler;
+	private final ThreadLocal<Map<String, StandardJavaFileManager>> fileManagers = ThreadLocal.withInitial(HashMap::new);
+	private final ConcurrentLinkedQueue<StandardJavaFileManager> allFileManagers = new ConcurrentLinkedQueue<>();
+	private final AtomicLong compilations = new AtomicLong(0);
+	private final AtomicLong compilationNanos = new AtomicLong(0);
+
+	public CompilationService(JavaCompiler compiler) {
+		this.compiler = compiler;
+	}
+
+	/**
+	 * Compiles a set of sources in a single compilation task.
+	 *
+	 * @param classpath a {@link String}, the compilation classpath.
+	 * @param outputDir a {@link Path}, the directory where the compiled
+	 *        classes are written.
+	 * @param sources a {@link Map}{@code <}{@link String}{@code , }{@link String}{@code >}
+	 *        mapping the name of each source file (without the {@code .java}
+	 *        extension) to its source code.
+	 * @param logFilePath a {@link Path}, the file where the compilation
+	 *        diagnostics are written. It is created only if there are
+	 *        diagnostics.
+	 * @return a {@link Map}{@code <}{@link String}{@code , }{@code byte[]}{@code >}
+	 *         mapping the binary name of each compiled class to its bytecode,
+	 *         or {@code null} if the compilation failed.
+	 * @throws IOException if setting the classpath, or writing the
+	 *         compiled classes or the log file fails.
+	 */
+	public Map<String, byte[]> compile(String classpath, Path outputDir, Map<String, String> sources, Path logFilePath) throws IOException {
+		final Map<String, byte[]> classes = doCompile(classpath, sources, logFilePath);
+		if (classes == null) {
+			return null;
+		}
+		for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+			final Path classFilePath = outputDir.resolve(entry.getKey().replace('.', File.separatorChar) + Kind.CLASS.extension);
+			Files.createDirectories(classFilePath.getParent());
+			Files.write(classFilePath, entry.getValue());
+		}
+		return classes;
+	}
+
+	private Map<String, byte[]> doCompile(String classpath, Map<String, String> sources, Path logFilePath) throws IOException {
+		final long start = System.nanoTime();
+		final StandardJavaFileManager fileManager = fileManager(classpath);
+		final List<JavaFileObject> compilationUnits = new ArrayList<>();
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			compilationUnits.add(new SourceInMemory(source.getKey(), source.getValue()));
+		}
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final StringWriter out = new StringWriter();
+		final ClassesInMemory classesInMemory = new ClassesInMemory(fileManager);
+		final boolean success = this.compiler.getTask(out, classesInMemory, diagnostics, Arrays.asList("-g"), null, compilationUnits).call();
+		this.compilations.incrementAndGet();
+		this.compilationNanos.addAndGet(System.nanoTime() - start);
+
+		if (!diagnostics.getDiagnostics().isEmpty() || out.getBuffer().length() > 0) {
+			final StringBuilder log = new StringBuilder(out.toString());
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				log.append(diagnostic.toString()).append(System.lineSeparator());
+			}
+			Files.write(logFilePath, log.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		return (success ? classesInMemory.getClasses() : null);
+	}
+
+	/**
+	 * Returns the file manager of the current thread for a classpath.
+	 *
+	 * @param classpath a {@link String}, the compilation classpath.
+	 * @return a {@link StandardJavaFileManager}.
+	 * @throws IOException if some entry of {@code classpath} is
+	 *         not a directory or a jar file.
+	 */
+	private StandardJavaFileManager fileManager(String classpath) throws IOException {
+		final Map<String, StandardJavaFileManager> fileManagers = this.fileManagers.get();
+		StandardJavaFileManager retVal = fileManagers.get(classpath);
+		if (retVal == null) {
+			retVal = this.compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+			final List<File> classpathFiles = new ArrayList<>();
+			for (String entry : classpath.split(File.pathSeparator)) {
+				if (!entry.isEmpty()) {
+					classpathFiles.add(new File(entry));
+				}
+			}
+			retVal.setLocation(StandardLocation.CLASS_PATH, classpathFiles);
+			fileManagers.put(classpath, retVal);
+			this.allFileManagers.add(retVal);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Closes all the file managers.
+	 */
+	public void close() {
+		for (StandardJavaFileManager fileManager : this.allFileManagers) {
+			try {
+				fileManager.close();
+			} catch (IOException e) {
+				//nothing to do
+			}
+		}
+		this.allFileManagers.clear();
+	}
+
+	public long getCompilations() {
+		return this.compilations.get();
+	}
+
+	public long getCompilationNanos() {
+		return this.compilationNanos.get();
+	}
+
+	private static final class SourceInMemory extends SimpleJavaFileObject {
+		private final String code;
+
+		SourceInMemory(String name, String code) {
+			super(URI.create("string:///" + name + Kind.SOURCE.extension), Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return this.code;
+		}
+	}
+
+	private static final class ClassInMemory extends SimpleJavaFileObject {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassInMemory(String className) {
+			super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return this.bytes;
+		}
+	}
+
+	private static final class ClassesInMemory extends ForwardingJavaFileManager<JavaFileManager> {
+		private final LinkedHashMap<String, ClassInMemory> classes = new LinkedHashMap<>();
+
+		ClassesInMemory(JavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) throws IOException {
+			if (kind == Kind.CLASS) {
+				final ClassInMemory retVal = new ClassInMemory(className);
+				this.classes.put(className, retVal);
+				return retVal;
+			}
+			return super.getJavaFileForOutput(location, className, kind, sibling);
+		}
+
+		@Override
+		public void close() {
+			//the wrapped file manager is shared: does not close it
+		}
+
+		Map<String, byte[]> getClasses() {
+			final LinkedHashMap<String, byte[]> retVal = new LinkedHashMap<>();
+			for (Map.Entry<String, ClassInMemory> entry : this.classes.entrySet()) {
+				retVal.put(entry.getKey(), entry.getValue().bytes.toByteArray());
+			}
+			return Collections.unmodifiableMap(retVal);
+		}
+	}
+}
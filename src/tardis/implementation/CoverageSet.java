@@ -1,20 +1,281 @@
 package tardis.implementation;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * The set of the covered branches, shared by all the threads.
+ * A branch is a {@link String} {@code "signature:fromPC:toPC"};
+ * every branch is interned to a dense {@code int} identifier
+ * when JBSE or EvoSuite report it for the first time (either because
+ * it is covered or because it is the target branch of a path condition),
+ * and from then on the set only keeps {@code int}s for it: its 
+ * coverage bit, held in a paged bitmap that is updated with 
+ * compare-and-set so adding coverage never blocks, and the identifier
+ * of its method. The set also keeps, for each method, the number
+ * of its known and of its covered branches. Querying a branch never
+ * interns it.
+ */
 public final class CoverageSet {
-	private final HashSet<String> coverage = new HashSet<>();
-	
-	public synchronized void addAll(Collection<? extends String> coverageInfo) {
-		this.coverage.addAll(coverageInfo);
+	private static final int BRANCH_PAGE_LOG = 16; //65536 branches per page
+	private static final int METHOD_PAGE_LOG = 10; //1024 methods per page
+	private static final int BRANCH_PAGE_MASK = (1 << BRANCH_PAGE_LOG) - 1;
+	private static final int METHOD_PAGE_MASK = (1 << METHOD_PAGE_LOG) - 1;
+	private static final int MAX_BRANCH_PAGES = 1 << (31 - BRANCH_PAGE_LOG);
+	private static final int MAX_METHOD_PAGES = 1 << (31 - METHOD_PAGE_LOG);
+
+	private final ConcurrentHashMap<String, Integer> branchIds = new ConcurrentHashMap<>();
+	private final AtomicInteger nextBranchId = new AtomicInteger(0);
+	private final AtomicReferenceArray<AtomicLongArray> coveredBits = new AtomicReferenceArray<>(MAX_BRANCH_PAGES);
+	private final AtomicReferenceArray<AtomicIntegerArray> methodOfBranch = new AtomicReferenceArray<>(MAX_BRANCH_PAGES);
+	private final ConcurrentHashMap<String, Integer> methodIds = new ConcurrentHashMap<>();
+	private final AtomicInteger nextMethodId = new AtomicInteger(0);
+	private final AtomicReferenceArray<AtomicIntegerArray> methodCovered = new AtomicReferenceArray<>(MAX_METHOD_PAGES);
+	private final AtomicReferenceArray<AtomicIntegerArray> methodTotal = new AtomicReferenceArray<>(MAX_METHOD_PAGES);
+	private final AtomicInteger covered = new AtomicInteger(0);
+	private final AtomicLong version = new AtomicLong(0);
+
+	/**
+	 * Registers a branch, without covering it.
+	 *
+	 * @param branch a {@link String}, the branch.
+	 * @return an {@code int}, the identifier of {@code branch}.
+	 */
+	public int register(String branch) {
+		final Integer retVal = this.branchIds.get(branch);
+		if (retVal != null) {
+			return retVal.intValue();
+		}
+		return this.branchIds.computeIfAbsent(branch, k -> {
+			final int methodId = this.methodIds.computeIfAbsent(methodOf(k), m -> this.nextMethodId.getAndIncrement()).intValue();
+			final int id = this.nextBranchId.getAndIncrement();
+			intPage(this.methodOfBranch, id, BRANCH_PAGE_LOG).set(id & BRANCH_PAGE_MASK, methodId);
+			intPage(this.methodTotal, methodId, METHOD_PAGE_LOG).incrementAndGet(methodId & METHOD_PAGE_MASK);
+			return Integer.valueOf(id);
+		}).intValue();
+	}
+
+	/**
+	 * Returns the identifier of a branch, without
+	 * registering it.
+	 *
+	 * @param branch a {@link String}, the branch.
+	 * @return an {@code int}, the identifier of {@code branch}, 
+	 *         or {@code -1} if {@code branch} was never 
+	 *         registered nor covered.
+	 */
+	public int id(String branch) {
+		final Integer retVal = this.branchIds.get(branch);
+		return (retVal == null ? -1 : retVal.intValue());
+	}
+
+	/**
+	 * Covers a set of branches.
+	 *
+	 * @param coverageInfo a {@link Collection}{@code <}{@link String}{@code >},
+	 *        the covered branches.
+	 * @return an {@code int[]}, the identifiers of the branches in
+	 *         {@code coverageInfo} that were not covered before.
+	 */
+	public int[] addAll(Collection<? extends String> coverageInfo) {
+		return addAll(coverageInfo, null);
+	}
+
+	/**
+	 * Covers a set of branches.
+	 *
+	 * @param coverageInfo a {@link Collection}{@code <}{@link String}{@code >},
+	 *        the covered branches.
+	 * @param newlyCoveredBranches a {@link Collection}{@code <}{@link String}{@code >}
+	 *        where the branches in {@code coverageInfo} that were not covered 
+	 *        before are added, or {@code null}.
+	 * @return an {@code int[]}, the identifiers of the branches in
+	 *         {@code coverageInfo} that were not covered before.
+	 */
+	public int[] addAll(Collection<? extends String> coverageInfo, Collection<? super String> newlyCoveredBranches) {
+		final int[] newlyCovered = new int[coverageInfo.size()];
+		int n = 0;
+		for (String branch : coverageInfo) {
+			final int id = register(branch);
+			if (set(id)) {
+				newlyCovered[n++] = id;
+				final int methodId = this.methodOfBranch.get(id >>> BRANCH_PAGE_LOG).get(id & BRANCH_PAGE_MASK);
+				intPage(this.methodCovered, methodId, METHOD_PAGE_LOG).incrementAndGet(methodId & METHOD_PAGE_MASK);
+				if (newlyCoveredBranches != null) {
+					newlyCoveredBranches.add(branch);
+				}
+			}
+		}
+		if (n > 0) {
+			this.covered.addAndGet(n);
+			this.version.incrementAndGet();
+		}
+		return Arrays.copyOf(newlyCovered, n);
+	}
+
+	/**
+	 * Checks whether a branch is covered. Does not 
+	 * register the branch.
+	 *
+	 * @param branch a {@link String}, the branch.
+	 * @return {@code true} iff {@code branch} is covered.
+	 */
+	public boolean covers(String branch) {
+		final int id = id(branch);
+		return (id >= 0 && covers(id));
+	}
+
+	/**
+	 * Checks whether a branch is covered.
+	 *
+	 * @param id an {@code int}, the identifier of the branch.
+	 * @return {@code true} iff the branch is covered.
+	 */
+	public boolean covers(int id) {
+		final AtomicLongArray page = this.coveredBits.get(id >>> BRANCH_PAGE_LOG);
+		if (page == null) {
+			return false;
+		}
+		final int bit = id & BRANCH_PAGE_MASK;
+		return (page.get(bit >>> 6) & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Returns the number of covered branches.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int size() {
+		return this.covered.get();
+	}
+
+	/**
+	 * Returns the number of covered branches of a method.
+	 *
+	 * @param methodSignature a {@link String}, the signature of the method.
+	 * @return an {@code int}.
+	 */
+	public int coveredBranches(String methodSignature) {
+		return methodCount(this.methodCovered, methodSignature);
 	}
-	
-	public synchronized boolean covers(String branch) {
-		return this.coverage.contains(branch);
+
+	/**
+	 * Returns the number of known (either covered or
+	 * {@link #register(String) register}ed) branches of a method.
+	 *
+	 * @param methodSignature a {@link String}, the signature of the method.
+	 * @return an {@code int}.
+	 */
+	public int totalBranches(String methodSignature) {
+		return methodCount(this.methodTotal, methodSignature);
+	}
+
+	/**
+	 * Returns the version of this set, a number that
+	 * increases every time some branch is newly covered.
+	 * Registering a branch does not change the version.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long version() {
+		return this.version.get();
+	}
+
+	/**
+	 * Writes the known branches and whether they are covered.
+	 *
+	 * @param out a {@link DataOutput}.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		final ArrayList<Map.Entry<String, Integer>> branches = new ArrayList<>(this.branchIds.entrySet());
+		out.writeInt(branches.size());
+		for (Map.Entry<String, Integer> branch : branches) {
+			Codec.writeString(branch.getKey(), out);
+			out.writeBoolean(covers(branch.getValue().intValue()));
+		}
+	}
+
+	/**
+	 * Registers and covers the branches written by 
+	 * {@link #writeTo(DataOutput)}. The identifiers of the
+	 * branches are not preserved.
+	 *
+	 * @param in a {@link DataInput}.
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		final int size = in.readInt();
+		final ArrayList<String> coveredBranches = new ArrayList<>();
+		for (int i = 0; i < size; ++i) {
+			final String branch = Codec.readString(in);
+			if (in.readBoolean()) {
+				coveredBranches.add(branch);
+			} else {
+				register(branch);
+			}
+		}
+		addAll(coveredBranches);
+	}
+
+	private int methodCount(AtomicReferenceArray<AtomicIntegerArray> counts, String methodSignature) {
+		final Integer methodId = this.methodIds.get(methodSignature);
+		if (methodId == null) {
+			return 0;
+		}
+		return intPage(counts, methodId.intValue(), METHOD_PAGE_LOG).get(methodId.intValue() & METHOD_PAGE_MASK);
+	}
+
+	private boolean set(int id) {
+		final int bit = id & BRANCH_PAGE_MASK;
+		final AtomicLongArray page = bitPage(id);
+		final int word = bit >>> 6;
+		final long mask = 1L << bit;
+		while (true) {
+			final long current = page.get(word);
+			if ((current & mask) != 0) {
+				return false;
+			}
+			if (page.compareAndSet(word, current, current | mask)) {
+				return true;
+			}
+		}
+	}
+
+	private AtomicLongArray bitPage(int id) {
+		final int pageIndex = id >>> BRANCH_PAGE_LOG;
+		final AtomicLongArray page = this.coveredBits.get(pageIndex);
+		if (page != null) {
+			return page;
+		}
+		this.coveredBits.compareAndSet(pageIndex, null, new AtomicLongArray((1 << BRANCH_PAGE_LOG) >>> 6));
+		return this.coveredBits.get(pageIndex);
+	}
+
+	private static AtomicIntegerArray intPage(AtomicReferenceArray<AtomicIntegerArray> pages, int id, int pageLog) {
+		final int pageIndex = id >>> pageLog;
+		final AtomicIntegerArray page = pages.get(pageIndex);
+		if (page != null) {
+			return page;
+		}
+		pages.compareAndSet(pageIndex, null, new AtomicIntegerArray(1 << pageLog));
+		return pages.get(pageIndex);
 	}
 
-	public synchronized int size() {
-		return this.coverage.size();
+	private static String methodOf(String branch) {
+		final int toPCSeparator = branch.lastIndexOf(':');
+		final int fromPCSeparator = (toPCSeparator <= 0 ? -1 : branch.lastIndexOf(':', toPCSeparator - 1));
+		return (fromPCSeparator < 0 ? branch : branch.substring(0, fromPCSeparator));
 	}
 }
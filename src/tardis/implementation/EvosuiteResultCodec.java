@@ -0,0 +1,55 @@
+package tardis.implementation;
+
+import static tardis.implementation.Codec.readString;
+import static tardis.implementation.Codec.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Encodes an {@link EvosuiteResult}: the target method, the 
+ * start depth and the {@link TestCase}. The source and the
+ * compiled class of the test case are not encoded, and must 
+ * still be on disk when the result is decoded.
+ */
+public final class EvosuiteResultCodec implements Codec<EvosuiteResult> {
+	@Override
+	public void encode(EvosuiteResult item, DataOutput out) throws IOException {
+		writeString(item.getTargetClassName(), out);
+		writeString(item.getTargetMethodDescriptor(), out);
+		writeString(item.getTargetMethodName(), out);
+		out.writeInt(item.getStartDepth());
+		final TestCase tc = item.getTestCase();
+		writeString(tc.getClassName(), out);
+		writeString(tc.getMethodDescriptor(), out);
+		writeString(tc.getMethodName(), out);
+		writeString(tc.getSourcePath().toString(), out);
+	}
+
+	@Override
+	public EvosuiteResult decode(DataInput in) throws IOException {
+		final String targetClassName = readString(in);
+		final String targetMethodDescriptor = readString(in);
+		final String targetMethodName = readString(in);
+		final int startDepth = in.readInt();
+		final String testClassName = readString(in);
+		final String testMethodDescriptor = readString(in);
+		final String testMethodName = readString(in);
+		final String sourcePath = readString(in);
+		
+		//the source path is the source directory resolved 
+		//against the (possibly qualified) test class name
+		final String sourceFileName = testClassName + ".java";
+		final Path sourceDir;
+		if (sourcePath.endsWith(sourceFileName)) {
+			sourceDir = Paths.get(sourcePath.substring(0, sourcePath.length() - sourceFileName.length()));
+		} else {
+			sourceDir = Paths.get(sourcePath).getParent();
+		}
+		final TestCase tc = new TestCase(testClassName, testMethodDescriptor, testMethodName, sourceDir);
+		return new EvosuiteResult(targetClassName, targetMethodDescriptor, targetMethodName, tc, startDepth);
+	}
+}
@@ -0,0 +1,57 @@
+package tardis.implementation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Properties;
+
+import org.evosuite.EvoSuite;
+
+/**
+ * The main class of a long-lived EvoSuite JVM managed by
+ * an {@link EvosuiteWorkerPool}. It reads jobs from its
+ * standard input, each being a line with the number {@code n}
+ * of the EvoSuite command line parameters followed by {@code n}
+ * lines with the parameters, and runs them one at a time in the
+ * same JVM. Unless the pool forks the EvoSuite client, a job 
+ * runs with {@code -Dclient_on_thread=true}, i.e., the client 
+ * that generates the tests runs on a thread of this JVM: so the 
+ * startup of both the JVMs of a one-shot EvoSuite run, the loading
+ * of the EvoSuite classes and the JIT warm-up are paid only once. 
+ * Note that EvoSuite still instruments and loads the target classes
+ * anew for every job. The output of a job goes to the standard output, 
+ * and is terminated by a {@link #JOB_END} line. The worker exits
+ * when its standard input is closed.
+ */
+public final class EvosuiteWorker {
+	static final String JOB_END = "* TARDIS EVOSUITE WORKER: JOB END";
+
+	public static void main(String[] args) throws IOException {
+		final Properties systemProperties = (Properties) System.getProperties().clone();
+		final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		while (true) {
+			final String header = in.readLine();
+			if (header == null) {
+				//the pool closed the pipe
+				break;
+			}
+			final int numParameters = Integer.parseInt(header.trim());
+			final String[] parameters = new String[numParameters];
+			for (int i = 0; i < numParameters; ++i) {
+				parameters[i] = in.readLine();
+			}
+			try {
+				new EvoSuite().parseCommandLine(parameters);
+			} catch (Throwable e) {
+				System.out.println("[EVOSUITE] Worker job failed: " + e);
+			}
+
+			//the -D parameters of a job set both the EvoSuite properties
+			//and the system properties: resets them for the next job
+			org.evosuite.Properties.getInstance().resetToDefaults();
+			System.setProperties((Properties) systemProperties.clone());
+			System.out.println(JOB_END);
+			System.out.flush();
+		}
+	}
+}
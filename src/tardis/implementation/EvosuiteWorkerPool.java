@@ -0,0 +1,323 @@
+package tardis.implementation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A pool of long-lived EvoSuite JVMs running {@link EvosuiteWorker}.
+ * The jobs run on a thread of the worker, unless so configured,
+ * in which case the worker forks a client JVM for every job.
+ * A job is {@link #submit(List, Consumer, Runnable) submit}ted to an 
+ * idle worker, whose output is passed line by line to a consumer
+ * as it is produced.
+ * A worker that does not complete a job within a timeout, or
+ * that crashes, is killed and replaced with a fresh one.
+ */
+public final class EvosuiteWorkerPool {
+	private final List<String> workerCommandLine;
+	private final int size;
+	private final long timeoutMillis;
+	private final boolean clientOnThread;
+	private final ArrayDeque<Worker> idle = new ArrayDeque<>();
+	private final ArrayList<Worker> all = new ArrayList<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition conditionIdle = this.lock.newCondition();
+	private int started = 0;
+	private boolean closed = false;
+	private final AtomicLong jobs = new AtomicLong(0);
+	private final AtomicLong timeouts = new AtomicLong(0);
+	private final AtomicLong restarts = new AtomicLong(0);
+
+	public EvosuiteWorkerPool(Options o) {
+		final String workerClasspath;
+		try {
+			workerClasspath = Paths.get(EvosuiteWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		} catch (Exception e) {
+			//this should never happen
+			throw new RuntimeException(e); //TODO better exception!
+		}
+		this.workerCommandLine = new ArrayList<>();
+		this.workerCommandLine.add("java");
+		this.workerCommandLine.add("-Xmx4G");
+		this.workerCommandLine.add("-cp");
+		this.workerCommandLine.add(o.getEvosuitePath().toString() + File.pathSeparator + workerClasspath);
+		this.workerCommandLine.add(EvosuiteWorker.class.getName());
+		this.size = (o.getEvosuiteWorkers() > 0 ? o.getEvosuiteWorkers() : Math.max(1, o.getNumOfThreads()));
+		final long timeoutSeconds = (o.getEvosuiteWorkerTimeout() > 0 ? o.getEvosuiteWorkerTimeout() :
+			2 * o.getEvosuiteTimeBudgetUnit().toSeconds(o.getEvosuiteTimeBudgetDuration()) + 60);
+		this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+		this.clientOnThread = !o.getEvosuiteWorkerForkClient();
+	}
+
+	/**
+	 * Submits a job to an idle worker. If no worker is
+	 * idle and the pool is not full starts a new worker,
+	 * otherwise waits until a worker completes its job.
+	 *
+	 * @param parameters a {@link List}{@code <}{@link String}{@code >},
+	 *        the EvoSuite command line parameters of the job.
+	 * @param output a {@link Consumer}{@code <}{@link String}{@code >}
+	 *        receiving the lines of output of the job.
+	 * @param onEnd a {@link Runnable} invoked after the last
+	 *        line of output of the job was consumed.
+	 * @return a {@link Job}. It behaves as the {@link Process}
+	 *         of a one-shot EvoSuite run, with exit value 0 iff the
+	 *         job ended before the timeout and without crashing
+	 *         the worker.
+	 * @throws IOException if starting a new worker, or writing
+	 *         the job to the worker fails.
+	 * @throws InterruptedException if the thread is
+	 *         interrupted while waiting for a worker.
+	 */
+	public Job submit(List<String> parameters, Consumer<String> output, Runnable onEnd) throws IOException, InterruptedException {
+		final Worker worker = acquire();
+		try {
+			worker.stdin.write(Integer.toString(parameters.size() + (this.clientOnThread ? 1 : 0)));
+			worker.stdin.newLine();
+			for (String parameter : parameters) {
+				worker.stdin.write(parameter);
+				worker.stdin.newLine();
+			}
+			if (this.clientOnThread) {
+				worker.stdin.write("-Dclient_on_thread=true");
+				worker.stdin.newLine();
+			}
+			worker.stdin.flush();
+		} catch (IOException e) {
+			giveBack(worker, false);
+			throw e;
+		}
+		this.jobs.incrementAndGet();
+		return new Job(worker, output, onEnd);
+	}
+
+	private Worker acquire() throws IOException, InterruptedException {
+		final ReentrantLock lock = this.lock;
+		boolean mustStart = false;
+		Worker worker = null;
+		lock.lockInterruptibly();
+		try {
+			while (worker == null && !mustStart) {
+				if (this.closed) {
+					throw new IllegalStateException("EvoSuite worker pool is closed");
+				}
+				if (!this.idle.isEmpty()) {
+					worker = this.idle.pop();
+				} else if (this.started < this.size) {
+					++this.started;
+					mustStart = true;
+				} else {
+					this.conditionIdle.await();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (mustStart) {
+			try {
+				worker = new Worker(new ProcessBuilder(this.workerCommandLine).redirectErrorStream(true).start());
+			} catch (IOException | RuntimeException e) {
+				giveBack(null, false);
+				throw e;
+			}
+			lock.lock();
+			try {
+				this.all.add(worker);
+			} finally {
+				lock.unlock();
+			}
+		}
+		return worker;
+	}
+
+	private void giveBack(Worker worker, boolean healthy) {
+		if (worker != null && !healthy) {
+			worker.process.destroyForcibly();
+		}
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if (worker != null && healthy && !this.closed) {
+				this.idle.push(worker);
+			} else {
+				//the worker will be replaced by a fresh one
+				//upon the next submission
+				if (worker != null) {
+					this.all.remove(worker);
+					if (!this.closed) {
+						this.restarts.incrementAndGet();
+					}
+				}
+				--this.started;
+			}
+			this.conditionIdle.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the pool, killing all the workers.
+	 */
+	public void close() {
+		final ArrayList<Worker> toKill;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			this.closed = true;
+			toKill = new ArrayList<>(this.all);
+			this.idle.clear();
+			this.conditionIdle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (Worker worker : toKill) {
+			worker.process.destroyForcibly();
+		}
+	}
+
+	public long getJobs() {
+		return this.jobs.get();
+	}
+
+	public long getTimeouts() {
+		return this.timeouts.get();
+	}
+
+	public long getRestarts() {
+		return this.restarts.get();
+	}
+
+	private static final class Worker {
+		final Process process;
+		final BufferedWriter stdin;
+		final BufferedReader stdout;
+
+		Worker(Process process) {
+			this.process = process;
+			this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+			this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		}
+	}
+
+	/**
+	 * A job submitted to a worker. It passes the output of the
+	 * worker to the job consumer until the end of the job, and
+	 * then gives the worker back to the pool.
+	 */
+	public final class Job extends Process {
+		private final Worker worker;
+		private final Consumer<String> output;
+		private final Runnable onEnd;
+		private final Thread pump;
+		private volatile boolean succeeded = false;
+		private volatile boolean ended = false;
+
+		private Job(Worker worker, Consumer<String> output, Runnable onEnd) {
+			this.worker = worker;
+			this.output = output;
+			this.onEnd = onEnd;
+			this.pump = new Thread(this::pump);
+			this.pump.setDaemon(true);
+			this.pump.start();
+		}
+
+		private void pump() {
+			boolean healthy = false;
+			try {
+				while (true) {
+					final String line = this.worker.stdout.readLine();
+					if (line == null) {
+						//the worker crashed or was killed
+						break;
+					}
+					if (EvosuiteWorker.JOB_END.equals(line)) {
+						healthy = true;
+						break;
+					}
+					this.output.accept(line);
+				}
+			} catch (IOException e) {
+				healthy = false;
+			} finally {
+				this.succeeded = healthy;
+				giveBack(this.worker, healthy);
+				try {
+					this.onEnd.run();
+				} finally {
+					this.ended = true;
+				}
+			}
+		}
+
+		@Override
+		public int waitFor() throws InterruptedException {
+			this.pump.join(EvosuiteWorkerPool.this.timeoutMillis);
+			if (this.pump.isAlive()) {
+				System.out.println("[EVOSUITE] EvoSuite worker job timed out, killing the worker");
+				EvosuiteWorkerPool.this.timeouts.incrementAndGet();
+				destroy();
+				this.pump.join();
+			}
+			return exitValue();
+		}
+
+		@Override
+		public int exitValue() {
+			if (!this.ended) {
+				throw new IllegalThreadStateException("EvoSuite worker job has not ended");
+			}
+			return (this.succeeded ? 0 : 1);
+		}
+
+		@Override
+		public void destroy() {
+			if (!this.ended) {
+				this.worker.process.destroyForcibly();
+			}
+		}
+
+		@Override
+		public boolean isAlive() {
+			return !this.ended;
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					throw new IOException("The input of an EvoSuite worker job is not accessible");
+				}
+			};
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			//the output is passed to the job consumer
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			//the output is passed to the job consumer
+			return new ByteArrayInputStream(new byte[0]);
+		}
+	}
+}
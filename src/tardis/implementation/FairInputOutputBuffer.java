@@ -0,0 +1,232 @@
+package tardis.implementation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * A buffer that keeps a separate sub-buffer for each key
+ * (e.g., for each target method) and polls the sub-buffers
+ * in round-robin order, taking at most a quantum of consecutive
+ * items from each of them. This way a key with many items
+ * cannot starve the other ones. The order of the items 
+ * with same key is the order of their sub-buffer.
+ *
+ * @param <E> the type of the items in the buffer.
+ */
+public class FairInputOutputBuffer<E> implements InputOutputBuffer<E> {
+	private final Function<E, String> keyFunction;
+	private final Supplier<InputOutputBuffer<E>> subBufferFactory;
+	private final int quantum;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+	private final LinkedHashMap<String, Lane<E>> lanes = new LinkedHashMap<>();
+	private final ArrayDeque<Lane<E>> activeLanes = new ArrayDeque<>();
+	private int size = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param keyFunction a {@link Function}{@code <E, }{@link String}{@code >} 
+	 *        returning the key of an item.
+	 * @param subBufferFactory a {@link Supplier} creating the sub-buffer
+	 *        of a key. The sub-buffers are only accessed while holding
+	 *        the lock of this buffer.
+	 * @param quantum an {@code int}, the maximum number of consecutive 
+	 *        items polled from the same sub-buffer when other sub-buffers
+	 *        are not empty. It must be positive.
+	 */
+	public FairInputOutputBuffer(Function<E, String> keyFunction, Supplier<InputOutputBuffer<E>> subBufferFactory, int quantum) {
+		if (quantum <= 0) {
+			throw new IllegalArgumentException("The quantum of a fair buffer must be positive.");
+		}
+		this.keyFunction = keyFunction;
+		this.subBufferFactory = subBufferFactory;
+		this.quantum = quantum;
+	}
+
+	@Override
+	public boolean add(E e) {
+		this.lock.lock();
+		try {
+			final Lane<E> lane = this.lanes.computeIfAbsent(this.keyFunction.apply(e), k -> new Lane<>(this.subBufferFactory.get()));
+			if (!lane.buffer.add(e)) {
+				return false;
+			}
+			if (lane.size == 0) {
+				lane.credit = this.quantum;
+				this.activeLanes.addLast(lane);
+			}
+			++lane.size;
+			lane.maxSize = Math.max(lane.maxSize, lane.size);
+			++this.size;
+			this.notEmpty.signal();
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.size == 0) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			return pollNonEmpty();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxItems) {
+		this.lock.lock();
+		try {
+			int retVal = 0;
+			try {
+				while (retVal < maxItems && this.size > 0) {
+					c.add(pollNonEmpty());
+					++retVal;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return retVal;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Polls the next item in round-robin order. Must be 
+	 * invoked while holding the lock, and when this buffer
+	 * is not empty.
+	 * 
+	 * @return the polled item.
+	 * @throws InterruptedException if the sub-buffer is
+	 *         interrupted while polling.
+	 */
+	private E pollNonEmpty() throws InterruptedException {
+		final Lane<E> lane = this.activeLanes.peekFirst();
+		final E retVal = lane.buffer.poll(0, TimeUnit.NANOSECONDS);
+		if (retVal == null) {
+			//this should never happen
+			throw new AssertionError("Nonempty sub-buffer of fair buffer returned no item.");
+		}
+		--lane.size;
+		++lane.served;
+		--this.size;
+		--lane.credit;
+		if (lane.size == 0) {
+			this.activeLanes.pollFirst();
+		} else if (lane.credit == 0) {
+			lane.credit = this.quantum;
+			this.activeLanes.addLast(this.activeLanes.pollFirst());
+		}
+		return retVal;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		this.lock.lock();
+		try {
+			return this.size == 0;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public List<E> snapshot() {
+		this.lock.lock();
+		try {
+			final ArrayList<E> retVal = new ArrayList<>(this.size);
+			for (Lane<E> lane : this.lanes.values()) {
+				retVal.addAll(lane.buffer.snapshot());
+			}
+			return retVal;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the current number of items for each key.
+	 * 
+	 * @return a {@link Map}{@code <}{@link String}{@code , }{@link Integer}{@code >}.
+	 */
+	public Map<String, Integer> getQueueDepths() {
+		return snapshot(lane -> lane.size);
+	}
+	
+	/**
+	 * Returns the maximum number of items that were waiting 
+	 * at the same time for each key.
+	 * 
+	 * @return a {@link Map}{@code <}{@link String}{@code , }{@link Integer}{@code >}.
+	 */
+	public Map<String, Integer> getMaxQueueDepths() {
+		return snapshot(lane -> lane.maxSize);
+	}
+	
+	/**
+	 * Returns the number of items that were polled for each key.
+	 * 
+	 * @return a {@link Map}{@code <}{@link String}{@code , }{@link Integer}{@code >}.
+	 */
+	public Map<String, Integer> getServed() {
+		return snapshot(lane -> lane.served);
+	}
+	
+	private Map<String, Integer> snapshot(Function<Lane<E>, Integer> metric) {
+		this.lock.lock();
+		try {
+			final LinkedHashMap<String, Integer> retVal = new LinkedHashMap<>();
+			for (Map.Entry<String, Lane<E>> entry : this.lanes.entrySet()) {
+				retVal.put(entry.getKey(), metric.apply(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(retVal);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private static final class Lane<E> {
+		final InputOutputBuffer<E> buffer;
+		int size = 0;
+		int maxSize = 0;
+		int served = 0;
+		int credit = 0;
+
+		Lane(InputOutputBuffer<E> buffer) {
+			this.buffer = buffer;
+		}
+	}
+}
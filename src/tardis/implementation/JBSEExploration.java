@@ -0,0 +1,145 @@
+package tardis.implementation;
+
+import static tardis.implementation.Codec.readString;
+import static tardis.implementation.Codec.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import jbse.mem.Clause;
+
+/**
+ * The outcome of the exploration of a test case by a {@link JBSEWorker}:
+ * the path condition and the coverage of the test case, and the
+ * results on the frontiers with their path conditions. Since it
+ * crosses the JVM boundary the results are {@link JBSEResult#isDetached() detached},
+ * and the path conditions are lists of clause texts, that can be
+ * {@link ClauseInterner#textIds(List) interned}.
+ */
+public final class JBSEExploration {
+	private final String error;
+	private final List<String> pathCondition;
+	private final String shortPathCondition;
+	private final List<String> coverage;
+	private final List<JBSEResult> results;
+	private final List<List<String>> resultPathConditions;
+
+	JBSEExploration(List<String> pathCondition, String shortPathCondition, List<String> coverage, List<JBSEResult> results, List<List<String>> resultPathConditions) {
+		this.error = null;
+		this.pathCondition = pathCondition;
+		this.shortPathCondition = shortPathCondition;
+		this.coverage = coverage;
+		this.results = results;
+		this.resultPathConditions = resultPathConditions;
+	}
+
+	JBSEExploration(String error) {
+		this.error = error;
+		this.pathCondition = Collections.emptyList();
+		this.shortPathCondition = null;
+		this.coverage = Collections.emptyList();
+		this.results = Collections.emptyList();
+		this.resultPathConditions = Collections.emptyList();
+	}
+
+	/**
+	 * Returns the error that made the exploration fail.
+	 *
+	 * @return a {@link String}, or {@code null} if
+	 *         the exploration succeeded.
+	 */
+	public String getError() {
+		return this.error;
+	}
+
+	public List<String> getPathCondition() {
+		return this.pathCondition;
+	}
+
+	public String getShortPathCondition() {
+		return this.shortPathCondition;
+	}
+
+	public List<String> getCoverage() {
+		return this.coverage;
+	}
+
+	public List<JBSEResult> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * Returns the path conditions of the results.
+	 *
+	 * @return a {@link List}{@code <}{@link List}{@code <}{@link String}{@code >>}
+	 *         whose {@code i}-th element is the path condition of the
+	 *         {@code i}-th element of {@link #getResults()}.
+	 */
+	public List<List<String>> getResultPathConditions() {
+		return this.resultPathConditions;
+	}
+
+	static List<String> texts(Collection<Clause> pc) {
+		final ArrayList<String> retVal = new ArrayList<>(pc.size());
+		for (Clause c : pc) {
+			retVal.add(c.toString());
+		}
+		return retVal;
+	}
+
+	void encode(DataOutput out) throws IOException {
+		out.writeBoolean(this.error == null);
+		if (this.error != null) {
+			writeString(this.error, out);
+			return;
+		}
+		writeStrings(this.pathCondition, out);
+		writeString(this.shortPathCondition, out);
+		writeStrings(this.coverage, out);
+		final JBSEResultCodec codec = new JBSEResultCodec();
+		out.writeInt(this.results.size());
+		for (int i = 0; i < this.results.size(); ++i) {
+			codec.encode(this.results.get(i), out);
+			writeStrings(this.resultPathConditions.get(i), out);
+		}
+	}
+
+	static JBSEExploration decode(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return new JBSEExploration(readString(in));
+		}
+		final List<String> pathCondition = readStrings(in);
+		final String shortPathCondition = readString(in);
+		final List<String> coverage = readStrings(in);
+		final JBSEResultCodec codec = new JBSEResultCodec();
+		final int numResults = in.readInt();
+		final ArrayList<JBSEResult> results = new ArrayList<>(numResults);
+		final ArrayList<List<String>> resultPathConditions = new ArrayList<>(numResults);
+		for (int i = 0; i < numResults; ++i) {
+			results.add(codec.decode(in));
+			resultPathConditions.add(readStrings(in));
+		}
+		return new JBSEExploration(pathCondition, shortPathCondition, coverage, results, resultPathConditions);
+	}
+
+	private static void writeStrings(List<String> strings, DataOutput out) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings) {
+			writeString(s, out);
+		}
+	}
+
+	private static List<String> readStrings(DataInput in) throws IOException {
+		final int size = in.readInt();
+		final ArrayList<String> retVal = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i) {
+			retVal.add(readString(in));
+		}
+		return retVal;
+	}
+}
@@ -1,7 +1,22 @@
 package tardis.implementation;
 
+import static tardis.implementation.Util.shorten;
+
 import jbse.mem.State;
 
+/**
+ * The result of the exploration of a test case by JBSE: a final
+ * state, whose path condition EvoSuite must solve, with the initial 
+ * state and the pre-frontier state of its execution. The states are 
+ * not copied: the results generated from the same test case share 
+ * the same initial state, and the ones at the same depth share the 
+ * same pre-state. For this reason the states passed to the 
+ * constructors must be snapshots that nobody modifies afterwards, 
+ * and the states returned by the getters must not be modified.
+ * A result can also be {@link #isDetached() detached}, i.e., not 
+ * hold the states but only the data that EvoSuite needs, namely 
+ * the source of the EvoSuite wrapper and the path condition.
+ */
 public class JBSEResult {
 	private final String targetClassName;
 	private final String targetMethodDescriptor;
@@ -10,28 +25,76 @@ public class JBSEResult {
 	private final State preState;
 	private final State finalState;
 	private final boolean atJump;
+	private final String targetBranch;
 	private final int depth;
+	private final String evosuiteWrapperTemplate;
+	private final String shortPathCondition;
 	
-	public JBSEResult(String targetClassName, String targetMethodDescriptor, String targetMethodName, State initialState, State preState, State finalState, boolean atJump, int depth) {
+	public JBSEResult(String targetClassName, String targetMethodDescriptor, String targetMethodName, State initialState, State preState, State finalState, boolean atJump, String targetBranch, int depth) {
 		this.targetClassName = targetClassName;
 		this.targetMethodDescriptor = targetMethodDescriptor;
 		this.targetMethodName = targetMethodName;
-		this.initialState = initialState.clone();
-		this.preState = preState.clone();
-		this.finalState = finalState.clone();
+		this.initialState = initialState;
+		this.preState = preState;
+		this.finalState = finalState;
 		this.atJump = atJump;
+		this.targetBranch = targetBranch;
 		this.depth = depth;
+		this.evosuiteWrapperTemplate = null;
+		this.shortPathCondition = null;
 	}
 	
-	public JBSEResult(EvosuiteResult er, State initialState, State preState, State finalState, boolean atJump, int depth) {
+	public JBSEResult(EvosuiteResult er, State initialState, State preState, State finalState, boolean atJump, String targetBranch, int depth) {
 		this.targetClassName = er.getTargetClassName();
 		this.targetMethodDescriptor = er.getTargetMethodDescriptor();
 		this.targetMethodName = er.getTargetMethodName();
-		this.initialState = initialState.clone();
-		this.preState = preState.clone();
-		this.finalState = finalState.clone();
+		this.initialState = initialState;
+		this.preState = preState;
+		this.finalState = finalState;
+		this.atJump = atJump;
+		this.targetBranch = targetBranch;
+		this.depth = depth;
+		this.evosuiteWrapperTemplate = null;
+		this.shortPathCondition = null;
+	}
+	
+	/**
+	 * Constructor of a detached result.
+	 * 
+	 * @param targetClassName a {@link String}, the name of the target class.
+	 * @param targetMethodDescriptor a {@link String}, the descriptor of the target method.
+	 * @param targetMethodName a {@link String}, the name of the target method.
+	 * @param atJump a {@code boolean}, whether the final state is reached by a jump bytecode.
+	 * @param targetBranch a {@link String}, the branch that leads to the final state, or {@code null}.
+	 * @param depth an {@code int}, the depth of the final state.
+	 * @param evosuiteWrapperTemplate a {@link String}, the source of the EvoSuite wrapper
+	 *        for the final state, as returned by {@link PerformerEvosuite#makeEvoSuiteWrapperTemplate(State, State)}.
+	 * @param shortPathCondition a {@link String}, the printable path condition of the final state.
+	 */
+	public JBSEResult(String targetClassName, String targetMethodDescriptor, String targetMethodName, boolean atJump, String targetBranch, int depth, String evosuiteWrapperTemplate, String shortPathCondition) {
+		this.targetClassName = targetClassName;
+		this.targetMethodDescriptor = targetMethodDescriptor;
+		this.targetMethodName = targetMethodName;
+		this.initialState = null;
+		this.preState = null;
+		this.finalState = null;
 		this.atJump = atJump;
+		this.targetBranch = targetBranch;
 		this.depth = depth;
+		this.evosuiteWrapperTemplate = evosuiteWrapperTemplate;
+		this.shortPathCondition = shortPathCondition;
+	}
+	
+	/**
+	 * Checks whether this result is detached.
+	 * 
+	 * @return {@code true} iff this result does not hold
+	 *         the states, in which case {@link #getInitialState()},
+	 *         {@link #getPreState()} and {@link #getFinalState()}
+	 *         return {@code null}.
+	 */
+	public boolean isDetached() {
+		return this.finalState == null;
 	}
 	
 	public String getTargetClassName() {
@@ -62,7 +125,38 @@ public class JBSEResult {
 		return this.atJump;
 	}
 	
+	/**
+	 * Returns the branch that leads to the final state.
+	 * 
+	 * @return a {@link String} in the format used by {@link CoverageSet},
+	 *         or {@code null} if the final state is not reached
+	 *         by a jump bytecode.
+	 */
+	public String getTargetBranch() {
+		return this.targetBranch;
+	}
+	
 	public int getDepth() {
 		return this.depth;
+	}
+	
+	/**
+	 * Returns the source of the EvoSuite wrapper of a detached result.
+	 * 
+	 * @return a {@link String}, or {@code null} if this result 
+	 *         is not {@link #isDetached() detached}.
+	 */
+	public String getEvoSuiteWrapperTemplate() {
+		return this.evosuiteWrapperTemplate;
+	}
+	
+	/**
+	 * Returns the path condition of the final state, without
+	 * the class initialization clauses, in printable form.
+	 * 
+	 * @return a {@link String}.
+	 */
+	public String getShortPathCondition() {
+		return (isDetached() ? this.shortPathCondition : shorten(this.finalState.getPathCondition()).toString());
 	}	
 }
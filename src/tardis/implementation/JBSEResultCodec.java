@@ -0,0 +1,45 @@
+package tardis.implementation;
+
+import static tardis.implementation.Codec.readString;
+import static tardis.implementation.Codec.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes a {@link JBSEResult} in the data that {@link PerformerEvosuite} 
+ * uses: the target method, the target branch, the depth, the EvoSuite 
+ * wrapper and the printable path condition. The JBSE states are not 
+ * encoded, and the decoded results are {@link JBSEResult#isDetached() detached}.
+ */
+public final class JBSEResultCodec implements Codec<JBSEResult> {
+	@Override
+	public void encode(JBSEResult item, DataOutput out) throws IOException {
+		writeString(item.getTargetClassName(), out);
+		writeString(item.getTargetMethodDescriptor(), out);
+		writeString(item.getTargetMethodName(), out);
+		out.writeBoolean(item.getAtJump());
+		writeString(item.getTargetBranch(), out);
+		out.writeInt(item.getDepth());
+		if (item.isDetached()) {
+			writeString(item.getEvoSuiteWrapperTemplate(), out);
+		} else {
+			writeString(PerformerEvosuite.makeEvoSuiteWrapperTemplate(item.getInitialState(), item.getFinalState()), out);
+		}
+		writeString(item.getShortPathCondition(), out);
+	}
+
+	@Override
+	public JBSEResult decode(DataInput in) throws IOException {
+		final String targetClassName = readString(in);
+		final String targetMethodDescriptor = readString(in);
+		final String targetMethodName = readString(in);
+		final boolean atJump = in.readBoolean();
+		final String targetBranch = readString(in);
+		final int depth = in.readInt();
+		final String evosuiteWrapperTemplate = readString(in);
+		final String shortPathCondition = readString(in);
+		return new JBSEResult(targetClassName, targetMethodDescriptor, targetMethodName, atJump, targetBranch, depth, evosuiteWrapperTemplate, shortPathCondition);
+	}
+}
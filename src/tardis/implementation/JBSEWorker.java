@@ -0,0 +1,148 @@
+package tardis.implementation;
+
+import static tardis.implementation.Util.shorten;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+
+import jbse.algo.exc.CannotManageStateException;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.common.exc.ClasspathException;
+import jbse.dec.exc.DecisionException;
+import jbse.jvm.exc.CannotBacktrackException;
+import jbse.jvm.exc.CannotBuildEngineException;
+import jbse.jvm.exc.EngineStuckException;
+import jbse.jvm.exc.FailureException;
+import jbse.jvm.exc.InitializationException;
+import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.mem.Clause;
+import jbse.mem.State;
+import jbse.mem.exc.ContradictionException;
+import jbse.mem.exc.ThreadStackEmptyException;
+
+/**
+ * The main class of a JBSE JVM managed by a {@link JBSEWorkerPool}.
+ * It receives the TARDIS command line as its arguments, and reads
+ * jobs from its standard input, each being a frame containing an
+ * {@link EvosuiteResult} encoded by {@link EvosuiteResultCodec}. It
+ * runs the jobs one at a time, and for each of them writes on its
+ * standard output a frame containing the {@link JBSEExploration}
+ * of the test case. A frame is an {@code int} length followed by
+ * as many bytes. Since the standard output carries the frames,
+ * all the messages of the worker go to its standard error. The
+ * worker exits when its standard input is closed.
+ */
+public final class JBSEWorker {
+	public static void main(String[] args) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+		System.setOut(System.err);
+		final Options o = new Options();
+		try {
+			new CmdLineParser(o).parseArgument(args);
+		} catch (CmdLineException e) {
+			System.out.println("[JBSE    ] Worker: ill-formed command line: " + e.getMessage());
+			System.exit(1);
+		}
+		final Z3Pool z3Pool = new Z3Pool(o, new SatCache(o, new ClauseInterner()));
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+		final EvosuiteResultCodec codec = new EvosuiteResultCodec();
+		try {
+			while (true) {
+				final byte[] job = readFrame(in);
+				if (job == null) {
+					//the pool closed the pipe
+					break;
+				}
+				final EvosuiteResult item = codec.decode(new DataInputStream(new ByteArrayInputStream(job)));
+				final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (final DataOutputStream result = new DataOutputStream(bytes)) {
+					explore(o, z3Pool, item).encode(result);
+				}
+				writeFrame(out, bytes.toByteArray());
+			}
+		} finally {
+			z3Pool.close();
+		}
+	}
+
+	/**
+	 * Runs a test case up to its final state, and harvests the
+	 * states on the frontiers at all the depths to be explored,
+	 * as {@link PerformerJBSE} does.
+	 *
+	 * @param o the {@link Options}.
+	 * @param z3Pool the {@link Z3Pool} of the worker.
+	 * @param item the {@link EvosuiteResult} to explore.
+	 * @return the {@link JBSEExploration} of {@code item}.
+	 */
+	private static JBSEExploration explore(Options o, Z3Pool z3Pool, EvosuiteResult item) {
+		try {
+			final RunnerPath rp = new RunnerPath(o, item, z3Pool);
+			final SortedMap<Integer, List<State>> newStatesByDepth = rp.runProgram(item.getStartDepth(), o.getMaxDepth());
+			final Collection<Clause> tcFinalPC = rp.getFinalState().getPathCondition();
+			final State initialState = rp.getInitialState();
+			final ArrayList<JBSEResult> results = new ArrayList<>();
+			final ArrayList<List<String>> resultPathConditions = new ArrayList<>();
+			for (Map.Entry<Integer, List<State>> entry : newStatesByDepth.entrySet()) {
+				final int currentDepth = entry.getKey();
+				final State preState = rp.getPreState(currentDepth);
+				final boolean atJump = rp.getAtJump(currentDepth);
+				for (State newState : entry.getValue()) {
+					final String targetBranch = (atJump ? PerformerJBSE.branch(preState, newState) : null);
+					results.add(new JBSEResult(item, initialState, preState, newState, atJump, targetBranch, currentDepth));
+					resultPathConditions.add(JBSEExploration.texts(newState.getPathCondition()));
+				}
+			}
+			return new JBSEExploration(JBSEExploration.texts(tcFinalPC), shorten(tcFinalPC).toString(), new ArrayList<>(rp.getCoverage()), results, resultPathConditions);
+		} catch (DecisionException | CannotBuildEngineException | InitializationException |
+				InvalidClassFileFactoryClassException | NonexistingObservedVariablesException |
+				ClasspathException | CannotBacktrackException | CannotManageStateException |
+				ThreadStackEmptyException | ContradictionException | EngineStuckException |
+				FailureException e) {
+			return new JBSEExploration(String.valueOf(e.getMessage()));
+		}
+	}
+
+	static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+		out.writeInt(frame.length);
+		out.write(frame);
+		out.flush();
+	}
+
+	/**
+	 * Reads a frame.
+	 *
+	 * @param in a {@link DataInputStream}.
+	 * @return a {@code byte[]}, or {@code null} if
+	 *         {@code in} ended before the frame.
+	 * @throws IOException if reading fails, or {@code in}
+	 *         ends in the middle of the frame.
+	 */
+	static byte[] readFrame(DataInputStream in) throws IOException {
+		final int length;
+		try {
+			length = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		final byte[] retVal = new byte[length];
+		in.readFully(retVal);
+		return retVal;
+	}
+}
@@ -0,0 +1,236 @@
+package tardis.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of JBSE JVMs running {@link JBSEWorker}. Every worker
+ * has its own heap, so the garbage collections caused by an
+ * exploration do not pause the other explorations, nor the
+ * rest of TARDIS. A test case is {@link #explore(EvosuiteResult) explore}d
+ * by an idle worker. A worker that crashes, or that does not
+ * complete a job within a timeout, is killed and replaced with
+ * a fresh one.
+ */
+public final class JBSEWorkerPool {
+	private final List<String> workerCommandLine;
+	private final int size;
+	private final long timeoutSeconds;
+	private final ScheduledThreadPoolExecutor watchdog;
+	private final ArrayDeque<Worker> idle = new ArrayDeque<>();
+	private final ArrayList<Worker> all = new ArrayList<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition conditionIdle = this.lock.newCondition();
+	private final EvosuiteResultCodec codec = new EvosuiteResultCodec();
+	private int started = 0;
+	private boolean closed = false;
+	private final AtomicLong jobs = new AtomicLong(0);
+	private final AtomicLong timeouts = new AtomicLong(0);
+	private final AtomicLong restarts = new AtomicLong(0);
+
+	public JBSEWorkerPool(Options o) {
+		this.workerCommandLine = new ArrayList<>();
+		this.workerCommandLine.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		this.workerCommandLine.add("-Xmx" + o.getJBSEWorkerHeap());
+		this.workerCommandLine.add("-cp");
+		this.workerCommandLine.add(System.getProperty("java.class.path"));
+		this.workerCommandLine.add(JBSEWorker.class.getName());
+		this.workerCommandLine.addAll(o.getCommandLine());
+
+		//the default name of the temporary subdirectory depends
+		//on the time, so the workers must be told which one it is
+		final Path tmpDirectoryPath = o.getTmpDirectoryPath().toAbsolutePath();
+		this.workerCommandLine.add("-tmp_base");
+		this.workerCommandLine.add(tmpDirectoryPath.getParent().toString());
+		this.workerCommandLine.add("-tmp_name");
+		this.workerCommandLine.add(tmpDirectoryPath.getFileName().toString());
+		this.size = Math.max(1, o.getJBSEWorkers());
+		this.timeoutSeconds = o.getJBSEWorkerTimeout();
+		this.watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+			final Thread t = new Thread(r);
+			t.setDaemon(true);
+			return t;
+		});
+		this.watchdog.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Explores a test case in an idle worker. If no worker
+	 * is idle and the pool is not full starts a new worker,
+	 * otherwise waits until a worker completes its job.
+	 *
+	 * @param item the {@link EvosuiteResult} to explore.
+	 * @return the {@link JBSEExploration} of {@code item}.
+	 * @throws IOException if starting a new worker, or
+	 *         communicating with the worker fails, e.g.,
+	 *         because the worker crashed or timed out.
+	 * @throws InterruptedException if the thread is
+	 *         interrupted while waiting for a worker.
+	 * @throws CancellationException if the pool is closed.
+	 */
+	public JBSEExploration explore(EvosuiteResult item) throws IOException, InterruptedException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream job = new DataOutputStream(bytes)) {
+			this.codec.encode(item, job);
+		}
+		final Worker worker = acquire();
+		final ScheduledFuture<?> deadline = (this.timeoutSeconds > 0 ? this.watchdog.schedule(() -> {
+			worker.timedOut = true;
+			this.timeouts.incrementAndGet();
+			worker.process.destroyForcibly();
+		}, this.timeoutSeconds, TimeUnit.SECONDS) : null);
+		boolean healthy = false;
+		try {
+			JBSEWorker.writeFrame(worker.stdin, bytes.toByteArray());
+			final byte[] result = JBSEWorker.readFrame(worker.stdout);
+			if (result == null) {
+				throw new IOException("JBSE worker terminated with exit value " + worker.process.waitFor());
+			}
+			final JBSEExploration retVal = JBSEExploration.decode(new DataInputStream(new ByteArrayInputStream(result)));
+			healthy = true;
+			return retVal;
+		} catch (IOException e) {
+			if (worker.timedOut) {
+				throw new IOException("JBSE worker did not complete the job within " + this.timeoutSeconds + " seconds", e);
+			}
+			throw e;
+		} finally {
+			if (deadline != null && !deadline.cancel(false)) {
+				//the deadline expired just after the job 
+				//was completed: the worker is being killed
+				healthy = false;
+			}
+			this.jobs.incrementAndGet();
+			giveBack(worker, healthy);
+		}
+	}
+
+	private Worker acquire() throws IOException, InterruptedException {
+		final ReentrantLock lock = this.lock;
+		boolean mustStart = false;
+		Worker worker = null;
+		lock.lockInterruptibly();
+		try {
+			while (worker == null && !mustStart) {
+				if (this.closed) {
+					throw new CancellationException("JBSE worker pool is closed");
+				}
+				if (!this.idle.isEmpty()) {
+					worker = this.idle.pop();
+				} else if (this.started < this.size) {
+					++this.started;
+					mustStart = true;
+				} else {
+					this.conditionIdle.await();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (mustStart) {
+			try {
+				//the messages of the worker go to the standard error
+				worker = new Worker(new ProcessBuilder(this.workerCommandLine).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+			} catch (IOException | RuntimeException e) {
+				giveBack(null, false);
+				throw e;
+			}
+			lock.lock();
+			try {
+				this.all.add(worker);
+			} finally {
+				lock.unlock();
+			}
+		}
+		return worker;
+	}
+
+	private void giveBack(Worker worker, boolean healthy) {
+		if (worker != null && !healthy) {
+			worker.process.destroyForcibly();
+		}
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if (worker != null && healthy && !this.closed) {
+				this.idle.push(worker);
+			} else {
+				//the worker will be replaced by a fresh one
+				//upon the next job
+				if (worker != null) {
+					this.all.remove(worker);
+					if (!this.closed) {
+						this.restarts.incrementAndGet();
+					}
+				}
+				--this.started;
+			}
+			this.conditionIdle.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the pool, killing all the workers.
+	 */
+	public void close() {
+		final ArrayList<Worker> toKill;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			this.closed = true;
+			toKill = new ArrayList<>(this.all);
+			this.idle.clear();
+			this.conditionIdle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (Worker worker : toKill) {
+			worker.process.destroyForcibly();
+		}
+		this.watchdog.shutdownNow();
+	}
+
+	public long getJobs() {
+		return this.jobs.get();
+	}
+
+	public long getTimeouts() {
+		return this.timeouts.get();
+	}
+
+	public long getRestarts() {
+		return this.restarts.get();
+	}
+
+	private static final class Worker {
+		final Process process;
+		final DataOutputStream stdin;
+		final DataInputStream stdout;
+		volatile boolean timedOut = false;
+
+		Worker(Process process) {
+			this.process = process;
+			this.stdin = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+			this.stdout = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+		}
+	}
+}
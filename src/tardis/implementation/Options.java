@@ -82,6 +82,14 @@ public final class Options implements Cloneable {
 			handler = PathOptionHandler.class)
 	private Path z3Path;
 	
+	@Option(name = "-z3_pool_size",
+			usage = "Number of Z3 processes kept alive and shared by all the JBSE threads (default: 0, as many as the threads)")
+	private int z3PoolSize = 0;
+	
+	@Option(name = "-sat_cache_size",
+			usage = "Maximum number of satisfiability query results cached and shared by all the JBSE threads, 0 means no cache")
+	private int satCacheSize = 100_000;
+	
 	@Option(name = "-jbse_lib",
 			usage = "Path to JBSE library",
 			handler = PathOptionHandler.class)
@@ -129,6 +137,115 @@ public final class Options implements Cloneable {
 			usage = "Set to true if you want to use MOSA, false for ordinary EvoSuite")
 	private boolean useMOSA = false;
 	
+	@Option(name = "-use_adaptive_mosa_batching",
+			usage = "Set to true if you want the number of targets of a MOSA job and the timeout for its creation to adapt to the traffic, up to -num_mosa_targets and -timeout_mosa_task_creation_duration")
+	private boolean useAdaptiveMOSABatching = false;
+	
+	@Option(name = "-use_priority_scheduling",
+			usage = "Set to true if you want the path conditions and test cases to be processed in order of coverage-based priority, false for FIFO order")
+	private boolean usePriorityScheduling = false;
+	
+	@Option(name = "-fair_scheduling_quantum",
+			usage = "Maximum number of consecutive path conditions or test cases for the same target method that are processed when other target methods are waiting, 0 means no fair scheduling")
+	private int fairSchedulingQuantum = 0;
+	
+	@Option(name = "-use_evosuite_daemon",
+			usage = "Set to true if you want EvoSuite jobs to run in a pool of long-lived EvoSuite JVMs, false for a fresh EvoSuite JVM for every job")
+	private boolean useEvosuiteDaemon = false;
+	
+	@Option(name = "-evosuite_workers",
+			usage = "Number of long-lived EvoSuite JVMs when -use_evosuite_daemon is set (default: 0, as many as the threads)")
+	private int evosuiteWorkers = 0;
+	
+	@Option(name = "-evosuite_worker_timeout",
+			usage = "Timeout in seconds after which a long-lived EvoSuite JVM running a job is killed and replaced (default: 0, twice the EvoSuite time budget plus one minute)")
+	private long evosuiteWorkerTimeout = 0;
+	
+	@Option(name = "-evosuite_worker_fork_client",
+			usage = "Set to true if you want the long-lived EvoSuite JVMs to fork a fresh EvoSuite client JVM for every job, false to run the client on a thread of the long-lived JVM")
+	private boolean evosuiteWorkerForkClient = false;
+	
+	@Option(name = "-evosuite_log_max_size",
+			usage = "Maximum size in bytes of the copy of the output of every EvoSuite job that is saved in the temporary directory, 0 means no copy")
+	private long evosuiteLogMaxSize = 0;
+	
+	@Option(name = "-evosuite_seed",
+			usage = "Seed of the random choices of EvoSuite, so runs can be repeated (every EvoSuite job gets the seed plus the number of its first test), 0 means a different seed at every run")
+	private long evosuiteSeed = 0;
+	
+	@Option(name = "-jbse_workers",
+			usage = "Number of JVMs where the JBSE jobs run, each with its own heap, 0 means that JBSE jobs run in this JVM")
+	private int jbseWorkers = 0;
+	
+	@Option(name = "-jbse_worker_heap",
+			usage = "Maximum heap size of a JVM running JBSE jobs when -jbse_workers is set, in the format of the -Xmx JVM option")
+	private String jbseWorkerHeap = "4G";
+	
+	@Option(name = "-jbse_worker_timeout",
+			usage = "Timeout in seconds after which a JVM running a JBSE job when -jbse_workers is set is killed and replaced, 0 means no timeout")
+	private long jbseWorkerTimeout = 1800;
+	
+	@Option(name = "-use_virtual_threads",
+			usage = "Set to true if you want JBSE jobs and the threads watching EvoSuite jobs to run on virtual threads (platform threads if the JVM does not support them)")
+	private boolean useVirtualThreads = false;
+	
+	@Option(name = "-use_work_stealing",
+			usage = "Set to true if you want JBSE jobs to run in a work-stealing thread pool, and to split their work at different depths in subtasks that idle threads can steal (ignored if -use_virtual_threads is set)")
+	private boolean useWorkStealing = false;
+	
+	@Option(name = "-path_condition_buffer_capacity",
+			usage = "Number of pending path conditions upon which JBSE stops starting jobs until EvoSuite consumes them, 0 means unbounded")
+	private int pathConditionBufferCapacity = 0;
+	
+	@Option(name = "-test_case_buffer_capacity",
+			usage = "Number of pending test cases upon which EvoSuite stops starting jobs until JBSE consumes them, 0 means unbounded")
+	private int testCaseBufferCapacity = 0;
+	
+	@Option(name = "-buffer_low_watermark_percent",
+			usage = "Percentage of the capacity of a bounded buffer to which the pending items must drop before the producer starts jobs again")
+	private int bufferLowWatermarkPercent = 50;
+	
+	@Option(name = "-buffer_max_wait_seconds",
+			usage = "Maximum time in seconds a producer stops starting jobs because of a full bounded buffer")
+	private long bufferMaxWaitSeconds = 60;
+	
+	@Option(name = "-spill_path_conditions_threshold",
+			usage = "Number of pending path conditions kept in memory, beyond which they are spilled to disk in the temporary directory, 0 means never spill (ignored if -use_priority_scheduling is set)")
+	private int spillPathConditionsThreshold = 0;
+	
+	@Option(name = "-checkpoint_interval_minutes",
+			usage = "Interval in minutes between two checkpoints of the run, saved in the temporary subdirectory, 0 means no checkpoints")
+	private long checkpointIntervalMinutes = 0;
+	
+	@Option(name = "-resume",
+			usage = "Set to true if you want to resume the run from the last checkpoint in the temporary subdirectory (use -tmp_name to select the subdirectory of the interrupted run)")
+	private boolean resume = false;
+	
+	@Option(name = "-shards",
+			usage = "Number of TARDIS processes, launched by this one, among which the target methods are split (or their path conditions, if the target methods are fewer than the processes); the processes share coverage and explored path conditions, and this one merges their output directories (0 or 1 means no sharding)")
+	private int shards = 0;
+	
+	@Option(name = "-coordinator_port",
+			usage = "Loopback port where the coordinator of a sharded run listens for its shards, 0 means any free port")
+	private int coordinatorPort = 0;
+	
+	@Option(name = "-shard_index",
+			usage = "Index, from 0 to the value of -shards minus 1, of this shard in a sharded run (set by the coordinator)")
+	private int shardIndex = 0;
+	
+	@Option(name = "-coordinator_address",
+			usage = "Address in the form <host>:<port> of the coordinator of the sharded run this process is a shard of (set by the coordinator)")
+	private String coordinatorAddress = null;
+	
+	@Option(name = "-timeline_file",
+			usage = "CSV file where the number of covered branches, the numbers of pending items, and the numbers of generated and failed tests are periodically written with the elapsed wall clock and CPU time",
+			handler = PathOptionHandler.class)
+	private Path timelineFile = null;
+	
+	@Option(name = "-timeline_interval_seconds",
+			usage = "Interval in seconds between two samples of the timeline, when -timeline_file is set")
+	private long timelineIntervalSeconds = 10;
+	
 	@Option(name = "-heap_scope",
 			usage = "JBSE heap scope in the form <className1>=<maxNumInstances1>; multiple heap scopes can be specified",
 			handler = MapOptionHandler.class)
@@ -143,6 +260,10 @@ public final class Options implements Cloneable {
 			handler = MultiSignatureOptionHandler.class)
 	private List<List<String>> uninterpreted = new ArrayList<>();
 	
+	//not an option: the command line the options were parsed from,
+	//passed to the JVMs running JBSE jobs
+	private List<String> commandLine = Collections.emptyList();
+	
 	public boolean getHelp() {
 		return this.help;
 	}
@@ -271,6 +392,22 @@ public final class Options implements Cloneable {
 		this.z3Path = z3Path;
 	}
 	
+	public int getZ3PoolSize() {
+		return this.z3PoolSize;
+	}
+	
+	public void setZ3PoolSize(int z3PoolSize) {
+		this.z3PoolSize = z3PoolSize;
+	}
+	
+	public int getSatCacheSize() {
+		return this.satCacheSize;
+	}
+	
+	public void setSatCacheSize(int satCacheSize) {
+		this.satCacheSize = satCacheSize;
+	}
+	
 	public Path getJBSELibraryPath() {
 		return this.jbsePath;
 	}
@@ -366,6 +503,230 @@ public final class Options implements Cloneable {
 		this.useMOSA = useMOSA;
 	}
 	
+	public boolean getUseAdaptiveMOSABatching() {
+		return this.useAdaptiveMOSABatching;
+	}
+	
+	public void setUseAdaptiveMOSABatching(boolean useAdaptiveMOSABatching) {
+		this.useAdaptiveMOSABatching = useAdaptiveMOSABatching;
+	}
+	
+	public boolean getUsePriorityScheduling() {
+		return this.usePriorityScheduling;
+	}
+	
+	public void setUsePriorityScheduling(boolean usePriorityScheduling) {
+		this.usePriorityScheduling = usePriorityScheduling;
+	}
+	
+	public boolean getUseEvosuiteDaemon() {
+		return this.useEvosuiteDaemon;
+	}
+	
+	public void setUseEvosuiteDaemon(boolean useEvosuiteDaemon) {
+		this.useEvosuiteDaemon = useEvosuiteDaemon;
+	}
+	
+	public int getEvosuiteWorkers() {
+		return this.evosuiteWorkers;
+	}
+	
+	public void setEvosuiteWorkers(int evosuiteWorkers) {
+		this.evosuiteWorkers = evosuiteWorkers;
+	}
+	
+	public long getEvosuiteWorkerTimeout() {
+		return this.evosuiteWorkerTimeout;
+	}
+	
+	public void setEvosuiteWorkerTimeout(long evosuiteWorkerTimeout) {
+		this.evosuiteWorkerTimeout = evosuiteWorkerTimeout;
+	}
+	
+	public boolean getEvosuiteWorkerForkClient() {
+		return this.evosuiteWorkerForkClient;
+	}
+	
+	public void setEvosuiteWorkerForkClient(boolean evosuiteWorkerForkClient) {
+		this.evosuiteWorkerForkClient = evosuiteWorkerForkClient;
+	}
+	
+	public long getEvosuiteLogMaxSize() {
+		return this.evosuiteLogMaxSize;
+	}
+	
+	public void setEvosuiteLogMaxSize(long evosuiteLogMaxSize) {
+		this.evosuiteLogMaxSize = evosuiteLogMaxSize;
+	}
+	
+	public long getEvosuiteSeed() {
+		return this.evosuiteSeed;
+	}
+	
+	public void setEvosuiteSeed(long evosuiteSeed) {
+		this.evosuiteSeed = evosuiteSeed;
+	}
+	
+	public int getJBSEWorkers() {
+		return this.jbseWorkers;
+	}
+	
+	public void setJBSEWorkers(int jbseWorkers) {
+		this.jbseWorkers = jbseWorkers;
+	}
+	
+	public String getJBSEWorkerHeap() {
+		return this.jbseWorkerHeap;
+	}
+	
+	public void setJBSEWorkerHeap(String jbseWorkerHeap) {
+		this.jbseWorkerHeap = jbseWorkerHeap;
+	}
+	
+	public long getJBSEWorkerTimeout() {
+		return this.jbseWorkerTimeout;
+	}
+	
+	public void setJBSEWorkerTimeout(long jbseWorkerTimeout) {
+		this.jbseWorkerTimeout = jbseWorkerTimeout;
+	}
+	
+	public List<String> getCommandLine() {
+		return this.commandLine;
+	}
+	
+	public void setCommandLine(List<String> commandLine) {
+		this.commandLine = Collections.unmodifiableList(new ArrayList<>(commandLine));
+	}
+	
+	public boolean getUseVirtualThreads() {
+		return this.useVirtualThreads;
+	}
+	
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+	
+	public boolean getUseWorkStealing() {
+		return this.useWorkStealing;
+	}
+	
+	public void setUseWorkStealing(boolean useWorkStealing) {
+		this.useWorkStealing = useWorkStealing;
+	}
+	
+	public int getPathConditionBufferCapacity() {
+		return this.pathConditionBufferCapacity;
+	}
+	
+	public void setPathConditionBufferCapacity(int pathConditionBufferCapacity) {
+		this.pathConditionBufferCapacity = pathConditionBufferCapacity;
+	}
+	
+	public int getTestCaseBufferCapacity() {
+		return this.testCaseBufferCapacity;
+	}
+	
+	public void setTestCaseBufferCapacity(int testCaseBufferCapacity) {
+		this.testCaseBufferCapacity = testCaseBufferCapacity;
+	}
+	
+	public int getBufferLowWatermarkPercent() {
+		return this.bufferLowWatermarkPercent;
+	}
+	
+	public void setBufferLowWatermarkPercent(int bufferLowWatermarkPercent) {
+		this.bufferLowWatermarkPercent = bufferLowWatermarkPercent;
+	}
+	
+	public long getBufferMaxWaitSeconds() {
+		return this.bufferMaxWaitSeconds;
+	}
+	
+	public void setBufferMaxWaitSeconds(long bufferMaxWaitSeconds) {
+		this.bufferMaxWaitSeconds = bufferMaxWaitSeconds;
+	}
+	
+	public int getSpillPathConditionsThreshold() {
+		return this.spillPathConditionsThreshold;
+	}
+	
+	public void setSpillPathConditionsThreshold(int spillPathConditionsThreshold) {
+		this.spillPathConditionsThreshold = spillPathConditionsThreshold;
+	}
+	
+	public long getCheckpointIntervalMinutes() {
+		return this.checkpointIntervalMinutes;
+	}
+	
+	public void setCheckpointIntervalMinutes(long checkpointIntervalMinutes) {
+		this.checkpointIntervalMinutes = checkpointIntervalMinutes;
+	}
+	
+	public boolean getResume() {
+		return this.resume;
+	}
+	
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+	
+	public int getShards() {
+		return this.shards;
+	}
+	
+	public void setShards(int shards) {
+		this.shards = shards;
+	}
+	
+	public int getCoordinatorPort() {
+		return this.coordinatorPort;
+	}
+	
+	public void setCoordinatorPort(int coordinatorPort) {
+		this.coordinatorPort = coordinatorPort;
+	}
+	
+	public int getShardIndex() {
+		return this.shardIndex;
+	}
+	
+	public void setShardIndex(int shardIndex) {
+		this.shardIndex = shardIndex;
+	}
+	
+	public String getCoordinatorAddress() {
+		return this.coordinatorAddress;
+	}
+	
+	public void setCoordinatorAddress(String coordinatorAddress) {
+		this.coordinatorAddress = coordinatorAddress;
+	}
+	
+	public Path getTimelineFile() {
+		return this.timelineFile;
+	}
+	
+	public void setTimelineFile(Path timelineFile) {
+		this.timelineFile = timelineFile;
+	}
+	
+	public long getTimelineIntervalSeconds() {
+		return this.timelineIntervalSeconds;
+	}
+	
+	public void setTimelineIntervalSeconds(long timelineIntervalSeconds) {
+		this.timelineIntervalSeconds = timelineIntervalSeconds;
+	}
+	
+	public int getFairSchedulingQuantum() {
+		return this.fairSchedulingQuantum;
+	}
+	
+	public void setFairSchedulingQuantum(int fairSchedulingQuantum) {
+		this.fairSchedulingQuantum = fairSchedulingQuantum;
+	}
+	
 	public void setHeapScope(String className, int scope) {
 		if (className == null) {
 			return;
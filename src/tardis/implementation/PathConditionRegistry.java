@@ -0,0 +1,261 @@
+package tardis.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jbse.mem.Clause;
+
+/**
+ * A registry of the path conditions that were emitted by
+ * the JBSE threads, either already solved by EvoSuite or
+ * still in flight. It is used to suppress the path conditions
+ * that two different test cases with a common path prefix
+ * would both emit. A path condition registered together with
+ * the {@link JBSEResult} that carries it stays registered only
+ * if EvoSuite produces a test for it: it is 
+ * {@link #release(JBSEResult) released} if EvoSuite fails or 
+ * times out, so a later test case can emit it again. It is 
+ * shared by all the threads.
+ */
+public final class PathConditionRegistry {
+	private final ClauseInterner interner;
+	private final Set<Key> emitted = ConcurrentHashMap.newKeySet();
+	private final ConcurrentHashMap<JBSEResult, Key> pending = new ConcurrentHashMap<>();
+	private final AtomicLong duplicates = new AtomicLong(0);
+
+	public PathConditionRegistry(ClauseInterner interner) {
+		this.interner = interner;
+	}
+
+	/**
+	 * Registers a path condition.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link Collection}{@code <}{@link Clause}{@code >}, the path condition.
+	 * @return {@code true} iff {@code pc} was not previously registered
+	 *         for {@code targetMethod}, i.e., iff it must be emitted.
+	 */
+	public boolean register(String targetMethod, Collection<Clause> pc) {
+		return register(targetMethod, this.interner.ids(pc));
+	}
+
+	/**
+	 * Registers a path condition.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc an {@code int[]}, the path condition as the identifiers
+	 *        of its {@link ClauseInterner interned} clauses.
+	 * @return {@code true} iff {@code pc} was not previously registered
+	 *         for {@code targetMethod}, i.e., iff it must be emitted.
+	 */
+	public boolean register(String targetMethod, int[] pc) {
+		return register(new Key(targetMethod, pc));
+	}
+
+	/**
+	 * Registers a path condition until EvoSuite either produces
+	 * a test for it, or fails.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link Collection}{@code <}{@link Clause}{@code >}, the path condition.
+	 * @param result the {@link JBSEResult} that is emitted if 
+	 *        {@code pc} is registered.
+	 * @return {@code true} iff {@code pc} was not previously registered
+	 *         for {@code targetMethod}, i.e., iff it must be emitted.
+	 *         In this case either {@link #settle(JBSEResult) settle}{@code (result)}
+	 *         or {@link #release(JBSEResult) release}{@code (result)} must 
+	 *         be invoked later.
+	 */
+	public boolean register(String targetMethod, Collection<Clause> pc, JBSEResult result) {
+		return register(targetMethod, this.interner.ids(pc), result);
+	}
+
+	/**
+	 * Registers a path condition until EvoSuite either produces
+	 * a test for it, or fails.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc an {@code int[]}, the path condition as the identifiers
+	 *        of its {@link ClauseInterner interned} clauses.
+	 * @param result the {@link JBSEResult} that is emitted if 
+	 *        {@code pc} is registered.
+	 * @return {@code true} iff {@code pc} was not previously registered
+	 *         for {@code targetMethod}, i.e., iff it must be emitted.
+	 *         In this case either {@link #settle(JBSEResult) settle}{@code (result)}
+	 *         or {@link #release(JBSEResult) release}{@code (result)} must 
+	 *         be invoked later.
+	 */
+	public boolean register(String targetMethod, int[] pc, JBSEResult result) {
+		final Key key = new Key(targetMethod, pc);
+		if (!register(key)) {
+			return false;
+		}
+		this.pending.put(result, key);
+		return true;
+	}
+
+	private boolean register(Key key) {
+		final boolean retVal = this.emitted.add(key);
+		if (!retVal) {
+			this.duplicates.incrementAndGet();
+		}
+		return retVal;
+	}
+
+	/**
+	 * Records that EvoSuite produced a test for the path
+	 * condition of a {@link JBSEResult}, that so stays 
+	 * registered. Does nothing if the path condition was 
+	 * not registered together with {@code result}.
+	 *
+	 * @param result a {@link JBSEResult}.
+	 */
+	public void settle(JBSEResult result) {
+		this.pending.remove(result);
+	}
+
+	/**
+	 * Records that EvoSuite failed to produce a test for the
+	 * path condition of a {@link JBSEResult}, that so is
+	 * unregistered and can be emitted again. Does nothing if 
+	 * the path condition was not registered together with 
+	 * {@code result}.
+	 *
+	 * @param result a {@link JBSEResult}.
+	 */
+	public void release(JBSEResult result) {
+		final Key key = this.pending.remove(result);
+		if (key != null) {
+			this.emitted.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the number of registered path conditions.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int size() {
+		return this.emitted.size();
+	}
+
+	/**
+	 * Returns the number of duplicate path conditions that
+	 * were suppressed.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getDuplicates() {
+		return this.duplicates.get();
+	}
+
+	/**
+	 * Writes the registered path conditions. The clauses are
+	 * written as their {@link ClauseInterner interned} identifiers,
+	 * so the interner must be saved too.
+	 *
+	 * @param out a {@link DataOutput}.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		snapshot().writeTo(out);
+	}
+
+	/**
+	 * Takes a snapshot of the registered path conditions, that 
+	 * can be written later. Only the references to the path 
+	 * conditions are copied.
+	 *
+	 * @return a {@link Snapshot}.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(new ArrayList<>(this.emitted));
+	}
+
+	/**
+	 * A snapshot of a {@link PathConditionRegistry}.
+	 */
+	public static final class Snapshot {
+		private final ArrayList<Key> keys;
+
+		private Snapshot(ArrayList<Key> keys) {
+			this.keys = keys;
+		}
+
+		/**
+		 * Writes the path conditions that were registered 
+		 * when this snapshot was taken, as 
+		 * {@link PathConditionRegistry#writeTo(DataOutput)} does.
+		 *
+		 * @param out a {@link DataOutput}.
+		 * @throws IOException if writing to {@code out} fails.
+		 */
+		public void writeTo(DataOutput out) throws IOException {
+			out.writeInt(this.keys.size());
+			for (Key key : this.keys) {
+				Codec.writeString(key.targetMethod, out);
+				out.writeInt(key.pc.length);
+				for (int id : key.pc) {
+					out.writeInt(id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers the path conditions written by 
+	 * {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in a {@link DataInput}.
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		final int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			final String targetMethod = Codec.readString(in);
+			final int[] pc = new int[in.readInt()];
+			for (int j = 0; j < pc.length; ++j) {
+				pc[j] = in.readInt();
+			}
+			this.emitted.add(new Key(targetMethod, pc));
+		}
+	}
+
+	private static final class Key {
+		private final String targetMethod;
+		private final int[] pc;
+		private final int hashCode;
+
+		Key(String targetMethod, int[] pc) {
+			this.targetMethod = targetMethod;
+			this.pc = pc;
+			this.hashCode = 31 * targetMethod.hashCode() + Arrays.hashCode(pc);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.hashCode == other.hashCode &&
+					this.targetMethod.equals(other.targetMethod) &&
+					Arrays.equals(this.pc, other.pc);
+		}
+	}
+}
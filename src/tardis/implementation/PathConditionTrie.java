@@ -0,0 +1,231 @@
+package tardis.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jbse.mem.Clause;
+
+/**
+ * A trie of the path conditions of the explored test cases, one
+ * for each target method. Clauses are {@link ClauseInterner interned},
+ * so adding a path condition or checking whether a path condition 
+ * is a prefix of an explored one takes time proportional to its length. 
+ * Every node records the version of the trie when it was added, so
+ * a {@link #snapshot() snapshot} is taken in constant time, and is
+ * written later without the path conditions added meanwhile.
+ * It is shared by all the threads.
+ */
+public final class PathConditionTrie {
+	private final ClauseInterner interner;
+	private final ConcurrentHashMap<String, Node> roots = new ConcurrentHashMap<>();
+	private final AtomicInteger version = new AtomicInteger(0);
+
+	public PathConditionTrie(ClauseInterner interner) {
+		this.interner = interner;
+	}
+
+	/**
+	 * Adds a path condition to this trie.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link Collection}{@code <}{@link Clause}{@code >}, the path condition.
+	 */
+	public void add(String targetMethod, Collection<Clause> pc) {
+		final int version = this.version.get();
+		Node current = this.roots.computeIfAbsent(targetMethod, k -> new Node(version));
+		for (Clause c : pc) {
+			current = current.children.computeIfAbsent(this.interner.id(c), k -> new Node(version));
+		}
+	}
+
+	/**
+	 * Adds a path condition to this trie.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc an {@code int[]}, the path condition as the identifiers
+	 *        of its {@link ClauseInterner interned} clauses.
+	 */
+	public void add(String targetMethod, int[] pc) {
+		final int version = this.version.get();
+		Node current = this.roots.computeIfAbsent(targetMethod, k -> new Node(version));
+		for (int id : pc) {
+			current = current.children.computeIfAbsent(id, k -> new Node(version));
+		}
+	}
+
+	/**
+	 * Checks whether a path condition is a prefix of
+	 * a path condition in this trie.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link Collection}{@code <}{@link Clause}{@code >}, the path condition.
+	 * @return {@code true} iff {@code pc} is a prefix of (or is equal to) 
+	 *         a path condition previously {@link #add(String, Collection) add}ed
+	 *         for {@code targetMethod}.
+	 */
+	public boolean containsPrefix(String targetMethod, Collection<Clause> pc) {
+		Node current = this.roots.get(targetMethod);
+		if (current == null) {
+			return false;
+		}
+		for (Clause c : pc) {
+			current = current.children.get(this.interner.id(c));
+			if (current == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether a path condition is a prefix of
+	 * a path condition in this trie.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc an {@code int[]}, the path condition as the identifiers
+	 *        of its {@link ClauseInterner interned} clauses.
+	 * @return {@code true} iff {@code pc} is a prefix of (or is equal to) 
+	 *         a path condition previously {@link #add(String, int[]) add}ed
+	 *         for {@code targetMethod}.
+	 */
+	public boolean containsPrefix(String targetMethod, int[] pc) {
+		Node current = this.roots.get(targetMethod);
+		if (current == null) {
+			return false;
+		}
+		for (int id : pc) {
+			current = current.children.get(id);
+			if (current == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes this trie. The clauses are written as their
+	 * {@link ClauseInterner interned} identifiers, so the 
+	 * interner must be saved too.
+	 *
+	 * @param out a {@link DataOutput}.
+	 * @throws IOException if writing to {@code out} fails.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		snapshot().writeTo(out);
+	}
+
+	/**
+	 * Takes a snapshot of this trie, that can be written 
+	 * later. Takes constant time.
+	 *
+	 * @return a {@link Snapshot} of the path conditions
+	 *         added so far.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this.version.getAndIncrement());
+	}
+
+	/**
+	 * A snapshot of a {@link PathConditionTrie}.
+	 */
+	public final class Snapshot {
+		private final int version;
+
+		private Snapshot(int version) {
+			this.version = version;
+		}
+
+		/**
+		 * Writes the path conditions that were in the trie 
+		 * when this snapshot was taken, as 
+		 * {@link PathConditionTrie#writeTo(DataOutput)} does.
+		 *
+		 * @param out a {@link DataOutput}.
+		 * @throws IOException if writing to {@code out} fails.
+		 */
+		public void writeTo(DataOutput out) throws IOException {
+			final ArrayList<Map.Entry<String, Node>> roots = new ArrayList<>();
+			for (Map.Entry<String, Node> root : PathConditionTrie.this.roots.entrySet()) {
+				if (root.getValue().version <= this.version) {
+					roots.add(root);
+				}
+			}
+			out.writeInt(roots.size());
+			for (Map.Entry<String, Node> root : roots) {
+				Codec.writeString(root.getKey(), out);
+
+				//pre-order visit with an explicit stack, since 
+				//path conditions can be very long
+				final ArrayDeque<Iterator<Map.Entry<Integer, Node>>> stack = new ArrayDeque<>();
+				stack.push(writeChildrenCount(root.getValue(), out));
+				while (!stack.isEmpty()) {
+					final Iterator<Map.Entry<Integer, Node>> children = stack.peek();
+					if (children.hasNext()) {
+						final Map.Entry<Integer, Node> child = children.next();
+						out.writeInt(child.getKey().intValue());
+						stack.push(writeChildrenCount(child.getValue(), out));
+					} else {
+						stack.pop();
+					}
+				}
+			}
+		}
+
+		private Iterator<Map.Entry<Integer, Node>> writeChildrenCount(Node node, DataOutput out) throws IOException {
+			final ArrayList<Map.Entry<Integer, Node>> children = new ArrayList<>();
+			for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+				if (child.getValue().version <= this.version) {
+					children.add(child);
+				}
+			}
+			out.writeInt(children.size());
+			return children.iterator();
+		}
+	}
+
+	/**
+	 * Adds to this trie the path conditions written by 
+	 * {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in a {@link DataInput}.
+	 * @throws IOException if reading from {@code in} fails.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		final int numRoots = in.readInt();
+		for (int i = 0; i < numRoots; ++i) {
+			final Node root = this.roots.computeIfAbsent(Codec.readString(in), k -> new Node(0));
+			final ArrayDeque<Node> nodes = new ArrayDeque<>();
+			final ArrayDeque<Integer> remaining = new ArrayDeque<>();
+			nodes.push(root);
+			remaining.push(in.readInt());
+			while (!nodes.isEmpty()) {
+				final int children = remaining.pop();
+				if (children == 0) {
+					nodes.pop();
+				} else {
+					remaining.push(children - 1);
+					final Node child = nodes.peek().children.computeIfAbsent(in.readInt(), k -> new Node(0));
+					nodes.push(child);
+					remaining.push(in.readInt());
+				}
+			}
+		}
+	}
+
+	private static final class Node {
+		final ConcurrentHashMap<Integer, Node> children = new ConcurrentHashMap<>(2);
+		final int version;
+
+		Node(int version) {
+			this.version = version;
+		}
+	}
+}
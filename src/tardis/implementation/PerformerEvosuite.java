@@ -1,24 +1,34 @@
 package tardis.implementation;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
-import static tardis.implementation.Util.shorten;
+import static tardis.implementation.Util.classFileDeclaresMethod;
 import static tardis.implementation.Util.stream;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -29,11 +39,16 @@ import javax.tools.ToolProvider;
 import jbse.mem.State;
 
 import sushi.formatters.StateFormatterSushiPathCondition;
+import tardis.framework.BatchingPolicy;
+import tardis.framework.FixedBatchingPolicy;
 import tardis.framework.InputBuffer;
 import tardis.framework.OutputBuffer;
 import tardis.framework.Performer;
+import tardis.framework.VirtualThreads;
 
 public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
+	private static final int WRAPPER_TEMPLATE_TEST_COUNT = Integer.MAX_VALUE;
+	
 	private final String classesPath;
 	private final Path tmpPath;
 	private final Path tmpBinTestsPath;
@@ -43,10 +58,23 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 	private final long timeBudgetSeconds;
 	private final boolean useMOSA;
 	private final TestIdentifier testIdentifier;
-	private final JavaCompiler compiler;
+	private final CompilationService compilationService;
+	private final EvosuiteWorkerPool evosuiteWorkerPool;
+	private final PathConditionRegistry emittedPaths;
+	private final long evosuiteLogMaxSize;
+	private final long evosuiteSeed;
+	private final Semaphore evosuiteSlots;
+	private final ThreadFactory watcherThreadFactory;
+	private final ExecutorService verifier;
+	private final Set<Thread> watchers = ConcurrentHashMap.newKeySet();
+	private final AtomicLong verifiedTests = new AtomicLong(0);
+	private final AtomicLong verificationNanos = new AtomicLong(0);
+	private final AtomicLong failedTests = new AtomicLong(0);
+	private final AtomicLong evosuiteJobs = new AtomicLong(0);
+	private final AtomicLong evosuiteJobNanos = new AtomicLong(0);
 
-	public PerformerEvosuite(Options o, InputBuffer<JBSEResult> in, OutputBuffer<EvosuiteResult> out) {
-		super(in, out, o.getNumOfThreads(), (o.getUseMOSA() ? o.getNumMOSATargets() : 1), o.getTimeoutMOSATaskCreationDuration(), o.getTimeoutMOSATaskCreationUnit());
+	public PerformerEvosuite(Options o, InputBuffer<JBSEResult> in, OutputBuffer<EvosuiteResult> out, PathConditionRegistry emittedPaths, EvosuiteWorkerPool evosuiteWorkerPool) {
+		super(in, out, o.getNumOfThreads(), makeBatchingPolicy(o));
 		this.classesPath = String.join(File.pathSeparator, stream(o.getClassesPath()).map(Object::toString).toArray(String[]::new)); 
 		this.tmpPath = o.getTmpDirectoryPath();
 		this.tmpBinTestsPath = o.getTmpBinTestsDirectoryPath();
@@ -56,17 +84,114 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 		this.timeBudgetSeconds = o.getEvosuiteTimeBudgetUnit().toSeconds(o.getEvosuiteTimeBudgetDuration());
 		this.useMOSA = o.getUseMOSA();
 		this.testIdentifier = new TestIdentifier(o.getInitialTestCase() == null ? 0 : 1);
-		this.compiler = ToolProvider.getSystemJavaCompiler();
-		if (this.compiler == null) {
+		this.evosuiteWorkerPool = evosuiteWorkerPool;
+		this.emittedPaths = emittedPaths;
+		this.evosuiteLogMaxSize = o.getEvosuiteLogMaxSize();
+		this.evosuiteSeed = o.getEvosuiteSeed();
+		this.evosuiteSlots = new Semaphore(Math.max(1, o.getNumOfThreads()));
+		this.watcherThreadFactory = (o.getUseVirtualThreads() ? VirtualThreads.factory() : Thread::new);
+		this.verifier = Executors.newFixedThreadPool(Math.max(1, o.getNumOfThreads()), r -> {
+			final Thread retVal = new Thread(r);
+			retVal.setDaemon(true);
+			return retVal;
+		});
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
 			System.out.println("[EVOSUITE] Failed to find a system Java compiler. Did you install a JDK?");
 			//TODO throw an exception
 		}
+		this.compilationService = new CompilationService(compiler);
+	}
+
+	private static BatchingPolicy makeBatchingPolicy(Options o) {
+		if (o.getUseMOSA() && o.getUseAdaptiveMOSABatching()) {
+			return new AdaptiveBatchingPolicy(o.getNumMOSATargets(), o.getTimeoutMOSATaskCreationDuration(), o.getTimeoutMOSATaskCreationUnit(), o.getNumOfThreads());
+		} else {
+			return new FixedBatchingPolicy((o.getUseMOSA() ? o.getNumMOSATargets() : 1), o.getTimeoutMOSATaskCreationDuration(), o.getTimeoutMOSATaskCreationUnit());
+		}
+	}
+	
+	/**
+	 * Returns the number of generated tests that were
+	 * compiled and verified.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getVerifiedTests() {
+		return this.verifiedTests.get();
+	}
+	
+	/**
+	 * Returns the number of EvoSuite jobs that ended, either
+	 * in a fresh process or in a worker.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getEvosuiteJobs() {
+		return this.evosuiteJobs.get();
+	}
+	
+	/**
+	 * Returns the total time spent running EvoSuite jobs, from
+	 * their launch to their end, including the startup of the 
+	 * EvoSuite JVMs if fresh processes are launched.
+	 * 
+	 * @return a {@code long}, the time in nanoseconds.
+	 */
+	public long getEvosuiteJobNanos() {
+		return this.evosuiteJobNanos.get();
+	}
+	
+	/**
+	 * Returns the total time spent compiling and verifying
+	 * the generated tests, from the moment EvoSuite reported 
+	 * them (so including the wait for a verifier thread).
+	 * 
+	 * @return a {@code long}, the time in nanoseconds.
+	 */
+	public long getVerificationNanos() {
+		return this.verificationNanos.get();
+	}
+	
+	/**
+	 * Returns the number of path conditions for which
+	 * EvoSuite failed to generate a test.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getFailedTests() {
+		return this.failedTests.get();
+	}
+	
+	/**
+	 * Returns the number that will identify the next 
+	 * generated test.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getTestCount() {
+		return this.testIdentifier.getTestCount();
+	}
+	
+	/**
+	 * Sets the number that will identify the next 
+	 * generated test, e.g., to resume a run without
+	 * overwriting the tests it generated. Should be 
+	 * invoked before {@link #start()}.
+	 * 
+	 * @param testCount an {@code int}.
+	 */
+	public void setTestCount(int testCount) {
+		this.testIdentifier.setTestCount(testCount);
 	}
 
 	@Override
 	protected Runnable makeJob(List<JBSEResult> items) {
 		final int testCountInitial = this.testIdentifier.getTestCount();
 		this.testIdentifier.testCountAdd(items.size());
+		if (this.useMOSA) {
+			System.out.println("[EVOSUITE] Batch of " + items.size() + " path conditions, starting from EvoSuiteWrapper_" + testCountInitial);
+		}
 		final Runnable job = () -> generateTestsAndScheduleJBSE(testCountInitial, items);
 		return job;
 	}
@@ -92,7 +217,6 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 				items.stream().collect(Collectors.groupingBy(r -> r.getTargetClassName() + ":" + r.getTargetMethodDescriptor() + ":" + r.getTargetMethodName()));
 
 		//launches an EvoSuite process for each sublist
-		final ArrayList<Thread> threads = new ArrayList<>();
 		int testCountStart = testCountInitial;
 		for (List<JBSEResult> subItems : splitItems.values()) {
 			final int testCount = testCountStart; //copy into final variable to keep compiler happy
@@ -101,89 +225,188 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 			//generates and compiles the wrappers
 			emitAndCompileEvoSuiteWrappers(testCount, subItems);
 			
-			//builds the EvoSuite command line
-			final List<String> evosuiteCommand = buildEvoSuiteCommand(testCount, subItems); 
+			//builds the EvoSuite parameters
+			final List<String> evosuiteParameters = buildEvoSuiteParameters(testCount, subItems); 
 
-			//launches EvoSuite
+			//launches EvoSuite, either in a fresh process or
+			//in a worker of the pool; the test detector receives
+			//the output of EvoSuite as it is produced, and schedules
+			//JBSE for exploring the tests as soon as they are emitted;
+			//the job stays in flight until the emitted tests are verified
 			final Path evosuiteLogFilePath = this.tmpPath.resolve("evosuite-log-" + testCount + ".txt");
+			final Runnable verified = keepInFlight();
+			final TestDetector tdJBSE = new TestDetector(testCount, subItems, evosuiteLogFilePath, verified);
 			final Process processEvosuite;
+			final long launched = System.nanoTime();
 			try {
-				processEvosuite = launchProcess(evosuiteCommand, evosuiteLogFilePath);
+				if (this.evosuiteWorkerPool == null) {
+					//no more fresh processes than threads
+					this.evosuiteSlots.acquire();
+					try {
+						processEvosuite = launchProcess(buildEvoSuiteCommand(evosuiteParameters));
+					} catch (IOException | RuntimeException e) {
+						this.evosuiteSlots.release();
+						throw e;
+					}
+				} else {
+					processEvosuite = this.evosuiteWorkerPool.submit(evosuiteParameters, tdJBSE, tdJBSE::end);
+				}
 			} catch (IOException e) {
 				System.out.println("[EVOSUITE] Unexpected I/O error while running EvoSuite: " + e);
+				subItems.forEach(this::failed);
+				verified.run();
 				return; //TODO throw an exception?
+			} catch (InterruptedException e) {
+				//the performer was shut down: 
+				//does not launch the remaining jobs
+				verified.run();
+				break;
 			}
 
-			//launches a thread that waits for tests and schedules 
-			//JBSE for exploring them
-			final TestDetector tdJBSE = new TestDetector(testCount, subItems, evosuiteLogFilePath);
-			final Thread tJBSE = new Thread(tdJBSE);
-			tJBSE.start();
-			threads.add(tJBSE);
+			//the watcher threads keep the job in flight until they end
+			//(otherwise the performer would consider the job over while
+			//EvoSuite still runs), without holding the thread of the pool;
+			//a fresh process needs a watcher that reads its output and 
+			//feeds the test detector
+			if (this.evosuiteWorkerPool == null) {
+				final Runnable consumed = keepInFlight();
+				startWatcher(() -> {
+					try {
+						tdJBSE.consume(processEvosuite.getInputStream());
+					} finally {
+						consumed.run();
+					}
+				});
+			}
 			
-			//launches another thread that waits for EvoSuite to end
-			//and then alerts the previous thread
-			final Thread tEvosuiteEnd = new Thread(() -> {
+			//launches another watcher that waits for EvoSuite to end
+			final Runnable ended = keepInFlight();
+			startWatcher(() -> {
 				try {
 					processEvosuite.waitFor();
 				} catch (InterruptedException e) {
 					//the performer was shut down: kill the EvoSuite job
 					processEvosuite.destroy();
+				} finally {
+					if (this.evosuiteWorkerPool == null) {
+						this.evosuiteSlots.release();
+					}
+					this.evosuiteJobs.incrementAndGet();
+					this.evosuiteJobNanos.addAndGet(System.nanoTime() - launched);
+					ended.run();
 				}
-				tdJBSE.ended = true;
 			});
-			tEvosuiteEnd.start();
-			threads.add(tEvosuiteEnd);
 		}
-		
-		//waits for all the threads to end (if it didn't the performer
-		//would consider the job over and would incorrectly detect whether 
-		//it is idle)
-		boolean interrupted = false;
-		for (Thread thread : threads) {
+	}
+	
+	/**
+	 * Records that EvoSuite failed to generate a test for
+	 * a path condition, that so can be emitted again.
+	 * 
+	 * @param item the {@link JBSEResult} with the path condition.
+	 */
+	private void failed(JBSEResult item) {
+		if (this.emittedPaths != null) {
+			this.emittedPaths.release(item);
+		}
+	}
+	
+	/**
+	 * Starts a thread watching an EvoSuite job. Watcher threads
+	 * are virtual if so configured and supported by the JVM.
+	 * 
+	 * @param watcher a {@link Runnable}, the job of the watcher.
+	 */
+	private void startWatcher(Runnable watcher) {
+		final Thread thread = this.watcherThreadFactory.newThread(() -> {
 			try {
-				if (interrupted) {
-					thread.interrupt();
-				} else {
-					thread.join();
-				}
-			} catch (InterruptedException e) {
-				interrupted = true;
-				thread.interrupt();
+				watcher.run();
+			} finally {
+				this.watchers.remove(Thread.currentThread());
 			}
+		});
+		this.watchers.add(thread);
+		thread.start();
+	}
+	
+	@Override
+	protected void onStop() {
+		//interrupts the watchers, that kill the EvoSuite jobs
+		for (Thread watcher : this.watchers) {
+			watcher.interrupt();
 		}
+		
+		//drops the pending test verifications
+		this.verifier.shutdownNow();
 	}
 
 	/**
-	 * Emits the EvoSuite wrapper (file .java) for the path condition of some state.
+	 * Formats the EvoSuite wrapper for the path condition of some state.
 	 * 
 	 * @param testCount an {@code int}, the number used to identify the test.
 	 * @param initialState a {@link State}; must be the initial state in the execution 
 	 *        for which we want to generate the wrapper.
 	 * @param finalState a {@link State}; must be the final state in the execution 
 	 *        for which we want to generate the wrapper.
-	 * @return a {@link Path}, the file path of the generated EvoSuite wrapper.
+	 * @return a {@link String}, the source code of the EvoSuite wrapper.
 	 */
-	private Path emitEvoSuiteWrapper(int testCount, State initialState, State finalState) {
+	private static String formatEvoSuiteWrapper(int testCount, State initialState, State finalState) {
 		final StateFormatterSushiPathCondition fmt = new StateFormatterSushiPathCondition(testCount, () -> initialState);
 		fmt.formatPrologue();
 		fmt.formatState(finalState);
 		fmt.formatEpilogue();
+		final String retVal = fmt.emit();
+		fmt.cleanup();
+		return retVal;
+	}
+	
+	/**
+	 * Formats the EvoSuite wrapper for the path condition of some state,
+	 * before the number that identifies the test is known. The wrapper 
+	 * is instantiated for a test number by {@link #instantiateEvoSuiteWrapperTemplate(String, int)}.
+	 * 
+	 * @param initialState a {@link State}; must be the initial state in the execution 
+	 *        for which we want to generate the wrapper.
+	 * @param finalState a {@link State}; must be the final state in the execution 
+	 *        for which we want to generate the wrapper.
+	 * @return a {@link String}, the source code of the EvoSuite wrapper template.
+	 */
+	static String makeEvoSuiteWrapperTemplate(State initialState, State finalState) {
+		return formatEvoSuiteWrapper(WRAPPER_TEMPLATE_TEST_COUNT, initialState, finalState);
+	}
+	
+	private static String instantiateEvoSuiteWrapperTemplate(String template, int testCount) {
+		//the test number only occurs in the name of the wrapper class
+		return template.replace("EvoSuiteWrapper_" + WRAPPER_TEMPLATE_TEST_COUNT, "EvoSuiteWrapper_" + testCount);
+	}
 
+	/**
+	 * Emits the EvoSuite wrapper (file .java) for the path condition of a result.
+	 * 
+	 * @param testCount an {@code int}, the number used to identify the test.
+	 * @param item a {@link JBSEResult}, the result.
+	 * @return a {@link String}, the source code of the generated EvoSuite wrapper.
+	 */
+	private String emitEvoSuiteWrapper(int testCount, JBSEResult item) {
+		final String retVal;
+		if (item.isDetached()) {
+			retVal = instantiateEvoSuiteWrapperTemplate(item.getEvoSuiteWrapperTemplate(), testCount);
+		} else {
+			retVal = formatEvoSuiteWrapper(testCount, item.getInitialState(), item.getFinalState());
+		}
 		final Path wrapperFilePath = this.tmpPath.resolve("EvoSuiteWrapper_" + testCount + ".java");
 		try (final BufferedWriter w = Files.newBufferedWriter(wrapperFilePath)) {
-			w.write(fmt.emit());
+			w.write(retVal);
 		} catch (IOException e) {
 			System.out.println("[EVOSUITE] Unexpected I/O error while creating EvoSuite wrapper " + wrapperFilePath.toString() + ": " + e);
 			//TODO throw an exception
 		}
-		fmt.cleanup();
-
-		return wrapperFilePath;
+		return retVal;
 	}
 	
 	/**
-	 * Emits and compiles all the EvoSuite wrappers.
+	 * Emits all the EvoSuite wrappers and compiles them
+	 * in a single compilation task.
 	 * 
 	 * @param testCountInitial an {@code int}, the number used to identify 
 	 *        the generated tests. The test generated from {@code items.get(i)}
@@ -192,25 +415,41 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 	 */
 	private void emitAndCompileEvoSuiteWrappers(int testCountInitial, List<JBSEResult> items) {
 		final String classpathCompilationWrapper = this.classesPath + File.pathSeparator + this.sushiLibPath;
+		final LinkedHashMap<String, String> wrapperSources = new LinkedHashMap<>();
 		int i = testCountInitial;
 		for (JBSEResult item : items) {
-			final State initialState = item.getInitialState();
-			final State finalState = item.getFinalState();
-			final Path wrapperFilePath = emitEvoSuiteWrapper(i, initialState, finalState);
-			final Path javacLogFilePath = this.tmpPath.resolve("javac-log-wrapper-" + i + ".txt");
-			final String[] javacParameters = { "-cp", classpathCompilationWrapper, "-d", this.tmpPath.toString(), wrapperFilePath.toString() };
-			try (final OutputStream w = new BufferedOutputStream(Files.newOutputStream(javacLogFilePath))) {
-				this.compiler.run(null, w, w, javacParameters);
-			} catch (IOException e) {
-				System.out.println("[EVOSUITE] Unexpected I/O error while creating wrapper compilation log file " + javacLogFilePath.toString() + ": " + e);
-				//TODO throw an exception
-			}
+			wrapperSources.put("EvoSuiteWrapper_" + i, emitEvoSuiteWrapper(i, item));
 			++i;
 		}
+		final Path javacLogFilePath = this.tmpPath.resolve("javac-log-wrapper-" + testCountInitial + ".txt");
+		try {
+			this.compilationService.compile(classpathCompilationWrapper, this.tmpPath, wrapperSources, javacLogFilePath);
+		} catch (IOException e) {
+			System.out.println("[EVOSUITE] Unexpected I/O error while compiling the wrappers or creating wrapper compilation log file " + javacLogFilePath.toString() + ": " + e);
+			//TODO throw an exception
+		}
 	}
 
 	/**
-	 * Builds the command line for invoking EvoSuite.
+	 * Builds the command line for invoking EvoSuite in a fresh process.
+	 * 
+	 * @param evosuiteParameters a {@link List}{@code <}{@link String}{@code >},
+	 *        the EvoSuite parameters as returned by {@link #buildEvoSuiteParameters(int, List)}.
+	 * @return a command line in the format of a {@link List}{@code <}{@link String}{@code >},
+	 *         suitable to be passed to a {@link ProcessBuilder}.
+	 */
+	private List<String> buildEvoSuiteCommand(List<String> evosuiteParameters) {
+		final List<String> retVal = new ArrayList<String>();
+		retVal.add("java");
+		retVal.add("-Xmx4G");
+		retVal.add("-jar");
+		retVal.add(this.evosuitePath);
+		retVal.addAll(evosuiteParameters);
+		return retVal;
+	}
+
+	/**
+	 * Builds the parameters for invoking EvoSuite.
 	 * 
 	 * @param testCountInitial an {@code int}, the number used to identify 
 	 *        the generated tests. The test generated from {@code items.get(i)}
@@ -219,19 +458,14 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 	 *        All the items in {@code items} must refer to the same target method, i.e., must have same
 	 *        {@link JBSEResult#getTargetClassName() class name}, {@link JBSEResult#getTargetMethodDescriptor() method descriptor}, and 
 	 *        {@link JBSEResult#getTargetMethodName() method name}.
-	 * @return a command line in the format of a {@link List}{@code <}{@link String}{@code >},
-	 *         suitable to be passed to a {@link ProcessBuilder}.
+	 * @return the EvoSuite parameters in the format of a {@link List}{@code <}{@link String}{@code >}.
 	 */
-	private List<String> buildEvoSuiteCommand(int testCountInitial, List<JBSEResult> items) {
+	private List<String> buildEvoSuiteParameters(int testCountInitial, List<JBSEResult> items) {
 		final String targetClass = items.get(0).getTargetClassName();
 		final String targetMethodDescriptor = items.get(0).getTargetMethodDescriptor();
 		final String targetMethodName = items.get(0).getTargetMethodName();
 		final String classpathEvosuite = this.classesPath + File.pathSeparator + this.sushiLibPath + File.pathSeparator + this.tmpPath;
 		final List<String> retVal = new ArrayList<String>();
-		retVal.add("java");
-		retVal.add("-Xmx4G");
-		retVal.add("-jar");
-		retVal.add(this.evosuitePath);
 		retVal.add("-class");
 		retVal.add(targetClass.replace('/', '.'));
 		retVal.add("-mem");
@@ -252,6 +486,9 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 		retVal.add("-Duse_minimizer_during_crossover=true");
 		retVal.add("-Davoid_replicas_of_individuals=true"); 
 		retVal.add("-Dno_change_iterations_before_reset=30");
+		if (this.evosuiteSeed != 0) {
+			retVal.add("-Drandom_seed=" + (this.evosuiteSeed + testCountInitial));
+		}
 		if (this.useMOSA) {
 			retVal.add("-Demit_tests_incrementally=true");
 			retVal.add("-Dcrossover_function=SUSHI_HYBRID");
@@ -282,29 +519,37 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 	 * 
 	 * @param commandLine a {@link List}{@code <}{@link String}{@code >}, the command line
 	 *        to launch the process in the format expected by {@link ProcessBuilder}.
-	 * @param logFilePath a {@link Path} to a log file where stdout and stderr of the
-	 *        process will be redirected.
-	 * @return the created {@link Process}.
+	 * @return the created {@link Process}. Its stderr is redirected to its stdout.
 	 * @throws IOException if thrown by {@link ProcessBuilder#start()}.
 	 */
-	private Process launchProcess(List<String> commandLine, Path logFilePath) throws IOException {
-		final ProcessBuilder pb = new ProcessBuilder(commandLine).redirectErrorStream(true).redirectOutput(logFilePath.toFile());
+	private Process launchProcess(List<String> commandLine) throws IOException {
+		final ProcessBuilder pb = new ProcessBuilder(commandLine).redirectErrorStream(true);
 		final Process pr = pb.start();
 		return pr;
 	}
 
 	/**
-	 * Class for a {@link Runnable} that listens for the output produced by 
-	 * an instance of EvoSuite, and when this produces a test
-	 * schedules JBSE for its analysis.
+	 * Class for a {@link Consumer} of the lines of output produced by 
+	 * an instance of EvoSuite, that when this produces a test
+	 * schedules JBSE for its analysis. Optionally copies the output
+	 * to a log file, up to a maximum size. The detector only parses
+	 * the output: the emitted tests are compiled, verified and scheduled
+	 * by the verifier threads, so the thread that drains the output of 
+	 * EvoSuite is never held by the compiler.
 	 * 
 	 * @author Pietro Braione
 	 */
-	private final class TestDetector implements Runnable {
+	private final class TestDetector implements Consumer<String> {
+		private final Pattern patternEmittedTest = Pattern.compile("^.*\\* EMITTED TEST CASE: EvoSuiteWrapper_(\\d+), \\w+\\z");
+		private final HashSet<Integer> generated = new HashSet<>();
 		private final int testCountInitial;
 		private final List<JBSEResult> items;
 		private final Path evosuiteLogFilePath;
-		public volatile boolean ended;
+		private final Runnable verified;
+		private final AtomicInteger pending = new AtomicInteger(1); //the output of EvoSuite
+		private BufferedWriter log;
+		private long logSize;
+		private boolean ended;
 		
 		/**
 		 * Constructor.
@@ -314,86 +559,160 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 		 *        will be numbered {@code testCountInitial + i}.
 		 * @param items a {@link List}{@code <}{@link JBSEResult}{@code >}, results of symbolic execution.
 		 * @param evosuiteLogFilePath the {@link Path} of the EvoSuite log file.
+		 * @param verified a {@link Runnable}, run once when EvoSuite
+		 *        {@link #end() ended} and all the tests it emitted 
+		 *        are verified.
 		 */
-		public TestDetector(int testCountInitial, List<JBSEResult> items, Path evosuiteLogFilePath) {
+		public TestDetector(int testCountInitial, List<JBSEResult> items, Path evosuiteLogFilePath, Runnable verified) {
 			this.testCountInitial = testCountInitial;
 			this.items = items;
 			this.evosuiteLogFilePath = evosuiteLogFilePath;
+			this.verified = verified;
+			this.log = null;
+			this.logSize = 0;
 			this.ended = false;
 		}
 		
-		@Override
-		public void run() {
-			detectTestsAndScheduleJBSE();
+		/**
+		 * Reads all the output of an EvoSuite process, and 
+		 * then {@link #end() end}s.
+		 * 
+		 * @param evosuiteOutput the {@link InputStream} of 
+		 *        the output of the EvoSuite process.
+		 */
+		public void consume(InputStream evosuiteOutput) {
+			try (final BufferedReader r = new BufferedReader(new InputStreamReader(evosuiteOutput))) {
+				String line;
+				while ((line = r.readLine()) != null) {
+					accept(line);
+				}
+			} catch (IOException e) {
+				System.out.println("[EVOSUITE] Unexpected I/O error while reading EvoSuite output: " + e);
+				//TODO throw an exception?
+			} finally {
+				end();
+			}
 		}
 		
 		/**
-		 * Waits for EvoSuite to emit test classes and schedules JBSE
-		 * for their further analysis.
+		 * Receives a line of output of EvoSuite, and if it 
+		 * reports the emission of a test case submits it to
+		 * the verifier threads, that schedule JBSE to analyze it.
+		 * 
+		 * @param line a {@link String}, the line.
 		 */
-		private void detectTestsAndScheduleJBSE() {
-			final Pattern patternEmittedTest = Pattern.compile("^.*\\* EMITTED TEST CASE: EvoSuiteWrapper_(\\d+), \\w+\\z");
-			final HashSet<Integer> generated = new HashSet<>();
-			try (final BufferedReader r = Files.newBufferedReader(this.evosuiteLogFilePath)) {
-				//modified from https://stackoverflow.com/a/154588/450589
-				while (true) {
-					final String line = r.readLine();
-					if (line == null) { 
-						//no lines in the file
-						if (this.ended) {
-							break;
-						} else {
-							//possibly more lines in the future: wait a little bit
-							//and retry
-							Thread.sleep(2000);
-						}
-					} else {
-						//check if the read line reports the emission of a test case
-						//and in the positive case schedule JBSE to analyze it
-						final Matcher matcherEmittedTest = patternEmittedTest.matcher(line);
-						if (matcherEmittedTest.matches()) {
-							final int testCount = Integer.parseInt(matcherEmittedTest.group(1));
-							generated.add(testCount);
-							final JBSEResult item = this.items.get(testCount - this.testCountInitial);
-							checkTestCompileAndScheduleJBSE(testCount, item);
+		@Override
+		public synchronized void accept(String line) {
+			copyToLog(line);
+			final Matcher matcherEmittedTest = this.patternEmittedTest.matcher(line);
+			if (matcherEmittedTest.matches()) {
+				final int testCount = Integer.parseInt(matcherEmittedTest.group(1));
+				this.generated.add(testCount);
+				final JBSEResult item = this.items.get(testCount - this.testCountInitial);
+				final long reported = System.nanoTime();
+				this.pending.incrementAndGet();
+				try {
+					PerformerEvosuite.this.verifier.execute(() -> {
+						try {
+							checkTestCompileAndScheduleJBSE(testCount, item, reported);
+						} finally {
+							verificationDone();
 						}
-					}
+					});
+				} catch (RejectedExecutionException e) {
+					//the performer was shut down
+					verificationDone();
 				}
-			} catch (InterruptedException e) {
-				//the performer was shut down:
-				//just fall through
-			} catch (IOException e) {
-				System.out.println("[EVOSUITE] Unexpected I/O error while reading EvoSuite log file " + this.evosuiteLogFilePath.toString() + ": " + e);
-				//TODO throw an exception?
 			}
-			
-			//ended reading EvoSuite log file: warns about tests that 
-			//have not been generated and exits
+		}
+		
+		private void verificationDone() {
+			if (this.pending.decrementAndGet() == 0) {
+				this.verified.run();
+			}
+		}
+		
+		/**
+		 * Invoked when EvoSuite ends: warns about the tests that 
+		 * have not been generated.
+		 */
+		public synchronized void end() {
+			if (this.ended) {
+				return;
+			}
+			this.ended = true;
+			if (this.log != null) {
+				try {
+					this.log.close();
+				} catch (IOException e) {
+					//nothing to do
+				}
+				this.log = null;
+			}
+			final String logFileMessage = (PerformerEvosuite.this.evosuiteLogMaxSize > 0 ? ", log file: " + this.evosuiteLogFilePath.toString() : "");
 			int testCount = this.testCountInitial;
 			for (JBSEResult item : this.items) {
-				if (!generated.contains(testCount)) {
-					System.out.println("[EVOSUITE] Failed to generate a test case for path condition: " + shorten(item.getFinalState().getPathCondition()).toString() + ", log file: " + this.evosuiteLogFilePath.toString() + ", wrapper: EvoSuiteWrapper_" + testCount);
+				if (!this.generated.contains(testCount)) {
+					PerformerEvosuite.this.failedTests.incrementAndGet();
+					failed(item);
+					System.out.println("[EVOSUITE] Failed to generate a test case for path condition: " + item.getShortPathCondition() + logFileMessage + ", wrapper: EvoSuiteWrapper_" + testCount);
 				}
 				++testCount;
 			}
+			verificationDone();
+		}
+		
+		private void copyToLog(String line) {
+			final long maxSize = PerformerEvosuite.this.evosuiteLogMaxSize;
+			if (maxSize <= 0 || this.logSize > maxSize) {
+				return;
+			}
+			try {
+				if (this.log == null) {
+					this.log = Files.newBufferedWriter(this.evosuiteLogFilePath);
+				}
+				this.logSize += line.length() + 1;
+				if (this.logSize > maxSize) {
+					this.log.write("[log truncated]");
+					this.log.newLine();
+					this.log.close();
+				} else {
+					this.log.write(line);
+					this.log.newLine();
+				}
+			} catch (IOException e) {
+				System.out.println("[EVOSUITE] Unexpected I/O error while writing EvoSuite log file " + this.evosuiteLogFilePath.toString() + ": " + e);
+				this.logSize = maxSize + 1;
+			}
 		}
 		
 		/**
 		 * Checks that an emitted test class has the {@code test0} method,
 		 * to filter out the cases where EvoSuite fails but emits the test class.
+		 * The check is done on the class file produced by the compiler, 
+		 * without loading the class.
 		 * 
 		 * @param className a {@link String}, the name of the test class.
-		 * @throws NoSuchMethodException if the class {@code className} has not
-		 *         a {@code void test0()} method.
+		 * @param compiledClasses a {@link Map}{@code <}{@link String}{@code , }{@code byte[]}{@code >},
+		 *        the classes produced by the compilation of the test as returned by 
+		 *        {@link CompilationService#compile(String, Path, Map, Path) CompilationService.compile}, 
+		 *        or {@code null} if the compilation failed.
+		 * @throws NoSuchMethodException if the class {@code className} was not
+		 *         compiled or has not a {@code void test0()} method.
 		 */
-		private void checkTestExists(String className) throws NoSuchMethodException {
+		private void checkTestExists(String className, Map<String, byte[]> compiledClasses) throws NoSuchMethodException {
+			final byte[] classFile = (compiledClasses == null ? null : compiledClasses.get(className.replace('/', '.')));
+			if (classFile == null) {
+				throw new NoSuchMethodException(className + ".test0()V");
+			}
 			try {
-				final URLClassLoader cloader = URLClassLoader.newInstance(new URL[]{ PerformerEvosuite.this.tmpBinTestsPath.toUri().toURL() }); 
-				cloader.loadClass(className.replace('/',  '.')).getDeclaredMethod("test0");
-			} catch (SecurityException | ClassNotFoundException | MalformedURLException e) {
+				if (!classFileDeclaresMethod(classFile, "test0", "()V")) {
+					throw new NoSuchMethodException(className + ".test0()V");
+				}
+			} catch (IOException e) {
 				System.out.println("[EVOSUITE] Unexpected error while verifying that class " + className + " exists and has a test method: " + e);
-				//TODO throw an exception
-			} 			
+				throw new NoSuchMethodException(className + ".test0()V");
+			}
 		}
 		
 		/**
@@ -405,9 +724,10 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 		 *        the generated test.
 		 * @param item a {@link JBSEResult}, the result of the symbolic execution
 		 *        from which the test was generated.
+		 * @param reported a {@code long}, the {@link System#nanoTime() time}
+		 *        when EvoSuite reported the test.
 		 */
-		private void checkTestCompileAndScheduleJBSE(int testCount, JBSEResult item) {
-			final jbse.mem.State finalState = item.getFinalState();
+		private void checkTestCompileAndScheduleJBSE(int testCount, JBSEResult item, long reported) {
 			final int depth = item.getDepth();
 			
 			//checks if EvoSuite generated the files
@@ -415,32 +735,44 @@ public class PerformerEvosuite extends Performer<JBSEResult, EvosuiteResult> {
 			final Path testCaseScaff = PerformerEvosuite.this.outPath.resolve(testCaseClassName + "_scaffolding.java");
 			final Path testCase = PerformerEvosuite.this.outPath.resolve(testCaseClassName + ".java");
 			if (!testCase.toFile().exists() || !testCaseScaff.toFile().exists()) {
-				System.out.println("[EVOSUITE] Failed to generate the test case " + testCaseClassName + " for path condition: " + shorten(finalState.getPathCondition()).toString() + ": the generated files do not seem to exist");
+				PerformerEvosuite.this.failedTests.incrementAndGet();
+				failed(item);
+				System.out.println("[EVOSUITE] Failed to generate the test case " + testCaseClassName + " for path condition: " + item.getShortPathCondition() + ": the generated files do not seem to exist");
 				return;
 			}
 			
-			//compiles the generated test
+			//compiles the generated test and its scaffolding together
 			final String classpathCompilationTest = PerformerEvosuite.this.tmpBinTestsPath.toString() + File.pathSeparator + PerformerEvosuite.this.classesPath + File.pathSeparator + PerformerEvosuite.this.sushiLibPath + File.pathSeparator + PerformerEvosuite.this.evosuitePath;
 			final Path javacLogFilePath = PerformerEvosuite.this.tmpPath.resolve("javac-log-test-" +  testCount + ".txt");
-			final String[] javacParametersTestScaff = { "-cp", classpathCompilationTest, "-d", PerformerEvosuite.this.tmpBinTestsPath.toString(), testCaseScaff.toString() };
-			final String[] javacParametersTestCase = { "-cp", classpathCompilationTest, "-d", PerformerEvosuite.this.tmpBinTestsPath.toString(), testCase.toString() };
-			try (final OutputStream w = new BufferedOutputStream(Files.newOutputStream(javacLogFilePath))) {
-				PerformerEvosuite.this.compiler.run(null, w, w, javacParametersTestScaff);
-				PerformerEvosuite.this.compiler.run(null, w, w, javacParametersTestCase);
+			final String testCaseSimpleName = testCaseClassName.substring(testCaseClassName.lastIndexOf('/') + 1);
+			Map<String, byte[]> compiledClasses = null;
+			try {
+				final LinkedHashMap<String, String> testSources = new LinkedHashMap<>();
+				testSources.put(testCaseSimpleName + "_scaffolding", new String(Files.readAllBytes(testCaseScaff), StandardCharsets.UTF_8));
+				testSources.put(testCaseSimpleName, new String(Files.readAllBytes(testCase), StandardCharsets.UTF_8));
+				compiledClasses = PerformerEvosuite.this.compilationService.compile(classpathCompilationTest, PerformerEvosuite.this.tmpBinTestsPath, testSources, javacLogFilePath);
 			} catch (IOException e) {
-				System.out.println("[EVOSUITE] Unexpected I/O error while creating test case compilation log file " + javacLogFilePath.toString() + ": " + e);
+				System.out.println("[EVOSUITE] Unexpected I/O error while compiling test case " + testCaseClassName + " or creating test case compilation log file " + javacLogFilePath.toString() + ": " + e);
 				//TODO throw an exception
 			}
 			
 			//creates the TestCase and schedules it for further exploration
 			try {
-				checkTestExists(testCaseClassName);
-				System.out.println("[EVOSUITE] Generated test case " + testCaseClassName + ", depth: " + depth + ", path condition: " + shorten(finalState.getPathCondition()).toString());
+				checkTestExists(testCaseClassName, compiledClasses);
+				final long verificationNanos = System.nanoTime() - reported;
+				PerformerEvosuite.this.verifiedTests.incrementAndGet();
+				PerformerEvosuite.this.verificationNanos.addAndGet(verificationNanos);
+				System.out.println("[EVOSUITE] Generated test case " + testCaseClassName + ", depth: " + depth + ", verified in " + TimeUnit.NANOSECONDS.toMillis(verificationNanos) + " ms, path condition: " + item.getShortPathCondition());
 				final TestCase newTC = new TestCase(testCaseClassName, "()V", "test0", PerformerEvosuite.this.outPath);
+				if (PerformerEvosuite.this.emittedPaths != null) {
+					PerformerEvosuite.this.emittedPaths.settle(item);
+				}
 				PerformerEvosuite.this.getOutputBuffer().add(new EvosuiteResult(item, newTC, depth + 1));
 			} catch (NoSuchMethodException e) { 
 				//EvoSuite failed to generate the test case, thus we just ignore it 
-				System.out.println("[EVOSUITE] Failed to generate the test case " + testCaseClassName + " for path condition: " + shorten(finalState.getPathCondition()).toString() + ": the generated file does not contain a test method");
+				PerformerEvosuite.this.failedTests.incrementAndGet();
+				failed(item);
+				System.out.println("[EVOSUITE] Failed to generate the test case " + testCaseClassName + " for path condition: " + item.getShortPathCondition() + ": the generated file does not contain a test method");
 			}
 		}
 	}
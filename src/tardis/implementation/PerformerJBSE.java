@@ -2,9 +2,15 @@ package tardis.implementation;
 
 import static tardis.implementation.Util.shorten;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import jbse.algo.exc.CannotManageStateException;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
@@ -19,21 +25,53 @@ import jbse.jvm.exc.NonexistingObservedVariablesException;
 import jbse.mem.Clause;
 import jbse.mem.State;
 import jbse.mem.exc.ContradictionException;
+import jbse.mem.exc.FrozenStateException;
 import jbse.mem.exc.ThreadStackEmptyException;
+import tardis.framework.FixedBatchingPolicy;
 import tardis.framework.InputBuffer;
 import tardis.framework.OutputBuffer;
+import tardis.framework.PausableExecutor;
+import tardis.framework.PausableFixedThreadPoolExecutor;
+import tardis.framework.PausableForkJoinExecutor;
+import tardis.framework.PausableVirtualThreadExecutor;
 import tardis.framework.Performer;
 
 public final class PerformerJBSE extends Performer<EvosuiteResult, JBSEResult> {
 	private final Options o;
 	private final int maxDepth;
 	private final CoverageSet coverageSet;
+	private final Z3Pool z3Pool;
+	private final PathConditionTrie exploredPaths;
+	private final PathConditionRegistry emittedPaths;
+	private final SnapshotStatistics snapshotStatistics;
+	private final ClauseInterner clauseInterner;
+	private final JBSEWorkerPool jbseWorkerPool;
+	private final ShardClient shardClient;
+	private final ReentrantReadWriteLock emissionLock = new ReentrantReadWriteLock();
 
-	public PerformerJBSE(Options o, InputBuffer<EvosuiteResult> in, OutputBuffer<JBSEResult> out, CoverageSet coverageSet) {
-		super(in, out, o.getNumOfThreads(), 1, o.getGlobalTimeBudgetDuration(), o.getGlobalTimeBudgetUnit());
+	public PerformerJBSE(Options o, InputBuffer<EvosuiteResult> in, OutputBuffer<JBSEResult> out, CoverageSet coverageSet, Z3Pool z3Pool, PathConditionTrie exploredPaths, PathConditionRegistry emittedPaths, SnapshotStatistics snapshotStatistics, 
+			ClauseInterner clauseInterner, JBSEWorkerPool jbseWorkerPool, ShardClient shardClient) {
+		super(in, out, makeExecutor(o), new FixedBatchingPolicy(1, o.getGlobalTimeBudgetDuration(), o.getGlobalTimeBudgetUnit()));
 		this.o = o.clone();
 		this.maxDepth = o.getMaxDepth();
 		this.coverageSet = coverageSet;
+		this.z3Pool = z3Pool;
+		this.exploredPaths = exploredPaths;
+		this.emittedPaths = emittedPaths;
+		this.snapshotStatistics = snapshotStatistics;
+		this.clauseInterner = clauseInterner;
+		this.jbseWorkerPool = jbseWorkerPool;
+		this.shardClient = shardClient;
+	}
+	
+	private static PausableExecutor makeExecutor(Options o) {
+		if (o.getUseVirtualThreads()) {
+			return new PausableVirtualThreadExecutor(o.getNumOfThreads());
+		} else if (o.getUseWorkStealing()) {
+			return new PausableForkJoinExecutor(o.getNumOfThreads());
+		} else {
+			return new PausableFixedThreadPoolExecutor(o.getNumOfThreads());
+		}
 	}
 	
 	@Override
@@ -41,18 +79,46 @@ public final class PerformerJBSE extends Performer<EvosuiteResult, JBSEResult> {
 		final EvosuiteResult item = items.get(0);
 		final Runnable job = () -> {
 			try {
-				explore(item, item.getStartDepth());
+				if (this.jbseWorkerPool == null) {
+					explore(item, item.getStartDepth());
+				} else {
+					exploreInWorker(item);
+				}
 			} catch (DecisionException | CannotBuildEngineException | InitializationException |
 					InvalidClassFileFactoryClassException | NonexistingObservedVariablesException |
 					ClasspathException | CannotBacktrackException | CannotManageStateException |
 					ThreadStackEmptyException | ContradictionException | EngineStuckException |
 					FailureException e ) {
 				System.out.println("[JBSE    ] Unexpected exception raised while exploring test case " + item.getTestCase().getClassName() + ": " + e.getMessage());
+			} catch (CancellationException e) {
+				//the Z3 or the worker pool was closed 
+				//during the shutdown: the job is cancelled
 			}
 		};
 		return job;
 	}
 	
+	/**
+	 * Blocks the emission of path conditions: upon return no job
+	 * is between the registration of a path condition in the 
+	 * {@link PathConditionRegistry} and its addition to the output
+	 * buffer, and no job starts one until {@link #unblockEmission()}
+	 * is invoked. This way every registered path condition is either
+	 * in the output buffer or consumed, or will be emitted by a job 
+	 * that is in progress.
+	 */
+	void blockEmission() {
+		this.emissionLock.writeLock().lock();
+	}
+	
+	/**
+	 * Unblocks the emission of path conditions after a 
+	 * {@link #blockEmission()}.
+	 */
+	void unblockEmission() {
+		this.emissionLock.writeLock().unlock();
+	}
+	
 	/**
 	 * Executes a test case and generates tests for all the alternative branches
 	 * starting from some depth up to some maximum depth.
@@ -81,52 +147,300 @@ public final class PerformerJBSE extends Performer<EvosuiteResult, JBSEResult> {
 		if (this.maxDepth <= 0) {
 			return;
 		}
-		//runs the test case up to the final state, and takes the final state's path condition
-		final RunnerPath rp = new RunnerPath(this.o, item);
-		final State tcFinalState = rp.runProgram();
+		//runs the test case up to the final state, takes the final state's path condition, 
+		//and harvests the states on the frontiers at all the depths to be explored; in a
+		//work-stealing pool the frontiers are explored later, every depth in a subtask
+		final RunnerPath rp = new RunnerPath(this.o, item, this.z3Pool);
+		final boolean splitDepths = ForkJoinTask.inForkJoinPool();
+		final SortedMap<Integer, List<State>> newStatesByDepth = (splitDepths ? null : rp.runProgram(startDepth, this.maxDepth));
+		final List<Integer> depths = (splitDepths ? rp.runHarvest(startDepth, this.maxDepth) : new ArrayList<>(newStatesByDepth.keySet()));
+		final State tcFinalState = rp.getFinalState();
 		final Collection<Clause> tcFinalPC = tcFinalState.getPathCondition();
-		this.coverageSet.addAll(rp.getCoverage());
+		final String targetMethod = item.getTargetClassName() + ":" + item.getTargetMethodDescriptor() + ":" + item.getTargetMethodName();
+		this.exploredPaths.add(targetMethod, tcFinalPC);
+		final ArrayList<String> newlyCoveredBranches = (this.shardClient == null ? null : new ArrayList<>());
+		final int[] newlyCovered = this.coverageSet.addAll(rp.getCoverage(), newlyCoveredBranches);
+		if (this.shardClient != null) {
+			this.shardClient.publishExplored(targetMethod, JBSEExploration.texts(tcFinalPC));
+			this.shardClient.publishCoverage(newlyCoveredBranches);
+		}
 		final TestCase tc = item.getTestCase();
 		System.out.println("[JBSE    ] Run test case " + tc.getClassName() + ", path condition " + shorten(tcFinalPC).toString());
-		System.out.println("[JBSE    ] Current coverage: " + this.coverageSet.size() + " branches");
-		final int tcFinalDepth = tcFinalState.getDepth();
-		boolean noPathConditionGenerated = true;
-		for (int currentDepth = startDepth; currentDepth < Math.min(this.maxDepth, tcFinalDepth); currentDepth++) {
-			//runs the program
-			final List<State> newStates = rp.runProgram(currentDepth);
-			
-			//checks shutdown of the performer
-			if (Thread.interrupted()) {
+		System.out.println("[JBSE    ] Current coverage: " + this.coverageSet.size() + " branches (" + newlyCovered.length + " new)");
+		
+		//checks shutdown of the performer
+		if (Thread.interrupted()) {
+			return;
+		}
+		
+		//creates all the output jobs; in a work-stealing pool 
+		//every depth is a subtask that idle threads can steal
+		final AtomicBoolean pathConditionGenerated = new AtomicBoolean(false);
+		if (splitDepths) {
+			final State initialState = rp.getInitialState();
+			final ArrayList<ForkJoinTask<?>> subtasks = new ArrayList<>();
+			for (int depth : depths) {
+				final State preState = rp.getPreState(depth);
+				final boolean atJump = rp.getAtJump(depth);
+				subtasks.add(ForkJoinTask.adapt(() -> exploreDepth(item, rp, initialState, preState, atJump, targetMethod, depth, pathConditionGenerated)));
+			}
+			ForkJoinTask.invokeAll(subtasks);
+		} else {
+			for (int depth : depths) {
+				emitPathConditions(item, rp.getInitialState(), rp.getPreState(depth), rp.getAtJump(depth), targetMethod, depth, newStatesByDepth.get(depth), pathConditionGenerated);
+			}
+		}
+		if (!pathConditionGenerated.get()) {
+			System.out.println("[JBSE    ] From test case " + tc.getClassName() + " no path condition generated");
+		}
+	}
+
+	/**
+	 * Explores a test case in a {@link JBSEWorker}, and emits the 
+	 * path conditions on the frontiers that were neither explored
+	 * nor emitted yet, as {@link #explore(EvosuiteResult, int)} does.
+	 * The path conditions that come from the worker are compared 
+	 * by their clause texts.
+	 * 
+	 * @param item a {@link EvosuiteResult}.
+	 */
+	private void exploreInWorker(EvosuiteResult item) {
+		if (this.maxDepth <= 0) {
+			return;
+		}
+		final TestCase tc = item.getTestCase();
+		final JBSEExploration exploration;
+		try {
+			exploration = this.jbseWorkerPool.explore(item);
+		} catch (IOException e) {
+			if (Thread.currentThread().isInterrupted()) {
+				//the performer is shut down, and the worker killed
 				return;
 			}
-			
-			//creates all the output jobs
-			final State initialState = rp.getInitialState();
-			final State preState = rp.getPreState();
-			final boolean atJump = rp.getAtJump();
-			for (State newState : newStates) {
-				final Collection<Clause> currentPC = newState.getPathCondition();
-				if (alreadyExplored(currentPC, tcFinalPC)) {
+			System.out.println("[JBSE    ] JBSE worker failed while exploring test case " + tc.getClassName() + ", the worker will be replaced: " + e);
+			return;
+		} catch (InterruptedException e) {
+			//the performer is shut down
+			return;
+		}
+		if (exploration.getError() != null) {
+			System.out.println("[JBSE    ] Unexpected exception raised while exploring test case " + tc.getClassName() + ": " + exploration.getError());
+			return;
+		}
+		final String targetMethod = item.getTargetClassName() + ":" + item.getTargetMethodDescriptor() + ":" + item.getTargetMethodName();
+		this.exploredPaths.add(targetMethod, this.clauseInterner.textIds(exploration.getPathCondition()));
+		final ArrayList<String> newlyCoveredBranches = (this.shardClient == null ? null : new ArrayList<>());
+		final int[] newlyCovered = this.coverageSet.addAll(exploration.getCoverage(), newlyCoveredBranches);
+		if (this.shardClient != null) {
+			this.shardClient.publishExplored(targetMethod, exploration.getPathCondition());
+			this.shardClient.publishCoverage(newlyCoveredBranches);
+		}
+		System.out.println("[JBSE    ] Run test case " + tc.getClassName() + ", path condition " + exploration.getShortPathCondition());
+		System.out.println("[JBSE    ] Current coverage: " + this.coverageSet.size() + " branches (" + newlyCovered.length + " new)");
+		
+		//checks shutdown of the performer
+		if (Thread.interrupted()) {
+			return;
+		}
+		
+		//creates all the output jobs
+		boolean pathConditionGenerated = false;
+		final List<JBSEResult> results = exploration.getResults();
+		for (int i = 0; i < results.size(); ++i) {
+			final JBSEResult result = results.get(i);
+			if (result.getTargetBranch() != null) {
+				this.coverageSet.register(result.getTargetBranch());
+			}
+			final List<String> currentPCTexts = exploration.getResultPathConditions().get(i);
+			final int[] currentPC = this.clauseInterner.textIds(currentPCTexts);
+			if (this.exploredPaths.containsPrefix(targetMethod, currentPC)) { //see alreadyExplored
+				continue;
+			}
+			if (this.shardClient != null && this.shardClient.isKnownElsewhere(targetMethod, currentPCTexts)) {
+				System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + result.getShortPathCondition() + " already handled by another shard, suppressed");
+				continue;
+			}
+			if (this.shardClient != null && !this.shardClient.owns(targetMethod, currentPCTexts)) {
+				if (this.shardClient.handOff(targetMethod, currentPCTexts, result)) {
+					System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + result.getShortPathCondition() + " owned by another shard, handed off");
+				}
+				continue;
+			}
+			this.emissionLock.readLock().lock();
+			try {
+				if (!this.emittedPaths.register(targetMethod, currentPC, result)) {
+					System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated duplicate path condition " + result.getShortPathCondition() + ", suppressed");
 					continue;
 				}
-				this.getOutputBuffer().add(new JBSEResult(item, initialState, preState, newState, atJump, currentDepth));
-				System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + shorten(currentPC).toString());
-				noPathConditionGenerated = false;
+				if (this.shardClient != null) {
+					this.shardClient.publishEmitted(targetMethod, currentPCTexts);
+				}
+				this.getOutputBuffer().add(result);
+			} finally {
+				this.emissionLock.readLock().unlock();
 			}
+			System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + result.getShortPathCondition());
+			pathConditionGenerated = true;
 		}
-		if (noPathConditionGenerated) {
+		if (!pathConditionGenerated) {
 			System.out.println("[JBSE    ] From test case " + tc.getClassName() + " no path condition generated");
 		}
 	}
 
-	private static boolean alreadyExplored(Collection<Clause> newPC, Collection<Clause> oldPC) {
-		final List<Clause> donePC = 
-				Arrays.asList(Arrays.copyOfRange(oldPC.toArray(new Clause[0]), 0, newPC.size()));
-		if (donePC.toString().equals(newPC.toString())) {
-			return true;
-		} else {
-			return false;
+	/**
+	 * Explores the frontier at some depth of a test case, and emits 
+	 * the path conditions of its states that were neither explored
+	 * nor emitted yet. To be run in a subtask of {@link #explore(EvosuiteResult, int)},
+	 * by any thread: the frontier is explored from a clone of the harvested 
+	 * pre-frontier state. Only if no pre-frontier state was harvested at 
+	 * the depth the test case is run again up to the depth.
+	 * 
+	 * @param item the {@link EvosuiteResult} that is explored.
+	 * @param rp the {@link RunnerPath} that harvested the frontiers 
+	 *        of the test case of {@code item}.
+	 * @param initialState the initial {@link State} of the harvesting run.
+	 * @param preState the pre-frontier {@link State} harvested at 
+	 *        {@code depth}, or {@code null}.
+	 * @param atJump a {@code boolean}, whether the frontier is 
+	 *        at a jump bytecode.
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param depth an {@code int}, the depth.
+	 * @param pathConditionGenerated an {@link AtomicBoolean}, set 
+	 *        to {@code true} if some path condition is emitted.
+	 */
+	private void exploreDepth(EvosuiteResult item, RunnerPath rp, State initialState, State preState, boolean atJump, String targetMethod, int depth, AtomicBoolean pathConditionGenerated) {
+		if (Thread.currentThread().isInterrupted()) {
+			return;
+		}
+		try {
+			if (preState != null) {
+				final List<State> newStates = rp.runFrontier(preState, depth);
+				emitPathConditions(item, initialState, preState, atJump, targetMethod, depth, newStates, pathConditionGenerated);
+			} else {
+				final RunnerPath rpDepth = new RunnerPath(this.o, item, this.z3Pool);
+				final List<State> newStates = rpDepth.runProgram(depth);
+				emitPathConditions(item, rpDepth.getInitialState(), rpDepth.getPreState(), rpDepth.getAtJump(), targetMethod, depth, newStates, pathConditionGenerated);
+			}
+		} catch (DecisionException | CannotBuildEngineException | InitializationException |
+				InvalidClassFileFactoryClassException | NonexistingObservedVariablesException |
+				ClasspathException | CannotBacktrackException | CannotManageStateException |
+				ThreadStackEmptyException | ContradictionException | EngineStuckException |
+				FailureException e ) {
+			System.out.println("[JBSE    ] Unexpected exception raised while exploring test case " + item.getTestCase().getClassName() + " at depth " + depth + ": " + e.getMessage());
 		}
-	}	
+	}
+
+	/**
+	 * Emits the path conditions of the states on the frontier 
+	 * at some depth that were neither explored nor emitted yet.
+	 * 
+	 * @param item the {@link EvosuiteResult} that is explored.
+	 * @param initialState the initial {@link State} of the run of
+	 *        the test case of {@code item}.
+	 * @param preState the pre-frontier {@link State} at {@code currentDepth}.
+	 * @param atJump a {@code boolean}, whether the frontier is 
+	 *        at a jump bytecode.
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param currentDepth an {@code int}, the depth.
+	 * @param newStates a {@link List}{@code <}{@link State}{@code >}, 
+	 *        the states on the frontier at {@code currentDepth}.
+	 * @param pathConditionGenerated an {@link AtomicBoolean}, set 
+	 *        to {@code true} if some path condition is emitted.
+	 */
+	private void emitPathConditions(EvosuiteResult item, State initialState, State preState, boolean atJump, String targetMethod, int currentDepth, List<State> newStates, AtomicBoolean pathConditionGenerated) {
+		final TestCase tc = item.getTestCase();
+		for (State newState : newStates) {
+			final String targetBranch = (atJump ? branch(preState, newState) : null);
+			if (targetBranch != null) {
+				this.coverageSet.register(targetBranch);
+			}
+			final Collection<Clause> currentPC = newState.getPathCondition();
+			if (alreadyExplored(targetMethod, currentPC)) {
+				continue;
+			}
+			final List<String> currentPCTexts = (this.shardClient == null ? null : JBSEExploration.texts(currentPC));
+			if (this.shardClient != null && this.shardClient.isKnownElsewhere(targetMethod, currentPCTexts)) {
+				System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + shorten(currentPC).toString() + " already handled by another shard, suppressed");
+				continue;
+			}
+			final JBSEResult result = new JBSEResult(item, initialState, preState, newState, atJump, targetBranch, currentDepth);
+			if (this.shardClient != null && !this.shardClient.owns(targetMethod, currentPCTexts)) {
+				if (this.shardClient.handOff(targetMethod, currentPCTexts, result)) {
+					System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + shorten(currentPC).toString() + " owned by another shard, handed off");
+				}
+				continue;
+			}
+			this.emissionLock.readLock().lock();
+			try {
+				if (!this.emittedPaths.register(targetMethod, currentPC, result)) {
+					System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated duplicate path condition " + shorten(currentPC).toString() + ", suppressed");
+					continue;
+				}
+				if (this.shardClient != null) {
+					this.shardClient.publishEmitted(targetMethod, currentPCTexts);
+				}
+				this.snapshotStatistics.record(result);
+				this.getOutputBuffer().add(result);
+			} finally {
+				this.emissionLock.readLock().unlock();
+			}
+			System.out.println("[JBSE    ] From test case " + tc.getClassName() + " generated path condition " + shorten(currentPC).toString());
+			pathConditionGenerated.set(true);
+		}
+	}
+
+	/**
+	 * Emits a path condition that another shard handed off
+	 * to this one, because this shard owns it. 
+	 * 
+	 * @param result a (detached) {@link JBSEResult}.
+	 */
+	public void receiveHandOff(JBSEResult result) {
+		this.emissionLock.readLock().lock();
+		try {
+			this.getOutputBuffer().add(result);
+		} finally {
+			this.emissionLock.readLock().unlock();
+		}
+		System.out.println("[JBSE    ] Received path condition " + result.getShortPathCondition() + " from another shard");
+	}
+
+	/**
+	 * Returns the branch from a pre-frontier state to a 
+	 * post-frontier state, in the format used by {@link CoverageSet}.
+	 * 
+	 * @param preState the pre-frontier {@link State}, at a jump bytecode.
+	 * @param postState the post-frontier {@link State}.
+	 * @return a {@link String}.
+	 */
+	static String branch(State preState, State postState) {
+		try {
+			return postState.getCurrentMethodSignature().toString() + ":" + preState.getPC() + ":" + postState.getPC();
+		} catch (ThreadStackEmptyException | FrozenStateException e) {
+			//this should never happen
+			throw new RuntimeException(e); //TODO better exception!
+		}
+	}
+
+	/**
+	 * Checks whether a path condition was already explored, i.e., 
+	 * whether it is a prefix of the path condition of a test case 
+	 * that was run for the target method, not necessarily the test
+	 * case that is explored. Such a path condition is not an alternative
+	 * to an explored path, but lies on one: the test case that was run
+	 * already satisfies it, so a test generated for it would cover 
+	 * nothing new up to its frontier, and the frontiers along that path
+	 * are harvested when the test case that was run, or the ones it was
+	 * generated from, are explored. Checking only the 
+	 * test case that is explored would let through the path conditions
+	 * that other test cases already took.
+	 * 
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param newPC a {@link Collection}{@code <}{@link Clause}{@code >}, the path condition.
+	 * @return {@code true} iff {@code newPC} was already explored.
+	 */
+	private boolean alreadyExplored(String targetMethod, Collection<Clause> newPC) {
+		return this.exploredPaths.containsPrefix(targetMethod, newPC);
+	}
 }
 
@@ -0,0 +1,154 @@
+package tardis.implementation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * A buffer that returns its items in order of decreasing 
+ * score, and in FIFO order among items with same score. 
+ * The items are scored by a {@link Scorer} when they are
+ * added. After the {@link Scorer#version() version} of the 
+ * scorer changes they are scored again lazily: only the head
+ * of the queue is checked when an item is polled, and if its
+ * score is stale it is scored again and put back in the queue, 
+ * until the head has a fresh score. Every item is so scored 
+ * at most once per version, and only if it reaches the head. 
+ * This returns the items in the right order as long as the 
+ * scores do not increase when the version changes (e.g., 
+ * they decrease as coverage grows).
+ *
+ * @param <E> the type of the items in the buffer.
+ */
+public class PriorityInputOutputBuffer<E> implements InputOutputBuffer<E> {
+	private final Scorer<E> scorer;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+	private final PriorityQueue<Entry<E>> queue = new PriorityQueue<>();
+	private long nextSequence = 0;
+
+	public PriorityInputOutputBuffer(Scorer<E> scorer) {
+		this.scorer = scorer;
+	}
+
+	@Override
+	public boolean add(E e) {
+		this.lock.lock();
+		try {
+			this.queue.add(new Entry<>(e, this.scorer.version(), this.scorer.score(e), this.nextSequence++));
+			this.notEmpty.signal();
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.queue.isEmpty()) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			return pollFresh();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		this.lock.lock();
+		try {
+			return this.queue.isEmpty();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.queue.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxItems) {
+		this.lock.lock();
+		try {
+			int retVal = 0;
+			while (retVal < maxItems && !this.queue.isEmpty()) {
+				c.add(pollFresh());
+				++retVal;
+			}
+			return retVal;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public List<E> snapshot() {
+		this.lock.lock();
+		try {
+			final ArrayList<E> retVal = new ArrayList<>(this.queue.size());
+			for (Entry<E> entry : this.queue) {
+				retVal.add(entry.item);
+			}
+			return retVal;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the head of the nonempty queue, after having 
+	 * scored again the heads with stale scores.
+	 * 
+	 * @return the item with highest fresh score.
+	 */
+	private E pollFresh() {
+		final long currentVersion = this.scorer.version();
+		while (true) {
+			final Entry<E> head = this.queue.poll();
+			if (head.version == currentVersion) {
+				return head.item;
+			}
+			this.queue.add(new Entry<>(head.item, currentVersion, this.scorer.score(head.item), head.sequence));
+		}
+	}
+
+	private static final class Entry<E> implements Comparable<Entry<E>> {
+		final E item;
+		final long version;
+		final double score;
+		final long sequence;
+
+		Entry(E item, long version, double score, long sequence) {
+			this.item = item;
+			this.version = version;
+			this.score = score;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Entry<E> other) {
+			final int byScore = Double.compare(other.score, this.score);
+			return (byScore == 0 ? Long.compare(this.sequence, other.sequence) : byScore);
+		}
+	}
+}
@@ -1,12 +1,14 @@
 package tardis.implementation;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
-import tardis.framework.InputBuffer;
-import tardis.framework.OutputBuffer;
+import tardis.framework.InputOutputBuffer;
 
-public class QueueInputOutputBuffer<E> implements InputBuffer<E>, OutputBuffer<E> {
+public class QueueInputOutputBuffer<E> implements InputOutputBuffer<E> {
 	private final LinkedBlockingQueue<E> queue = new LinkedBlockingQueue<>();
 
 	@Override
@@ -23,4 +25,19 @@ public class QueueInputOutputBuffer<E> implements InputBuffer<E>, OutputBuffer<E
 	public boolean isEmpty() {
 		return this.queue.isEmpty();
 	}
+
+	@Override
+	public int size() {
+		return this.queue.size();
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxItems) {
+		return this.queue.drainTo(c, maxItems);
+	}
+
+	@Override
+	public List<E> snapshot() {
+		return new ArrayList<>(this.queue);
+	}
 }
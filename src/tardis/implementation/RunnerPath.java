@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import com.github.javaparser.JavaParser;
@@ -21,11 +23,12 @@ import jbse.apps.run.DecisionProcedureGuidance;
 import jbse.apps.run.DecisionProcedureGuidanceJDI;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.ClasspathException;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.DecisionProcedure;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
 import jbse.dec.DecisionProcedureClassInit;
 import jbse.dec.DecisionProcedureLICS;
-import jbse.dec.DecisionProcedureSMTLIB2_AUFNIRA;
 import jbse.dec.exc.DecisionException;
 import jbse.jvm.Runner;
 import jbse.jvm.RunnerBuilder;
@@ -49,23 +52,23 @@ import jbse.rules.LICSRulesRepo;
 import jbse.tree.StateTree.BranchPoint;
 
 public class RunnerPath {
-	private static final String SWITCH_CHAR = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
-
 	private final String[] classpath;
-	private final String z3Path;
+	private final Z3Pool z3Pool;
+	private final String targetMethodSignature;
 	private final String targetMethodName;
 	private final TestCase testCase;
 	private final RunnerParameters commonParamsGuided;
 	private final RunnerParameters commonParamsGuiding;
 		
-	public RunnerPath(Options o, EvosuiteResult item) {
+	public RunnerPath(Options o, EvosuiteResult item, Z3Pool z3Pool) {
 		final ArrayList<String> _classpath = new ArrayList<>();
 		_classpath.add(o.getJBSELibraryPath().toString());
 		_classpath.add(o.getEvosuitePath().toString());
 		_classpath.add(o.getTmpBinTestsDirectoryPath().toString());
 		_classpath.addAll(o.getClassesPath().stream().map(Object::toString).collect(Collectors.toList()));
 		this.classpath = _classpath.toArray(new String[0]);
-		this.z3Path = o.getZ3Path().toString();
+		this.z3Pool = z3Pool;
+		this.targetMethodSignature = item.getTargetClassName() + ":" + item.getTargetMethodDescriptor() + ":" + item.getTargetMethodName();
 		this.targetMethodName = item.getTargetMethodName();
 		this.testCase = item.getTestCase();
 		
@@ -94,6 +97,8 @@ public class RunnerPath {
 	private static class ActionsRunner extends Actions {
 		private final int testDepth;
 		private final DecisionProcedureGuidance guid;
+		private final int harvestStartDepth;
+		private final int harvestEndDepth;
 		private final ArrayList<State> stateList = new ArrayList<State>();
 		private boolean savePreState = false;
 		private State preState = null;
@@ -101,10 +106,18 @@ public class RunnerPath {
 		private boolean atJump = false;
 		private int jumpPC = 0;
 		private final HashSet<String> coverage = new HashSet<>();
+		private final TreeMap<Integer, State> preStateFrontiers = new TreeMap<>();
+		private final TreeMap<Integer, Boolean> atJumpFrontiers = new TreeMap<>();
 		
 		public ActionsRunner(int testDepth, DecisionProcedureGuidance guid) {
+			this(testDepth, guid, 0, 0);
+		}
+		
+		public ActionsRunner(int testDepth, DecisionProcedureGuidance guid, int harvestStartDepth, int harvestEndDepth) {
 			this.testDepth = testDepth;
 			this.guid = guid;
+			this.harvestStartDepth = harvestStartDepth;
+			this.harvestEndDepth = harvestEndDepth;
 		}
 		
 		public ArrayList<State> getStateList() {
@@ -123,6 +136,14 @@ public class RunnerPath {
 			return this.coverage;
 		}
 		
+		public TreeMap<Integer, State> getPreStateFrontiers() {
+			return this.preStateFrontiers;
+		}
+		
+		public TreeMap<Integer, Boolean> getAtJumpFrontiers() {
+			return this.atJumpFrontiers;
+		}
+		
 		@Override
 		public boolean atInitial() {
 			this.postInitial = true;
@@ -142,8 +163,23 @@ public class RunnerPath {
 					if (this.atJump) {
 						this.jumpPC = currentState.getPC();
 					}
-					if (bytecodeBranch(currentState.getInstruction()) && this.savePreState) {
-						this.preState = currentState.clone();
+					//the snapshot of a branch state is taken at most once, 
+					//and shared by the pre-state and the harvested frontier
+					final boolean atBranch = bytecodeBranch(currentState.getInstruction());
+					final int currentDepth = currentState.getDepth();
+					final boolean harvest = (currentDepth >= this.harvestStartDepth && currentDepth < this.harvestEndDepth);
+					final State snapshot = (atBranch && (this.savePreState || harvest) ? currentState.clone() : null);
+					if (atBranch && this.savePreState) {
+						this.preState = snapshot;
+					}
+					
+					//harvests the pre-frontier states: the last ones
+					//recorded at each depth are the pre-frontier states
+					if (harvest) {
+						this.atJumpFrontiers.put(currentDepth, this.atJump);
+						if (atBranch) {
+							this.preStateFrontiers.put(currentDepth, snapshot);
+						}
 					}
 				} catch (ThreadStackEmptyException | FrozenStateException e) {
 					//this should never happen
@@ -204,12 +240,48 @@ public class RunnerPath {
 		}
 	}
 
+	private static class ActionsFrontier extends Actions {
+		private final int frontierDepth;
+		private final ArrayList<State> stateList = new ArrayList<State>();
+		
+		public ActionsFrontier(int frontierDepth) {
+			this.frontierDepth = frontierDepth;
+		}
+		
+		public ArrayList<State> getStateList() {
+			return this.stateList;
+		}
+		
+		@Override
+		public boolean atStepPost() {
+			final State currentState = getEngine().getCurrentState();
+			if (currentState.getDepth() == this.frontierDepth + 1) {
+				//we are at the post-frontier state
+				this.stateList.add(currentState.clone());
+				getEngine().stopCurrentTrace();
+			}
+			return super.atStepPost();
+		}
+		
+		@Override
+		public boolean atBacktrackPost(BranchPoint bp) {
+			final State currentState = getEngine().getCurrentState();
+			this.stateList.add(currentState.clone());
+			getEngine().stopCurrentTrace();
+			return super.atBacktrackPost(bp);
+		}
+	}
+
 	//replicas of info stored in ActionsRunner
 	
 	private State initialState = null;
 	private State preState = null;
 	private boolean atJump = false;
 	private HashSet<String> coverage = null;
+	private State finalState = null;
+	private CalculatorRewriting calc = null;
+	private TreeMap<Integer, State> preStateFrontiers = null;
+	private TreeMap<Integer, Boolean> atJumpFrontiers = null;
 	
 	/**
 	 * Performs symbolic execution of the target method guided by a test case,
@@ -270,31 +342,241 @@ public class RunnerPath {
 			ClasspathException, CannotBacktrackException, CannotManageStateException, 
 			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
 			FailureException {
-
+		final Z3Pool.Lease z3 = acquireZ3();
+		final GuidedRun run;
+		try {
+			run = runGuided(z3, testDepth, 0, 0);
+		} finally {
+			z3.release();
+		}
+		
+		//outputs
+		this.initialState = run.initialState;
+		this.preState = run.actions.getPreState();
+		this.atJump = run.actions.getAtJump();
+		this.coverage = run.actions.getCoverage();
+		if (testDepth < 0) {
+			this.finalState = run.actions.getStateList().get(0);
+		}
+		this.calc = run.calc;
+		
+		return run.actions.getStateList();
+	}
+	
+	/**
+	 * Performs symbolic execution of the target method guided by a test case
+	 * up to the final state, and at the same time harvests the states on the 
+	 * branches at all the depths in a range. It is equivalent to, but much faster 
+	 * than, invoking {@link #runProgram()} and then {@link #runProgram(int) runProgram(depth)} 
+	 * for all the {@code depth}s in the range, since the test case is replayed 
+	 * only once. After the invocation of this method {@link #getPreState(int)} and 
+	 * {@link #getAtJump(int)} return, for each harvested depth, the same values 
+	 * that {@link #getPreState()} and {@link #getAtJump()} would return after 
+	 * an invocation of {@link #runProgram(int) runProgram(depth)}, and 
+	 * {@link #getFinalState()} returns the final state.
+	 * 
+	 * @param startDepth the first depth to harvest.
+	 * @param endDepth the depth where harvesting ends (excluded).
+	 * @return a {@link SortedMap}{@code <}{@link Integer}{@code , }{@link List}{@code <}{@link State}{@code >>}
+	 *         mapping each depth {@code depth} in {@code [startDepth, endDepth)} that is reached 
+	 *         by the test case to the list of all the states on branch at depth {@code depth + 1}.
+	 * @throws DecisionException
+	 * @throws CannotBuildEngineException
+	 * @throws InitializationException
+	 * @throws InvalidClassFileFactoryClassException
+	 * @throws NonexistingObservedVariablesException
+	 * @throws ClasspathException
+	 * @throws CannotBacktrackException
+	 * @throws CannotManageStateException
+	 * @throws ThreadStackEmptyException
+	 * @throws ContradictionException
+	 * @throws EngineStuckException
+	 * @throws FailureException
+	 */
+	public SortedMap<Integer, List<State>> runProgram(int startDepth, int endDepth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		//the same Z3 process serves all the runs
+		final Z3Pool.Lease z3 = acquireZ3();
+		final TreeMap<Integer, List<State>> retVal = new TreeMap<>();
+		try {
+			for (int depth : harvest(z3, startDepth, endDepth)) {
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+				retVal.put(depth, exploreFrontier(z3, depth));
+			}
+		} finally {
+			z3.release();
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Performs symbolic execution of the target method guided by a test case
+	 * up to the final state, and harvests the pre-frontier states at all the 
+	 * depths in a range, without exploring the frontiers. The frontiers can
+	 * then be explored one depth at a time, also in parallel, by 
+	 * {@link #runFrontier(State, int) runFrontier(getPreState(depth), depth)}
+	 * for all the returned {@code depth}s that have a pre-frontier state
+	 * (the others must be explored by replaying the test case, see 
+	 * {@link #runProgram(int)}). After the invocation of this method 
+	 * {@link #getInitialState()}, {@link #getCoverage()}, {@link #getFinalState()},
+	 * {@link #getPreState(int)} and {@link #getAtJump(int)} return the same 
+	 * values they return after an invocation of 
+	 * {@link #runProgram(int, int) runProgram(startDepth, endDepth)}.
+	 * 
+	 * @param startDepth the first depth to harvest.
+	 * @param endDepth the depth where harvesting ends (excluded).
+	 * @return a {@link List}{@code <}{@link Integer}{@code >} of the 
+	 *         depths in {@code [startDepth, endDepth)} that are reached
+	 *         by the test case, in increasing order.
+	 * @throws DecisionException
+	 * @throws CannotBuildEngineException
+	 * @throws InitializationException
+	 * @throws InvalidClassFileFactoryClassException
+	 * @throws NonexistingObservedVariablesException
+	 * @throws ClasspathException
+	 * @throws CannotBacktrackException
+	 * @throws CannotManageStateException
+	 * @throws ThreadStackEmptyException
+	 * @throws ContradictionException
+	 * @throws EngineStuckException
+	 * @throws FailureException
+	 */
+	public List<Integer> runHarvest(int startDepth, int endDepth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		final Z3Pool.Lease z3 = acquireZ3();
+		try {
+			return harvest(z3, startDepth, endDepth);
+		} finally {
+			z3.release();
+		}
+	}
+	
+	/**
+	 * Explores the frontier after a pre-frontier state harvested by 
+	 * {@link #runHarvest(int, int)}, with a Z3 process and a calculator 
+	 * of its own. The pre-frontier state is cloned and not modified, so 
+	 * this method can be invoked by any thread, and by many threads at 
+	 * once for different depths.
+	 * 
+	 * @param preFrontierState a {@link State}, the pre-frontier state 
+	 *        {@link #getPreState(int) getPreState(depth)}. 
+	 * @param depth an {@code int}, one of the depths returned by 
+	 *        {@link #runHarvest(int, int)}.
+	 * @return a {@link List}{@code <}{@link State}{@code >} containing
+	 *         all the states on branch at depth {@code depth + 1}. 
+	 * @throws DecisionException
+	 * @throws CannotBuildEngineException
+	 * @throws InitializationException
+	 * @throws InvalidClassFileFactoryClassException
+	 * @throws NonexistingObservedVariablesException
+	 * @throws ClasspathException
+	 * @throws CannotBacktrackException
+	 * @throws CannotManageStateException
+	 * @throws ThreadStackEmptyException
+	 * @throws ContradictionException
+	 * @throws EngineStuckException
+	 * @throws FailureException
+	 */
+	public List<State> runFrontier(State preFrontierState, int depth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		final Z3Pool.Lease z3 = acquireZ3();
+		try {
+			return runFrontier(z3, makeCalculator(), preFrontierState, depth);
+		} finally {
+			z3.release();
+		}
+	}
+	
+	private List<Integer> harvest(Z3Pool.Lease z3, int startDepth, int endDepth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		//runs the test case up to the end, collecting the pre-frontier 
+		//states; only this run sets the outputs, since it is the only 
+		//one that covers the whole test case
+		final GuidedRun run = runGuided(z3, -1, startDepth, endDepth);
+		this.initialState = run.initialState;
+		this.coverage = run.actions.getCoverage();
+		this.finalState = run.actions.getStateList().get(0);
+		this.calc = run.calc;
+		this.preStateFrontiers = run.actions.getPreStateFrontiers();
+		this.atJumpFrontiers = run.actions.getAtJumpFrontiers();
+		
+		final ArrayList<Integer> retVal = new ArrayList<>();
+		final int finalDepth = this.finalState.getDepth();
+		for (int depth = startDepth; depth < Math.min(endDepth, finalDepth); ++depth) {
+			retVal.add(depth);
+		}
+		return retVal;
+	}
+	
+	private List<State> exploreFrontier(Z3Pool.Lease z3, int depth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		//explores the frontier starting from the pre-frontier state
+		if (this.preStateFrontiers.containsKey(depth)) {
+			return runFrontier(z3, this.calc, this.preStateFrontiers.get(depth), depth);
+		}
+		
+		//no pre-frontier state recorded: falls back to replay,
+		//that yields the states at depth with its own calculator
+		final GuidedRun fallback = runGuided(z3, depth, 0, 0);
+		this.preStateFrontiers.put(depth, fallback.actions.getPreState());
+		this.atJumpFrontiers.put(depth, fallback.actions.getAtJump());
+		return fallback.actions.getStateList();
+	}
+	
+	/**
+	 * The outputs of a guided run.
+	 */
+	private static final class GuidedRun {
+		final ActionsRunner actions;
+		final CalculatorRewriting calc;
+		final State initialState;
+		
+		GuidedRun(ActionsRunner actions, CalculatorRewriting calc, State initialState) {
+			this.actions = actions;
+			this.calc = calc;
+			this.initialState = initialState;
+		}
+	}
+	
+	private GuidedRun runGuided(Z3Pool.Lease z3, int testDepth, int harvestStartDepth, int harvestEndDepth)
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
 		//builds the parameters
 		final RunnerParameters pGuided = this.commonParamsGuided.clone();
 		final RunnerParameters pGuiding = this.commonParamsGuiding.clone();
 
 		//sets the calculator
-		final CalculatorRewriting calc = new CalculatorRewriting();
-		calc.addRewriter(new RewriterOperationOnSimplex());
+		final CalculatorRewriting calc = makeCalculator();
 		pGuided.setCalculator(calc);
 		pGuiding.setCalculator(calc);
 		
 		//sets the decision procedures
-		final ArrayList<String> z3CommandLine = new ArrayList<>();
-		z3CommandLine.add(this.z3Path);
-		z3CommandLine.add(SWITCH_CHAR + "smt2");
-		z3CommandLine.add(SWITCH_CHAR + "in");
-		z3CommandLine.add(SWITCH_CHAR + "t:10");
-		pGuided.setDecisionProcedure(new DecisionProcedureAlgorithms(
-				new DecisionProcedureClassInit( //useless?
-						new DecisionProcedureLICS( //useless?
-								new DecisionProcedureSMTLIB2_AUFNIRA(
-										new DecisionProcedureAlwSat(), 
-										calc, z3CommandLine), 
-								calc, new LICSRulesRepo()), 
-						calc, new ClassInitRulesRepo()), calc));
+		pGuided.setDecisionProcedure(makeDecisionProcedure(z3, calc));
 		pGuiding.setDecisionProcedure(
 				new DecisionProcedureAlgorithms(
 						new DecisionProcedureClassInit(
@@ -312,7 +594,7 @@ public class RunnerPath {
 		pGuided.setDecisionProcedure(guid);
 		
 		//sets the actions
-		final ActionsRunner actions = new ActionsRunner(testDepth, guid);
+		final ActionsRunner actions = new ActionsRunner(testDepth, guid, harvestStartDepth, harvestEndDepth);
 		pGuided.setActions(actions);
 
 		//builds the runner and runs it
@@ -321,17 +603,99 @@ public class RunnerPath {
 		r.run();
 
 		//outputs
-		this.initialState = rb.getEngine().getInitialState();
-		this.preState = actions.getPreState();
-		this.atJump = actions.getAtJump();
-		this.coverage = actions.getCoverage();
+		final GuidedRun retVal = new GuidedRun(actions, calc, rb.getEngine().getInitialState());
 		
 		//finalizes
 		rb.getEngine().close();
 
+		return retVal;
+	}
+	
+	/**
+	 * Performs symbolic execution starting from a pre-frontier state, 
+	 * without guidance, and returns the states on the next branch.
+	 * 
+	 * @param calc the {@link CalculatorRewriting} of the execution, either
+	 *        the one of the guided execution that produced {@code preFrontierState}
+	 *        or a fresh one (a calculator must not be used by two threads at once).
+	 * @param preFrontierState a {@link State}, the (last) state at depth 
+	 *        {@code depth} before the frontier.
+	 * @param depth the depth of {@code preFrontierState}.
+	 * @return a {@link List}{@code <}{@link State}{@code >} containing
+	 *         all the states on branch at depth {@code depth + 1}. 
+	 * @throws DecisionException
+	 * @throws CannotBuildEngineException
+	 * @throws InitializationException
+	 * @throws InvalidClassFileFactoryClassException
+	 * @throws NonexistingObservedVariablesException
+	 * @throws ClasspathException
+	 * @throws CannotBacktrackException
+	 * @throws CannotManageStateException
+	 * @throws ThreadStackEmptyException
+	 * @throws ContradictionException
+	 * @throws EngineStuckException
+	 * @throws FailureException
+	 */
+	private List<State> runFrontier(Z3Pool.Lease z3, CalculatorRewriting calc, State preFrontierState, int depth) 
+			throws DecisionException, CannotBuildEngineException, InitializationException, 
+			InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, 
+			ClasspathException, CannotBacktrackException, CannotManageStateException, 
+			ThreadStackEmptyException, ContradictionException, EngineStuckException, 
+			FailureException {
+		//builds the parameters
+		final RunnerParameters pFrontier = this.commonParamsGuided.clone();
+		pFrontier.setCalculator(calc);
+		final DecisionProcedure dec = makeDecisionProcedure(z3, calc);
+		try {
+			dec.setAssumptions(preFrontierState.getPathCondition());
+		} catch (InvalidInputException e) {
+			//this should never happen
+			throw new RuntimeException(e);
+		}
+		pFrontier.setDecisionProcedure(dec);
+		pFrontier.setInitialState(preFrontierState.clone());
+		
+		//sets the actions
+		final ActionsFrontier actions = new ActionsFrontier(depth);
+		pFrontier.setActions(actions);
+
+		//builds the runner and runs it
+		final RunnerBuilder rb = new RunnerBuilder();
+		final Runner r = rb.build(pFrontier);
+		r.run();
+		
+		//finalizes
+		rb.getEngine().close();
+		
 		return actions.getStateList();
 	}
 	
+	private static CalculatorRewriting makeCalculator() {
+		final CalculatorRewriting retVal = new CalculatorRewriting();
+		retVal.addRewriter(new RewriterOperationOnSimplex());
+		return retVal;
+	}
+	
+	private DecisionProcedureAlgorithms makeDecisionProcedure(Z3Pool.Lease z3, CalculatorRewriting calc) {
+		return new DecisionProcedureAlgorithms(
+				new DecisionProcedureClassInit( //useless?
+						new DecisionProcedureLICS( //useless?
+								z3, //wraps a DecisionProcedureSMTLIB2_AUFNIRA
+								calc, new LICSRulesRepo()), 
+						calc, new ClassInitRulesRepo()), calc);
+	}
+	
+	private Z3Pool.Lease acquireZ3() throws DecisionException {
+		try {
+			return this.z3Pool.acquire(this.targetMethodSignature);
+		} catch (InterruptedException e) {
+			//the performer was shut down: preserves
+			//the interrupt and gives up
+			Thread.currentThread().interrupt();
+			throw new DecisionException("Interrupted while waiting for a Z3 process");
+		}
+	}
+	
 	private static class CountVisitor extends VoidVisitorAdapter<Object> {
 		final String methodName;
 		int methodCallCounter = 0;
@@ -406,4 +770,45 @@ public class RunnerPath {
 	public HashSet<String> getCoverage() {
 		return this.coverage;
 	}
+	
+	/**
+	 * Must be invoked after an invocation of {@link #runProgram()} or 
+	 * {@link #runProgram(int, int) runProgram(startDepth, endDepth)}.
+	 * Returns the final state of symbolic execution.
+	 * 
+	 * @return a {@link State} or {@code null} if this method is invoked
+	 *         before an invocation of {@link #runProgram()} or 
+	 *         {@link #runProgram(int, int)}.
+	 */
+	public State getFinalState() {
+		return this.finalState;
+	}
+	
+	/**
+	 * Must be invoked after an invocation of {@link #runProgram(int, int) runProgram(startDepth, endDepth)}
+	 * or {@link #runHarvest(int, int) runHarvest(startDepth, endDepth)}.
+	 * Returns the state of symbolic execution at depth {@code depth}.
+	 * 
+	 * @param depth an {@code int}, one of the harvested depths.
+	 * @return a {@link State} or {@code null} if this method is invoked
+	 *         before an invocation of {@link #runProgram(int, int)}, or
+	 *         {@code depth} was not harvested.
+	 */
+	public State getPreState(int depth) {
+		return (this.preStateFrontiers == null ? null : this.preStateFrontiers.get(depth));
+	}
+	
+	/**
+	 * Must be invoked after an invocation of {@link #runProgram(int, int) runProgram(startDepth, endDepth)}
+	 * or {@link #runHarvest(int, int) runHarvest(startDepth, endDepth)}.
+	 * Returns whether the frontier at depth {@code depth} is at a jump bytecode.
+	 * 
+	 * @param depth an {@code int}, one of the harvested depths.
+	 * @return a {@code boolean}. If this method is invoked
+	 *         before an invocation of {@link #runProgram(int, int)}, or 
+	 *         {@code depth} was not harvested, returns {@code false}.
+	 */
+	public boolean getAtJump(int depth) {
+		return (this.atJumpFrontiers == null ? false : this.atJumpFrontiers.getOrDefault(depth, false));
+	}
 }
@@ -0,0 +1,184 @@
+package tardis.implementation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.val.Expression;
+
+/**
+ * A bounded cache of the results of satisfiability queries,
+ * shared by all the JBSE threads. A query is identified by the
+ * target method, the {@link ClauseInterner interned} numeric
+ * assumptions (the only ones that are sent to the solver) in
+ * path condition order, and the queried expression. The cache
+ * is split in segments, each with its own lock and evicting its
+ * least recently used entries.
+ */
+public final class SatCache {
+	private static final int NUM_SEGMENTS = 16;
+
+	private final ClauseInterner interner;
+	private final Segment[] segments;
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+
+	public SatCache(Options o, ClauseInterner interner) {
+		this(o.getSatCacheSize(), interner);
+	}
+
+	public SatCache(int size, ClauseInterner interner) {
+		this.interner = interner;
+		if (size <= 0) {
+			this.segments = null;
+		} else {
+			this.segments = new Segment[NUM_SEGMENTS];
+			final int segmentSize = Math.max(1, size / NUM_SEGMENTS);
+			for (int i = 0; i < NUM_SEGMENTS; ++i) {
+				this.segments[i] = new Segment(segmentSize);
+			}
+		}
+	}
+
+	/**
+	 * Builds the key of a query.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param assumptions a {@link List}{@code <}{@link Clause}{@code >}, the assumptions.
+	 * @param query an {@link Expression}, the queried expression.
+	 * @return a {@link Key}, or {@code null} if this cache is disabled.
+	 */
+	public Key key(String targetMethod, List<Clause> assumptions, Expression query) {
+		if (this.segments == null) {
+			return null;
+		}
+		final List<Clause> numericAssumptions = assumptions.stream().filter(c -> c instanceof ClauseAssume).collect(Collectors.toList());
+		return new Key(targetMethod, this.interner.ids(numericAssumptions), query);
+	}
+
+	/**
+	 * Looks up the result of a query.
+	 *
+	 * @param key a {@link Key}, or {@code null}.
+	 * @return a {@link Boolean}, the cached result, or {@code null} if
+	 *         the query is not cached or {@code key == null}.
+	 */
+	public Boolean get(Key key) {
+		if (key == null) {
+			return null;
+		}
+		final Boolean retVal = segmentFor(key).get(key);
+		if (retVal == null) {
+			this.misses.incrementAndGet();
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return retVal;
+	}
+
+	/**
+	 * Caches the result of a query.
+	 *
+	 * @param key a {@link Key}, or {@code null} (in this case
+	 *        the method does nothing).
+	 * @param result a {@code boolean}, the result of the query.
+	 */
+	public void put(Key key, boolean result) {
+		if (key == null) {
+			return;
+		}
+		segmentFor(key).put(key, Boolean.valueOf(result));
+	}
+
+	private Segment segmentFor(Key key) {
+		return this.segments[(key.hashCode & 0x7fffffff) % NUM_SEGMENTS];
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public int size() {
+		if (this.segments == null) {
+			return 0;
+		}
+		int retVal = 0;
+		for (Segment segment : this.segments) {
+			retVal += segment.size();
+		}
+		return retVal;
+	}
+
+	private static final class Segment {
+		private final LinkedHashMap<Key, Boolean> map;
+
+		Segment(int capacity) {
+			this.map = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		synchronized Boolean get(Key key) {
+			return this.map.get(key);
+		}
+
+		synchronized void put(Key key, Boolean value) {
+			this.map.put(key, value);
+		}
+
+		synchronized int size() {
+			return this.map.size();
+		}
+	}
+
+	/**
+	 * The key of a query in the cache.
+	 */
+	public static final class Key {
+		private final String targetMethod;
+		private final int[] assumptions;
+		private final Expression query;
+		private final int hashCode;
+
+		private Key(String targetMethod, int[] assumptions, Expression query) {
+			this.targetMethod = targetMethod;
+			this.assumptions = assumptions;
+			this.query = query;
+			this.hashCode = 31 * (31 * targetMethod.hashCode() + Arrays.hashCode(assumptions)) + query.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.hashCode == other.hashCode &&
+					this.targetMethod.equals(other.targetMethod) &&
+					this.query.equals(other.query) &&
+					Arrays.equals(this.assumptions, other.assumptions);
+		}
+	}
+}
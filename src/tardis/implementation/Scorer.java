@@ -0,0 +1,34 @@
+package tardis.implementation;
+
+/**
+ * Assigns a priority score to the items in a {@link PriorityInputOutputBuffer}.
+ * The scores may change over time (e.g., as coverage grows); in this 
+ * case the scorer must change its {@link #version() version}, so the buffer
+ * knows that its items must be scored again. The buffer scores its items
+ * again lazily, and so assumes that scores do not increase when the
+ * version changes; a score that increases between two versions may 
+ * be picked up late.
+ *
+ * @param <E> the type of the scored items.
+ */
+public interface Scorer<E> {
+	/**
+	 * Scores an item.
+	 * 
+	 * @param e the item to score.
+	 * @return a {@code double}, the score of {@code e}. Items with
+	 *         higher score are polled first.
+	 */
+	double score(E e);
+	
+	/**
+	 * Returns the version of this scorer.
+	 * 
+	 * @return a {@code long}. When it changes, all the 
+	 *         scores previously returned by {@link #score(Object)} 
+	 *         become stale.
+	 */
+	default long version() {
+		return 0L;
+	}
+}
@@ -0,0 +1,33 @@
+package tardis.implementation;
+
+import static tardis.implementation.ScorerJBSE.methodNovelty;
+
+/**
+ * Scores the test cases emitted by EvoSuite. A test case scores 
+ * higher when its target method has a larger fraction of uncovered
+ * known branches, and when its exploration starts shallower (i.e., 
+ * it has more frontiers to harvest).
+ */
+public final class ScorerEvosuite implements Scorer<EvosuiteResult> {
+	private static final double WEIGHT_METHOD_NOVELTY = 2.0;
+	private static final double WEIGHT_DEPTH = 1.0;
+	
+	private final CoverageSet coverageSet;
+	
+	public ScorerEvosuite(CoverageSet coverageSet) {
+		this.coverageSet = coverageSet;
+	}
+
+	@Override
+	public double score(EvosuiteResult item) {
+		final String targetMethod = item.getTargetClassName() + ":" + item.getTargetMethodDescriptor() + ":" + item.getTargetMethodName();
+		final double methodNovelty = methodNovelty(this.coverageSet, targetMethod);
+		final double depth = 1.0 / (1.0 + Math.max(0, item.getStartDepth()));
+		return WEIGHT_METHOD_NOVELTY * methodNovelty + WEIGHT_DEPTH * depth;
+	}
+
+	@Override
+	public long version() {
+		return this.coverageSet.version();
+	}
+}
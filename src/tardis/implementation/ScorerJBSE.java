@@ -0,0 +1,51 @@
+package tardis.implementation;
+
+/**
+ * Scores the path conditions emitted by JBSE. A path condition 
+ * scores higher when its target branch is not covered yet, when
+ * its target method has a larger fraction of uncovered known 
+ * branches, and when it is shallower (i.e., cheaper to solve).
+ */
+public final class ScorerJBSE implements Scorer<JBSEResult> {
+	private static final double WEIGHT_UNCOVERED_BRANCH = 4.0;
+	private static final double WEIGHT_METHOD_NOVELTY = 2.0;
+	private static final double WEIGHT_DEPTH = 1.0;
+	
+	private final CoverageSet coverageSet;
+	
+	public ScorerJBSE(CoverageSet coverageSet) {
+		this.coverageSet = coverageSet;
+	}
+
+	@Override
+	public double score(JBSEResult item) {
+		final String targetBranch = item.getTargetBranch();
+		final double uncoveredBranch = (targetBranch == null || this.coverageSet.covers(targetBranch) ? 0.0 : 1.0);
+		final String targetMethod = item.getTargetClassName() + ":" + item.getTargetMethodDescriptor() + ":" + item.getTargetMethodName();
+		final double methodNovelty = methodNovelty(this.coverageSet, targetMethod);
+		final double depth = 1.0 / (1.0 + Math.max(0, item.getDepth()));
+		return WEIGHT_UNCOVERED_BRANCH * uncoveredBranch + WEIGHT_METHOD_NOVELTY * methodNovelty + WEIGHT_DEPTH * depth;
+	}
+
+	@Override
+	public long version() {
+		return this.coverageSet.version();
+	}
+	
+	/**
+	 * Returns the fraction of the known branches of a method
+	 * that are not covered yet.
+	 * 
+	 * @param coverageSet a {@link CoverageSet}.
+	 * @param methodSignature a {@link String}, the signature of the method.
+	 * @return a {@code double} between 0 and 1; it is 1 if 
+	 *         no branch of the method is known.
+	 */
+	static double methodNovelty(CoverageSet coverageSet, String methodSignature) {
+		final int total = coverageSet.totalBranches(methodSignature);
+		if (total == 0) {
+			return 1.0;
+		}
+		return 1.0 - ((double) coverageSet.coveredBranches(methodSignature)) / total;
+	}
+}
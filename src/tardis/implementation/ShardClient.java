@@ -0,0 +1,464 @@
+package tardis.implementation;
+
+import static tardis.implementation.Codec.writeString;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The connection of a TARDIS worker process (a shard) to its
+ * {@link ShardCoordinator}. It sends to the coordinator the branches
+ * that the shard newly covers, and the fingerprints of the path
+ * conditions that the shard explores and emits; it receives the
+ * ones of the other shards, adds their branches to the
+ * {@link CoverageSet}, and keeps their fingerprints so the shard
+ * does not emit the path conditions that other shards already
+ * explored or emitted. When the shards do not split the target
+ * methods, they split the path conditions instead: every path
+ * condition is {@link #owns(String, List) owned} by the shard 
+ * selected by its fingerprint, and the other shards 
+ * {@link #handOff(String, List, JBSEResult) hand it off} to its owner
+ * through the coordinator. The outgoing messages are sent in batches
+ * by a sender thread, so publishing never blocks a JBSE job. At the
+ * end the shard uploads its output directory to the coordinator.
+ * If the coordinator is unreachable the shard works alone.
+ */
+public final class ShardClient {
+	private static final long SEND_INTERVAL_MILLIS = 200;
+
+	private final String host;
+	private final int port;
+	private final int shardIndex;
+	private final int shards;
+	private final CoverageSet coverageSet;
+	private final Set<Long> remotePaths = ConcurrentHashMap.newKeySet();
+	private final Set<Long> handedOff = ConcurrentHashMap.newKeySet();
+	private final ConcurrentLinkedQueue<String> pendingCoverage = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<Long> pendingPaths = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<HandOff> pendingHandOffs = new ConcurrentLinkedQueue<>();
+	private final ArrayList<JBSEResult> receivedHandOffs = new ArrayList<>();
+	private final AtomicLong receivedBranches = new AtomicLong(0);
+	private final AtomicLong suppressed = new AtomicLong(0);
+	private final AtomicLong handOffsSent = new AtomicLong(0);
+	private final AtomicLong handOffsReceived = new AtomicLong(0);
+	private volatile boolean splitPaths = false;
+	private Consumer<JBSEResult> handOffReceiver = null;
+	private Socket socket = null;
+	private DataOutputStream out = null;
+	private Thread sender = null;
+	private Thread receiver = null;
+	private volatile boolean closing = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param address a {@link String}, the {@code host:port}
+	 *        address of the coordinator.
+	 * @param shardIndex an {@code int}, the index of the shard.
+	 * @param shards an {@code int}, the number of shards.
+	 * @param coverageSet the {@link CoverageSet} of the shard.
+	 */
+	public ShardClient(String address, int shardIndex, int shards, CoverageSet coverageSet) {
+		final int separator = address.lastIndexOf(':');
+		this.host = (separator < 0 ? "127.0.0.1" : address.substring(0, separator));
+		this.port = Integer.parseInt(separator < 0 ? address : address.substring(separator + 1));
+		this.shardIndex = shardIndex;
+		this.shards = Math.max(1, shards);
+		this.coverageSet = coverageSet;
+	}
+	
+	/**
+	 * Sets whether the shards split the path conditions
+	 * by ownership, because they do not split the target
+	 * methods.
+	 * 
+	 * @param splitPaths a {@code boolean}.
+	 */
+	public void setSplitPaths(boolean splitPaths) {
+		this.splitPaths = splitPaths;
+	}
+	
+	/**
+	 * Sets the receiver of the path conditions that the
+	 * other shards hand off to this one. The path conditions
+	 * received before are passed to it immediately.
+	 * 
+	 * @param handOffReceiver a {@link Consumer}{@code <}{@link JBSEResult}{@code >}.
+	 */
+	public void setHandOffReceiver(Consumer<JBSEResult> handOffReceiver) {
+		final ArrayList<JBSEResult> received;
+		synchronized (this.receivedHandOffs) {
+			this.handOffReceiver = handOffReceiver;
+			received = new ArrayList<>(this.receivedHandOffs);
+			this.receivedHandOffs.clear();
+		}
+		received.forEach(handOffReceiver);
+	}
+
+	/**
+	 * Connects to the coordinator, and starts exchanging
+	 * coverage and path fingerprints.
+	 */
+	public void start() {
+		try {
+			this.socket = new Socket(this.host, this.port);
+			this.socket.setTcpNoDelay(true);
+			this.out = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+			synchronized (this.out) {
+				this.out.writeByte(ShardCoordinator.MSG_HELLO);
+				this.out.writeInt(this.shardIndex);
+				this.out.flush();
+			}
+			this.receiver = new Thread(() -> receive(in));
+			this.receiver.setDaemon(true);
+			this.receiver.start();
+			this.sender = new Thread(this::sendPeriodically);
+			this.sender.setDaemon(true);
+			this.sender.start();
+			System.out.println("[MAIN    ] Shard " + this.shardIndex + " connected to coordinator " + this.host + ":" + this.port);
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Shard " + this.shardIndex + " cannot connect to coordinator " + this.host + ":" + this.port + ", working alone: " + e);
+			this.out = null;
+		}
+	}
+
+	/**
+	 * Publishes the branches that this shard newly covered.
+	 *
+	 * @param branches a {@link Collection}{@code <}{@link String}{@code >}.
+	 */
+	public void publishCoverage(Collection<String> branches) {
+		this.pendingCoverage.addAll(branches);
+	}
+
+	/**
+	 * Publishes the path condition of a test case that this shard
+	 * explored, i.e., the fingerprints of all its prefixes.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 */
+	public void publishExplored(String targetMethod, List<String> pc) {
+		for (long fingerprint : prefixFingerprints(targetMethod, pc)) {
+			this.pendingPaths.add(fingerprint);
+		}
+	}
+
+	/**
+	 * Publishes a path condition that this shard emitted.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 */
+	public void publishEmitted(String targetMethod, List<String> pc) {
+		this.pendingPaths.add(fingerprint(targetMethod, pc));
+	}
+
+	/**
+	 * Checks whether another shard explored or emitted a path condition.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 * @return {@code true} iff, as far as this shard knows, another shard
+	 *         explored a test case whose path condition has {@code pc} as
+	 *         prefix, or emitted {@code pc}. Since path conditions are
+	 *         compared by 64-bit fingerprints, there is a negligible
+	 *         probability of false positives.
+	 */
+	public boolean isKnownElsewhere(String targetMethod, List<String> pc) {
+		final boolean retVal = this.remotePaths.contains(fingerprint(targetMethod, pc));
+		if (retVal) {
+			this.suppressed.incrementAndGet();
+		}
+		return retVal;
+	}
+
+	/**
+	 * Checks whether this shard owns a path condition, i.e., 
+	 * whether it must emit it rather than handing it off.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 * @return {@code true} iff the shards do not split the path
+	 *         conditions, or {@code pc} is owned by this shard.
+	 */
+	public boolean owns(String targetMethod, List<String> pc) {
+		return (!this.splitPaths || this.out == null || owner(fingerprint(targetMethod, pc), this.shards) == this.shardIndex);
+	}
+
+	/**
+	 * Hands off a path condition that this shard does not 
+	 * {@link #owns(String, List) own} to its owner. The path 
+	 * condition is also published as emitted, so no other
+	 * shard emits it.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 * @param result the {@link JBSEResult} with path condition {@code pc}.
+	 * @return {@code true} iff the path condition is handed off, 
+	 *         {@code false} if this shard already handed it off.
+	 */
+	public boolean handOff(String targetMethod, List<String> pc, JBSEResult result) {
+		final long fingerprint = fingerprint(targetMethod, pc);
+		if (!this.handedOff.add(fingerprint)) {
+			return false;
+		}
+		this.pendingHandOffs.add(new HandOff(owner(fingerprint, this.shards), result));
+		this.pendingPaths.add(fingerprint);
+		return true;
+	}
+
+	/**
+	 * Sends the pending messages and the files in the output
+	 * directory to the coordinator, and closes the connection.
+	 *
+	 * @param outDirectory the {@link Path} of the output directory
+	 *        of the shard.
+	 */
+	public void close(Path outDirectory) {
+		if (this.out == null) {
+			return;
+		}
+		this.closing = true;
+		this.sender.interrupt();
+		try {
+			this.sender.join();
+			sendPending();
+			final List<Path> files;
+			try (final Stream<Path> walk = Files.walk(outDirectory)) {
+				files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+			}
+			for (Path file : files) {
+				final byte[] content = Files.readAllBytes(file);
+				synchronized (this.out) {
+					this.out.writeByte(ShardCoordinator.MSG_FILE);
+					writeString(outDirectory.relativize(file).toString().replace(outDirectory.getFileSystem().getSeparator(), "/"), this.out);
+					this.out.writeInt(content.length);
+					this.out.write(content);
+				}
+			}
+			synchronized (this.out) {
+				this.out.writeByte(ShardCoordinator.MSG_BYE);
+				this.out.flush();
+			}
+			System.out.println("[MAIN    ] Shard " + this.shardIndex + " uploaded " + files.size() + " files to the coordinator");
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Shard " + this.shardIndex + " failed to upload its output to the coordinator: " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				this.socket.close();
+			} catch (IOException e) {
+				//nothing to do
+			}
+		}
+	}
+
+	public long getReceivedBranches() {
+		return this.receivedBranches.get();
+	}
+
+	public int getReceivedPaths() {
+		return this.remotePaths.size();
+	}
+
+	public long getSuppressed() {
+		return this.suppressed.get();
+	}
+
+	public long getHandOffsSent() {
+		return this.handOffsSent.get();
+	}
+
+	public long getHandOffsReceived() {
+		return this.handOffsReceived.get();
+	}
+
+	private void sendPeriodically() {
+		try {
+			while (!this.closing) {
+				Thread.sleep(SEND_INTERVAL_MILLIS);
+				sendPending();
+			}
+		} catch (InterruptedException e) {
+			//closing: the pending messages are sent by close()
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Shard " + this.shardIndex + " lost the connection to the coordinator, working alone: " + e);
+		}
+	}
+
+	private void sendPending() throws IOException {
+		final ArrayList<String> branches = new ArrayList<>();
+		for (String branch = this.pendingCoverage.poll(); branch != null; branch = this.pendingCoverage.poll()) {
+			branches.add(branch);
+		}
+		final ArrayList<Long> fingerprints = new ArrayList<>();
+		for (Long fingerprint = this.pendingPaths.poll(); fingerprint != null; fingerprint = this.pendingPaths.poll()) {
+			fingerprints.add(fingerprint);
+		}
+		final ArrayList<HandOff> handOffs = new ArrayList<>();
+		for (HandOff handOff = this.pendingHandOffs.poll(); handOff != null; handOff = this.pendingHandOffs.poll()) {
+			handOffs.add(handOff);
+		}
+		if (branches.isEmpty() && fingerprints.isEmpty() && handOffs.isEmpty()) {
+			return;
+		}
+		
+		//encodes the handed off path conditions before taking the lock
+		final ArrayList<byte[]> encodedHandOffs = new ArrayList<>();
+		for (HandOff handOff : handOffs) {
+			encodedHandOffs.add(ShardCoordinator.encodeHandOff(handOff.result));
+		}
+		synchronized (this.out) {
+			if (!branches.isEmpty()) {
+				ShardCoordinator.writeCoverage(this.out, branches);
+			}
+			if (!fingerprints.isEmpty()) {
+				ShardCoordinator.writePaths(this.out, fingerprints);
+			}
+			for (int i = 0; i < handOffs.size(); ++i) {
+				ShardCoordinator.writeHandOff(this.out, handOffs.get(i).owner, encodedHandOffs.get(i));
+			}
+			this.out.flush();
+		}
+		this.handOffsSent.addAndGet(handOffs.size());
+	}
+
+	private void receive(DataInputStream in) {
+		try {
+			while (true) {
+				final byte type = in.readByte();
+				if (type == ShardCoordinator.MSG_COVERAGE) {
+					final List<String> branches = ShardCoordinator.readCoverage(in);
+					this.coverageSet.addAll(branches);
+					this.receivedBranches.addAndGet(branches.size());
+				} else if (type == ShardCoordinator.MSG_PATHS) {
+					this.remotePaths.addAll(ShardCoordinator.readPaths(in));
+				} else if (type == ShardCoordinator.MSG_HAND_OFF) {
+					in.readInt(); //the owner, either this shard or, if the owner is gone, the sender
+					receiveHandOff(ShardCoordinator.decodeHandOff(ShardCoordinator.readHandOff(in)));
+				} else {
+					throw new IOException("Unexpected message " + type + " from the coordinator");
+				}
+			}
+		} catch (EOFException e) {
+			//the coordinator closed the connection
+		} catch (IOException e) {
+			if (!this.closing) {
+				System.out.println("[MAIN    ] Shard " + this.shardIndex + " lost the connection to the coordinator, working alone: " + e);
+			}
+		}
+	}
+
+	private void receiveHandOff(JBSEResult result) {
+		this.handOffsReceived.incrementAndGet();
+		final Consumer<JBSEResult> receiver;
+		synchronized (this.receivedHandOffs) {
+			receiver = this.handOffReceiver;
+			if (receiver == null) {
+				this.receivedHandOffs.add(result);
+				return;
+			}
+		}
+		receiver.accept(result);
+	}
+
+	/**
+	 * Returns the shard that owns a path condition.
+	 * 
+	 * @param fingerprint a {@code long}, the fingerprint
+	 *        of the path condition.
+	 * @param shards an {@code int}, the number of shards.
+	 * @return an {@code int} between {@code 0} and 
+	 *         {@code shards - 1}.
+	 */
+	static int owner(long fingerprint, int shards) {
+		//mixes the bits, since the fingerprints of the
+		//path conditions of a method differ little
+		final long mixed = (fingerprint ^ (fingerprint >>> 33)) * 0xff51afd7ed558ccdL;
+		return (int) Math.floorMod(mixed ^ (mixed >>> 33), (long) shards);
+	}
+
+	/**
+	 * Returns the fingerprint of a path condition.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 * @return a {@code long}.
+	 */
+	static long fingerprint(String targetMethod, List<String> pc) {
+		long h = hash(FNV_OFFSET_BASIS, targetMethod);
+		for (String clause : pc) {
+			h = hash(h, clause);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the fingerprints of all the nonempty prefixes
+	 * of a path condition, as {@link #fingerprint(String, List)}
+	 * would calculate them.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the target method.
+	 * @param pc a {@link List}{@code <}{@link String}{@code >}, the texts
+	 *        of the clauses of the path condition.
+	 * @return a {@code long[]} whose {@code i}-th element is the
+	 *         fingerprint of the first {@code i + 1} clauses of {@code pc}.
+	 */
+	static long[] prefixFingerprints(String targetMethod, List<String> pc) {
+		final long[] retVal = new long[pc.size()];
+		long h = hash(FNV_OFFSET_BASIS, targetMethod);
+		int i = 0;
+		for (String clause : pc) {
+			h = hash(h, clause);
+			retVal[i++] = h;
+		}
+		return retVal;
+	}
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final class HandOff {
+		final int owner;
+		final JBSEResult result;
+
+		HandOff(int owner, JBSEResult result) {
+			this.owner = owner;
+			this.result = result;
+		}
+	}
+
+	private static long hash(long h, String s) {
+		//64-bit FNV-1a of the characters of s, followed by a separator
+		for (int i = 0; i < s.length(); ++i) {
+			h = (h ^ s.charAt(i)) * FNV_PRIME;
+		}
+		return (h ^ 0xFFFF) * FNV_PRIME;
+	}
+}
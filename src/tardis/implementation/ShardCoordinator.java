@@ -0,0 +1,387 @@
+package tardis.implementation;
+
+import static tardis.implementation.Codec.readString;
+import static tardis.implementation.Codec.writeString;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Coordinates a sharded run, where the target methods are split
+ * among several TARDIS worker processes (the shards). The coordinator
+ * launches the shards, that connect back to it through a {@link ShardClient},
+ * and relays among them the branches they cover and the fingerprints
+ * of the path conditions they explore and emit, so they do not repeat
+ * each other's work, and routes the path conditions that a shard hands
+ * off to the shard that owns them. The messages to the shards are 
+ * written outside the lock of the coordinator. At the end the shards 
+ * upload their output directories, that the coordinator merges in its 
+ * own output directory.
+ * The coordinator listens on the loopback interface, and launches all
+ * the shards on the same machine.
+ */
+public final class ShardCoordinator {
+	static final byte MSG_HELLO = 1;
+	static final byte MSG_COVERAGE = 2;
+	static final byte MSG_PATHS = 3;
+	static final byte MSG_FILE = 4;
+	static final byte MSG_BYE = 5;
+	static final byte MSG_HAND_OFF = 6;
+
+	private final Options o;
+	private final int shards;
+	private final HashSet<String> coverage = new HashSet<>();
+	private final HashSet<Long> paths = new HashSet<>();
+	private final ArrayList<Connection> accepted = new ArrayList<>();
+	private final ArrayList<Connection> connections = new ArrayList<>();
+	private final Object lock = new Object();
+	private int files = 0;
+
+	public ShardCoordinator(Options o) {
+		this.o = o;
+		this.shards = o.getShards();
+	}
+
+	/**
+	 * Launches the shards, coordinates them until they
+	 * all terminate, and merges their output directories.
+	 *
+	 * @throws IOException if the coordinator cannot listen
+	 *         for the shards, or a shard cannot be launched.
+	 */
+	public void run() throws IOException {
+		final Path tmpDirectoryPath = this.o.getTmpDirectoryPath().toAbsolutePath();
+		try (final ServerSocket serverSocket = new ServerSocket(this.o.getCoordinatorPort(), this.shards, InetAddress.getLoopbackAddress())) {
+			final Thread acceptor = new Thread(() -> accept(serverSocket));
+			acceptor.setDaemon(true);
+			acceptor.start();
+			final String address = serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort();
+			System.out.println("[MAIN    ] Coordinator listening at " + address + ", launching " + this.shards + " shards");
+
+			//launches the shards
+			final ArrayList<Process> processes = new ArrayList<>();
+			for (int i = 0; i < this.shards; ++i) {
+				final ArrayList<String> commandLine = new ArrayList<>();
+				commandLine.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+				commandLine.add("-cp");
+				commandLine.add(System.getProperty("java.class.path"));
+				commandLine.add("tardis.Main");
+				commandLine.addAll(this.o.getCommandLine());
+				commandLine.add("-shards");
+				commandLine.add(Integer.toString(this.shards));
+				commandLine.add("-shard_index");
+				commandLine.add(Integer.toString(i));
+				commandLine.add("-coordinator_address");
+				commandLine.add(address);
+				commandLine.add("-tmp_base");
+				commandLine.add(tmpDirectoryPath.toString());
+				commandLine.add("-tmp_name");
+				commandLine.add("shard-" + i);
+				commandLine.add("-out");
+				commandLine.add(tmpDirectoryPath.resolve("shard-" + i + "-out").toString());
+				if (this.o.getTimelineFile() != null) {
+					commandLine.add("-timeline_file");
+					commandLine.add(tmpDirectoryPath.resolve("shard-" + i + "-timeline.csv").toString());
+				}
+				final Path logFilePath = tmpDirectoryPath.resolve("shard-" + i + ".log");
+				processes.add(new ProcessBuilder(commandLine).redirectErrorStream(true).redirectOutput(logFilePath.toFile()).start());
+				System.out.println("[MAIN    ] Shard " + i + " launched, log in " + logFilePath.toString());
+			}
+
+			//waits for the shards
+			for (int i = 0; i < processes.size(); ++i) {
+				try {
+					final int exitValue = processes.get(i).waitFor();
+					System.out.println("[MAIN    ] Shard " + i + " terminated with exit value " + exitValue);
+				} catch (InterruptedException e) {
+					for (Process process : processes) {
+						process.destroyForcibly();
+					}
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		//waits for the uploads still in progress
+		final ArrayList<Connection> accepted;
+		synchronized (this.lock) {
+			accepted = new ArrayList<>(this.accepted);
+		}
+		for (Connection connection : accepted) {
+			try {
+				connection.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		synchronized (this.lock) {
+			System.out.println("[MAIN    ] Coordinator: " + this.coverage.size() + " branches covered, " + this.paths.size() + " path fingerprints, " +
+					this.files + " files merged in " + this.o.getOutDirectory().toString());
+		}
+	}
+
+	private void accept(ServerSocket serverSocket) {
+		try {
+			while (true) {
+				final Socket socket = serverSocket.accept();
+				final Connection connection = new Connection(socket);
+				synchronized (this.lock) {
+					this.accepted.add(connection);
+				}
+				connection.thread.start();
+			}
+		} catch (IOException e) {
+			//the server socket was closed
+		}
+	}
+
+	private final class Connection {
+		final Socket socket;
+		final DataOutputStream out;
+		final Thread thread;
+		int shard = -1;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.socket.setTcpNoDelay(true);
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			this.thread = new Thread(this::serve);
+			this.thread.setDaemon(true);
+		}
+
+		private void serve() {
+			try (final DataInputStream in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()))) {
+				while (true) {
+					final byte type = in.readByte();
+					if (type == MSG_HELLO) {
+						hello(in.readInt());
+					} else if (type == MSG_COVERAGE) {
+						relayCoverage(readCoverage(in));
+					} else if (type == MSG_PATHS) {
+						relayPaths(readPaths(in));
+					} else if (type == MSG_HAND_OFF) {
+						routeHandOff(in.readInt(), readHandOff(in));
+					} else if (type == MSG_FILE) {
+						final String relativePath = readString(in);
+						final byte[] content = new byte[in.readInt()];
+						in.readFully(content);
+						saveFile(relativePath, content);
+					} else if (type == MSG_BYE) {
+						break;
+					} else {
+						throw new IOException("Unexpected message " + type);
+					}
+				}
+			} catch (EOFException e) {
+				System.out.println("[MAIN    ] Shard " + this.shard + " closed the connection without uploading its output");
+			} catch (IOException e) {
+				System.out.println("[MAIN    ] Connection with shard " + this.shard + " failed: " + e);
+			} finally {
+				synchronized (ShardCoordinator.this.lock) {
+					ShardCoordinator.this.connections.remove(this);
+				}
+				try {
+					this.socket.close();
+				} catch (IOException e) {
+					//nothing to do
+				}
+			}
+		}
+
+		private void hello(int shard) throws IOException {
+			this.shard = shard;
+			
+			//registers the connection and copies what the other
+			//shards did so far; what they do from now on is relayed
+			final ArrayList<String> coverage;
+			final ArrayList<Long> paths;
+			synchronized (ShardCoordinator.this.lock) {
+				coverage = new ArrayList<>(ShardCoordinator.this.coverage);
+				paths = new ArrayList<>(ShardCoordinator.this.paths);
+				ShardCoordinator.this.connections.add(this);
+			}
+			synchronized (this.out) {
+				if (!coverage.isEmpty()) {
+					writeCoverage(this.out, coverage);
+				}
+				if (!paths.isEmpty()) {
+					writePaths(this.out, paths);
+				}
+				this.out.flush();
+			}
+			System.out.println("[MAIN    ] Shard " + shard + " connected");
+		}
+
+		private void relayCoverage(List<String> branches) {
+			final ArrayList<String> newBranches = new ArrayList<>();
+			final ArrayList<Connection> others;
+			synchronized (ShardCoordinator.this.lock) {
+				for (String branch : branches) {
+					if (ShardCoordinator.this.coverage.add(branch)) {
+						newBranches.add(branch);
+					}
+				}
+				if (newBranches.isEmpty()) {
+					return;
+				}
+				others = otherConnections();
+			}
+			for (Connection other : others) {
+				try {
+					synchronized (other.out) {
+						writeCoverage(other.out, newBranches);
+						other.out.flush();
+					}
+				} catch (IOException e) {
+					//the serving thread of other will notice
+				}
+			}
+		}
+
+		private void relayPaths(List<Long> fingerprints) {
+			final ArrayList<Long> newFingerprints = new ArrayList<>();
+			final ArrayList<Connection> others;
+			synchronized (ShardCoordinator.this.lock) {
+				for (Long fingerprint : fingerprints) {
+					if (ShardCoordinator.this.paths.add(fingerprint)) {
+						newFingerprints.add(fingerprint);
+					}
+				}
+				if (newFingerprints.isEmpty()) {
+					return;
+				}
+				others = otherConnections();
+			}
+			for (Connection other : others) {
+				try {
+					synchronized (other.out) {
+						writePaths(other.out, newFingerprints);
+						other.out.flush();
+					}
+				} catch (IOException e) {
+					//the serving thread of other will notice
+				}
+			}
+		}
+		
+		private void routeHandOff(int owner, byte[] handOff) {
+			//if the owner is gone the path condition
+			//goes back to the shard that handed it off
+			Connection target = this;
+			synchronized (ShardCoordinator.this.lock) {
+				for (Connection other : ShardCoordinator.this.connections) {
+					if (other.shard == owner) {
+						target = other;
+						break;
+					}
+				}
+			}
+			try {
+				synchronized (target.out) {
+					writeHandOff(target.out, owner, handOff);
+					target.out.flush();
+				}
+			} catch (IOException e) {
+				//the serving thread of target will notice
+			}
+		}
+		
+		private ArrayList<Connection> otherConnections() {
+			final ArrayList<Connection> retVal = new ArrayList<>(ShardCoordinator.this.connections);
+			retVal.remove(this);
+			return retVal;
+		}
+
+		private void saveFile(String relativePath, byte[] content) throws IOException {
+			final Path outDirectory = ShardCoordinator.this.o.getOutDirectory().toAbsolutePath().normalize();
+			final Path filePath = outDirectory.resolve(relativePath).normalize();
+			if (!filePath.startsWith(outDirectory)) {
+				throw new IOException("Shard " + this.shard + " uploaded file " + relativePath + " outside the output directory");
+			}
+			Files.createDirectories(filePath.getParent());
+			Files.write(filePath, content);
+			synchronized (ShardCoordinator.this.lock) {
+				++ShardCoordinator.this.files;
+			}
+		}
+	}
+
+	static void writeCoverage(DataOutputStream out, Collection<String> branches) throws IOException {
+		out.writeByte(MSG_COVERAGE);
+		out.writeInt(branches.size());
+		for (String branch : branches) {
+			writeString(branch, out);
+		}
+	}
+
+	static List<String> readCoverage(DataInputStream in) throws IOException {
+		final int size = in.readInt();
+		final ArrayList<String> retVal = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i) {
+			retVal.add(readString(in));
+		}
+		return retVal;
+	}
+
+	static void writePaths(DataOutputStream out, Collection<Long> fingerprints) throws IOException {
+		out.writeByte(MSG_PATHS);
+		out.writeInt(fingerprints.size());
+		for (long fingerprint : fingerprints) {
+			out.writeLong(fingerprint);
+		}
+	}
+
+	static List<Long> readPaths(DataInputStream in) throws IOException {
+		final int size = in.readInt();
+		final ArrayList<Long> retVal = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i) {
+			retVal.add(in.readLong());
+		}
+		return retVal;
+	}
+
+	static void writeHandOff(DataOutputStream out, int owner, byte[] handOff) throws IOException {
+		out.writeByte(MSG_HAND_OFF);
+		out.writeInt(owner);
+		out.writeInt(handOff.length);
+		out.write(handOff);
+	}
+
+	static byte[] readHandOff(DataInputStream in) throws IOException {
+		final byte[] retVal = new byte[in.readInt()];
+		in.readFully(retVal);
+		return retVal;
+	}
+
+	static byte[] encodeHandOff(JBSEResult result) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			new JBSEResultCodec().encode(result, out);
+		}
+		return bytes.toByteArray();
+	}
+
+	static JBSEResult decodeHandOff(byte[] handOff) throws IOException {
+		try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(handOff))) {
+			return new JBSEResultCodec().decode(in);
+		}
+	}
+}
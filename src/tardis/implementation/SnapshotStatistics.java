@@ -0,0 +1,97 @@
+package tardis.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import jbse.mem.State;
+
+/**
+ * Measures the memory footprint of the {@link JBSEResult}s, 
+ * both as the number of distinct {@link State}s they hold and 
+ * as the heap usage. Since the results of the same test case share
+ * their initial state, and the results at the same depth share 
+ * their pre-state, the number of distinct states per result is 
+ * less than three, the number a result held when every state was
+ * cloned. The heap usage is sampled every {@link #SAMPLE_INTERVAL}
+ * results, and includes everything else in the heap, so it is
+ * comparable only between runs of the same program with the same
+ * options. It is shared by all the threads.
+ */
+public final class SnapshotStatistics {
+	static final int SAMPLE_INTERVAL = 64;
+	
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	//states are compared by identity, and are not kept alive
+	private final Map<State, Boolean> initialStates = Collections.synchronizedMap(new WeakHashMap<>());
+	private final Map<State, Boolean> preStates = Collections.synchronizedMap(new WeakHashMap<>());
+	private long results = 0;
+	private long distinctInitialStates = 0;
+	private long distinctPreStates = 0;
+	private long peakHeapBytes = 0;
+	
+	/**
+	 * Records a result.
+	 * 
+	 * @param result a {@link JBSEResult}.
+	 */
+	public void record(JBSEResult result) {
+		final boolean newInitialState = (this.initialStates.put(result.getInitialState(), Boolean.TRUE) == null);
+		final boolean newPreState = (this.preStates.put(result.getPreState(), Boolean.TRUE) == null);
+		final boolean mustSample;
+		synchronized (this) {
+			++this.results;
+			if (newInitialState) {
+				++this.distinctInitialStates;
+			}
+			if (newPreState) {
+				++this.distinctPreStates;
+			}
+			mustSample = (this.results % SAMPLE_INTERVAL == 1);
+		}
+		if (mustSample) {
+			final long heapBytes = this.memory.getHeapMemoryUsage().getUsed();
+			synchronized (this) {
+				this.peakHeapBytes = Math.max(this.peakHeapBytes, heapBytes);
+			}
+		}
+	}
+	
+	public synchronized long getResults() {
+		return this.results;
+	}
+	
+	public synchronized long getDistinctInitialStates() {
+		return this.distinctInitialStates;
+	}
+	
+	public synchronized long getDistinctPreStates() {
+		return this.distinctPreStates;
+	}
+	
+	/**
+	 * Returns the maximum used heap among the samples
+	 * taken when the results were recorded.
+	 * 
+	 * @return a {@code long}, the number of bytes.
+	 */
+	public synchronized long getPeakHeapBytes() {
+		return this.peakHeapBytes;
+	}
+	
+	/**
+	 * Returns the number of distinct states held by a result,
+	 * on average: the shared initial and pre-states are counted 
+	 * once, and every result holds its own final state.
+	 * 
+	 * @return a {@code double}.
+	 */
+	public synchronized double getStatesPerResult() {
+		if (this.results == 0) {
+			return 0;
+		}
+		return ((double) (this.distinctInitialStates + this.distinctPreStates + this.results)) / this.results;
+	}
+}
@@ -0,0 +1,399 @@
+package tardis.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * A FIFO buffer that keeps at most a given number of items in
+ * memory, and spills the others to disk. The head of the buffer
+ * is kept in memory; once the head is full the items that are
+ * added are {@link Codec encoded} and appended to memory-mapped
+ * segment files in a private directory, and they are decoded back to the
+ * head as it empties. A segment file is deleted as soon as all
+ * its items are read back. This way the heap usage of the buffer
+ * stays flat while the backlog grows. The items are encoded 
+ * outside the lock of the buffer, so a producer that spills does not
+ * block the consumers while it encodes. An item that cannot be
+ * read back from disk is reported to a callback, so the pipeline
+ * can stop waiting for it.
+ *
+ * @param <E> the type of the items in the buffer.
+ */
+public class SpillingInputOutputBuffer<E> implements InputOutputBuffer<E> {
+	private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private final Codec<E> codec;
+	private final Path parentDirectory;
+	private Path directory = null;
+	private final int hotCapacity;
+	private final Runnable onLost;
+	private final int segmentSize;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+	private final ArrayDeque<E> head = new ArrayDeque<>();
+	private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+	private int nextSegmentId = 0;
+	private int spilled = 0;
+	private long totalSpilled = 0;
+	private int maxSpilled = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param codec the {@link Codec} of the items.
+	 * @param parentDirectory the {@link Path} of the directory 
+	 *        where the directory of the segment files is created
+	 *        upon the first spill. It must exist.
+	 * @param hotCapacity an {@code int}, the maximum number
+	 *        of items kept in memory.
+	 */
+	public SpillingInputOutputBuffer(Codec<E> codec, Path parentDirectory, int hotCapacity) {
+		this(codec, parentDirectory, hotCapacity, () -> { });
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param codec the {@link Codec} of the items.
+	 * @param parentDirectory the {@link Path} of the directory 
+	 *        where the directory of the segment files is created
+	 *        upon the first spill. It must exist.
+	 * @param hotCapacity an {@code int}, the maximum number
+	 *        of items kept in memory.
+	 * @param onLost a {@link Runnable}, run once for every 
+	 *        spilled item that cannot be read back from disk,
+	 *        while the lock of the buffer is held.
+	 */
+	public SpillingInputOutputBuffer(Codec<E> codec, Path parentDirectory, int hotCapacity, Runnable onLost) {
+		this(codec, parentDirectory, hotCapacity, onLost, SEGMENT_SIZE);
+	}
+
+	/**
+	 * Constructor with a given size of the segment files, 
+	 * for testing.
+	 */
+	SpillingInputOutputBuffer(Codec<E> codec, Path parentDirectory, int hotCapacity, Runnable onLost, int segmentSize) {
+		this.codec = codec;
+		this.parentDirectory = parentDirectory;
+		this.hotCapacity = Math.max(1, hotCapacity);
+		this.onLost = onLost;
+		this.segmentSize = segmentSize;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (addToHead(e)) {
+			return true;
+		}
+		
+		//the item must be spilled: encodes it without holding the lock
+		byte[] record;
+		try {
+			record = encode(e);
+		} catch (IOException exc) {
+			System.out.println("[MAIN    ] Unexpected I/O error while encoding an item to spill to " + this.parentDirectory.toString() + ", keeping it in memory: " + exc);
+			record = null;
+		}
+		this.lock.lock();
+		try {
+			if (record == null || (this.spilled == 0 && this.head.size() < this.hotCapacity)) {
+				//the head emptied while encoding
+				this.head.add(e);
+			} else {
+				//once spilling starts all the items go to disk,
+				//so they are read back in FIFO order
+				spill(record);
+			}
+			this.notEmpty.signal();
+			return true;
+		} catch (IOException exc) {
+			System.out.println("[MAIN    ] Unexpected I/O error while spilling an item to " + this.parentDirectory.toString() + ", keeping it in memory: " + exc);
+			this.head.add(e);
+			this.notEmpty.signal();
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	private boolean addToHead(E e) {
+		this.lock.lock();
+		try {
+			if (this.spilled == 0 && this.head.size() < this.hotCapacity) {
+				this.head.add(e);
+				this.notEmpty.signal();
+				return true;
+			}
+			return false;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.head.isEmpty() && this.spilled == 0) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			refillIfEmpty();
+			return this.head.poll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		this.lock.lock();
+		try {
+			return this.head.isEmpty() && this.spilled == 0;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.head.size() + this.spilled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxItems) {
+		this.lock.lock();
+		try {
+			int retVal = 0;
+			while (retVal < maxItems) {
+				refillIfEmpty();
+				final E item = this.head.poll();
+				if (item == null) {
+					break;
+				}
+				c.add(item);
+				++retVal;
+			}
+			return retVal;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public List<E> snapshot() {
+		//copies the raw records while holding the lock,
+		//and decodes them after releasing it
+		final ArrayList<E> retVal;
+		final ArrayList<byte[]> records = new ArrayList<>();
+		this.lock.lock();
+		try {
+			retVal = new ArrayList<>(this.head.size() + this.spilled);
+			retVal.addAll(this.head);
+			for (Segment segment : this.segments) {
+				segment.copyRecords(records);
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		for (byte[] record : records) {
+			try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+				retVal.add(this.codec.decode(in));
+			} catch (IOException exc) {
+				System.out.println("[MAIN    ] Unexpected I/O error while reading a spilled item from " + this.parentDirectory.toString() + ", the item is not in the snapshot: " + exc);
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the number of items that were spilled to disk.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getTotalSpilled() {
+		this.lock.lock();
+		try {
+			return this.totalSpilled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of items that were
+	 * on disk at the same time.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int getMaxSpilled() {
+		this.lock.lock();
+		try {
+			return this.maxSpilled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes all the segment files and their directory. 
+	 * The items on disk are lost.
+	 */
+	public void close() {
+		this.lock.lock();
+		try {
+			for (Segment segment : this.segments) {
+				segment.delete();
+			}
+			this.segments.clear();
+			this.spilled = 0;
+			if (this.directory != null) {
+				try {
+					Files.deleteIfExists(this.directory);
+				} catch (IOException e) {
+					//nothing to do
+				}
+				this.directory = null;
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private byte[] encode(E e) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			this.codec.encode(e, out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void spill(byte[] record) throws IOException {
+		Segment segment = this.segments.peekLast();
+		if (segment == null || !segment.fits(record.length)) {
+			if (this.directory == null) {
+				this.directory = Files.createTempDirectory(this.parentDirectory, "spill-");
+			}
+			segment = new Segment(this.directory.resolve("spill-" + (this.nextSegmentId++) + ".seg"), Math.max(this.segmentSize, record.length + 4));
+			this.segments.addLast(segment);
+		}
+		segment.append(record);
+		++this.spilled;
+		++this.totalSpilled;
+		this.maxSpilled = Math.max(this.maxSpilled, this.spilled);
+	}
+
+	private void refillIfEmpty() {
+		while (this.head.isEmpty() && this.spilled > 0) {
+			final Segment segment = this.segments.peekFirst();
+			if (!segment.hasNext()) {
+				//this should never happen
+				throw new AssertionError("Spill segment " + segment.path.toString() + " has no more items but the buffer counts " + this.spilled);
+			}
+			while (this.head.size() < this.hotCapacity && segment.hasNext()) {
+				final byte[] record = segment.next();
+				--this.spilled;
+				try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+					this.head.add(this.codec.decode(in));
+				} catch (IOException exc) {
+					System.out.println("[MAIN    ] Unexpected I/O error while reading back a spilled item from " + segment.path.toString() + ", the item is lost: " + exc);
+					this.onLost.run();
+				}
+			}
+			if (!segment.hasNext()) {
+				this.segments.pollFirst();
+				segment.delete();
+			}
+		}
+	}
+
+	/**
+	 * An append-only, memory-mapped file of length-prefixed records.
+	 */
+	private static final class Segment {
+		final Path path;
+		private final FileChannel channel;
+		private MappedByteBuffer buffer;
+		private int writePosition = 0;
+		private int readPosition = 0;
+
+		Segment(Path path, int size) throws IOException {
+			this.path = path;
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+
+		boolean fits(int recordLength) {
+			return this.writePosition + 4 + recordLength <= this.buffer.capacity();
+		}
+
+		void append(byte[] record) {
+			final ByteBuffer out = this.buffer.duplicate();
+			out.position(this.writePosition);
+			out.putInt(record.length);
+			out.put(record);
+			this.writePosition = out.position();
+		}
+
+		boolean hasNext() {
+			return this.readPosition < this.writePosition;
+		}
+
+		byte[] next() {
+			final ByteBuffer in = this.buffer.duplicate();
+			in.position(this.readPosition);
+			final byte[] retVal = new byte[in.getInt()];
+			in.get(retVal);
+			this.readPosition = in.position();
+			return retVal;
+		}
+
+		void copyRecords(List<byte[]> records) {
+			final ByteBuffer in = this.buffer.duplicate();
+			in.position(this.readPosition);
+			while (in.position() < this.writePosition) {
+				final byte[] record = new byte[in.getInt()];
+				in.get(record);
+				records.add(record);
+			}
+		}
+
+		void delete() {
+			//the mapping is released when the buffer is
+			//garbage collected, the file can be deleted now
+			this.buffer = null;
+			try {
+				this.channel.close();
+				Files.deleteIfExists(this.path);
+			} catch (IOException e) {
+				//nothing to do
+			}
+		}
+	}
+}
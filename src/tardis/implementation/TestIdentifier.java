@@ -1,7 +1,7 @@
 package tardis.implementation;
 
 public class TestIdentifier {
-	private int testCount;
+	private volatile int testCount;
 	
 	public TestIdentifier(int start) {
 		this.testCount = start;
@@ -13,4 +13,8 @@ public class TestIdentifier {
 	public int getTestCount() {
 		return this.testCount;
 	}
+	
+	public void setTestCount(int testCount) {
+		this.testCount = testCount;
+	}
 }
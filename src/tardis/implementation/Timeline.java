@@ -0,0 +1,138 @@
+package tardis.implementation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * Periodically samples the progress of a run into a CSV file: the
+ * elapsed wall clock and CPU time, the number of covered branches,
+ * the numbers of path conditions and test cases waiting in the buffers,
+ * and the numbers of the tests that EvoSuite generated and failed to
+ * generate. The CPU time is the one of this JVM plus, where the
+ * operating system tells it (Linux), the one of the terminated child
+ * processes, e.g., the EvoSuite jobs; the CPU time of the long-lived
+ * worker JVMs is counted only after they terminate.
+ */
+public final class Timeline {
+	private static final String HEADER = "elapsed_seconds,cpu_seconds,covered_branches,pending_path_conditions,pending_test_cases,tests_generated,tests_failed";
+	private static final long NANOS_PER_CLOCK_TICK = 10_000_000L; //USER_HZ is 100
+
+	private final Path timelinePath;
+	private final CoverageSet coverageSet;
+	private final InputOutputBuffer<JBSEResult> pathConditionBuffer;
+	private final InputOutputBuffer<EvosuiteResult> testCaseBuffer;
+	private final PerformerEvosuite performerEvosuite;
+	private final long startNanos;
+	private final long startCpuNanos;
+	private BufferedWriter w = null;
+	private ScheduledExecutorService scheduler = null;
+
+	public Timeline(Path timelinePath, CoverageSet coverageSet, InputOutputBuffer<JBSEResult> pathConditionBuffer, InputOutputBuffer<EvosuiteResult> testCaseBuffer, PerformerEvosuite performerEvosuite) {
+		this.timelinePath = timelinePath;
+		this.coverageSet = coverageSet;
+		this.pathConditionBuffer = pathConditionBuffer;
+		this.testCaseBuffer = testCaseBuffer;
+		this.performerEvosuite = performerEvosuite;
+		this.startNanos = System.nanoTime();
+		this.startCpuNanos = cpuNanos();
+	}
+
+	/**
+	 * Starts sampling periodically. Should be invoked
+	 * after the performers are started.
+	 *
+	 * @param intervalDuration a {@code long}, the duration of the
+	 *        interval between two samples.
+	 * @param intervalUnit a {@link TimeUnit}, the unit of the interval
+	 *        between two samples.
+	 * @throws IOException if the timeline file cannot be created.
+	 */
+	public void start(long intervalDuration, TimeUnit intervalUnit) throws IOException {
+		this.w = Files.newBufferedWriter(this.timelinePath, StandardCharsets.UTF_8);
+		this.w.write(HEADER);
+		this.w.newLine();
+		sample();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r);
+			t.setDaemon(true);
+			return t;
+		});
+		this.scheduler.scheduleAtFixedRate(this::sample, Math.max(1, intervalDuration), Math.max(1, intervalDuration), intervalUnit);
+	}
+
+	/**
+	 * Stops sampling, writes a last sample, and
+	 * closes the timeline file.
+	 */
+	public void close() {
+		if (this.scheduler == null) {
+			return;
+		}
+		this.scheduler.shutdown();
+		try {
+			this.scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sample();
+		try {
+			this.w.close();
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Unexpected I/O error while closing timeline file " + this.timelinePath.toString() + ": " + e);
+		}
+	}
+
+	private synchronized void sample() {
+		final double elapsedSeconds = (System.nanoTime() - this.startNanos) / 1e9;
+		final double cpuSeconds = (cpuNanos() - this.startCpuNanos) / 1e9;
+		try {
+			this.w.write(String.format(Locale.ROOT, "%.1f,%.1f,%d,%d,%d,%d,%d", elapsedSeconds, cpuSeconds, this.coverageSet.size(), this.pathConditionBuffer.size(),
+					this.testCaseBuffer.size(), this.performerEvosuite.getVerifiedTests(), this.performerEvosuite.getFailedTests()));
+			this.w.newLine();
+			this.w.flush();
+		} catch (IOException e) {
+			System.out.println("[MAIN    ] Unexpected I/O error while writing timeline file " + this.timelinePath.toString() + ": " + e);
+		}
+	}
+
+	/**
+	 * Returns the CPU time consumed by this process.
+	 *
+	 * @return a {@code long}, the CPU time in nanoseconds of this
+	 *         process and, if the operating system tells it, of its
+	 *         terminated children.
+	 */
+	private static long cpuNanos() {
+		try {
+			//fields 14 to 17 of /proc/self/stat are the user and system
+			//times of the process and of its terminated children; the
+			//second field (the name) is in parentheses and may contain spaces
+			final String stat = new String(Files.readAllBytes(Paths.get("/proc/self/stat")), StandardCharsets.US_ASCII);
+			final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			long ticks = 0;
+			for (int i = 11; i <= 14; ++i) {
+				ticks += Long.parseLong(fields[i]);
+			}
+			return ticks * NANOS_PER_CLOCK_TICK;
+		} catch (IOException | RuntimeException e) {
+			//not Linux: falls back to the CPU time of this JVM
+		}
+		final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+		}
+		return 0;
+	}
+}
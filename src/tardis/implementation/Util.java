@@ -1,6 +1,10 @@
 package tardis.implementation;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
@@ -100,6 +104,108 @@ public class Util {
 				currentBytecode == Opcodes.OP_MULTIANEWARRAY);
 	}
 	
+	/**
+	 * Checks whether a class file declares a method, by scanning
+	 * its method table (no class is loaded).
+	 * 
+	 * @param classFile a {@code byte[]}, the content of the class file.
+	 * @param methodName a {@link String}, the name of the method.
+	 * @param methodDescriptor a {@link String}, the descriptor of the method.
+	 * @return {@code true} iff the class file declares a method with
+	 *         name {@code methodName} and descriptor {@code methodDescriptor}.
+	 * @throws IOException if {@code classFile} is ill-formed.
+	 */
+	static boolean classFileDeclaresMethod(byte[] classFile, String methodName, String methodDescriptor) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+		if (in.readInt() != 0xCAFEBABE) {
+			throw new IOException("Bad class file magic number");
+		}
+		in.readUnsignedShort(); //minor version
+		in.readUnsignedShort(); //major version
+		
+		//constant pool: only the utf8 entries are kept
+		final int constantPoolCount = in.readUnsignedShort();
+		final String[] utf8 = new String[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; ++i) {
+			final int tag = in.readUnsignedByte();
+			switch (tag) {
+			case 1:  //Utf8
+				utf8[i] = in.readUTF();
+				break;
+			case 7:  //Class
+			case 8:  //String
+			case 16: //MethodType
+			case 19: //Module
+			case 20: //Package
+				skipFully(in, 2);
+				break;
+			case 15: //MethodHandle
+				skipFully(in, 3);
+				break;
+			case 3:  //Integer
+			case 4:  //Float
+			case 9:  //Fieldref
+			case 10: //Methodref
+			case 11: //InterfaceMethodref
+			case 12: //NameAndType
+			case 17: //Dynamic
+			case 18: //InvokeDynamic
+				skipFully(in, 4);
+				break;
+			case 5:  //Long
+			case 6:  //Double
+				skipFully(in, 8);
+				++i; //takes two slots
+				break;
+			default:
+				throw new IOException("Bad constant pool tag " + tag);
+			}
+		}
+		
+		//access flags, this class, superclass, interfaces
+		skipFully(in, 6);
+		skipFully(in, 2 * in.readUnsignedShort());
+		
+		//fields
+		final int fieldsCount = in.readUnsignedShort();
+		for (int i = 0; i < fieldsCount; ++i) {
+			skipFully(in, 6);
+			skipAttributes(in);
+		}
+		
+		//methods
+		final int methodsCount = in.readUnsignedShort();
+		for (int i = 0; i < methodsCount; ++i) {
+			in.readUnsignedShort(); //access flags
+			final int nameIndex = in.readUnsignedShort();
+			final int descriptorIndex = in.readUnsignedShort();
+			if (methodName.equals(utf8[nameIndex]) && methodDescriptor.equals(utf8[descriptorIndex])) {
+				return true;
+			}
+			skipAttributes(in);
+		}
+		return false;
+	}
+	
+	private static void skipAttributes(DataInputStream in) throws IOException {
+		final int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; ++i) {
+			in.readUnsignedShort(); //name index
+			skipFully(in, in.readInt() & 0xFFFFFFFFL);
+		}
+	}
+	
+	private static void skipFully(DataInputStream in, long n) throws IOException {
+		long toSkip = n;
+		while (toSkip > 0) {
+			final long skipped = in.skip(toSkip);
+			if (skipped <= 0) {
+				throw new EOFException("Truncated class file");
+			}
+			toSkip -= skipped;
+		}
+	}
+	
 	private final static Set<String> EXCLUDED;
 	
 	static {
@@ -0,0 +1,545 @@
+package tardis.implementation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassHierarchy;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.DecisionProcedure;
+import jbse.dec.DecisionProcedureAlwSat;
+import jbse.dec.DecisionProcedureSMTLIB2_AUFNIRA;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.Objekt;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.Primitive;
+import jbse.val.ReferenceSymbolic;
+
+/**
+ * A pool of warm Z3 processes, each wrapped by a
+ * {@link DecisionProcedureSMTLIB2_AUFNIRA}, shared by
+ * all the JBSE threads. A process is {@link #acquire() acquire}d
+ * for a session, and when it is {@link Lease#release() release}d
+ * its assumptions are cleared so the next session starts from
+ * scratch. A process that fails is closed and replaced with a
+ * fresh one.
+ */
+public final class Z3Pool {
+	private static final String SWITCH_CHAR = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
+
+	private final List<String> z3CommandLine;
+	private final int size;
+	private final SatCache satCache;
+	private final ArrayDeque<DecisionProcedureSMTLIB2_AUFNIRA> idle = new ArrayDeque<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition conditionIdle = this.lock.newCondition();
+	private int started = 0;
+	private boolean closed = false;
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong waits = new AtomicLong(0);
+	private final AtomicLong restarts = new AtomicLong(0);
+	private final AtomicLong queries = new AtomicLong(0);
+	private final AtomicLong assertedClauses = new AtomicLong(0);
+
+	public Z3Pool(Options o, SatCache satCache) {
+		this.z3CommandLine = new ArrayList<>();
+		this.z3CommandLine.add(o.getZ3Path() == null ? "z3" : o.getZ3Path().toString());
+		this.z3CommandLine.add(SWITCH_CHAR + "smt2");
+		this.z3CommandLine.add(SWITCH_CHAR + "in");
+		this.z3CommandLine.add(SWITCH_CHAR + "t:10");
+		this.size = (o.getZ3PoolSize() > 0 ? o.getZ3PoolSize() : Math.max(1, o.getNumOfThreads()));
+		this.satCache = satCache;
+	}
+
+	/**
+	 * Acquires a Z3 process from the pool. If no
+	 * process is idle and the pool is not full starts
+	 * a new process, otherwise waits until a process
+	 * is released.
+	 *
+	 * @param targetMethod a {@link String}, the signature of the
+	 *        method that is symbolically executed during the
+	 *        session; it scopes the cached queries.
+	 * @return a {@link Lease}, that must be
+	 *         {@link Lease#release() release}d after use.
+	 * @throws DecisionException if starting a new Z3
+	 *         process fails.
+	 * @throws InterruptedException if the thread is
+	 *         interrupted while waiting for a process.
+	 * @throws CancellationException if the pool is closed.
+	 */
+	public Lease acquire(String targetMethod) throws DecisionException, InterruptedException {
+		final ReentrantLock lock = this.lock;
+		boolean mustStart = false;
+		boolean waited = false;
+		DecisionProcedureSMTLIB2_AUFNIRA dec = null;
+		lock.lockInterruptibly();
+		try {
+			while (dec == null && !mustStart) {
+				if (this.closed) {
+					throw new CancellationException("Z3 pool is closed");
+				}
+				if (!this.idle.isEmpty()) {
+					dec = this.idle.pop();
+				} else if (this.started < this.size) {
+					++this.started;
+					mustStart = true;
+				} else {
+					waited = true;
+					this.conditionIdle.await();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (waited) {
+			this.waits.incrementAndGet();
+		}
+		if (mustStart) {
+			try {
+				dec = startProcess();
+			} catch (DecisionException | RuntimeException e) {
+				discarded();
+				throw e;
+			}
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return new Lease(dec, targetMethod);
+	}
+
+	private DecisionProcedureSMTLIB2_AUFNIRA startProcess() throws DecisionException {
+		//every process has its own calculator, since it is
+		//used by one thread at a time
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+		return new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), calc, this.z3CommandLine);
+	}
+
+	private void giveBack(DecisionProcedureSMTLIB2_AUFNIRA dec, boolean healthy) {
+		//health check: resets the process
+		boolean reusable = healthy;
+		if (reusable) {
+			try {
+				dec.clearAssumptions();
+			} catch (DecisionException | RuntimeException e) {
+				reusable = false;
+			}
+		}
+
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if (reusable && !this.closed) {
+				this.idle.push(dec);
+				this.conditionIdle.signal();
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		//the process is crashed or the pool is closed: gets rid of it
+		closeQuietly(dec);
+		if (reusable) {
+			discarded();
+			return;
+		}
+		System.out.println("[JBSE    ] Z3 process failed, restarting it");
+		this.restarts.incrementAndGet();
+		try {
+			final DecisionProcedureSMTLIB2_AUFNIRA decNew = startProcess();
+			lock.lock();
+			try {
+				if (this.closed) {
+					closeQuietly(decNew);
+				} else {
+					this.idle.push(decNew);
+					this.conditionIdle.signal();
+				}
+			} finally {
+				lock.unlock();
+			}
+		} catch (DecisionException | RuntimeException e) {
+			//a new process will be started upon the next acquire
+			discarded();
+		}
+	}
+
+	private void discarded() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			--this.started;
+			this.conditionIdle.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static void closeQuietly(DecisionProcedureSMTLIB2_AUFNIRA dec) {
+		try {
+			dec.close();
+		} catch (DecisionException | RuntimeException e) {
+			//nothing to do, the process is already dead
+		}
+	}
+
+	/**
+	 * Closes the pool and kills all the idle Z3 processes.
+	 * The processes that are currently leased are killed
+	 * when they are released.
+	 */
+	public void close() {
+		final ArrayList<DecisionProcedureSMTLIB2_AUFNIRA> toClose;
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			this.closed = true;
+			toClose = new ArrayList<>(this.idle);
+			this.idle.clear();
+			this.conditionIdle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		toClose.forEach(Z3Pool::closeQuietly);
+	}
+
+	/**
+	 * Returns the number of acquisitions that found
+	 * a warm Z3 process.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of acquisitions that had to
+	 * wait because all the Z3 processes were in use.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getWaits() {
+		return this.waits.get();
+	}
+
+	/**
+	 * Returns the number of Z3 processes that were
+	 * restarted because they failed.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getRestarts() {
+		return this.restarts.get();
+	}
+
+	/**
+	 * Returns the number of satisfiability queries
+	 * sent to the Z3 processes.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getQueries() {
+		return this.queries.get();
+	}
+
+	/**
+	 * Returns the number of clauses asserted to
+	 * the Z3 processes.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getAssertedClauses() {
+		return this.assertedClauses.get();
+	}
+
+	/**
+	 * A session on a pooled Z3 process. It is a {@link DecisionProcedure}
+	 * that can be used as the last (solver) element of a decision
+	 * procedure chain. Closing it does not kill the Z3 process: to
+	 * give the process back to the pool invoke {@link #release()}.
+	 * A lease is incremental: it keeps track of the clauses asserted
+	 * to the Z3 process and of the assumptions requested by the chain, 
+	 * and syncs the former with the latter only upon a query. If the 
+	 * requested assumptions extend the asserted clauses (e.g., when 
+	 * the engine resyncs the decision procedure after a backtrack, or 
+	 * a session starts from a deeper state along the same trace) only 
+	 * the missing suffix is asserted, otherwise the solver context is 
+	 * rebuilt from scratch. Each satisfiability query is checked by the 
+	 * Z3 process in a push/pop scope on top of the asserted clauses,
+	 * unless its result is found in the {@link SatCache}. 
+	 */
+	public final class Lease implements DecisionProcedure {
+		private final DecisionProcedureSMTLIB2_AUFNIRA dec;
+		private final String targetMethod;
+		private final Assertions<Clause> assertions = new Assertions<>();
+		private final ArrayList<Clause> requested = this.assertions.requested;
+		private int assertedSinceLastQuery = 0;
+		private int assertedLastQuery = 0;
+		private boolean failed = false;
+		private boolean released = false;
+
+		private Lease(DecisionProcedureSMTLIB2_AUFNIRA dec, String targetMethod) {
+			this.dec = dec;
+			this.targetMethod = targetMethod;
+		}
+
+		/**
+		 * Gives the Z3 process back to the pool.
+		 * Must be invoked exactly once, after that
+		 * the last engine using this lease is closed.
+		 */
+		public void release() {
+			if (this.released) {
+				return;
+			}
+			this.released = true;
+			giveBack(this.dec, !this.failed);
+		}
+
+		private DecisionException failed(DecisionException e) {
+			this.failed = true;
+			return e;
+		}
+
+		/**
+		 * Returns the number of clauses that were asserted
+		 * to the Z3 process before the last satisfiability
+		 * query (and after the previous one).
+		 *
+		 * @return an {@code int}.
+		 */
+		public int getAssertedClausesLastQuery() {
+			return this.assertedLastQuery;
+		}
+		
+		/**
+		 * Makes the clauses asserted to the Z3 process
+		 * equal to the requested assumptions.
+		 * 
+		 * @throws InvalidInputException
+		 * @throws DecisionException
+		 */
+		private void sync() throws InvalidInputException, DecisionException {
+			try {
+				this.assertedSinceLastQuery += this.assertions.sync(this.dec::clearAssumptions, this.dec::pushAssumption);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public void goFastAndImprecise() {
+			this.dec.goFastAndImprecise();
+		}
+
+		@Override
+		public void stopFastAndImprecise() {
+			this.dec.stopFastAndImprecise();
+		}
+
+		@Override
+		public void pushAssumption(Clause c) {
+			this.requested.add(c);
+		}
+
+		@Override
+		public void clearAssumptions() {
+			this.assertions.clearRequested();
+		}
+
+		@Override
+		public void addAssumptions(Iterable<Clause> assumptionsToAdd) {
+			for (Clause c : assumptionsToAdd) {
+				pushAssumption(c);
+			}
+		}
+
+		@Override
+		public void addAssumptions(Clause... assumptionsToAdd) {
+			for (Clause c : assumptionsToAdd) {
+				pushAssumption(c);
+			}
+		}
+
+		@Override
+		public void setAssumptions(Collection<Clause> newAssumptions) {
+			clearAssumptions();
+			this.requested.addAll(newAssumptions);
+		}
+
+		@Override
+		public List<Clause> getAssumptions() {
+			return Collections.unmodifiableList(new ArrayList<>(this.requested));
+		}
+
+		@Override
+		public boolean isSat(ClassHierarchy hier, Expression expression) throws InvalidInputException, DecisionException {
+			//first, looks in the cache
+			final SatCache.Key key = Z3Pool.this.satCache.key(this.targetMethod, this.requested, expression);
+			final Boolean cached = Z3Pool.this.satCache.get(key);
+			if (cached != null) {
+				return cached.booleanValue();
+			}
+			
+			//then, asks Z3
+			sync();
+			Z3Pool.this.queries.incrementAndGet();
+			Z3Pool.this.assertedClauses.addAndGet(this.assertedSinceLastQuery);
+			this.assertedLastQuery = this.assertedSinceLastQuery;
+			this.assertedSinceLastQuery = 0;
+			final boolean retVal;
+			try {
+				retVal = this.dec.isSat(hier, expression);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+			Z3Pool.this.satCache.put(key, retVal);
+			return retVal;
+		}
+
+		@Override
+		public boolean isSatNull(ClassHierarchy hier, ReferenceSymbolic r) throws InvalidInputException, DecisionException {
+			sync();
+			try {
+				return this.dec.isSatNull(hier, r);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public boolean isSatAliases(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o) throws InvalidInputException, DecisionException {
+			sync();
+			try {
+				return this.dec.isSatAliases(hier, r, heapPos, o);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public boolean isSatExpands(ClassHierarchy hier, ReferenceSymbolic r, ClassFile classFile) throws InvalidInputException, DecisionException {
+			sync();
+			try {
+				return this.dec.isSatExpands(hier, r, classFile);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public boolean isSatInitialized(ClassHierarchy hier, ClassFile classFile) throws InvalidInputException, DecisionException {
+			sync();
+			try {
+				return this.dec.isSatInitialized(hier, classFile);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public boolean isSatNotInitialized(ClassHierarchy hier, ClassFile classFile) throws InvalidInputException, DecisionException {
+			sync();
+			try {
+				return this.dec.isSatNotInitialized(hier, classFile);
+			} catch (DecisionException e) {
+				throw failed(e);
+			}
+		}
+
+		@Override
+		public Primitive simplify(Primitive p) {
+			return this.dec.simplify(p);
+		}
+
+		@Override
+		public void close() {
+			//does not kill the process, that will be
+			//given back to the pool upon release()
+		}
+	}
+
+	/**
+	 * The clauses asserted to a solver and the assumptions 
+	 * requested to a {@link Lease}, that are asserted to the
+	 * solver incrementally upon {@link #sync(Clearer, Pusher) sync}.
+	 *
+	 * @param <C> the type of the clauses.
+	 */
+	static final class Assertions<C> {
+		final ArrayList<C> asserted = new ArrayList<>();
+		final ArrayList<C> requested = new ArrayList<>();
+		private int requestedSynced = 0;
+
+		@FunctionalInterface
+		interface Clearer {
+			void clear() throws DecisionException;
+		}
+
+		@FunctionalInterface
+		interface Pusher<C> {
+			void push(C c) throws InvalidInputException, DecisionException;
+		}
+
+		/**
+		 * Clears the requested assumptions.
+		 */
+		void clearRequested() {
+			this.requested.clear();
+			this.requestedSynced = 0;
+		}
+
+		/**
+		 * Makes the clauses asserted to the solver equal to 
+		 * the requested assumptions.
+		 *
+		 * @param clearer a {@link Clearer} that clears the 
+		 *        assertions of the solver.
+		 * @param pusher a {@link Pusher} that asserts a clause 
+		 *        to the solver.
+		 * @return an {@code int}, the number of clauses asserted.
+		 * @throws InvalidInputException if {@code pusher} does.
+		 * @throws DecisionException if {@code clearer} or {@code pusher} 
+		 *         does. In this case the solver must be discarded.
+		 */
+		int sync(Clearer clearer, Pusher<C> pusher) throws InvalidInputException, DecisionException {
+			//finds how many of the requested assumptions are already asserted
+			final int sizeAsserted = this.asserted.size();
+			final int sizeRequested = this.requested.size();
+			while (this.requestedSynced < sizeAsserted && this.requestedSynced < sizeRequested &&
+					this.requested.get(this.requestedSynced).equals(this.asserted.get(this.requestedSynced))) {
+				++this.requestedSynced;
+			}
+			
+			//if the requested assumptions do not extend the asserted ones 
+			//the solver context must be rebuilt from scratch, otherwise
+			//it is sufficient to assert the missing suffix
+			int retVal = 0;
+			if (this.requestedSynced < sizeAsserted) {
+				clearer.clear();
+				this.asserted.clear();
+			}
+			for (int i = this.asserted.size(); i < sizeRequested; ++i) {
+				final C c = this.requested.get(i);
+				pusher.push(c);
+				this.asserted.add(c);
+				++retVal;
+			}
+			this.requestedSynced = sizeRequested;
+			return retVal;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+#!/bin/sh
+#
+# Compiles TARDIS together with the test source folder and runs the
+# unit tests. Usage:
+#
+#   test/run-tests.sh [<test class>...]
+#
+# Without arguments runs all the test classes. Environment:
+#
+#   TARDIS_CLASSPATH  the classpath of the dependencies of TARDIS that
+#                     are not in lib, i.e., JBSE, the SUSHI library and
+#                     EvoSuite (required).
+#   JUNIT_LIB         the directory with the JUnit jars (default: test/lib).
+#                     The missing jars are downloaded from Maven Central.
+#   JAVA_HOME         the JDK used to compile and run (default: the JDK
+#                     in the PATH).
+
+set -e
+
+JUNIT_VERSION=4.13.2
+HAMCREST_VERSION=1.3
+MAVEN_CENTRAL=https://repo1.maven.org/maven2
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JUNIT_LIB=${JUNIT_LIB:-$ROOT/test/lib}
+BUILD=$ROOT/test/build
+if [ -n "$JAVA_HOME" ]; then
+	JAVA=$JAVA_HOME/bin/java
+	JAVAC=$JAVA_HOME/bin/javac
+else
+	JAVA=java
+	JAVAC=javac
+fi
+
+if [ -z "$TARDIS_CLASSPATH" ]; then
+	echo "Please set TARDIS_CLASSPATH to the classpath of JBSE, of the SUSHI library and of EvoSuite." >&2
+	exit 1
+fi
+
+#downloads the missing JUnit jars
+fetch() {
+	if [ ! -f "$JUNIT_LIB/$2-$3.jar" ]; then
+		echo "Downloading $1:$2:$3 to $JUNIT_LIB"
+		mkdir -p "$JUNIT_LIB"
+		curl -fsSL -o "$JUNIT_LIB/$2-$3.jar" "$MAVEN_CENTRAL/$(echo "$1" | tr . /)/$2/$3/$2-$3.jar"
+	fi
+}
+fetch junit junit $JUNIT_VERSION
+fetch org.hamcrest hamcrest-core $HAMCREST_VERSION
+JUNIT_CLASSPATH=$JUNIT_LIB/junit-$JUNIT_VERSION.jar:$JUNIT_LIB/hamcrest-core-$HAMCREST_VERSION.jar
+
+#compiles TARDIS and the tests
+CLASSPATH=$ROOT/lib/args4j-2.32.jar:$ROOT/lib/javaparser-core-3.4.0.jar:$TARDIS_CLASSPATH:$JUNIT_CLASSPATH
+rm -rf "$BUILD"
+mkdir -p "$BUILD/classes"
+find "$ROOT/src" "$ROOT/test/tardis" -name '*.java' > "$BUILD/sources.txt"
+"$JAVAC" -g -encoding UTF-8 -cp "$CLASSPATH" -d "$BUILD/classes" @"$BUILD/sources.txt"
+
+#the abstract test classes only run through their subclasses
+if [ $# -eq 0 ]; then
+	set -- $(cd "$ROOT/test" && find tardis -name '*Test.java' | xargs grep -L '^public abstract class' | sed 's/\.java$//' | tr / . | sort)
+fi
+exec "$JAVA" -cp "$BUILD/classes:$CLASSPATH" org.junit.runner.JUnitCore "$@"
@@ -0,0 +1,57 @@
+package tardis.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class InFlightCounterTest {
+	@Test
+	public void testCountsItems() {
+		final InFlightCounter counter = new InFlightCounter();
+		assertEquals(0, counter.get());
+		counter.increment(3);
+		counter.decrement(1);
+		assertEquals(2, counter.get());
+		counter.lost(2);
+		assertEquals(0, counter.get());
+	}
+
+	@Test
+	public void testAwaitZeroReturnsImmediatelyWhenZero() throws InterruptedException {
+		final InFlightCounter counter = new InFlightCounter();
+		assertTrue(counter.awaitZero(0, TimeUnit.NANOSECONDS));
+	}
+
+	@Test
+	public void testAwaitZeroTimesOut() throws InterruptedException {
+		final InFlightCounter counter = new InFlightCounter();
+		counter.increment(1);
+		final long start = System.nanoTime();
+		assertFalse(counter.awaitZero(100, TimeUnit.MILLISECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+	}
+
+	@Test
+	public void testAwaitZeroWakesUpOnLastDecrement() throws InterruptedException {
+		final InFlightCounter counter = new InFlightCounter();
+		counter.increment(2);
+		final Thread worker = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+				counter.decrement(1);
+				Thread.sleep(50);
+				counter.lost(1);
+			} catch (InterruptedException e) {
+				//nothing to do
+			}
+		});
+		worker.start();
+		assertTrue(counter.awaitZero(5, TimeUnit.SECONDS));
+		assertEquals(0, counter.get());
+		worker.join();
+	}
+}
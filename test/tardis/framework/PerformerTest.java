@@ -0,0 +1,93 @@
+package tardis.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import tardis.implementation.BoundedInputOutputBuffer;
+import tardis.implementation.QueueInputOutputBuffer;
+
+public class PerformerTest {
+	private static final class Copier extends Performer<Integer, Integer> {
+		Copier(InputBuffer<Integer> in, OutputBuffer<Integer> out) {
+			super(in, out, 1, new FixedBatchingPolicy(1, 10, TimeUnit.MILLISECONDS));
+		}
+
+		@Override
+		protected Runnable makeJob(List<Integer> items) {
+			return () -> {
+				for (Integer item : items) {
+					getOutputBuffer().add(item);
+				}
+			};
+		}
+	}
+
+	private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	@Test
+	public void testFullOutputHoldsBackDispatch() throws InterruptedException {
+		final QueueInputOutputBuffer<Integer> in = new QueueInputOutputBuffer<>();
+		final BoundedInputOutputBuffer<Integer> out = new BoundedInputOutputBuffer<>(new QueueInputOutputBuffer<>(), 3, 1, 30, TimeUnit.SECONDS);
+		for (int i = 0; i < 3; ++i) {
+			out.add(-1);
+		}
+		for (int i = 0; i < 10; ++i) {
+			in.add(i);
+		}
+		assertTrue(out.isFull());
+		final Copier copier = new Copier(in, out);
+		copier.start();
+		try {
+			Thread.sleep(300);
+			assertEquals(10, in.size());
+			assertEquals(3, out.size());
+
+			//once the consumer catches up the dispatch resumes
+			out.drainTo(new ArrayList<>(), 2);
+			assertTrue(waitUntil(() -> out.size() >= 3));
+			assertTrue(in.size() < 10);
+		} finally {
+			copier.stop();
+		}
+	}
+
+	@Test
+	public void testFullInputDoesNotHoldBackDispatch() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> in = new BoundedInputOutputBuffer<>(new QueueInputOutputBuffer<>(), 3, 1, 30, TimeUnit.SECONDS);
+		final BoundedInputOutputBuffer<Integer> out = new BoundedInputOutputBuffer<>(new QueueInputOutputBuffer<>(), 3, 1, 30, TimeUnit.SECONDS);
+		for (int i = 0; i < 3; ++i) {
+			out.add(-1);
+		}
+		for (int i = 0; i < 10; ++i) {
+			in.add(i);
+		}
+		final Copier copier = new Copier(in, out);
+		copier.start();
+		try {
+			//the consumer of out might be waiting for this performer:
+			//it goes on until its input is no more full
+			assertTrue(waitUntil(() -> !in.isFull()));
+			assertFalse(in.isFull());
+			assertTrue(out.size() > 3);
+		} finally {
+			copier.stop();
+		}
+	}
+}
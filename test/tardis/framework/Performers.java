@@ -0,0 +1,23 @@
+package tardis.framework;
+
+/**
+ * Gives the tests in other packages access to the
+ * package-private lifecycle of the {@link Performer}s.
+ */
+public final class Performers {
+	/**
+	 * Stops a performer.
+	 *
+	 * @param performer the {@link Performer} to stop.
+	 */
+	public static void stop(Performer<?, ?> performer) {
+		performer.stop();
+	}
+
+	/**
+	 * Do not instantiate!
+	 */
+	private Performers() {
+		//nothing to do
+	}
+}
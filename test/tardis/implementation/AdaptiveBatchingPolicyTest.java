@@ -0,0 +1,59 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AdaptiveBatchingPolicyTest {
+	@Test
+	public void testNoEstimateYet() {
+		final AdaptiveBatchingPolicy policy = new AdaptiveBatchingPolicy(10, 1, TimeUnit.SECONDS, 2);
+		assertEquals(10, policy.batchSize(0));
+		assertEquals(10, policy.batchSize(100));
+		assertEquals(TimeUnit.SECONDS.toNanos(1), policy.flushTimeoutNanos(0, 10));
+		assertEquals(TimeUnit.SECONDS.toNanos(1), policy.flushTimeoutNanos(3, 10));
+	}
+
+	@Test
+	public void testBurstFillsBatches() {
+		final AdaptiveBatchingPolicy policy = new AdaptiveBatchingPolicy(10, 1, TimeUnit.SECONDS, 2);
+		policy.itemsReceived(1);
+		policy.itemsReceived(1000);
+		policy.jobCompleted(10, TimeUnit.SECONDS.toNanos(1));
+		assertEquals(10, policy.batchSize(1));
+	}
+
+	@Test
+	public void testLowTrafficFlushesEarly() throws InterruptedException {
+		final AdaptiveBatchingPolicy policy = new AdaptiveBatchingPolicy(10, 100, TimeUnit.MILLISECONDS, 1);
+		policy.itemsReceived(1);
+		Thread.sleep(50);
+		policy.itemsReceived(1);
+		policy.jobCompleted(1, TimeUnit.MILLISECONDS.toNanos(1));
+
+		//a job ends long before the next item arrives
+		assertEquals(1, policy.batchSize(0));
+
+		//the available items are batched anyway, up to the maximum
+		assertEquals(4, policy.batchSize(4));
+		assertEquals(10, policy.batchSize(40));
+
+		//filling a batch of 10 would take about 450 ms, more than the maximum timeout
+		assertEquals(0, policy.flushTimeoutNanos(1, 10));
+	}
+
+	@Test
+	public void testFlushTimeoutIsBounded() throws InterruptedException {
+		final AdaptiveBatchingPolicy policy = new AdaptiveBatchingPolicy(10, 10, TimeUnit.SECONDS, 1);
+		policy.itemsReceived(1);
+		Thread.sleep(20);
+		policy.itemsReceived(1);
+		final long timeout = policy.flushTimeoutNanos(1, 3);
+		assertTrue(timeout > 0);
+		assertTrue(timeout <= TimeUnit.SECONDS.toNanos(10));
+		assertEquals(TimeUnit.SECONDS.toNanos(10), policy.flushTimeoutNanos(0, 3));
+	}
+}
@@ -0,0 +1,156 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import tardis.framework.InputOutputBuffer;
+
+public class BoundedInputOutputBufferTest extends InputOutputBufferContractTest {
+	@Override
+	protected InputOutputBuffer<String> makeBuffer() {
+		return new BoundedInputOutputBuffer<>(new QueueInputOutputBuffer<>(), 100, 50, 10, TimeUnit.MILLISECONDS);
+	}
+
+	private static BoundedInputOutputBuffer<Integer> buffer(int high, int low, long maxWaitMillis) {
+		return new BoundedInputOutputBuffer<>(new QueueInputOutputBuffer<>(), high, low, maxWaitMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private static void fill(BoundedInputOutputBuffer<Integer> b, int n) {
+		for (int i = 0; i < n; ++i) {
+			assertTrue(b.add(i));
+		}
+	}
+
+	@Test
+	public void testFullBetweenWatermarks() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 1000);
+		fill(b, 3);
+		assertFalse(b.isFull());
+		fill(b, 1);
+		assertTrue(b.isFull());
+		b.poll(0, TimeUnit.NANOSECONDS);
+		assertTrue(b.isFull());
+		b.poll(0, TimeUnit.NANOSECONDS);
+		assertFalse(b.isFull());
+	}
+
+	@Test
+	public void testAddNeverBlocksAndNeverLosesItems() {
+		final BoundedInputOutputBuffer<Integer> b = buffer(2, 1, 1000);
+		fill(b, 100);
+		assertEquals(100, b.size());
+		assertTrue(b.isFull());
+		final List<Integer> drained = new ArrayList<>();
+		assertEquals(100, b.drainTo(drained, Integer.MAX_VALUE));
+		assertEquals(100, drained.size());
+		assertFalse(b.isFull());
+	}
+
+	@Test
+	public void testAwaitNotFullReturnsWhenNotFull() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 10_000);
+		fill(b, 3);
+		final long start = System.nanoTime();
+		b.awaitNotFull(() -> false);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+		assertEquals(0, b.getWaits());
+	}
+
+	@Test
+	public void testAwaitNotFullWaitsForConsumers() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 10_000);
+		fill(b, 4);
+		final Thread consumer = new Thread(() -> {
+			try {
+				Thread.sleep(200);
+				b.drainTo(new ArrayList<>(), 2);
+			} catch (InterruptedException e) {
+				//nothing to do
+			}
+		});
+		consumer.start();
+		final long start = System.nanoTime();
+		b.awaitNotFull(() -> false);
+		final long elapsed = System.nanoTime() - start;
+		consumer.join();
+		assertFalse(b.isFull());
+		assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(150));
+		assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(1, b.getWaits());
+		assertEquals(0, b.getOverflows());
+		assertEquals(2, b.size());
+	}
+
+	@Test
+	public void testAwaitNotFullIsBoundedByMaxWait() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 300);
+		fill(b, 4);
+		final long start = System.nanoTime();
+		b.awaitNotFull(() -> false);
+		final long elapsed = System.nanoTime() - start;
+		assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(250));
+		assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5));
+		assertTrue(b.isFull());
+		assertEquals(1, b.getWaits());
+		assertEquals(1, b.getOverflows());
+		assertEquals(4, b.size());
+	}
+
+	@Test
+	public void testAwaitNotFullGivesUp() throws InterruptedException {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 10_000);
+		fill(b, 4);
+		final long start = System.nanoTime();
+		b.awaitNotFull(() -> true);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+		assertTrue(b.isFull());
+	}
+
+	@Test
+	public void testFullCycleDoesNotDeadlock() throws InterruptedException {
+		//two performers feeding each other, each waiting
+		//on its full output buffer while its input is full
+		final BoundedInputOutputBuffer<Integer> ab = buffer(4, 2, 10_000);
+		final BoundedInputOutputBuffer<Integer> ba = buffer(4, 2, 10_000);
+		fill(ab, 4);
+		fill(ba, 4);
+		final Thread a = new Thread(() -> {
+			try {
+				ab.awaitNotFull(ba::isFull);
+			} catch (InterruptedException e) {
+				//nothing to do
+			}
+		});
+		final Thread b = new Thread(() -> {
+			try {
+				ba.awaitNotFull(ab::isFull);
+			} catch (InterruptedException e) {
+				//nothing to do
+			}
+		});
+		a.start();
+		b.start();
+		a.join(TimeUnit.SECONDS.toMillis(5));
+		b.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(a.isAlive());
+		assertFalse(b.isAlive());
+		assertEquals(4, ab.size());
+		assertEquals(4, ba.size());
+	}
+
+	@Test
+	public void testDelegatesSnapshot() {
+		final BoundedInputOutputBuffer<Integer> b = buffer(4, 2, 1000);
+		fill(b, 3);
+		assertEquals(Arrays.asList(0, 1, 2), b.snapshot());
+		assertEquals(3, b.size());
+	}
+}
@@ -0,0 +1,216 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tardis.framework.Performers;
+
+public class CheckpointerTest {
+	private static final String M = "pkg/C:m:(I)V";
+	private static final String N = "pkg/C:n:()V";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	/**
+	 * The shared data structures and the performers of a run.
+	 */
+	private static final class Run {
+		final ClauseInterner interner = new ClauseInterner();
+		final CoverageSet coverage = new CoverageSet();
+		final PathConditionTrie explored = new PathConditionTrie(this.interner);
+		final PathConditionRegistry emitted = new PathConditionRegistry(this.interner);
+		final QueueInputOutputBuffer<JBSEResult> pathConditions = new QueueInputOutputBuffer<>();
+		final QueueInputOutputBuffer<EvosuiteResult> testCases = new QueueInputOutputBuffer<>();
+		final PerformerJBSE performerJBSE;
+		final PerformerEvosuite performerEvosuite;
+		final Checkpointer checkpointer;
+
+		Run(Path checkpointPath) {
+			final Options o = new Options();
+			o.setNumOfThreads(1);
+			//the performers take their input from other (empty)
+			//buffers, so they never process the checkpointed items
+			this.performerJBSE = new PerformerJBSE(o, new QueueInputOutputBuffer<>(), new QueueInputOutputBuffer<>(), this.coverage, null, this.explored, this.emitted, null, this.interner, null, null);
+			this.performerEvosuite = new PerformerEvosuite(o, new QueueInputOutputBuffer<>(), new QueueInputOutputBuffer<>(), this.emitted, null);
+			this.checkpointer = new Checkpointer(checkpointPath, this.performerJBSE, this.performerEvosuite, this.pathConditions, this.testCases,
+					this.coverage, this.explored, this.emitted, this.interner);
+		}
+	}
+
+	private static List<String> pathConditionsOf(List<JBSEResult> items) {
+		final List<String> retVal = new ArrayList<>();
+		for (JBSEResult item : items) {
+			retVal.add(item.getTargetMethodName() + "@" + item.getDepth() + ":" + item.getShortPathCondition());
+		}
+		return retVal;
+	}
+
+	@Test
+	public void testRestoreWithoutCheckpoint() throws IOException {
+		final Run run = new Run(this.tmp.getRoot().toPath().resolve("checkpoint"));
+		assertFalse(run.checkpointer.restore());
+	}
+
+	@Test(expected = IOException.class)
+	public void testRestoreIllFormedCheckpoint() throws IOException {
+		final Path checkpointPath = this.tmp.newFile("checkpoint").toPath();
+		Files.write(checkpointPath, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		new Run(checkpointPath).checkpointer.restore();
+	}
+
+	@Test
+	public void testCheckpointRoundTrip() throws IOException {
+		final Path checkpointPath = this.tmp.getRoot().toPath().resolve("checkpoint");
+
+		//a run with some state
+		final Run before = new Run(checkpointPath);
+		before.coverage.register(M + ":1:5");
+		before.coverage.addAll(Arrays.asList(M + ":1:9", N + ":0:3"));
+		final int[] pc1 = before.interner.textIds(Arrays.asList("{V0} > 0", "{V1} == 2"));
+		final int[] pc2 = before.interner.textIds(Arrays.asList("{V0} > 0", "{V1} != 2", "{V2} < 7"));
+		final int[] pc3 = before.interner.textIds(Arrays.asList("{V3} == null"));
+		before.explored.add(M, pc1);
+		before.explored.add(M, pc2);
+		before.emitted.register(N, pc3);
+		before.pathConditions.add(new JBSEResult("pkg/C", "(I)V", "m", false, M + ":1:5", 2, "template1", "{V0} > 0 && {V1} == 2"));
+		before.pathConditions.add(new JBSEResult("pkg/C", "()V", "n", true, null, 1, "template2", "{V3} == null"));
+		before.testCases.add(new EvosuiteResult("pkg/C", "(I)V", "m", new TestCase("pkg/C_3_Test", "()V", "test0", Paths.get("out")), 3));
+		before.performerEvosuite.setTestCount(42);
+		before.performerJBSE.start();
+		before.performerEvosuite.start();
+		try {
+			before.checkpointer.checkpoint();
+		} finally {
+			Performers.stop(before.performerJBSE);
+			Performers.stop(before.performerEvosuite);
+		}
+		assertEquals(1, before.checkpointer.getCheckpoints());
+		assertTrue(Files.exists(checkpointPath));
+
+		//a fresh run resumed from the checkpoint
+		final Run after = new Run(checkpointPath);
+		assertTrue(after.checkpointer.restore());
+		assertEquals(42, after.performerEvosuite.getTestCount());
+		assertEquals(pathConditionsOf(before.pathConditions.snapshot()), pathConditionsOf(after.performerEvosuite.getInProgress()));
+		final List<EvosuiteResult> testCases = after.performerJBSE.getInProgress();
+		assertEquals(1, testCases.size());
+		assertEquals("pkg/C_3_Test", testCases.get(0).getTestCase().getClassName());
+		assertEquals(3, testCases.get(0).getStartDepth());
+
+		//the coverage is restored
+		assertEquals(2, after.coverage.size());
+		assertTrue(after.coverage.covers(M + ":1:9"));
+		assertTrue(after.coverage.covers(N + ":0:3"));
+		assertFalse(after.coverage.covers(M + ":1:5"));
+		assertEquals(2, after.coverage.totalBranches(M));
+
+		//the clauses keep their identifiers, the new ones do not clash
+		assertArrayEquals(pc2, after.interner.textIds(Arrays.asList("{V0} > 0", "{V1} != 2", "{V2} < 7")));
+		assertArrayEquals(pc3, after.interner.textIds(Arrays.asList("{V3} == null")));
+		final int fresh = after.interner.textId("{V4} >= 1");
+		for (int id : new int[] { pc1[0], pc1[1], pc2[1], pc2[2], pc3[0] }) {
+			assertTrue(fresh != id);
+		}
+
+		//the explored and emitted path conditions are restored
+		assertTrue(after.explored.containsPrefix(M, pc1));
+		assertTrue(after.explored.containsPrefix(M, new int[] { pc2[0], pc2[1] }));
+		assertFalse(after.explored.containsPrefix(N, pc1));
+		assertFalse(after.emitted.register(N, pc3));
+		assertTrue(after.emitted.register(M, pc3));
+	}
+
+	@Test
+	public void testInternerKeepsRestoredIdentifiersNotYetMet() throws IOException {
+		final ClauseInterner first = new ClauseInterner();
+		final int[] ids = first.textIds(Arrays.asList("a", "b", "c"));
+		final ClauseInterner second = new ClauseInterner();
+		second.readFrom(input(output(first::writeTo)));
+		assertEquals(ids[1], second.textId("b"));
+
+		//"a" and "c" were not met by the second run,
+		//but a further checkpoint must keep them
+		final ClauseInterner third = new ClauseInterner();
+		third.readFrom(input(output(second::writeTo)));
+		assertArrayEquals(ids, third.textIds(Arrays.asList("a", "b", "c")));
+		assertEquals(3, third.textId("d"));
+	}
+
+	@Test
+	public void testTrieWithLongPathCondition() throws IOException {
+		final ClauseInterner interner = new ClauseInterner();
+		final PathConditionTrie trie = new PathConditionTrie(interner);
+		final int[] pc = new int[100_000];
+		for (int i = 0; i < pc.length; ++i) {
+			pc[i] = i % 7;
+		}
+		trie.add(M, pc);
+		final PathConditionTrie restored = new PathConditionTrie(interner);
+		restored.readFrom(input(output(trie::writeTo)));
+		assertTrue(restored.containsPrefix(M, pc));
+		assertFalse(restored.containsPrefix(M, Arrays.copyOf(pc, pc.length + 1)));
+	}
+
+	@Test
+	public void testSnapshotsOmitLaterChanges() throws IOException {
+		final ClauseInterner interner = new ClauseInterner();
+		final PathConditionTrie trie = new PathConditionTrie(interner);
+		final PathConditionRegistry registry = new PathConditionRegistry(interner);
+		final int[] pc1 = interner.textIds(Arrays.asList("{V0} > 0", "{V1} == 2"));
+		final int[] pc2 = interner.textIds(Arrays.asList("{V0} > 0", "{V1} != 2"));
+		trie.add(M, pc1);
+		registry.register(M, pc1);
+		final PathConditionTrie.Snapshot trieSnapshot = trie.snapshot();
+		final PathConditionRegistry.Snapshot registrySnapshot = registry.snapshot();
+		trie.add(M, pc2);
+		trie.add(N, pc2);
+		registry.register(M, pc2);
+
+		final PathConditionTrie restoredTrie = new PathConditionTrie(interner);
+		restoredTrie.readFrom(input(output(trieSnapshot::writeTo)));
+		assertTrue(restoredTrie.containsPrefix(M, pc1));
+		assertFalse(restoredTrie.containsPrefix(M, pc2));
+		assertFalse(restoredTrie.containsPrefix(N, new int[0]));
+		final PathConditionRegistry restoredRegistry = new PathConditionRegistry(interner);
+		restoredRegistry.readFrom(input(output(registrySnapshot::writeTo)));
+		assertEquals(1, restoredRegistry.size());
+		assertFalse(restoredRegistry.register(M, pc1));
+		assertTrue(restoredRegistry.register(M, pc2));
+	}
+
+	@FunctionalInterface
+	private interface Writer {
+		void writeTo(DataOutputStream out) throws IOException;
+	}
+
+	private static byte[] output(Writer writer) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			writer.writeTo(out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static DataInputStream input(byte[] bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
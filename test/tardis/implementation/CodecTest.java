@@ -0,0 +1,86 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+public class CodecTest {
+	private static <E> E roundTrip(Codec<E> codec, E item) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			codec.encode(item, out);
+		}
+		try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			final E retVal = codec.decode(in);
+			assertEquals(-1, in.read());
+			return retVal;
+		}
+	}
+
+	@Test
+	public void testStrings() throws IOException {
+		final StringBuilder longString = new StringBuilder();
+		while (longString.length() < 100_000) {
+			longString.append("\u00e8\u4e2d").append(longString.length());
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			Codec.writeString("", out);
+			Codec.writeString(null, out);
+			Codec.writeString(longString.toString(), out);
+		}
+		try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals("", Codec.readString(in));
+			assertNull(Codec.readString(in));
+			assertEquals(longString.toString(), Codec.readString(in));
+		}
+	}
+
+	@Test
+	public void testDetachedJBSEResult() throws IOException {
+		final JBSEResult item = new JBSEResult("pkg/C", "(I)V", "m", true, "pkg/C:m:(I)V:12:20", 3, "wrapper template", "{R0} == 1 && {V1} > 0");
+		final JBSEResult decoded = roundTrip(new JBSEResultCodec(), item);
+		assertTrue(decoded.isDetached());
+		assertEquals("pkg/C", decoded.getTargetClassName());
+		assertEquals("(I)V", decoded.getTargetMethodDescriptor());
+		assertEquals("m", decoded.getTargetMethodName());
+		assertTrue(decoded.getAtJump());
+		assertEquals("pkg/C:m:(I)V:12:20", decoded.getTargetBranch());
+		assertEquals(3, decoded.getDepth());
+		assertEquals("wrapper template", decoded.getEvoSuiteWrapperTemplate());
+		assertEquals("{R0} == 1 && {V1} > 0", decoded.getShortPathCondition());
+	}
+
+	@Test
+	public void testJBSEResultWithoutTargetBranch() throws IOException {
+		final JBSEResult item = new JBSEResult("pkg/C", "()V", "n", false, null, 0, "", "true");
+		final JBSEResult decoded = roundTrip(new JBSEResultCodec(), item);
+		assertEquals(false, decoded.getAtJump());
+		assertNull(decoded.getTargetBranch());
+		assertEquals(0, decoded.getDepth());
+	}
+
+	@Test
+	public void testEvosuiteResult() throws IOException {
+		final TestCase tc = new TestCase("pkg/C_7_Test", "()V", "test0", Paths.get("out", "tests"));
+		final EvosuiteResult item = new EvosuiteResult("pkg/C", "(I)V", "m", tc, 4);
+		final EvosuiteResult decoded = roundTrip(new EvosuiteResultCodec(), item);
+		assertEquals("pkg/C", decoded.getTargetClassName());
+		assertEquals("(I)V", decoded.getTargetMethodDescriptor());
+		assertEquals("m", decoded.getTargetMethodName());
+		assertEquals(4, decoded.getStartDepth());
+		assertEquals("pkg/C_7_Test", decoded.getTestCase().getClassName());
+		assertEquals("()V", decoded.getTestCase().getMethodDescriptor());
+		assertEquals("test0", decoded.getTestCase().getMethodName());
+		assertEquals(tc.getSourcePath(), decoded.getTestCase().getSourcePath());
+	}
+}
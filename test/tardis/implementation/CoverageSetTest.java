@@ -0,0 +1,162 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CoverageSetTest {
+	private static final String M = "pkg/C:m:(I)V";
+	private static final String N = "pkg/C:n:()V";
+
+	@Test
+	public void testRegisterDoesNotCover() {
+		final CoverageSet c = new CoverageSet();
+		final int id = c.register(M + ":1:5");
+		assertFalse(c.covers(M + ":1:5"));
+		assertFalse(c.covers(id));
+		assertEquals(0, c.size());
+		assertEquals(1, c.totalBranches(M));
+		assertEquals(0, c.coveredBranches(M));
+		assertEquals(id, c.register(M + ":1:5"));
+	}
+
+	@Test
+	public void testQueryDoesNotRegister() {
+		final CoverageSet c = new CoverageSet();
+		assertFalse(c.covers(M + ":1:5"));
+		assertEquals(-1, c.id(M + ":1:5"));
+		assertEquals(0, c.totalBranches(M));
+		final long v = c.version();
+		assertFalse(c.covers(N + ":0:3"));
+		assertEquals(v, c.version());
+		final int id = c.register(M + ":1:5");
+		assertEquals(id, c.id(M + ":1:5"));
+	}
+
+	@Test
+	public void testAddAllReturnsOnlyNewlyCovered() {
+		final CoverageSet c = new CoverageSet();
+		final int id1 = c.register(M + ":1:5");
+		final List<String> newlyCovered = new ArrayList<>();
+		final int[] first = c.addAll(Arrays.asList(M + ":1:5", M + ":1:9"), newlyCovered);
+		assertEquals(2, first.length);
+		assertEquals(id1, first[0]);
+		assertEquals(Arrays.asList(M + ":1:5", M + ":1:9"), newlyCovered);
+		assertTrue(c.covers(M + ":1:5"));
+		assertTrue(c.covers(first[1]));
+
+		final int[] second = c.addAll(Arrays.asList(M + ":1:9", N + ":0:3"));
+		assertEquals(1, second.length);
+		assertTrue(c.covers(N + ":0:3"));
+		assertArrayEquals(new int[0], c.addAll(Arrays.asList(M + ":1:5", N + ":0:3")));
+		assertEquals(3, c.size());
+	}
+
+	@Test
+	public void testPerMethodView() {
+		final CoverageSet c = new CoverageSet();
+		c.register(M + ":1:5");
+		c.register(M + ":1:9");
+		c.register(N + ":0:3");
+		c.addAll(Collections.singletonList(M + ":1:9"));
+		assertEquals(2, c.totalBranches(M));
+		assertEquals(1, c.coveredBranches(M));
+		assertEquals(1, c.totalBranches(N));
+		assertEquals(0, c.coveredBranches(N));
+		assertEquals(0, c.totalBranches("pkg/D:m:()V"));
+	}
+
+	@Test
+	public void testVersionIncreasesOnCoverage() {
+		final CoverageSet c = new CoverageSet();
+		final long v0 = c.version();
+		c.register(M + ":1:5");
+		final long v1 = c.version();
+		assertEquals(v0, v1);
+		c.addAll(Collections.singletonList(M + ":1:5"));
+		final long v2 = c.version();
+		assertTrue(v2 > v1);
+		c.addAll(Collections.singletonList(M + ":1:5"));
+		assertEquals(v2, c.version());
+	}
+
+	@Test
+	public void testManyPages() {
+		final CoverageSet c = new CoverageSet();
+		final List<String> branches = new ArrayList<>();
+		for (int i = 0; i < 200_000; ++i) {
+			branches.add(M + ":" + i + ":" + (i + 1));
+		}
+		assertEquals(branches.size(), c.addAll(branches).length);
+		assertEquals(branches.size(), c.size());
+		assertTrue(c.covers(c.register(branches.get(199_999))));
+		assertFalse(c.covers(200_000));
+	}
+
+	@Test
+	public void testConcurrentAddAllCoversEveryBranchOnce() throws Exception {
+		final CoverageSet c = new CoverageSet();
+		final List<String> branches = new ArrayList<>();
+		for (int i = 0; i < 10_000; ++i) {
+			branches.add((i % 2 == 0 ? M : N) + ":" + i + ":" + (i + 1));
+		}
+		final AtomicInteger newlyCovered = new AtomicInteger(0);
+		final ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; ++t) {
+				final List<String> shuffled = new ArrayList<>(branches);
+				Collections.shuffle(shuffled);
+				futures.add(pool.submit(() -> newlyCovered.addAndGet(c.addAll(shuffled).length)));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(branches.size(), newlyCovered.get());
+		assertEquals(branches.size(), c.size());
+		assertEquals(branches.size() / 2, c.coveredBranches(M));
+		assertEquals(branches.size() / 2, c.coveredBranches(N));
+	}
+
+	@Test
+	public void testWriteToReadFrom() throws IOException {
+		final CoverageSet c = new CoverageSet();
+		c.register(M + ":1:5");
+		c.register(N + ":0:3");
+		c.addAll(Arrays.asList(M + ":1:9", N + ":0:7"));
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		c.writeTo(new DataOutputStream(bytes));
+
+		final CoverageSet d = new CoverageSet();
+		d.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(2, d.size());
+		assertTrue(d.covers(M + ":1:9"));
+		assertTrue(d.covers(N + ":0:7"));
+		assertFalse(d.covers(M + ":1:5"));
+		assertFalse(d.covers(N + ":0:3"));
+		assertEquals(2, d.totalBranches(M));
+		assertEquals(1, d.coveredBranches(M));
+		assertEquals(2, d.totalBranches(N));
+		assertEquals(1, d.coveredBranches(N));
+	}
+}
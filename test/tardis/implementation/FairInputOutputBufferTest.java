@@ -0,0 +1,108 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import tardis.framework.InputOutputBuffer;
+
+public class FairInputOutputBufferTest extends InputOutputBufferContractTest {
+	private static FairInputOutputBuffer<String> buffer(int quantum) {
+		//the key of an item is its first character
+		return new FairInputOutputBuffer<>(s -> s.substring(0, 1), QueueInputOutputBuffer::new, quantum);
+	}
+
+	@Override
+	protected InputOutputBuffer<String> makeBuffer() {
+		return buffer(2);
+	}
+
+	private static List<String> pollAll(FairInputOutputBuffer<String> b) throws InterruptedException {
+		final List<String> retVal = new ArrayList<>();
+		String item;
+		while ((item = b.poll(0, TimeUnit.NANOSECONDS)) != null) {
+			retVal.add(item);
+		}
+		return retVal;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testQuantumMustBePositive() {
+		buffer(0);
+	}
+
+	@Test
+	public void testRoundRobinWithQuantum() throws InterruptedException {
+		final FairInputOutputBuffer<String> b = buffer(2);
+		for (String s : Arrays.asList("a1", "a2", "a3", "a4", "a5", "b1", "c1", "c2", "c3")) {
+			b.add(s);
+		}
+		assertEquals(9, b.size());
+		assertEquals(Arrays.asList("a1", "a2", "b1", "c1", "c2", "a3", "a4", "c3", "a5"), pollAll(b));
+		assertTrue(b.isEmpty());
+	}
+
+	@Test
+	public void testHeavyKeyDoesNotStarveLateKey() throws InterruptedException {
+		final FairInputOutputBuffer<String> b = buffer(1);
+		for (int i = 0; i < 100; ++i) {
+			b.add("a" + i);
+		}
+		assertEquals("a0", b.poll(0, TimeUnit.NANOSECONDS));
+		b.add("b0");
+		assertEquals("a1", b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals("b0", b.poll(0, TimeUnit.NANOSECONDS));
+	}
+
+	@Test
+	public void testLaneEmptiedAndRefilled() throws InterruptedException {
+		final FairInputOutputBuffer<String> b = buffer(3);
+		b.add("a1");
+		assertEquals("a1", b.poll(0, TimeUnit.NANOSECONDS));
+		assertNull(b.poll(0, TimeUnit.NANOSECONDS));
+		b.add("b1");
+		b.add("a2");
+		assertEquals(Arrays.asList("b1", "a2"), pollAll(b));
+	}
+
+	@Test
+	public void testDrainToAndSnapshot() {
+		final FairInputOutputBuffer<String> b = buffer(1);
+		for (String s : Arrays.asList("a1", "a2", "b1")) {
+			b.add(s);
+		}
+		assertEquals(Arrays.asList("a1", "a2", "b1"), b.snapshot());
+		final List<String> drained = new ArrayList<>();
+		assertEquals(2, b.drainTo(drained, 2));
+		assertEquals(Arrays.asList("a1", "b1"), drained);
+		assertEquals(1, b.size());
+		assertFalse(b.isEmpty());
+		assertEquals(1, b.drainTo(drained, 5));
+		assertEquals(Arrays.asList("a1", "b1", "a2"), drained);
+		assertTrue(b.isEmpty());
+	}
+
+	@Test
+	public void testStatistics() throws InterruptedException {
+		final FairInputOutputBuffer<String> b = buffer(1);
+		for (String s : Arrays.asList("a1", "a2", "a3", "b1")) {
+			b.add(s);
+		}
+		b.poll(0, TimeUnit.NANOSECONDS);
+		b.poll(0, TimeUnit.NANOSECONDS);
+		b.poll(0, TimeUnit.NANOSECONDS);
+		assertEquals(Integer.valueOf(1), b.getQueueDepths().get("a"));
+		assertEquals(Integer.valueOf(0), b.getQueueDepths().get("b"));
+		assertEquals(Integer.valueOf(3), b.getMaxQueueDepths().get("a"));
+		assertEquals(Integer.valueOf(2), b.getServed().get("a"));
+		assertEquals(Integer.valueOf(1), b.getServed().get("b"));
+	}
+}
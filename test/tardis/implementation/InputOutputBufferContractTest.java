@@ -0,0 +1,150 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import tardis.framework.InputOutputBuffer;
+
+/**
+ * The contract that all the {@link InputOutputBuffer}s must
+ * honor, whatever order they poll their items in. The tests
+ * of a buffer extend it and add the tests of its order.
+ */
+public abstract class InputOutputBufferContractTest {
+	/**
+	 * Creates an empty buffer under test.
+	 *
+	 * @return an {@link InputOutputBuffer}{@code <}{@link String}{@code >}.
+	 */
+	protected abstract InputOutputBuffer<String> makeBuffer();
+
+	private static List<String> items(int n) {
+		final List<String> retVal = new ArrayList<>();
+		for (int i = 0; i < n; ++i) {
+			retVal.add("item" + i);
+		}
+		return retVal;
+	}
+
+	@Test
+	public void testSizeAndIsEmpty() throws InterruptedException {
+		final InputOutputBuffer<String> b = makeBuffer();
+		assertTrue(b.isEmpty());
+		assertEquals(0, b.size());
+		for (String s : items(5)) {
+			assertTrue(b.add(s));
+		}
+		assertFalse(b.isEmpty());
+		assertEquals(5, b.size());
+		b.poll(0, TimeUnit.NANOSECONDS);
+		assertEquals(4, b.size());
+	}
+
+	@Test
+	public void testEveryItemIsPolledOnce() throws InterruptedException {
+		final InputOutputBuffer<String> b = makeBuffer();
+		for (String s : items(10)) {
+			b.add(s);
+		}
+		final List<String> polled = new ArrayList<>();
+		String item;
+		while ((item = b.poll(0, TimeUnit.NANOSECONDS)) != null) {
+			polled.add(item);
+		}
+		assertEquals(10, polled.size());
+		assertEquals(new HashSet<>(items(10)), new HashSet<>(polled));
+		assertTrue(b.isEmpty());
+	}
+
+	@Test
+	public void testDrainToHonorsMaxItems() {
+		final InputOutputBuffer<String> b = makeBuffer();
+		for (String s : items(3)) {
+			b.add(s);
+		}
+		final List<String> drained = new ArrayList<>();
+		assertEquals(2, b.drainTo(drained, 2));
+		assertEquals(2, drained.size());
+		assertEquals(1, b.size());
+		assertEquals(1, b.drainTo(drained, 5));
+		assertEquals(new HashSet<>(items(3)), new HashSet<>(drained));
+		assertEquals(0, b.drainTo(drained, 5));
+		assertTrue(b.isEmpty());
+	}
+
+	@Test
+	public void testSnapshotDoesNotRemove() {
+		final InputOutputBuffer<String> b = makeBuffer();
+		for (String s : items(4)) {
+			b.add(s);
+		}
+		assertEquals(new HashSet<>(items(4)), new HashSet<>(b.snapshot()));
+		assertEquals(4, b.size());
+		assertEquals(4, b.drainTo(new ArrayList<>(), Integer.MAX_VALUE));
+		assertEquals(Arrays.asList(), b.snapshot());
+	}
+
+	@Test
+	public void testPollTimesOutWhenEmpty() throws InterruptedException {
+		final InputOutputBuffer<String> b = makeBuffer();
+		assertNull(b.poll(0, TimeUnit.NANOSECONDS));
+		final long start = System.nanoTime();
+		assertNull(b.poll(100, TimeUnit.MILLISECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+	}
+
+	@Test
+	public void testPollWaitsForProducer() throws InterruptedException {
+		final InputOutputBuffer<String> b = makeBuffer();
+		final Thread producer = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				//nothing to do
+			}
+			b.add("a");
+		});
+		producer.start();
+		assertEquals("a", b.poll(5, TimeUnit.SECONDS));
+		producer.join();
+	}
+
+	@Test
+	public void testConcurrentProducersAndConsumer() throws InterruptedException {
+		final InputOutputBuffer<String> b = makeBuffer();
+		final List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < 2; ++p) {
+			final String prefix = "p" + p + "-";
+			final Thread producer = new Thread(() -> {
+				for (String s : items(200)) {
+					b.add(prefix + s);
+				}
+			});
+			producers.add(producer);
+			producer.start();
+		}
+		final HashSet<String> polled = new HashSet<>();
+		while (polled.size() < 400) {
+			final String item = b.poll(5, TimeUnit.SECONDS);
+			if (item == null) {
+				break;
+			}
+			assertTrue(polled.add(item));
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertEquals(400, polled.size());
+		assertTrue(b.isEmpty());
+	}
+}
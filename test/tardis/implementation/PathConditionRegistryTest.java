@@ -0,0 +1,77 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PathConditionRegistryTest {
+	private static final String M = "pkg/C:m:(I)V";
+	private static final String N = "pkg/C:n:()V";
+
+	private static JBSEResult result(String shortPathCondition) {
+		return new JBSEResult("pkg/C", "(I)V", "m", false, null, 1, "template", shortPathCondition);
+	}
+
+	@Test
+	public void testDuplicatesAreCounted() {
+		final ClauseInterner interner = new ClauseInterner();
+		final PathConditionRegistry registry = new PathConditionRegistry(interner);
+		final int[] pc = interner.textIds(Arrays.asList("{V0} > 0", "{V1} == 2"));
+		assertTrue(registry.register(M, pc));
+		assertEquals(0, registry.getDuplicates());
+
+		//equal path conditions are duplicates, even as different arrays
+		assertFalse(registry.register(M, pc.clone()));
+		assertFalse(registry.register(M, interner.textIds(Arrays.asList("{V0} > 0", "{V1} == 2"))));
+		assertEquals(2, registry.getDuplicates());
+
+		//a prefix, or the same path condition for another method, is not
+		assertTrue(registry.register(M, new int[] { pc[0] }));
+		assertTrue(registry.register(N, pc));
+		assertEquals(2, registry.getDuplicates());
+		assertEquals(3, registry.size());
+
+		//a duplicate suppressed while in flight stays counted
+		final JBSEResult result = result("{V2} < 7");
+		assertTrue(registry.register(M, new int[] { 7 }, result));
+		assertFalse(registry.register(M, new int[] { 7 }, result("{V2} < 7")));
+		registry.release(result);
+		assertEquals(3, registry.getDuplicates());
+		assertEquals(3, registry.size());
+	}
+
+	@Test
+	public void testReleaseAllowsEmittingAgain() {
+		final PathConditionRegistry registry = new PathConditionRegistry(new ClauseInterner());
+		final JBSEResult first = result("{V0} > 0");
+		assertTrue(registry.register(M, new int[] { 0 }, first));
+		assertFalse(registry.register(M, new int[] { 0 }, result("{V0} > 0")));
+
+		//EvoSuite failed
+		registry.release(first);
+		assertEquals(0, registry.size());
+		final JBSEResult second = result("{V0} > 0");
+		assertTrue(registry.register(M, new int[] { 0 }, second));
+
+		//EvoSuite produced a test
+		registry.settle(second);
+		registry.release(second);
+		assertEquals(1, registry.size());
+		assertFalse(registry.register(M, new int[] { 0 }, result("{V0} > 0")));
+	}
+
+	@Test
+	public void testReleaseOfDuplicateKeepsOriginal() {
+		final PathConditionRegistry registry = new PathConditionRegistry(new ClauseInterner());
+		final JBSEResult original = result("{V0} > 0");
+		final JBSEResult duplicate = result("{V0} > 0");
+		assertTrue(registry.register(M, new int[] { 0 }, original));
+		assertFalse(registry.register(M, new int[] { 0 }, duplicate));
+		registry.release(duplicate);
+		assertEquals(1, registry.size());
+	}
+}
@@ -0,0 +1,124 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import tardis.framework.InputOutputBuffer;
+
+public class PriorityInputOutputBufferTest extends InputOutputBufferContractTest {
+	private static class MapScorer implements Scorer<String> {
+		final Map<String, Double> scores = new HashMap<>();
+		long version = 0;
+
+		@Override
+		public double score(String e) {
+			return this.scores.getOrDefault(e, 0.0);
+		}
+
+		@Override
+		public long version() {
+			return this.version;
+		}
+	}
+
+	@Override
+	protected InputOutputBuffer<String> makeBuffer() {
+		return new PriorityInputOutputBuffer<>(new MapScorer());
+	}
+
+	private static List<String> drain(PriorityInputOutputBuffer<String> b) {
+		final List<String> retVal = new ArrayList<>();
+		b.drainTo(retVal, Integer.MAX_VALUE);
+		return retVal;
+	}
+
+	@Test
+	public void testDecreasingScoreThenFifo() throws InterruptedException {
+		final MapScorer scorer = new MapScorer();
+		scorer.scores.put("high", 2.0);
+		scorer.scores.put("low", -1.0);
+		final PriorityInputOutputBuffer<String> b = new PriorityInputOutputBuffer<>(scorer);
+		for (String s : Arrays.asList("a", "low", "b", "high", "c")) {
+			b.add(s);
+		}
+		assertEquals(5, b.size());
+		assertEquals("high", b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals(Arrays.asList("a", "b", "c", "low"), drain(b));
+		assertTrue(b.isEmpty());
+	}
+
+	@Test
+	public void testRescoresWhenVersionChanges() throws InterruptedException {
+		final MapScorer scorer = new MapScorer();
+		scorer.scores.put("a", 4.0);
+		scorer.scores.put("b", 3.0);
+		scorer.scores.put("c", 2.0);
+		scorer.scores.put("d", 1.0);
+		final PriorityInputOutputBuffer<String> b = new PriorityInputOutputBuffer<>(scorer);
+		for (String s : Arrays.asList("a", "b", "c", "d")) {
+			b.add(s);
+		}
+
+		//stale scores are kept until the version changes
+		scorer.scores.put("b", 0.0);
+		assertEquals("a", b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals("b", b.poll(0, TimeUnit.NANOSECONDS));
+		b.add("a");
+		b.add("b");
+		scorer.scores.put("a", 0.5);
+		scorer.version++;
+		assertEquals(Arrays.asList("c", "d", "a", "b"), drain(b));
+	}
+
+	@Test
+	public void testRescoresOnlyStaleHeads() throws InterruptedException {
+		final Map<String, Integer> scored = new HashMap<>();
+		final MapScorer scorer = new MapScorer() {
+			@Override
+			public double score(String e) {
+				scored.merge(e, 1, Integer::sum);
+				return super.score(e);
+			}
+		};
+		final PriorityInputOutputBuffer<String> b = new PriorityInputOutputBuffer<>(scorer);
+		for (int i = 0; i < 100; ++i) {
+			scorer.scores.put("item" + i, 100.0 - i);
+			b.add("item" + i);
+		}
+		scored.clear();
+
+		//a version change that lowers the score of the head only
+		scorer.scores.put("item0", 0.0);
+		scorer.version++;
+		assertEquals("item1", b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals(2, scored.size());
+		assertEquals(Integer.valueOf(1), scored.get("item0"));
+		assertEquals(Integer.valueOf(1), scored.get("item1"));
+
+		//each item is scored at most once per version
+		assertEquals("item2", b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals(Integer.valueOf(1), scored.get("item0"));
+		assertEquals(3, scored.size());
+	}
+
+	@Test
+	public void testDrainToKeepsFifoOrderAmongEqualScores() {
+		final PriorityInputOutputBuffer<String> b = new PriorityInputOutputBuffer<>(new MapScorer());
+		for (String s : Arrays.asList("a", "b", "c")) {
+			b.add(s);
+		}
+		final List<String> drained = new ArrayList<>();
+		assertEquals(2, b.drainTo(drained, 2));
+		assertEquals(Arrays.asList("a", "b"), drained);
+		assertEquals(Arrays.asList("c"), b.snapshot());
+	}
+}
@@ -0,0 +1,31 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import tardis.framework.InputOutputBuffer;
+
+public class QueueInputOutputBufferTest extends InputOutputBufferContractTest {
+	@Override
+	protected InputOutputBuffer<String> makeBuffer() {
+		return new QueueInputOutputBuffer<>();
+	}
+
+	@Test
+	public void testFifo() throws InterruptedException {
+		final QueueInputOutputBuffer<String> b = new QueueInputOutputBuffer<>();
+		for (String s : Arrays.asList("a", "b", "c")) {
+			b.add(s);
+		}
+		assertEquals("a", b.poll(0, TimeUnit.NANOSECONDS));
+		final List<String> drained = new ArrayList<>();
+		b.drainTo(drained, Integer.MAX_VALUE);
+		assertEquals(Arrays.asList("b", "c"), drained);
+	}
+}
@@ -0,0 +1,139 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShardClientTest {
+	private static final String M = "pkg/C:m:(I)V";
+	private static final String N = "pkg/C:n:()V";
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timed out", System.nanoTime() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testFingerprintIsFnv1a() {
+		//"a" then a separator, for the target method only
+		final long expected = (((FNV_OFFSET_BASIS ^ 'a') * FNV_PRIME) ^ 0xFFFF) * FNV_PRIME;
+		assertEquals(expected, ShardClient.fingerprint("a", Collections.emptyList()));
+	}
+
+	@Test
+	public void testFingerprintSeparatesClauses() {
+		assertNotEquals(ShardClient.fingerprint(M, Arrays.asList("ab", "c")), ShardClient.fingerprint(M, Arrays.asList("a", "bc")));
+		assertNotEquals(ShardClient.fingerprint("m", Arrays.asList("x")), ShardClient.fingerprint("mx", Collections.emptyList()));
+		assertNotEquals(ShardClient.fingerprint(M, Arrays.asList("x")), ShardClient.fingerprint(N, Arrays.asList("x")));
+		assertEquals(ShardClient.fingerprint(M, Arrays.asList("x", "y")), ShardClient.fingerprint(M, Arrays.asList("x", "y")));
+	}
+
+	@Test
+	public void testPrefixFingerprints() {
+		final List<String> pc = Arrays.asList("{V0} > 0", "{V1} == 2", "{V2} < 7");
+		final long[] prefixes = ShardClient.prefixFingerprints(M, pc);
+		assertEquals(3, prefixes.length);
+		for (int i = 0; i < prefixes.length; ++i) {
+			assertEquals(ShardClient.fingerprint(M, pc.subList(0, i + 1)), prefixes[i]);
+		}
+	}
+
+	@Test
+	public void testOwnerIsInRangeAndBalanced() {
+		final int shards = 4;
+		final int[] owned = new int[shards];
+		for (int i = 0; i < 10_000; ++i) {
+			final int owner = ShardClient.owner(ShardClient.fingerprint(M, Arrays.asList("{V0} == " + i)), shards);
+			assertTrue(owner >= 0 && owner < shards);
+			++owned[owner];
+		}
+		for (int count : owned) {
+			assertTrue(count > 2000);
+		}
+		assertEquals(0, ShardClient.owner(-1L, 1));
+	}
+
+	@Test
+	public void testOwnsEverythingWhenAlone() {
+		final ShardClient client = new ShardClient("127.0.0.1:1", 1, 4, new CoverageSet());
+		client.setSplitPaths(true);
+		for (int i = 0; i < 100; ++i) {
+			assertTrue(client.owns(M, Arrays.asList("{V0} == " + i)));
+		}
+	}
+
+	@Test
+	public void testExchangeWithCoordinator() throws IOException, InterruptedException {
+		try (final ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			final CoverageSet coverage = new CoverageSet();
+			final ShardClient client = new ShardClient(server.getInetAddress().getHostAddress() + ":" + server.getLocalPort(), 1, 4, coverage);
+			client.start();
+			try (final Socket socket = server.accept()) {
+				final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				assertEquals(ShardCoordinator.MSG_HELLO, in.readByte());
+				assertEquals(1, in.readInt());
+
+				//another shard explored a path condition and covered a branch
+				final List<String> explored = Arrays.asList("{V0} > 0", "{V1} == 2");
+				final List<Long> prefixes = new ArrayList<>();
+				for (long fingerprint : ShardClient.prefixFingerprints(M, explored)) {
+					prefixes.add(fingerprint);
+				}
+				ShardCoordinator.writePaths(out, prefixes);
+				ShardCoordinator.writeCoverage(out, Arrays.asList(M + ":1:5"));
+				out.flush();
+				waitUntil(() -> client.getReceivedPaths() == 2 && client.getReceivedBranches() == 1);
+				assertTrue(coverage.covers(M + ":1:5"));
+				assertTrue(client.isKnownElsewhere(M, explored.subList(0, 1)));
+				assertTrue(client.isKnownElsewhere(M, explored));
+				assertFalse(client.isKnownElsewhere(M, Arrays.asList("{V0} > 0", "{V1} != 2")));
+				assertFalse(client.isKnownElsewhere(N, explored));
+				assertEquals(2, client.getSuppressed());
+
+				//this shard explores a path condition
+				client.publishExplored(M, Arrays.asList("{V3} == null"));
+				assertEquals(ShardCoordinator.MSG_PATHS, in.readByte());
+				assertEquals(Arrays.asList(ShardClient.fingerprint(M, Arrays.asList("{V3} == null"))), ShardCoordinator.readPaths(in));
+
+				//once connected, the shard owns only its share of the path conditions
+				client.setSplitPaths(true);
+				for (int i = 0; i < 100; ++i) {
+					final List<String> pc = Arrays.asList("{V0} == " + i);
+					assertEquals(ShardClient.owner(ShardClient.fingerprint(M, pc), 4) == 1, client.owns(M, pc));
+				}
+
+				client.close(this.tmp.getRoot().toPath());
+				assertEquals(ShardCoordinator.MSG_BYE, in.readByte());
+			}
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tardis.framework.InputOutputBuffer;
+
+public class SpillingInputOutputBufferTest extends InputOutputBufferContractTest {
+	private static final Codec<String> STRING_CODEC = new Codec<String>() {
+		@Override
+		public void encode(String item, DataOutput out) throws IOException {
+			Codec.writeString(item, out);
+		}
+
+		@Override
+		public String decode(DataInput in) throws IOException {
+			return Codec.readString(in);
+		}
+	};
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Override
+	protected InputOutputBuffer<String> makeBuffer() {
+		//a small hot capacity, so most items are spilled
+		return new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 2);
+	}
+
+	private static List<String> items(int n) {
+		final List<String> retVal = new ArrayList<>();
+		for (int i = 0; i < n; ++i) {
+			retVal.add("item" + i);
+		}
+		return retVal;
+	}
+
+	private int filesIn(File dir) {
+		int retVal = 0;
+		for (File f : dir.listFiles()) {
+			retVal += (f.isDirectory() ? filesIn(f) : 1);
+		}
+		return retVal;
+	}
+
+	@Test
+	public void testNoSpillBelowCapacity() {
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 10);
+		for (String s : items(10)) {
+			b.add(s);
+		}
+		assertEquals(10, b.size());
+		assertEquals(0, b.getTotalSpilled());
+		assertEquals(0, this.tmp.getRoot().listFiles().length);
+	}
+
+	@Test
+	public void testFifoAcrossSpill() throws InterruptedException {
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 3);
+		final List<String> expected = items(20);
+		for (String s : expected.subList(0, 10)) {
+			b.add(s);
+		}
+		assertEquals(7, b.getTotalSpilled());
+		assertEquals(10, b.size());
+		assertTrue(filesIn(this.tmp.getRoot()) > 0);
+
+		//polls some, then adds more while items are on disk
+		final List<String> polled = new ArrayList<>();
+		for (int i = 0; i < 5; ++i) {
+			polled.add(b.poll(0, TimeUnit.NANOSECONDS));
+		}
+		for (String s : expected.subList(10, 20)) {
+			b.add(s);
+		}
+		assertEquals(15, b.size());
+		b.drainTo(polled, Integer.MAX_VALUE);
+		assertEquals(expected, polled);
+		assertTrue(b.isEmpty());
+		assertNull(b.poll(0, TimeUnit.NANOSECONDS));
+		assertEquals(0, filesIn(this.tmp.getRoot()));
+	}
+
+	@Test
+	public void testRefillAcrossSegments() throws InterruptedException {
+		//every record of "itemN" takes 4 + 2 + 5 bytes, so 
+		//a segment of 32 bytes holds two of them
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 2, () -> { }, 32);
+		final List<String> expected = items(10);
+		for (String s : expected) {
+			b.add(s);
+		}
+		assertEquals(8, b.getTotalSpilled());
+		assertEquals(4, filesIn(this.tmp.getRoot()));
+		assertEquals(expected, b.snapshot());
+
+		//a segment file is deleted as soon as its items are back in memory
+		final List<String> polled = new ArrayList<>();
+		for (int i = 0; i < 4; ++i) {
+			polled.add(b.poll(0, TimeUnit.NANOSECONDS));
+		}
+		assertEquals(3, filesIn(this.tmp.getRoot()));
+		b.drainTo(polled, Integer.MAX_VALUE);
+		assertEquals(expected, polled);
+		assertEquals(0, filesIn(this.tmp.getRoot()));
+	}
+
+	@Test
+	public void testSnapshotIncludesSpilledItems() throws InterruptedException {
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 2);
+		for (String s : items(6)) {
+			b.add(s);
+		}
+		b.poll(0, TimeUnit.NANOSECONDS);
+		assertEquals(items(6).subList(1, 6), b.snapshot());
+		assertEquals(5, b.size());
+	}
+
+	@Test
+	public void testStatistics() throws InterruptedException {
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 2);
+		for (String s : items(5)) {
+			b.add(s);
+		}
+		b.drainTo(new ArrayList<>(), Integer.MAX_VALUE);
+		for (String s : items(4)) {
+			b.add(s);
+		}
+		assertEquals(5, b.getTotalSpilled());
+		assertEquals(3, b.getMaxSpilled());
+	}
+
+	@Test
+	public void testCloseDeletesSegments() {
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(STRING_CODEC, this.tmp.getRoot().toPath(), 1);
+		for (String s : items(5)) {
+			b.add(s);
+		}
+		assertTrue(filesIn(this.tmp.getRoot()) > 0);
+		b.close();
+		assertEquals(0, this.tmp.getRoot().listFiles().length);
+		assertEquals(1, b.size());
+		assertFalse(b.isEmpty());
+	}
+
+	@Test
+	public void testUnreadableItemIsReported() throws InterruptedException {
+		final Codec<String> failingCodec = new Codec<String>() {
+			@Override
+			public void encode(String item, DataOutput out) throws IOException {
+				STRING_CODEC.encode(item, out);
+			}
+
+			@Override
+			public String decode(DataInput in) throws IOException {
+				final String retVal = STRING_CODEC.decode(in);
+				if (retVal.equals("item2")) {
+					throw new IOException("unreadable");
+				}
+				return retVal;
+			}
+		};
+		final AtomicInteger lost = new AtomicInteger(0);
+		final SpillingInputOutputBuffer<String> b = new SpillingInputOutputBuffer<>(failingCodec, this.tmp.getRoot().toPath(), 1, lost::incrementAndGet);
+		for (String s : items(4)) {
+			b.add(s);
+		}
+		final List<String> drained = new ArrayList<>();
+		b.drainTo(drained, Integer.MAX_VALUE);
+		assertEquals(Arrays.asList("item0", "item1", "item3"), drained);
+		assertEquals(1, lost.get());
+		assertTrue(b.isEmpty());
+	}
+}
@@ -0,0 +1,70 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class UtilTest {
+	/**
+	 * A class whose constant pool has entries of many kinds.
+	 */
+	static final class Sample {
+		static final long LONG = 123456789012345L;
+		static final double DOUBLE = 3.14;
+
+		int m(String s) {
+			return s.length() + (int) LONG;
+		}
+
+		static double m(double d) {
+			final Supplier<String> supplier = () -> "text" + d;
+			return d * DOUBLE + supplier.get().length();
+		}
+	}
+
+	private static byte[] classFileOf(Class<?> clazz) throws IOException {
+		final String name = clazz.getName();
+		try (final InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, read);
+			}
+			return bytes.toByteArray();
+		}
+	}
+
+	@Test
+	public void testClassFileDeclaresMethod() throws IOException {
+		final byte[] classFile = classFileOf(Sample.class);
+		assertTrue(Util.classFileDeclaresMethod(classFile, "m", "(Ljava/lang/String;)I"));
+		assertTrue(Util.classFileDeclaresMethod(classFile, "m", "(D)D"));
+		assertTrue(Util.classFileDeclaresMethod(classFile, "<init>", "()V"));
+		assertFalse(Util.classFileDeclaresMethod(classFile, "m", "()V"));
+		assertFalse(Util.classFileDeclaresMethod(classFile, "n", "(Ljava/lang/String;)I"));
+
+		//names that are in the constant pool but are not methods of the class
+		assertFalse(Util.classFileDeclaresMethod(classFile, "length", "()I"));
+		assertFalse(Util.classFileDeclaresMethod(classFile, "LONG", "J"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testBadMagicNumber() throws IOException {
+		Util.classFileDeclaresMethod(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, "m", "()V");
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedClassFile() throws IOException {
+		final byte[] classFile = classFileOf(Sample.class);
+		final byte[] truncated = new byte[classFile.length / 2];
+		System.arraycopy(classFile, 0, truncated, 0, truncated.length);
+		Util.classFileDeclaresMethod(truncated, "zzz", "()V");
+	}
+}
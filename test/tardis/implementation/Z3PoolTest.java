@@ -0,0 +1,72 @@
+package tardis.implementation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+
+public class Z3PoolTest {
+	/**
+	 * Syncs some assertions with a solver that records 
+	 * the operations it receives.
+	 */
+	private static List<String> sync(Z3Pool.Assertions<String> assertions, int expectedAsserted) throws InvalidInputException, DecisionException {
+		final List<String> operations = new ArrayList<>();
+		assertEquals(expectedAsserted, assertions.sync(() -> operations.add("clear"), c -> operations.add("push " + c)));
+		return operations;
+	}
+
+	private static void request(Z3Pool.Assertions<String> assertions, String... clauses) {
+		assertions.clearRequested();
+		assertions.requested.addAll(Arrays.asList(clauses));
+	}
+
+	@Test
+	public void testAssertsOnlyTheMissingSuffix() throws InvalidInputException, DecisionException {
+		final Z3Pool.Assertions<String> assertions = new Z3Pool.Assertions<>();
+		request(assertions, "a", "b");
+		assertEquals(Arrays.asList("push a", "push b"), sync(assertions, 2));
+		assertions.requested.add("c");
+		assertEquals(Arrays.asList("push c"), sync(assertions, 1));
+
+		//the engine resyncs with a longer trace
+		request(assertions, "a", "b", "c", "d");
+		assertEquals(Arrays.asList("push d"), sync(assertions, 1));
+		assertEquals(Arrays.asList(), sync(assertions, 0));
+		assertEquals(Arrays.asList("a", "b", "c", "d"), assertions.asserted);
+	}
+
+	@Test
+	public void testRebuildsWhenRequestedDiverge() throws InvalidInputException, DecisionException {
+		final Z3Pool.Assertions<String> assertions = new Z3Pool.Assertions<>();
+		request(assertions, "a", "b");
+		sync(assertions, 2);
+		request(assertions, "a", "x");
+		assertEquals(Arrays.asList("clear", "push a", "push x"), sync(assertions, 2));
+		assertEquals(Arrays.asList("a", "x"), assertions.asserted);
+	}
+
+	@Test
+	public void testRebuildsWhenRequestedShrink() throws InvalidInputException, DecisionException {
+		final Z3Pool.Assertions<String> assertions = new Z3Pool.Assertions<>();
+		request(assertions, "a", "b", "c");
+		sync(assertions, 3);
+		request(assertions, "a");
+		assertEquals(Arrays.asList("clear", "push a"), sync(assertions, 1));
+		request(assertions);
+		assertEquals(Arrays.asList("clear"), sync(assertions, 0));
+	}
+
+	@Test(expected = DecisionException.class)
+	public void testFailureIsPropagated() throws InvalidInputException, DecisionException {
+		final Z3Pool.Assertions<String> assertions = new Z3Pool.Assertions<>();
+		request(assertions, "a");
+		assertions.sync(() -> { }, c -> { throw new DecisionException("solver crashed"); });
+	}
+}